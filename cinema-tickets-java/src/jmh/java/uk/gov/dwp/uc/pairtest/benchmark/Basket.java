@@ -0,0 +1,64 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.util.Arrays;
+
+/**
+ * Representative basket shapes used across the benchmarks
+ * <p>
+ * Covers 1 to 25 tickets spread across 1 to many requests, plus a few baskets the validator rejects
+ */
+public enum Basket {
+  // Valid baskets
+  SINGLE_ADULT(true, req(Type.ADULT, 1)),
+  COUPLE(true, req(Type.ADULT, 2)),
+  FAMILY(true, req(Type.ADULT, 2), req(Type.CHILD, 2), req(Type.INFANT, 1)),
+  SCHOOL_TRIP(true, req(Type.ADULT, 5), req(Type.CHILD, 20)),
+  MAX_SPLIT(true, split(25)),
+
+  // Rejected baskets
+  TOO_MANY(false, req(Type.ADULT, 20), req(Type.CHILD, 6)),
+  NO_ADULT(false, req(Type.CHILD, 3)),
+  TOO_MANY_INFANTS(false, req(Type.ADULT, 1), req(Type.INFANT, 2));
+
+  private final boolean valid;
+  private final TicketTypeRequest[] requests;
+
+  Basket(boolean valid, TicketTypeRequest... requests) {
+    this.valid = valid;
+    this.requests = requests;
+  }
+
+  /**
+   * @return true if the validator should accept this basket
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * @return a copy of the ticket requests making up this basket
+   */
+  public TicketTypeRequest[] requests() {
+    return Arrays.copyOf(requests, requests.length);
+  }
+
+  private static TicketTypeRequest req(Type type, int noOfTickets) {
+    return new TicketTypeRequest(type, noOfTickets);
+  }
+
+  /**
+   * Spreads the given number of tickets across one request per ticket
+   * (rotating types, but keeping enough adults for the infants)
+   */
+  private static TicketTypeRequest[] split(int tickets) {
+    TicketTypeRequest[] requests = new TicketTypeRequest[tickets];
+    for (int i = 0; i < tickets; i++) {
+      Type type = i % 3 == 1 ? Type.CHILD : i % 3 == 2 ? Type.INFANT : Type.ADULT;
+      requests[i] = req(type, 1);
+    }
+    return requests;
+  }
+}
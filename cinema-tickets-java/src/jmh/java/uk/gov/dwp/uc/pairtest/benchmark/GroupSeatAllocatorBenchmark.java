@@ -0,0 +1,66 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.seat.GroupSeatAllocator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group allocation latency as the house fills up
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupSeatAllocatorBenchmark {
+
+  @Param({"0", "50", "90"})
+  private int percentSold;
+
+  @Param({"4"})
+  private int groupSize;
+
+  private GroupSeatAllocator allocator;
+
+  @Setup
+  public void setUp() {
+    int rows = 40;
+    int seatsPerRow = 30;
+    allocator = new GroupSeatAllocator(rows, seatsPerRow);
+
+    // Sell out, then free random single seats until the house is as full as wanted
+    // (freeing the whole of the last row so the group always fits somewhere)
+    for (int row = 0; row < rows; row++) {
+      allocator.reserve(seatsPerRow);
+    }
+    for (int seat = (rows - 1) * seatsPerRow; seat < rows * seatsPerRow; seat++) {
+      allocator.release(seat);
+    }
+
+    Random random = new Random(42);
+    int target = rows * seatsPerRow * (100 - percentSold) / 100;
+    while (allocator.getAvailable() < target) {
+      allocator.release(random.nextInt((rows - 1) * seatsPerRow));
+    }
+  }
+
+  @Benchmark
+  public int[] reserveAndRelease() {
+    int[] seats = allocator.reserve(groupSize);
+    allocator.release(seats);
+    return seats;
+  }
+}
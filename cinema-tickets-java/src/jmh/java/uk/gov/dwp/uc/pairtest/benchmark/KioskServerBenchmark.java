@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+import uk.gov.dwp.uc.pairtest.server.KioskProtocol;
+import uk.gov.dwp.uc.pairtest.server.KioskServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A kiosk buying tickets over a loopback connection to a {@link KioskServer}, one request at a time
+ * <p>
+ * Run through {@link BenchmarkRunner}, the GC profiler's gc.alloc.rate.norm is what each message costs in allocation,
+ * the server, the service and the client together
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KioskServerBenchmark {
+
+  private KioskServer server;
+  private SocketChannel kiosk;
+  private final ByteBuffer request = ByteBuffer.allocateDirect(KioskProtocol.FRAME_LENGTH);
+  private final ByteBuffer response = ByteBuffer.allocateDirect(KioskProtocol.RESPONSE_LENGTH);
+
+  @Setup
+  public void setUp() throws IOException {
+    server = new KioskServer(
+        new TicketServiceImpl(new TicketPaymentServiceImpl(), new SeatReservationServiceImpl()),
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Executors.newVirtualThreadPerTaskExecutor(), 16);
+    server.start();
+    kiosk = SocketChannel.open(server.getAddress());
+    KioskProtocol.putRequest(request, (short) 1, 1L, TicketBasket.of(2, 1, 0));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    kiosk.close();
+    server.close();
+  }
+
+  @Benchmark
+  public byte purchase() throws IOException {
+    request.rewind();
+    while (request.hasRemaining()) {
+      kiosk.write(request);
+    }
+    response.clear();
+    while (response.hasRemaining()) {
+      if (kiosk.read(response) < 0) {
+        throw new IOException("Kiosk server closed the connection");
+      }
+    }
+    return response.get(2);
+  }
+}
@@ -0,0 +1,134 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketCostCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.seat.SeatReservationCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.table.TableDrivenTicketRules;
+import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
+import uk.gov.dwp.uc.pairtest.domain.validator.TicketRequestsValidatorImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the individual providers used by the purchase pipeline, in isolation
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderBenchmark {
+
+  @Param
+  private Basket basket;
+
+  private final TicketRequestsValidator validator = new TicketRequestsValidatorImpl();
+  private final TicketCostCalculator costCalculator = new TicketCostCalculatorImpl();
+  private final SeatReservationCalculator seatCalculator = new SeatReservationCalculatorImpl();
+  private final TableDrivenTicketRules tableRules = new TableDrivenTicketRules();
+
+  private TicketTypeRequest[] requests;
+  private BasketSummary summary;
+
+  @Setup
+  public void setUp() {
+    requests = basket.requests();
+    summary = BasketSummary.of(requests);
+  }
+
+  @Benchmark
+  public Object validate() {
+    try {
+      validator.validate(requests);
+      return null;
+    } catch (InvalidPurchaseException e) {
+      // Rejections are part of the measurement
+      return e;
+    }
+  }
+
+  @Benchmark
+  public int calculateCost() {
+    return costCalculator.calculateCost(requests);
+  }
+
+  @Benchmark
+  public int calculateSeats() {
+    return seatCalculator.calculateSeats(requests);
+  }
+
+  @Benchmark
+  public int count() {
+    return TicketUtils.count(Type.CHILD, requests);
+  }
+
+  @Benchmark
+  public BasketSummary summarise() {
+    return BasketSummary.of(requests);
+  }
+
+  @Benchmark
+  public Object validateSummary() {
+    try {
+      validator.validate(summary);
+      return null;
+    } catch (InvalidPurchaseException e) {
+      // Rejections are part of the measurement
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object checkSummary() {
+    return validator.check(summary);
+  }
+
+  @Benchmark
+  public int calculateCostSummary() {
+    return costCalculator.calculateCost(summary);
+  }
+
+  @Benchmark
+  public int calculateSeatsSummary() {
+    return seatCalculator.calculateSeats(summary);
+  }
+
+  @Benchmark
+  public Object validateTable() {
+    try {
+      tableRules.validate(summary);
+      return null;
+    } catch (InvalidPurchaseException e) {
+      // Rejections are part of the measurement
+      return e;
+    }
+  }
+
+  @Benchmark
+  public int calculateCostTable() {
+    return tableRules.calculateCost(summary);
+  }
+
+  @Benchmark
+  public int calculateSeatsTable() {
+    return tableRules.calculateSeats(summary);
+  }
+}
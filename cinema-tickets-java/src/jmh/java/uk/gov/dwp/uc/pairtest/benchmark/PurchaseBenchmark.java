@@ -0,0 +1,63 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end benchmark of {@link TicketServiceImpl#purchaseTickets}
+ * <p>
+ * The third party services are the supplied no-op implementations, so this measures our own overhead only
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PurchaseBenchmark {
+
+  @Param
+  private Basket basket;
+
+  private TicketService ticketService;
+  private TicketTypeRequest[] requests;
+
+  @Setup
+  public void setUp() {
+    ticketService = new TicketServiceImpl(new TicketPaymentServiceImpl(), new SeatReservationServiceImpl());
+    requests = basket.requests();
+  }
+
+  @Benchmark
+  public Object purchaseTickets() {
+    try {
+      ticketService.purchaseTickets(1L, requests);
+      return null;
+    } catch (InvalidPurchaseException e) {
+      // Rejections are part of the measurement
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object tryPurchase() {
+    return ticketService.tryPurchase(1L, requests);
+  }
+}
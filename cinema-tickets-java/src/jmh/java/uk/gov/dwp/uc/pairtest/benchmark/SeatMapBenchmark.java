@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.seat.SeatMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads reserving and releasing seats for the same (popular) screening
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class SeatMapBenchmark {
+
+  @Param({"4"})
+  private int seats;
+
+  private SeatMap seatMap;
+
+  @Setup
+  public void setUp() {
+    // Large enough that every thread always finds its seats
+    seatMap = new SeatMap(4096);
+  }
+
+  @Benchmark
+  public int[] reserveAndRelease() {
+    int[] reserved = seatMap.reserve(seats);
+    seatMap.release(reserved);
+    return reserved;
+  }
+}
@@ -4,4 +4,23 @@ public interface TicketPaymentService {
 
     void makePayment(long accountId, int totalAmountToPay);
 
+    /**
+     * Take several payments in one call.
+     * The arrays are parallel, entry i of each describes one payment.
+     * By default this falls back to one makePayment call per payment.
+     */
+    default void makePayments(long[] accountIds, int[] totalAmountsToPay) {
+        for (int i = 0; i < accountIds.length; i++) {
+            makePayment(accountIds[i], totalAmountsToPay[i]);
+        }
+    }
+
+    /**
+     * Refund a payment, in full.
+     * By default refunds aren't supported, so a purchase that fails after payment is left for follow up by hand.
+     */
+    default void refund(long accountId, int totalAmountToRefund) {
+        throw new UnsupportedOperationException("Refunds not supported");
+    }
+
 }
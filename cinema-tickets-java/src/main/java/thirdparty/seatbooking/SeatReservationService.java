@@ -4,4 +4,23 @@ public interface SeatReservationService {
 
     void reserveSeat(long accountId, int totalSeatsToAllocate);
 
+    /**
+     * Make several reservations in one call.
+     * The arrays are parallel, entry i of each describes one reservation.
+     * By default this falls back to one reserveSeat call per reservation.
+     */
+    default void reserveSeats(long[] accountIds, int[] totalSeatsToAllocate) {
+        for (int i = 0; i < accountIds.length; i++) {
+            reserveSeat(accountIds[i], totalSeatsToAllocate[i]);
+        }
+    }
+
+    /**
+     * Release seats reserved for the account.
+     * By default releasing seats isn't supported, so a purchase that fails after reserving is left for follow up by hand.
+     */
+    default void releaseSeat(long accountId, int totalSeatsToRelease) {
+        throw new UnsupportedOperationException("Releasing seats not supported");
+    }
+
 }
@@ -1,10 +1,32 @@
 package uk.gov.dwp.uc.pairtest;
 
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface TicketService {
 
     void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException;
 
+    void purchaseTickets(String idempotencyKey, Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException;
+
+    void purchaseTickets(long accountId, TicketBasket basket) throws InvalidPurchaseException;
+
+    PurchaseReceipt quote(long accountId, TicketBasket basket) throws InvalidPurchaseException;
+
+    PurchaseResult tryPurchase(Long accountId, TicketTypeRequest... ticketTypeRequests);
+
+    PurchaseResult tryPurchase(String idempotencyKey, Long accountId, TicketTypeRequest... ticketTypeRequests);
+
+    List<PurchaseOutcome> purchaseTicketsBatch(List<PurchaseOrder> orders);
+
+    CompletableFuture<PurchaseReceipt> purchaseTicketsAsync(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException;
+
 }
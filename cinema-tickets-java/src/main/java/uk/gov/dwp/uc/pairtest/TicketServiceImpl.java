@@ -2,16 +2,51 @@ package uk.gov.dwp.uc.pairtest;
 
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.domain.limit.AdmissionLimiter;
+import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 import uk.gov.dwp.uc.pairtest.factory.AccountValidatorFactory;
+import uk.gov.dwp.uc.pairtest.factory.PurchaseLimiterFactory;
 import uk.gov.dwp.uc.pairtest.factory.SeatReservationCalculatorFactory;
 import uk.gov.dwp.uc.pairtest.factory.TicketCostCalculatorFactory;
 import uk.gov.dwp.uc.pairtest.factory.TicketRequestsValidatorFactory;
+import uk.gov.dwp.uc.pairtest.idempotency.IdempotencyCache;
+import uk.gov.dwp.uc.pairtest.jfr.PaymentCallEvent;
+import uk.gov.dwp.uc.pairtest.jfr.PurchaseEvent;
+import uk.gov.dwp.uc.pairtest.jfr.SeatReservationEvent;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseStep;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseStage;
 import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
 import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
 import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
 import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
+import uk.gov.dwp.uc.pairtest.saga.Compensation;
+import uk.gov.dwp.uc.pairtest.saga.Compensator;
+import uk.gov.dwp.uc.pairtest.saga.PurchaseSaga;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -19,6 +54,27 @@ import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
  */
 public class TicketServiceImpl implements TicketService {
 
+  /**
+   * Runs each asynchronous stage on its own virtual thread, unless told otherwise
+   */
+  private static final Executor DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Shared, so the idempotency digest doesn't copy the enum values on each call
+   */
+  private static final Type[] TYPES = Type.values();
+
+  /**
+   * Default time allowed for each of the third party calls on the asynchronous path
+   */
+  private static final Duration DEFAULT_STAGE_TIMEOUT = Duration.ofSeconds(10);
+
+  /**
+   * Prefix of the system properties configuring the idempotency keys remembered
+   * (maxKeys, and ttlSeconds, how long each is remembered)
+   */
+  public static final String IDEMPOTENCY_PROPERTY_PREFIX = "cinema-tickets.idempotency.";
+
   // The external service providers
   private final TicketPaymentService tps;
   private final SeatReservationService srs;
@@ -28,20 +84,74 @@ public class TicketServiceImpl implements TicketService {
   private final TicketRequestsValidator trv = TicketRequestsValidatorFactory.getTicketRequestsValidator();
   private final SeatReservationCalculator src = SeatReservationCalculatorFactory.getSeatReservationCalculator();
   private final TicketCostCalculator tcc = TicketCostCalculatorFactory.getTicketCostProvider();
+  private final PurchaseLimiter pl = PurchaseLimiterFactory.getPurchaseLimiter();
+
+  // Asynchronous path settings
+  private final Executor executor;
+  private final Duration paymentTimeout;
+  private final Duration reservationTimeout;
+
+  // Stage latencies and outcome counts
+  private final PurchaseMetrics metrics;
+
+  // Admission control, ahead of everything else
+  private final AdmissionLimiter admission;
+
+  // Undoes the completed steps of failed purchases
+  private final Compensator compensator;
+
+  // Durable record of the steps each purchase reaches
+  private final PurchaseJournal journal;
+
+  // Outcomes by idempotency key
+  // (successes and final rejections are remembered, anything worth retrying is forgotten so a retry runs again)
+  // Keys are scoped to the account (so each call builds the account's key), and a key reused for a different basket
+  // is rejected
+  private final IdempotencyCache<PurchaseResult> idempotency = new IdempotencyCache<>(
+      Integer.getInteger(IDEMPOTENCY_PROPERTY_PREFIX + "maxKeys", 100_000),
+      Duration.ofSeconds(Long.getLong(IDEMPOTENCY_PROPERTY_PREFIX + "ttlSeconds", 24 * 60 * 60)),
+      result -> result.isSuccess() || !result.getReason().isRetryable(),
+      e -> e instanceof InvalidPurchaseException && ((InvalidPurchaseException) e).getReason() != null
+          && !((InvalidPurchaseException) e).getReason().isRetryable(),
+      key -> new InvalidPurchaseException(RejectionReason.KEY_REUSED));
 
   /**
-   * Constructor
+   * Constructor, with the defaults of {@link #builder}
    *
    * @param tps the payment service
    * @param srs the reservation service
    */
   public TicketServiceImpl(TicketPaymentService tps, SeatReservationService srs) {
-    this.tps = tps;
-    this.srs = srs;
+    this(builder(tps, srs));
+  }
+
+  private TicketServiceImpl(Builder builder) {
+    this.tps = builder.tps;
+    this.srs = builder.srs;
+    this.executor = builder.executor;
+    this.paymentTimeout = builder.paymentTimeout;
+    this.reservationTimeout = builder.reservationTimeout;
+    this.metrics = builder.metrics != null ? builder.metrics : PurchaseMetrics.getShared();
+    this.admission = builder.admission != null ? builder.admission : AdmissionLimiter.getShared();
+    this.compensator = builder.compensator != null ? builder.compensator : Compensator.getShared();
+    this.journal = builder.journal;
+  }
+
+  /**
+   * A builder for a service, which by default runs the asynchronous stages on virtual threads, allows each of them
+   * ten seconds, records to the shared metrics, applies the shared admission limits, runs compensations on the shared
+   * compensator (all three registered with JMX), and has no journal
+   *
+   * @param tps the payment service
+   * @param srs the reservation service
+   * @return the builder
+   */
+  public static Builder builder(TicketPaymentService tps, SeatReservationService srs) {
+    return new Builder(tps, srs);
   }
 
   /**
-   * Should only have private methods other than the one below.
+   * Should only have private methods other than the ones below.
    */
 
   /**
@@ -55,25 +165,687 @@ public class TicketServiceImpl implements TicketService {
    */
   @Override
   public void purchaseTickets(Long accountId, TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+    PurchaseEvent event = new PurchaseEvent();
+    event.begin();
 
-    // Reject invalid accounts
+    try {
+      PurchaseReceipt receipt = purchase(accountId, BasketSummary.of(ticketTypeRequests));
+      event.commit(accountId, ticketTypeRequests, receipt.getTotalAmountPaid(), receipt.getSeatsReserved(),
+          receipt.getPriceVersion(), PurchaseEvent.SUCCESS);
+    } catch (RuntimeException e) {
+      event.commit(accountId, ticketTypeRequests, 0, 0, 0, PurchaseEvent.outcome(e));
+      throw e;
+    }
+  }
+
+  /**
+   * As {@link #purchaseTickets(Long, TicketTypeRequest...)} for a basket already counted by type
+   *
+   * @param accountId the account id
+   * @param basket    the tickets
+   * @throws InvalidPurchaseException on errors
+   */
+  @Override
+  public void purchaseTickets(long accountId, TicketBasket basket) throws InvalidPurchaseException {
+    PurchaseEvent event = new PurchaseEvent();
+    event.begin();
+
+    BasketSummary summary = basket.getSummary();
+    try {
+      PurchaseReceipt receipt = purchase(accountId, summary);
+      event.commit(accountId, summary, receipt.getTotalAmountPaid(), receipt.getSeatsReserved(),
+          receipt.getPriceVersion(), PurchaseEvent.SUCCESS);
+    } catch (RuntimeException e) {
+      event.commit(accountId, summary, 0, 0, 0, PurchaseEvent.outcome(e));
+      throw e;
+    }
+  }
+
+  /**
+   * Works out what a purchase would cost, and the seats it would reserve, without buying anything.
+   * The account and requests are validated as for a purchase, but the admission and purchase limits aren't used up.
+   *
+   * @param accountId the account id
+   * @param basket    the tickets
+   * @return the receipt the purchase would produce at the current prices
+   * @throws InvalidPurchaseException if the purchase would be invalid
+   */
+  @Override
+  public PurchaseReceipt quote(long accountId, TicketBasket basket) throws InvalidPurchaseException {
+    BasketSummary summary = basket.getSummary();
     av.validate(accountId);
+    trv.validate(summary);
+
+    long quote = tcc.quote(summary);
+    return new PurchaseReceipt(accountId, PriceTable.costOf(quote), src.calculateSeats(summary),
+        PriceTable.versionOf(quote));
+  }
+
+  /**
+   * As {@link #purchaseTickets(Long, TicketTypeRequest...)} but only once for each idempotency key.
+   * A repeat of an earlier call gets the same outcome without buying the tickets again (a repeat of a call still
+   * in progress waits for it). Calls that failed, other than by a final rejection, can be retried with the same key.
+   * Keys are only unique within an account, and reusing one for a different basket is rejected.
+   *
+   * @param idempotencyKey     the key, unique to the purchase, or null to always purchase
+   * @param accountId          the account id
+   * @param ticketTypeRequests the ticket requests
+   * @throws InvalidPurchaseException on errors
+   */
+  @Override
+  public void purchaseTickets(String idempotencyKey, Long accountId, TicketTypeRequest... ticketTypeRequests)
+      throws InvalidPurchaseException {
+    if (idempotencyKey == null) {
+      purchaseTickets(accountId, ticketTypeRequests);
+      return;
+    }
+
+    PurchaseResult result = idempotency.execute(accountId + ":" + idempotencyKey,
+        digest(accountId, ticketTypeRequests), () -> {
+      purchaseTickets(accountId, ticketTypeRequests);
+      return PurchaseResult.SUCCESS;
+    });
+
+    // Rejected when first tried through tryPurchase
+    // (the message details aren't kept, just the reason)
+    if (!result.isSuccess()) {
+      throw new InvalidPurchaseException(result.getReason());
+    }
+  }
+
+  /**
+   * As {@link #purchaseTickets} but without blocking on the third party calls.
+   * Validation and pricing happen on the calling thread, so invalid requests are rejected immediately.
+   * The payment and then the reservation run as separate stages on the executor, each with its own timeout.
+   *
+   * @param accountId          the account id
+   * @param ticketTypeRequests the ticket requests
+   * @return a future completed with the receipt once the seats are reserved, or exceptionally
+   * if either stage fails or times out
+   * @throws InvalidPurchaseException if the purchase is invalid
+   */
+  @Override
+  public CompletableFuture<PurchaseReceipt> purchaseTicketsAsync(Long accountId, TicketTypeRequest... ticketTypeRequests)
+      throws InvalidPurchaseException {
+
+    PurchaseEvent event = new PurchaseEvent();
+    event.begin();
+
+    // Validate and work out what's needed (synchronously, to fail fast)
+    BasketSummary basket = BasketSummary.of(ticketTypeRequests);
+    PurchaseReceipt receipt;
+    try {
+      receipt = prepare(accountId, basket);
+    } catch (InvalidPurchaseException e) {
+      event.commit(accountId, ticketTypeRequests, 0, 0, 0, PurchaseEvent.outcome(e));
+      throw e;
+    }
+
+    // Pay, then reserve
+    // (each step's compensation is registered when its call returns, so one that completes after timing out is still
+    // undone, and before the step is journalled, so it's undone even if the journal can't be written)
+    // (the journal is begun on the calling thread, it only waits for the local disk)
+    long purchaseId;
+    try {
+      purchaseId = journal.begin(accountId, basket, receipt.getTotalAmountPaid(), receipt.getSeatsReserved());
+    } catch (RuntimeException e) {
+      pl.release(accountId, basket);
+      event.commit(accountId, ticketTypeRequests, 0, 0, 0, PurchaseEvent.outcome(e));
+      throw e;
+    }
+    PurchaseSaga saga = new PurchaseSaga(compensator);
+    AtomicBoolean paid = new AtomicBoolean();
+    return stage(() -> {
+      pay(accountId, receipt.getTotalAmountPaid());
+      paid.set(true);
+      saga.completed(refund(accountId, receipt.getTotalAmountPaid()));
+      journal.advance(purchaseId, PurchaseStep.PAID);
+    }, paymentTimeout)
+        .thenCompose(done -> stage(() -> {
+          reserve(accountId, receipt.getSeatsReserved());
+          saga.completed(release(accountId, receipt.getSeatsReserved()));
+        }, reservationTimeout))
+        .whenComplete((reserved, failure) -> {
+          if (failure == null) {
+            journal.advance(purchaseId, PurchaseStep.COMPLETED);
+            metrics.recordSuccess();
+            event.commit(accountId, ticketTypeRequests, receipt.getTotalAmountPaid(), receipt.getSeatsReserved(),
+                receipt.getPriceVersion(), PurchaseEvent.SUCCESS);
+          } else {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            if (paid.get()) {
+              compensate(purchaseId, saga, cause);
+            } else {
+              journal.advance(purchaseId, PurchaseStep.FAILED);
+              saga.abort();
+            }
+            pl.release(accountId, basket);
+            event.commit(accountId, ticketTypeRequests, receipt.getTotalAmountPaid(), 0, receipt.getPriceVersion(),
+                PurchaseEvent.outcome(cause));
+          }
+        })
+        .thenApply(reserved -> receipt);
+  }
+
+  /**
+   * As {@link #purchaseTickets} but reports rejections as a result rather than by throwing,
+   * which is much cheaper when a large share of requests are rejected
+   *
+   * @param accountId          the account id
+   * @param ticketTypeRequests the ticket requests
+   * @return the result, {@link PurchaseResult#SUCCESS} if the tickets were bought
+   */
+  @Override
+  public PurchaseResult tryPurchase(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+    PurchaseEvent event = new PurchaseEvent();
+    event.begin();
+
+    // Turn away purchases over the admission limits
+    if (!admission.tryAdmit(accountId)) {
+      event.commit(accountId, ticketTypeRequests, 0, 0, 0, RejectionReason.RATE_LIMITED.name());
+      return reject(RejectionReason.RATE_LIMITED);
+    }
+
+    // Reject invalid accounts
+    long start = System.nanoTime();
+    RejectionReason reason = av.check(accountId);
+    long accountChecked = System.nanoTime();
+    metrics.record(PurchaseStage.ACCOUNT_VALIDATION, accountChecked - start);
+    if (reason != null) {
+      event.commit(accountId, ticketTypeRequests, 0, 0, 0, reason.name());
+      return reject(reason);
+    }
+
+    // Check the requests against the business logic, then the account's purchase limits
+    BasketSummary basket = BasketSummary.of(ticketTypeRequests);
+    reason = trv.check(basket);
+    if (reason == null) {
+      reason = pl.tryAcquire(accountId, basket);
+    }
+    long requestsChecked = System.nanoTime();
+    metrics.record(PurchaseStage.REQUEST_VALIDATION, requestsChecked - accountChecked);
+    if (reason != null) {
+      event.commit(accountId, ticketTypeRequests, 0, 0, 0, reason.name());
+      return reject(reason);
+    }
+
+    int toPay = 0;
+    int priceVersion = 0;
+    try {
+      // Calculate the cost and the seats required
+      long quote = tcc.quote(basket);
+      toPay = PriceTable.costOf(quote);
+      priceVersion = PriceTable.versionOf(quote);
+      int seatsRequired = src.calculateSeats(basket);
+      metrics.record(PurchaseStage.PRICING, System.nanoTime() - requestsChecked);
+
+      // And call the payment system, then the reservation service
+      payAndReserve(accountId, basket, toPay, seatsRequired);
+
+      metrics.recordSuccess();
+      event.commit(accountId, ticketTypeRequests, toPay, seatsRequired, priceVersion, PurchaseEvent.SUCCESS);
+      return PurchaseResult.SUCCESS;
+    } catch (RuntimeException e) {
+      pl.release(accountId, basket);
+      event.commit(accountId, ticketTypeRequests, toPay, 0, priceVersion, PurchaseEvent.outcome(e));
+
+      // Rejections with a reason (e.g. a service shedding load or timing out) are results like any other
+      if (e instanceof InvalidPurchaseException && ((InvalidPurchaseException) e).getReason() != null) {
+        return reject(((InvalidPurchaseException) e).getReason());
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * As {@link #tryPurchase(Long, TicketTypeRequest...)} but only once for each idempotency key,
+   * see {@link #purchaseTickets(String, Long, TicketTypeRequest...)}
+   *
+   * @param idempotencyKey     the key, unique to the purchase, or null to always purchase
+   * @param accountId          the account id
+   * @param ticketTypeRequests the ticket requests
+   * @return the result, {@link PurchaseResult#SUCCESS} if the tickets were bought
+   */
+  @Override
+  public PurchaseResult tryPurchase(String idempotencyKey, Long accountId, TicketTypeRequest... ticketTypeRequests) {
+    if (idempotencyKey == null) {
+      return tryPurchase(accountId, ticketTypeRequests);
+    }
+
+    try {
+      return idempotency.execute(accountId + ":" + idempotencyKey,
+          digest(accountId, ticketTypeRequests), () -> tryPurchase(accountId, ticketTypeRequests));
+    } catch (InvalidPurchaseException e) {
+      // Rejected when first tried through purchaseTickets
+      if (e.getReason() != null) {
+        return PurchaseResult.rejected(e.getReason());
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Validates and prices every order in one pass and journals the accepted orders together, then takes the payment
+   * and reserves the seats for each accepted order in turn.
+   * Invalid orders fail individually and do not affect the rest of the batch. If a payment or reservation fails,
+   * the whole batch fails, and the orders already paid for are refunded (and any seats already reserved released).
+   *
+   * @param orders the orders
+   * @return the outcome of each order, in the same order as given
+   */
+  @Override
+  public List<PurchaseOutcome> purchaseTicketsBatch(List<PurchaseOrder> orders) {
+    int size = orders.size();
+    List<PurchaseOutcome> outcomes = new ArrayList<>(size);
+
+    // The accepted orders, as parallel arrays for the batched calls
+    long[] accountIds = new long[size];
+    int[] amountsToPay = new int[size];
+    int[] seatsToReserve = new int[size];
+    BasketSummary[] baskets = new BasketSummary[size];
+    int accepted = 0;
+
+    for (PurchaseOrder order : orders) {
+      try {
+        BasketSummary basket = BasketSummary.of(order.getTicketTypeRequests());
+        PurchaseReceipt receipt = prepare(order.getAccountId(), basket);
+
+        baskets[accepted] = basket;
+        accountIds[accepted] = receipt.getAccountId();
+        amountsToPay[accepted] = receipt.getTotalAmountPaid();
+        seatsToReserve[accepted] = receipt.getSeatsReserved();
+        accepted++;
+
+        outcomes.add(PurchaseOutcome.success(order, receipt.getTotalAmountPaid(), receipt.getSeatsReserved(),
+            receipt.getPriceVersion()));
+      } catch (InvalidPurchaseException e) {
+        outcomes.add(PurchaseOutcome.failure(order, e));
+      }
+    }
+
+    // Nothing to pay for or reserve
+    if (accepted == 0) {
+      return outcomes;
+    }
+
+    // Trim to the accepted orders
+    if (accepted < size) {
+      accountIds = Arrays.copyOf(accountIds, accepted);
+      amountsToPay = Arrays.copyOf(amountsToPay, accepted);
+      seatsToReserve = Arrays.copyOf(seatsToReserve, accepted);
+      baskets = Arrays.copyOf(baskets, accepted);
+    }
+
+    // Each order is paid for and reserved on its own, as the services can't say which of a batched call went through,
+    // so when one fails exactly the orders already paid for (and reserved) are undone
+    long[] purchaseIds = null;
+    PurchaseSaga[] sagas = new PurchaseSaga[accepted];
+    try {
+      purchaseIds = journal.beginAll(accountIds, baskets, amountsToPay, seatsToReserve);
+      for (int i = 0; i < accepted; i++) {
+        pay(accountIds[i], amountsToPay[i]);
+        sagas[i] = new PurchaseSaga(compensator);
+        sagas[i].completed(refund(accountIds[i], amountsToPay[i]));
+        journal.advance(purchaseIds[i], PurchaseStep.PAID);
+      }
+      for (int i = 0; i < accepted; i++) {
+        reserve(accountIds[i], seatsToReserve[i]);
+        sagas[i].completed(release(accountIds[i], seatsToReserve[i]));
+      }
+    } catch (RuntimeException e) {
+      if (purchaseIds != null) {
+        abortBatch(purchaseIds, sagas, e);
+      }
+      release(accountIds, baskets);
+      throw e;
+    }
+    journal.advanceAll(purchaseIds, PurchaseStep.COMPLETED);
+
+    for (int i = 0; i < accepted; i++) {
+      metrics.recordSuccess();
+    }
+    return outcomes;
+  }
+
+  /**
+   * Validates and prices the purchase, then calls the payment system and the reservation service
+   *
+   * @param accountId the account id
+   * @param basket    the ticket requests, summarised
+   * @return the receipt
+   * @throws InvalidPurchaseException on errors
+   */
+  private PurchaseReceipt purchase(long accountId, BasketSummary basket) throws InvalidPurchaseException {
+    PurchaseReceipt receipt = prepare(accountId, basket);
+    try {
+      payAndReserve(accountId, basket, receipt.getTotalAmountPaid(), receipt.getSeatsReserved());
+    } catch (RuntimeException e) {
+      pl.release(accountId, basket);
+      throw e;
+    }
+    metrics.recordSuccess();
+    return receipt;
+  }
+
+  /**
+   * Checks the admission limits, validates the account and requests, then works out the cost and seats required
+   *
+   * @param accountId the account id
+   * @param basket    the ticket requests, summarised
+   * @return the receipt the purchase will produce if it goes through
+   * @throws InvalidPurchaseException if the purchase is invalid
+   */
+  private PurchaseReceipt prepare(long accountId, BasketSummary basket) throws InvalidPurchaseException {
+    try {
+      // Turn away purchases over the admission limits
+      if (!admission.tryAdmit(accountId)) {
+        throw new InvalidPurchaseException(RejectionReason.RATE_LIMITED);
+      }
+
+      // Reject invalid accounts
+      long start = System.nanoTime();
+      av.validate(accountId);
+      long accountChecked = System.nanoTime();
+      metrics.record(PurchaseStage.ACCOUNT_VALIDATION, accountChecked - start);
+
+      // Check the requests against the business logic, then the account's purchase limits
+      trv.validate(basket);
+      pl.acquire(accountId, basket);
+      long requestsChecked = System.nanoTime();
+      metrics.record(PurchaseStage.REQUEST_VALIDATION, requestsChecked - accountChecked);
+
+      // Calculate the cost (recording the prices used) and the seats required
+      long quote;
+      int seatsRequired;
+      try {
+        quote = tcc.quote(basket);
+        seatsRequired = src.calculateSeats(basket);
+      } catch (RuntimeException e) {
+        pl.release(accountId, basket);
+        throw e;
+      }
+      metrics.record(PurchaseStage.PRICING, System.nanoTime() - requestsChecked);
+
+      return new PurchaseReceipt(accountId, PriceTable.costOf(quote), seatsRequired, PriceTable.versionOf(quote));
+    } catch (InvalidPurchaseException e) {
+      metrics.recordRejection(e.getReason());
+      throw e;
+    }
+  }
+
+  /**
+   * Records the rejection
+   *
+   * @param reason the reason
+   * @return the result for the rejection
+   */
+  private PurchaseResult reject(RejectionReason reason) {
+    metrics.recordRejection(reason);
+    return PurchaseResult.rejected(reason);
+  }
+
+  /**
+   * Takes the payment then reserves the seats, journalling each step.
+   * If the reservation fails the payment is refunded in the background, and the failure passed straight on.
+   * The refund is registered before the payment is journalled, so it happens even if the journal can't be written.
+   *
+   * @param accountId     the account id
+   * @param basket        the tickets
+   * @param toPay         the amount to pay
+   * @param seatsRequired the number of seats
+   */
+  private void payAndReserve(long accountId, BasketSummary basket, int toPay, int seatsRequired) {
+    long purchaseId = journal.begin(accountId, basket, toPay, seatsRequired);
+    PurchaseSaga saga = new PurchaseSaga(compensator);
+
+    try {
+      pay(accountId, toPay);
+    } catch (RuntimeException e) {
+      journal.advance(purchaseId, PurchaseStep.FAILED);
+      throw e;
+    }
+    saga.completed(refund(accountId, toPay));
+
+    try {
+      journal.advance(purchaseId, PurchaseStep.PAID);
+      reserve(accountId, seatsRequired);
+    } catch (RuntimeException e) {
+      compensate(purchaseId, saga, e);
+      throw e;
+    }
+    journal.advance(purchaseId, PurchaseStep.COMPLETED);
+  }
+
+  /**
+   * Undoes a purchase that failed after paying, journalling it as compensating until the refund has gone through
+   * (a refund that never does leaves it compensating, for recovery to try again)
+   *
+   * @param purchaseId the purchase id
+   * @param saga       the purchase's completed steps
+   * @param failure    why it failed, which any failure to journal is added to
+   */
+  private void compensate(long purchaseId, PurchaseSaga saga, Throwable failure) {
+    try {
+      journal.advance(purchaseId, PurchaseStep.COMPENSATING);
+    } catch (RuntimeException e) {
+      // Still undone, recovery will just find it at an earlier step
+      failure.addSuppressed(e);
+    }
+    saga.abort(() -> journal.advance(purchaseId, PurchaseStep.COMPENSATED));
+  }
+
+  /**
+   * Undoes the orders of a failed batch that were paid for, and journals the rest as failed
+   *
+   * @param purchaseIds the purchase ids
+   * @param sagas       each order's completed steps, null for the orders not paid for
+   * @param failure     why the batch failed, which any failure to journal is added to
+   */
+  private void abortBatch(long[] purchaseIds, PurchaseSaga[] sagas, Throwable failure) {
+    for (int i = 0; i < purchaseIds.length; i++) {
+      if (sagas[i] != null) {
+        compensate(purchaseIds[i], sagas[i], failure);
+        continue;
+      }
+      try {
+        journal.advance(purchaseIds[i], PurchaseStep.FAILED);
+      } catch (RuntimeException e) {
+        failure.addSuppressed(e);
+      }
+    }
+  }
+
+  /**
+   * Releases the purchase limits taken by the accepted orders of a batch that failed
+   *
+   * @param accountIds the account ids
+   * @param baskets    the baskets, in the same order
+   */
+  private void release(long[] accountIds, BasketSummary[] baskets) {
+    for (int i = 0; i < accountIds.length; i++) {
+      pl.release(accountIds[i], baskets[i]);
+    }
+  }
+
+  /**
+   * @return the compensation refunding the payment
+   */
+  private Compensation refund(long accountId, int paid) {
+    return Compensation.refund(tps, accountId, paid);
+  }
+
+  /**
+   * @return the compensation releasing the seats
+   */
+  private Compensation release(long accountId, int seatsReserved) {
+    return Compensation.release(srs, accountId, seatsReserved);
+  }
+
+  /**
+   * Takes the payment, timing the call
+   *
+   * @param accountId the account id
+   * @param toPay     the amount to pay
+   */
+  private void pay(long accountId, int toPay) {
+    PaymentCallEvent event = new PaymentCallEvent();
+    event.begin();
+    boolean succeeded = false;
+    try {
+      long start = System.nanoTime();
+      tps.makePayment(accountId, toPay);
+      metrics.record(PurchaseStage.PAYMENT, System.nanoTime() - start);
+      succeeded = true;
+    } finally {
+      event.commit(accountId, toPay, 1, succeeded);
+    }
+  }
+
+  /**
+   * Reserves the seats, timing the call
+   *
+   * @param accountId     the account id
+   * @param seatsRequired the number of seats
+   */
+  private void reserve(long accountId, int seatsRequired) {
+    SeatReservationEvent event = new SeatReservationEvent();
+    event.begin();
+    boolean succeeded = false;
+    try {
+      long start = System.nanoTime();
+      srs.reserveSeat(accountId, seatsRequired);
+      metrics.record(PurchaseStage.RESERVATION, System.nanoTime() - start);
+      succeeded = true;
+    } finally {
+      event.commit(accountId, seatsRequired, 1, succeeded);
+    }
+  }
+
+  /**
+   * Runs a third party call as an asynchronous stage
+   *
+   * @param call    the call
+   * @param timeout the time allowed for the call
+   * @return a future completed when the call returns, or exceptionally if it throws or times out
+   */
+  private CompletableFuture<Void> stage(Runnable call, Duration timeout) {
+    return CompletableFuture.runAsync(call, executor)
+        .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return a digest of the account and the basket the requests add up to, whatever order they're in, for spotting a
+   * reused idempotency key
+   */
+  private static long digest(Long accountId, TicketTypeRequest... ticketTypeRequests) {
+    long digest = TicketUtils.hash(accountId == null ? 0 : accountId);
+    if (ticketTypeRequests == null) {
+      return digest;
+    }
+    for (TicketTypeRequest request : ticketTypeRequests) {
+      if (request == null || request.getTicketType() == null) {
+        // Can't be summarised, and rejected whatever else is asked for
+        return TicketUtils.hash(digest - 1);
+      }
+    }
+
+    BasketSummary basket = BasketSummary.of(ticketTypeRequests);
+    for (Type type : TYPES) {
+      digest = TicketUtils.hash(digest * 31 + basket.getCount(type));
+    }
+    // As well as the counts, the validators look at how many requests there were and whether any was empty
+    digest = TicketUtils.hash(digest * 31 + basket.getRequestCount());
+    return TicketUtils.hash(digest * 31 + (basket.hasEmptyRequest() ? 1 : 0));
+  }
+
+  /**
+   * Builds a {@link TicketServiceImpl}, see {@link #builder}
+   */
+  public static final class Builder {
+    private final TicketPaymentService tps;
+    private final SeatReservationService srs;
+    private Executor executor = DEFAULT_EXECUTOR;
+    private Duration paymentTimeout = DEFAULT_STAGE_TIMEOUT;
+    private Duration reservationTimeout = DEFAULT_STAGE_TIMEOUT;
+    // The shared ones unless set, only created if they're needed
+    private PurchaseMetrics metrics;
+    private AdmissionLimiter admission;
+    private Compensator compensator;
+    private PurchaseJournal journal = PurchaseJournal.NONE;
+
+    private Builder(TicketPaymentService tps, SeatReservationService srs) {
+      this.tps = tps;
+      this.srs = srs;
+    }
+
+    /**
+     * @param executor the executor the asynchronous stages run on
+     * @return this builder
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * @param paymentTimeout the time allowed for the payment stage
+     * @return this builder
+     */
+    public Builder paymentTimeout(Duration paymentTimeout) {
+      this.paymentTimeout = paymentTimeout;
+      return this;
+    }
+
+    /**
+     * @param reservationTimeout the time allowed for the reservation stage
+     * @return this builder
+     */
+    public Builder reservationTimeout(Duration reservationTimeout) {
+      this.reservationTimeout = reservationTimeout;
+      return this;
+    }
 
-    // Check the requests against the business logic
-    trv.validate(ticketTypeRequests);
+    /**
+     * @param metrics where stage latencies and outcomes are recorded
+     * @return this builder
+     */
+    public Builder metrics(PurchaseMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
 
-    // Calculate the cost
-    int toPay = tcc.calculateCost(ticketTypeRequests);
+    /**
+     * @param admission the admission limits
+     * @return this builder
+     */
+    public Builder admission(AdmissionLimiter admission) {
+      this.admission = admission;
+      return this;
+    }
 
-    // And call the payment system
-    // TODO would expect a possible failure so should account for this in future
-    tps.makePayment(accountId, toPay);
+    /**
+     * @param compensator runs the refunds and releases for failed purchases
+     * @return this builder
+     */
+    public Builder compensator(Compensator compensator) {
+      this.compensator = compensator;
+      return this;
+    }
 
-    // Calculate the seats required
-    int seatsRequired = src.calculateSeats(ticketTypeRequests);
+    /**
+     * @param journal where the steps each purchase reaches are recorded
+     * @return this builder
+     */
+    public Builder journal(PurchaseJournal journal) {
+      this.journal = journal;
+      return this;
+    }
 
-    // And call the reservation service
-    // TODO would expect a possible failure so should account for this in future
-    srs.reserveSeat(accountId, seatsRequired);
+    /**
+     * @return the service
+     */
+    public TicketServiceImpl build() {
+      return new TicketServiceImpl(this);
+    }
   }
 }
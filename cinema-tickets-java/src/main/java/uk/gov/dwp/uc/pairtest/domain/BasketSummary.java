@@ -0,0 +1,102 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Summary of a basket of ticket requests
+ * <p>
+ * Built with a single pass over the requests so the validators and calculators
+ * don't each need to walk (and stream) the requests themselves
+ */
+public final class BasketSummary {
+
+  // Shared, so we don't copy the enum values on each summary
+  private static final Type[] TYPES = Type.values();
+
+  // Ticket counts indexed by Type.ordinal()
+  private final int[] counts;
+  private final int total;
+  private final int requestCount;
+  private final boolean emptyRequest;
+
+  private BasketSummary(int[] counts, int total, int requestCount, boolean emptyRequest) {
+    this.counts = counts;
+    this.total = total;
+    this.requestCount = requestCount;
+    this.emptyRequest = emptyRequest;
+  }
+
+  /**
+   * Summarise the given requests
+   *
+   * @param requests the requests (may be null)
+   * @return the summary
+   */
+  public static BasketSummary of(TicketTypeRequest... requests) {
+    int[] counts = new int[TYPES.length];
+
+    // Protect against null
+    if (requests == null) {
+      return new BasketSummary(counts, 0, 0, false);
+    }
+
+    int total = 0;
+    boolean emptyRequest = false;
+    for (TicketTypeRequest request : requests) {
+      int noOfTickets = request.getNoOfTickets();
+      counts[request.getTicketType().ordinal()] += noOfTickets;
+      total += noOfTickets;
+      emptyRequest |= noOfTickets < 1;
+    }
+
+    return new BasketSummary(counts, total, requests.length, emptyRequest);
+  }
+
+  /**
+   * Summarise the given basket
+   * (as one request for each type in it, so an empty basket counts as no requests)
+   *
+   * @param basket the basket
+   * @return the summary
+   */
+  public static BasketSummary of(TicketBasket basket) {
+    int[] counts = new int[TYPES.length];
+    int requestCount = 0;
+    for (Type type : TYPES) {
+      counts[type.ordinal()] = basket.getCount(type);
+      if (counts[type.ordinal()] > 0) {
+        requestCount++;
+      }
+    }
+    return new BasketSummary(counts, basket.getTotal(), requestCount, false);
+  }
+
+  /**
+   * @param type the ticket type
+   * @return the number of tickets requested of the given type
+   */
+  public int getCount(Type type) {
+    return counts[type.ordinal()];
+  }
+
+  /**
+   * @return the total number of tickets requested over all types
+   */
+  public int getTotal() {
+    return total;
+  }
+
+  /**
+   * @return the number of requests that were summarised
+   */
+  public int getRequestCount() {
+    return requestCount;
+  }
+
+  /**
+   * @return true if any of the requests was for less than one ticket
+   */
+  public boolean hasEmptyRequest() {
+    return emptyRequest;
+  }
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * A single order within a batch purchase
+ * <p>
+ * Immutable, pairs an account with the tickets it wants to buy
+ */
+public final class PurchaseOrder {
+
+  private final long accountId;
+  private final TicketTypeRequest[] ticketTypeRequests;
+
+  /**
+   * Constructor
+   *
+   * @param accountId          the account id
+   * @param ticketTypeRequests the ticket requests
+   */
+  public PurchaseOrder(long accountId, TicketTypeRequest... ticketTypeRequests) {
+    this.accountId = accountId;
+    this.ticketTypeRequests = ticketTypeRequests;
+  }
+
+  public long getAccountId() {
+    return accountId;
+  }
+
+  public TicketTypeRequest[] getTicketTypeRequests() {
+    return ticketTypeRequests;
+  }
+}
@@ -0,0 +1,86 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * The outcome of a single order within a batch purchase
+ * <p>
+ * Either a success, with the amount paid and seats reserved, or a failure with the reason the order was rejected
+ */
+public final class PurchaseOutcome {
+
+  private final PurchaseOrder order;
+  private final int totalAmountPaid;
+  private final int seatsReserved;
+  private final int priceVersion;
+  private final InvalidPurchaseException failure;
+
+  private PurchaseOutcome(PurchaseOrder order, int totalAmountPaid, int seatsReserved, int priceVersion,
+                          InvalidPurchaseException failure) {
+    this.order = order;
+    this.totalAmountPaid = totalAmountPaid;
+    this.seatsReserved = seatsReserved;
+    this.priceVersion = priceVersion;
+    this.failure = failure;
+  }
+
+  /**
+   * @param order           the order
+   * @param totalAmountPaid the amount paid
+   * @param seatsReserved   the number of seats reserved
+   * @return a successful outcome
+   */
+  public static PurchaseOutcome success(PurchaseOrder order, int totalAmountPaid, int seatsReserved) {
+    return success(order, totalAmountPaid, seatsReserved, 0);
+  }
+
+  /**
+   * @param order           the order
+   * @param totalAmountPaid the amount paid
+   * @param seatsReserved   the number of seats reserved
+   * @param priceVersion    the version of the prices the amount was calculated at
+   * @return a successful outcome
+   */
+  public static PurchaseOutcome success(PurchaseOrder order, int totalAmountPaid, int seatsReserved, int priceVersion) {
+    return new PurchaseOutcome(order, totalAmountPaid, seatsReserved, priceVersion, null);
+  }
+
+  /**
+   * @param order   the order
+   * @param failure the reason the order was rejected
+   * @return a failed outcome
+   */
+  public static PurchaseOutcome failure(PurchaseOrder order, InvalidPurchaseException failure) {
+    return new PurchaseOutcome(order, 0, 0, 0, failure);
+  }
+
+  public PurchaseOrder getOrder() {
+    return order;
+  }
+
+  public boolean isSuccess() {
+    return failure == null;
+  }
+
+  public int getTotalAmountPaid() {
+    return totalAmountPaid;
+  }
+
+  public int getSeatsReserved() {
+    return seatsReserved;
+  }
+
+  /**
+   * @return the version of the prices the amount was calculated at
+   */
+  public int getPriceVersion() {
+    return priceVersion;
+  }
+
+  /**
+   * @return the reason the order was rejected, or null if it succeeded
+   */
+  public InvalidPurchaseException getFailure() {
+    return failure;
+  }
+}
@@ -0,0 +1,59 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * Receipt for a completed purchase
+ * <p>
+ * Immutable, records what the account was charged, at which version of the prices, and how many seats were reserved
+ */
+public final class PurchaseReceipt {
+
+  private final long accountId;
+  private final int totalAmountPaid;
+  private final int seatsReserved;
+  private final int priceVersion;
+
+  /**
+   * Constructor
+   *
+   * @param accountId       the account id
+   * @param totalAmountPaid the amount paid
+   * @param seatsReserved   the number of seats reserved
+   */
+  public PurchaseReceipt(long accountId, int totalAmountPaid, int seatsReserved) {
+    this(accountId, totalAmountPaid, seatsReserved, 0);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param accountId       the account id
+   * @param totalAmountPaid the amount paid
+   * @param seatsReserved   the number of seats reserved
+   * @param priceVersion    the version of the prices the amount was calculated at
+   */
+  public PurchaseReceipt(long accountId, int totalAmountPaid, int seatsReserved, int priceVersion) {
+    this.accountId = accountId;
+    this.totalAmountPaid = totalAmountPaid;
+    this.seatsReserved = seatsReserved;
+    this.priceVersion = priceVersion;
+  }
+
+  public long getAccountId() {
+    return accountId;
+  }
+
+  public int getTotalAmountPaid() {
+    return totalAmountPaid;
+  }
+
+  public int getSeatsReserved() {
+    return seatsReserved;
+  }
+
+  /**
+   * @return the version of the prices the amount was calculated at
+   */
+  public int getPriceVersion() {
+    return priceVersion;
+  }
+}
@@ -0,0 +1,56 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * The result of a purchase attempt
+ * <p>
+ * Either a success or a rejection with its reason. There is one shared instance per outcome,
+ * so returning a result never allocates.
+ */
+public final class PurchaseResult {
+
+  /**
+   * The purchase went through
+   */
+  public static final PurchaseResult SUCCESS = new PurchaseResult(null);
+
+  // One per rejection reason, indexed by ordinal
+  private static final PurchaseResult[] REJECTIONS;
+
+  static {
+    RejectionReason[] reasons = RejectionReason.values();
+    REJECTIONS = new PurchaseResult[reasons.length];
+    for (RejectionReason reason : reasons) {
+      REJECTIONS[reason.ordinal()] = new PurchaseResult(reason);
+    }
+  }
+
+  private final RejectionReason reason;
+
+  private PurchaseResult(RejectionReason reason) {
+    this.reason = reason;
+  }
+
+  /**
+   * @param reason the reason for the rejection
+   * @return the result for the rejection
+   */
+  public static PurchaseResult rejected(RejectionReason reason) {
+    return REJECTIONS[reason.ordinal()];
+  }
+
+  public boolean isSuccess() {
+    return reason == null;
+  }
+
+  /**
+   * @return the reason for the rejection, or null if the purchase went through
+   */
+  public RejectionReason getReason() {
+    return reason;
+  }
+
+  @Override
+  public String toString() {
+    return reason == null ? "SUCCESS" : reason.name();
+  }
+}
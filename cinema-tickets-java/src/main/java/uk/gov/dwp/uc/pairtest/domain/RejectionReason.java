@@ -0,0 +1,52 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * The reasons a purchase can be rejected
+ * <p>
+ * Each carries the format of the message used when the rejection is reported as an exception
+ */
+public enum RejectionReason {
+  RATE_LIMITED("Too many purchases, try again later", true),
+  INVALID_ACCOUNT("Invalid account id (%d)"),
+  UNKNOWN_ACCOUNT("Unknown account id (%d)"),
+  BLOCKED_ACCOUNT("Account is blocked (%d)"),
+  NO_REQUESTS("No ticket requests"),
+  EMPTY_REQUEST("Ticket request was for zero tickets"),
+  TOO_MANY_TICKETS("Tickets requested exceed maximum allowed (%d)"),
+  NO_ADULT("At least one adult ticket must me ordered when ordering child or infant tickets"),
+  TOO_MANY_INFANTS("Infant tickets requested (%d) exceeds adults (%d)"),
+  VELOCITY_LIMIT("Purchase limit reached for account (%d), try again later", true),
+  OVERLOADED("%s is overloaded, try again later", true),
+  UNAVAILABLE("%s is unavailable, try again later", true),
+  TIMED_OUT("%s did not respond in time", true),
+  UNKNOWN_SCREENING("Unknown screening (%d)"),
+  NOT_ENOUGH_SEATS("Not enough seats available (%d requested, %d free)"),
+  NO_ADJACENT_SEATS("No %d adjacent seats available"),
+  KEY_REUSED("Idempotency key was already used for a different purchase");
+
+  private final String format;
+  private final boolean retryable;
+
+  RejectionReason(String format) {
+    this(format, false);
+  }
+
+  RejectionReason(String format, boolean retryable) {
+    this.format = format;
+    this.retryable = retryable;
+  }
+
+  /**
+   * @return the format of the message for this rejection
+   */
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * @return true if the same purchase may succeed if tried again later
+   */
+  public boolean isRetryable() {
+    return retryable;
+  }
+}
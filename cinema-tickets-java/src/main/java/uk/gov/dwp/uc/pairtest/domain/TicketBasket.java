@@ -0,0 +1,194 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.validator.TicketRequestsValidatorImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.Arrays;
+
+/**
+ * A basket of tickets as the count of each type, packed into a single int
+ * <p>
+ * The counts take {@value #COUNT_BITS} bits each, adult in the lowest bits then child then infant. Counts too big to
+ * fit are held at {@value #MAX_COUNT}, which is still far over the most tickets allowed, so such a basket is rejected
+ * the same way. Several requests for the same type are simply added together.
+ * <p>
+ * Every basket within the ticket limit is shared, so getting one of those never allocates, and each knows its
+ * {@link BasketSummary} so that isn't rebuilt on every purchase either.
+ */
+public final class TicketBasket {
+
+  /**
+   * Bits used for each count
+   */
+  public static final int COUNT_BITS = 10;
+
+  /**
+   * The largest count held
+   */
+  public static final int MAX_COUNT = (1 << COUNT_BITS) - 1;
+
+  private static final Type[] TYPES = Type.values();
+
+  // Shared baskets, for every combination of counts up to the ticket limit
+  private static final int SHARED_COUNTS = TicketRequestsValidatorImpl.MAX_TICKETS + 1;
+  private static final TicketBasket[] SHARED = new TicketBasket[SHARED_COUNTS * SHARED_COUNTS * SHARED_COUNTS];
+
+  private final int packed;
+
+  // Built on first use (racing threads build equal summaries, so no lock needed)
+  private BasketSummary summary;
+
+  private TicketBasket(int packed) {
+    this.packed = packed;
+  }
+
+  /**
+   * @param adult  the number of adult tickets
+   * @param child  the number of child tickets
+   * @param infant the number of infant tickets
+   * @return the basket
+   * @throws IllegalArgumentException if a count is negative
+   */
+  public static TicketBasket of(int adult, int child, int infant) {
+    if (adult < 0 || child < 0 || infant < 0) {
+      throw new IllegalArgumentException("Ticket counts can't be negative (" + adult + ", " + child + ", " + infant + ")");
+    }
+
+    // Shared?
+    if (adult < SHARED_COUNTS && child < SHARED_COUNTS && infant < SHARED_COUNTS) {
+      int index = (adult * SHARED_COUNTS + child) * SHARED_COUNTS + infant;
+      TicketBasket basket = SHARED[index];
+      if (basket == null) {
+        basket = new TicketBasket(pack(adult, child, infant));
+        SHARED[index] = basket;
+      }
+      return basket;
+    }
+
+    return new TicketBasket(pack(adult, child, infant));
+  }
+
+  /**
+   * Convert the given requests, adding together any for the same type
+   *
+   * @param requests the requests
+   * @return the basket
+   * @throws InvalidPurchaseException if there are no requests, or a request is for less than one ticket
+   */
+  public static TicketBasket of(TicketTypeRequest... requests) throws InvalidPurchaseException {
+    if (requests == null || requests.length == 0) {
+      throw new InvalidPurchaseException(RejectionReason.NO_REQUESTS);
+    }
+
+    long[] counts = new long[TYPES.length];
+    for (TicketTypeRequest request : requests) {
+      if (request.getNoOfTickets() < 1) {
+        throw new InvalidPurchaseException(RejectionReason.EMPTY_REQUEST);
+      }
+      counts[request.getTicketType().ordinal()] += request.getNoOfTickets();
+    }
+
+    return of(clamp(counts[Type.ADULT.ordinal()]), clamp(counts[Type.CHILD.ordinal()]),
+        clamp(counts[Type.INFANT.ordinal()]));
+  }
+
+  /**
+   * @param packed the packed counts, from {@link #getPacked}
+   * @return the basket
+   */
+  public static TicketBasket fromPacked(int packed) {
+    return of(count(packed, Type.ADULT), count(packed, Type.CHILD), count(packed, Type.INFANT));
+  }
+
+  /**
+   * @param adult  the number of adult tickets
+   * @param child  the number of child tickets
+   * @param infant the number of infant tickets
+   * @return the counts packed into an int
+   */
+  public static int pack(int adult, int child, int infant) {
+    return Math.min(adult, MAX_COUNT)
+        | Math.min(child, MAX_COUNT) << COUNT_BITS
+        | Math.min(infant, MAX_COUNT) << (2 * COUNT_BITS);
+  }
+
+  /**
+   * @param packed the packed counts
+   * @param type   the ticket type
+   * @return the count of the type
+   */
+  public static int count(int packed, Type type) {
+    return (packed >>> (type.ordinal() * COUNT_BITS)) & MAX_COUNT;
+  }
+
+  /**
+   * @param type the ticket type
+   * @return the number of tickets of the type
+   */
+  public int getCount(Type type) {
+    return count(packed, type);
+  }
+
+  /**
+   * @return the total number of tickets
+   */
+  public int getTotal() {
+    return count(packed, Type.ADULT) + count(packed, Type.CHILD) + count(packed, Type.INFANT);
+  }
+
+  /**
+   * @return the counts, packed
+   */
+  public int getPacked() {
+    return packed;
+  }
+
+  /**
+   * @return one request for each type in the basket
+   */
+  public TicketTypeRequest[] toRequests() {
+    int size = 0;
+    TicketTypeRequest[] requests = new TicketTypeRequest[TYPES.length];
+    for (Type type : TYPES) {
+      int count = count(packed, type);
+      if (count > 0) {
+        requests[size++] = new TicketTypeRequest(type, count);
+      }
+    }
+    return size == requests.length ? requests : Arrays.copyOf(requests, size);
+  }
+
+  /**
+   * @return the summary used by the validators and calculators
+   */
+  public BasketSummary getSummary() {
+    BasketSummary result = summary;
+    if (result == null) {
+      result = BasketSummary.of(this);
+      summary = result;
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof TicketBasket && ((TicketBasket) o).packed == packed;
+  }
+
+  @Override
+  public int hashCode() {
+    return packed;
+  }
+
+  @Override
+  public String toString() {
+    return "TicketBasket{adult=" + count(packed, Type.ADULT)
+        + ", child=" + count(packed, Type.CHILD)
+        + ", infant=" + count(packed, Type.INFANT) + "}";
+  }
+
+  private static int clamp(long count) {
+    return (int) Math.min(count, MAX_COUNT);
+  }
+}
@@ -0,0 +1,398 @@
+package uk.gov.dwp.uc.pairtest.domain.account;
+
+import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Registry of known accounts, held off heap in a memory-mapped file
+ * <p>
+ * An open-addressing hash set of longs (linear probing) laid out directly in the file, so the file is its own
+ * snapshot: opening it maps it rather than reading it, and no account ids are ever on the heap or boxed.
+ * Each slot holds the account id, with the top bit set if the account is blocked. Account ids must be positive.
+ * <p>
+ * Lookups are lock-free (volatile reads of the slots) and updates are serialised. The capacity is fixed when the file
+ * is created, and updates fail once {@value #MAX_LOAD_PERCENT}% of it holds accounts. Removing an account leaves a
+ * marker in its slot, and those slots are reclaimed by {@link #compact}, which an update that runs out of room does
+ * first.
+ * <p>
+ * The counts in the header are only a guide, as the file may not have been forced before the process stopped, so
+ * they're recounted from the slots on opening.
+ */
+public final class AccountRegistry implements Closeable {
+
+  /**
+   * The status of a registered account
+   */
+  public enum Status {
+    ACTIVE, BLOCKED
+  }
+
+  /**
+   * The fullest the table is allowed to get, as a percentage of the capacity
+   */
+  public static final int MAX_LOAD_PERCENT = 75;
+
+  /**
+   * Prefix of the system properties configuring the registry used by the account validators chosen as providers
+   * (file, the registry to open, and falsePositiveRate, for the Bloom filter in front of it)
+   */
+  public static final String PROPERTY_PREFIX = "cinema-tickets.accounts.";
+
+  // File layout, a header then the slots
+  private static final int MAGIC = 0x41434354; // "ACCT"
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int SIZE_OFFSET = 16;
+  private static final int USED_OFFSET = 24;
+  private static final int HEADER_SIZE = 64;
+
+  // Slot contents
+  private static final long EMPTY = 0;
+  private static final long BLOCKED_BIT = Long.MIN_VALUE;
+  private static final long REMOVED = BLOCKED_BIT; // (a blocked account 0, which can't exist)
+  private static final long ID_MASK = Long.MAX_VALUE;
+
+  // Atomic access to the slots
+  private static final VarHandle SLOTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final int capacity;
+  private final int mask;
+
+  // Accounts held, and slots in use (accounts plus removed markers), guarded by this
+  private volatile int size;
+  private int used;
+
+  // Bumped before and after compacting, so a lookup can tell it may have missed an account being moved
+  private volatile int moves;
+
+  private AccountRegistry(FileChannel channel, MappedByteBuffer buffer, int capacity, int size, int used) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+    this.size = size;
+    this.used = used;
+  }
+
+  /**
+   * Create an empty registry
+   *
+   * @param file     the file, replaced if it exists
+   * @param accounts the number of accounts it must be able to hold
+   * @return the registry
+   * @throws IOException if the file can't be created
+   */
+  public static AccountRegistry create(Path file, int accounts) throws IOException {
+    // Enough slots to stay within the load limit
+    long needed = (long) accounts * 100 / MAX_LOAD_PERCENT + 1;
+    if (accounts < 0 || needed > (Integer.MAX_VALUE - HEADER_SIZE) / Long.BYTES) {
+      throw new IllegalArgumentException("Invalid number of accounts (" + accounts + ")");
+    }
+    int capacity = Math.max(16, Integer.highestOneBit((int) needed - 1) << 1);
+
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * Long.BYTES);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+      buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+      buffer.putLong(CAPACITY_OFFSET, capacity);
+      buffer.putLong(SIZE_OFFSET, 0);
+      buffer.putLong(USED_OFFSET, 0);
+      return new AccountRegistry(channel, buffer, capacity, 0, 0);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Open the existing registry named by the {@value #PROPERTY_PREFIX}file system property
+   *
+   * @return the registry
+   * @throws IllegalStateException if no registry is configured
+   * @throws UncheckedIOException  if the file can't be read or isn't a registry
+   */
+  public static AccountRegistry openConfigured() {
+    String file = System.getProperty(PROPERTY_PREFIX + "file");
+    if (file == null) {
+      throw new IllegalStateException("No account registry configured (" + PROPERTY_PREFIX + "file)");
+    }
+    try {
+      return open(Path.of(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Open an existing registry
+   *
+   * @param file the file
+   * @return the registry
+   * @throws IOException if the file can't be read or isn't a registry
+   */
+  public static AccountRegistry open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      long length = channel.size();
+      if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+        throw new IOException("Not an account registry (" + file + ")");
+      }
+
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      long capacity = buffer.getLong(CAPACITY_OFFSET);
+      if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION
+          || Long.bitCount(capacity) != 1 || HEADER_SIZE + capacity * Long.BYTES != length) {
+        throw new IOException("Not an account registry (" + file + ")");
+      }
+
+      // Recount rather than trust the header
+      int size = 0;
+      int used = 0;
+      for (int slot = 0; slot < capacity; slot++) {
+        long value = buffer.getLong(offset(slot));
+        if (value != EMPTY) {
+          used++;
+          size += value == REMOVED ? 0 : 1;
+        }
+      }
+      buffer.putLong(SIZE_OFFSET, size);
+      buffer.putLong(USED_OFFSET, used);
+
+      return new AccountRegistry(channel, buffer, (int) capacity, size, used);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param accountId the account id
+   * @return the status of the account, or null if it isn't registered
+   */
+  public Status getStatus(long accountId) {
+    if (accountId <= 0) {
+      return null;
+    }
+
+    int before = moves;
+    Status status = find(accountId);
+    if (status == null && ((before & 1) != 0 || moves != before)) {
+      // Accounts were being moved, so look again once they've settled
+      synchronized (this) {
+        return find(accountId);
+      }
+    }
+    return status;
+  }
+
+  private Status find(long accountId) {
+    for (int slot = slot(accountId); ; slot = (slot + 1) & mask) {
+      long value = (long) SLOTS.getVolatile(buffer, offset(slot));
+      if (value == EMPTY) {
+        return null;
+      }
+      if ((value & ID_MASK) == accountId && value != REMOVED) {
+        return value < 0 ? Status.BLOCKED : Status.ACTIVE;
+      }
+    }
+  }
+
+  /**
+   * Add an account, or change its status
+   *
+   * @param accountId the account id
+   * @param status    the status
+   * @throws IllegalStateException if the registry is full
+   */
+  public synchronized void put(long accountId, Status status) {
+    checkAccountId(accountId);
+    long value = status == Status.BLOCKED ? accountId | BLOCKED_BIT : accountId;
+
+    // Find the account, or where it should go (reusing the first removed slot)
+    int free = -1;
+    int slot = slot(accountId);
+    for (; ; slot = (slot + 1) & mask) {
+      long current = (long) SLOTS.getVolatile(buffer, offset(slot));
+      if (current == EMPTY) {
+        break;
+      }
+      if (current == REMOVED) {
+        free = free < 0 ? slot : free;
+      } else if ((current & ID_MASK) == accountId) {
+        // Already registered, just update the status
+        SLOTS.setVolatile(buffer, offset(slot), value);
+        return;
+      }
+    }
+
+    if (free < 0) {
+      // Taking a new slot
+      if ((long) (used + 1) * 100 > (long) capacity * MAX_LOAD_PERCENT) {
+        if (used > size) {
+          // Reclaim the slots of removed accounts and try again
+          compact();
+          put(accountId, status);
+          return;
+        }
+        throw new IllegalStateException("Account registry is full (" + size + " accounts)");
+      }
+      free = slot;
+      used++;
+      buffer.putLong(USED_OFFSET, used);
+    }
+
+    SLOTS.setVolatile(buffer, offset(free), value);
+    size++;
+    buffer.putLong(SIZE_OFFSET, size);
+  }
+
+  /**
+   * Remove an account
+   *
+   * @param accountId the account id
+   * @return true if the account was registered
+   */
+  public synchronized boolean remove(long accountId) {
+    checkAccountId(accountId);
+
+    for (int slot = slot(accountId); ; slot = (slot + 1) & mask) {
+      long current = (long) SLOTS.getVolatile(buffer, offset(slot));
+      if (current == EMPTY) {
+        return false;
+      }
+      if ((current & ID_MASK) == accountId && current != REMOVED) {
+        // Leave a marker so later accounts in the probe sequence are still found
+        SLOTS.setVolatile(buffer, offset(slot), REMOVED);
+        size--;
+        buffer.putLong(SIZE_OFFSET, size);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Reclaim the slots left by removed accounts, moving the accounts back to where they'd be had those never been
+   * there. Lookups carry on meanwhile, and any that miss look again once it's done.
+   */
+  public synchronized void compact() {
+    if (used == size) {
+      return;
+    }
+
+    moves++;
+    try {
+      for (int slot = 0; slot < capacity; slot++) {
+        if ((long) SLOTS.getVolatile(buffer, offset(slot)) == REMOVED) {
+          SLOTS.setVolatile(buffer, offset(slot), EMPTY);
+        }
+      }
+
+      // Put each account back at the first free slot from its own, starting after a free slot so every run of
+      // accounts is taken from its start
+      int start = 0;
+      while ((long) SLOTS.getVolatile(buffer, offset(start)) != EMPTY) {
+        start++;
+      }
+      for (int i = 1; i <= capacity; i++) {
+        int slot = (start + i) & mask;
+        long value = (long) SLOTS.getVolatile(buffer, offset(slot));
+        if (value == EMPTY) {
+          continue;
+        }
+
+        SLOTS.setVolatile(buffer, offset(slot), EMPTY);
+        int to = slot(value & ID_MASK);
+        while ((long) SLOTS.getVolatile(buffer, offset(to)) != EMPTY) {
+          to = (to + 1) & mask;
+        }
+        SLOTS.setVolatile(buffer, offset(to), value);
+      }
+
+      used = size;
+      buffer.putLong(USED_OFFSET, used);
+    } finally {
+      moves++;
+    }
+  }
+
+  /**
+   * Pass every registered account id, active or blocked, to the consumer
+   * (updates wait until it's done)
+   *
+   * @param consumer the consumer
+   */
+  public synchronized void forEachAccount(LongConsumer consumer) {
+    for (int slot = 0; slot < capacity; slot++) {
+      long value = (long) SLOTS.getVolatile(buffer, offset(slot));
+      if (value != EMPTY && value != REMOVED) {
+        consumer.accept(value & ID_MASK);
+      }
+    }
+  }
+
+  /**
+   * @return the number of accounts registered
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of slots
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Write any changes through to the file
+   */
+  public synchronized void force() {
+    buffer.force();
+  }
+
+  /**
+   * Write any changes through to the file and close it
+   * (the mapping is released once the registry is no longer referenced)
+   *
+   * @throws IOException if the file can't be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+
+  private int slot(long accountId) {
+    return (int) TicketUtils.hash(accountId) & mask;
+  }
+
+  private static int offset(int slot) {
+    return HEADER_SIZE + slot * Long.BYTES;
+  }
+
+  private static void checkAccountId(long accountId) {
+    if (accountId <= 0) {
+      throw new IllegalArgumentException("Invalid account id (" + accountId + ")");
+    }
+  }
+}
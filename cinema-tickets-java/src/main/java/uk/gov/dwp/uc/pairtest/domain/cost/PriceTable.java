@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest.domain.cost;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A version of the ticket prices
+ * <p>
+ * Immutable, prices are held in an array indexed by {@link Type#ordinal()} so pricing a basket is three array reads.
+ * The version identifies the prices a purchase was charged at.
+ * <p>
+ * A cost and the version it was priced at can be packed into a single long (a quote) so they can be passed
+ * around together without allocating.
+ */
+public final class PriceTable {
+
+  private static final Type[] TYPES = Type.values();
+
+  /**
+   * The standard prices, as version 1
+   */
+  public static final PriceTable DEFAULT = of(1, TicketTypeCost.TICKET_COST);
+
+  private final int version;
+  private final int[] prices;
+
+  private PriceTable(int version, int[] prices) {
+    this.version = version;
+    this.prices = prices;
+  }
+
+  /**
+   * @param version the version
+   * @param prices  the price of each ticket type (every type must have a price)
+   * @return the price table
+   * @throws IllegalArgumentException if a price is missing or negative
+   */
+  public static PriceTable of(int version, Map<Type, Integer> prices) {
+    int[] array = new int[TYPES.length];
+    for (Type type : TYPES) {
+      Integer price = prices.get(type);
+      if (price == null || price < 0) {
+        throw new IllegalArgumentException("Invalid price for " + type + " (" + price + ")");
+      }
+      array[type.ordinal()] = price;
+    }
+    return new PriceTable(version, array);
+  }
+
+  /**
+   * Read prices given as properties, with the ticket type as the key (e.g. ADULT=25)
+   *
+   * @param version the version
+   * @param prices  the prices
+   * @return the price table
+   * @throws IllegalArgumentException if a price is missing, not a number or negative
+   */
+  public static PriceTable parse(int version, Properties prices) {
+    Map<Type, Integer> map = new EnumMap<>(Type.class);
+    for (Type type : TYPES) {
+      String price = prices.getProperty(type.name());
+      if (price != null) {
+        try {
+          map.put(type, Integer.parseInt(price.trim()));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid price for " + type + " (" + price + ")", e);
+        }
+      }
+    }
+    return of(version, map);
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @param type the ticket type
+   * @return the price of the ticket type
+   */
+  public int getPrice(Type type) {
+    return prices[type.ordinal()];
+  }
+
+  /**
+   * @param basket the basket
+   * @return the cost of the basket at these prices
+   */
+  public int calculateCost(BasketSummary basket) {
+    return basket.getCount(Type.ADULT) * prices[Type.ADULT.ordinal()]
+        + basket.getCount(Type.CHILD) * prices[Type.CHILD.ordinal()]
+        + basket.getCount(Type.INFANT) * prices[Type.INFANT.ordinal()];
+  }
+
+  /**
+   * @param basket the basket
+   * @return the cost of the basket at these prices, quoted with this version
+   */
+  public long quote(BasketSummary basket) {
+    return quote(calculateCost(basket), version);
+  }
+
+  /**
+   * @return the prices, by ticket type
+   */
+  public Map<Type, Integer> toMap() {
+    Map<Type, Integer> map = new EnumMap<>(Type.class);
+    for (Type type : TYPES) {
+      map.put(type, prices[type.ordinal()]);
+    }
+    return map;
+  }
+
+  /**
+   * @param cost    the cost
+   * @param version the version of the prices
+   * @return the cost and version packed as a quote
+   */
+  public static long quote(int cost, int version) {
+    return ((long) version << 32) | (cost & 0xFFFF_FFFFL);
+  }
+
+  /**
+   * @param quote the quote
+   * @return the cost quoted
+   */
+  public static int costOf(long quote) {
+    return (int) quote;
+  }
+
+  /**
+   * @param quote the quote
+   * @return the version of the prices quoted
+   */
+  public static int versionOf(long quote) {
+    return (int) (quote >>> 32);
+  }
+
+  @Override
+  public String toString() {
+    return "PriceTable{version=" + version + ", prices=" + toMap() + "}";
+  }
+}
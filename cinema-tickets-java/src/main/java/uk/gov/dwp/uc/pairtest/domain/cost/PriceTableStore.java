@@ -0,0 +1,207 @@
+package uk.gov.dwp.uc.pairtest.domain.cost;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the current {@link PriceTable}
+ * <p>
+ * Readers take the current table from a single volatile reference, so a purchase prices everything against one
+ * version and new prices go live without stopping traffic. New tables are only published by {@link #publish} and
+ * {@link #reload}, which are serialised, and each gets the next version.
+ * <p>
+ * Prices can be read from a properties file (e.g. ADULT=25) and the file watched, by modification time,
+ * for changes. A file that can't be read or is invalid leaves the current prices in place.
+ * The file can give its own version ({@value #VERSION_KEY}=7), which is then what receipts quote, so the prices
+ * charged can be traced back to the file whatever restarts there have been. Without one the version is just a count
+ * of the tables published since startup. Either way every table published is logged with its version.
+ */
+public class PriceTableStore {
+
+  /**
+   * System property naming a prices file for the shared store to load and watch
+   */
+  public static final String PRICES_FILE_PROPERTY = "cinema-tickets.prices";
+
+  /**
+   * Key of the version in a prices file
+   */
+  public static final String VERSION_KEY = "VERSION";
+
+  private static final System.Logger LOG = System.getLogger(PriceTableStore.class.getName());
+
+  /**
+   * How often the shared store checks its prices file
+   */
+  private static final Duration WATCH_PERIOD = Duration.ofSeconds(1);
+
+  // Shared by calculators that aren't given their own
+  private static volatile PriceTableStore shared;
+
+  private volatile PriceTable current;
+
+  // Modification time of the file last loaded (guarded by this)
+  private Path loadedFile;
+  private FileTime loadedModified;
+
+  /**
+   * Constructor
+   *
+   * @param initial the initial prices
+   */
+  public PriceTableStore(PriceTable initial) {
+    this.current = initial;
+  }
+
+  /**
+   * The store shared by default, starting with the standard prices
+   * If {@value #PRICES_FILE_PROPERTY} is set, the file it names is loaded and then watched for changes.
+   *
+   * @return the shared store
+   */
+  public static PriceTableStore getShared() {
+    PriceTableStore store = shared;
+    if (store == null) {
+      synchronized (PriceTableStore.class) {
+        store = shared;
+        if (store == null) {
+          store = new PriceTableStore(PriceTable.DEFAULT);
+          String file = System.getProperty(PRICES_FILE_PROPERTY);
+          if (file != null) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+              Thread thread = new Thread(r, "price-table-watcher");
+              thread.setDaemon(true);
+              return thread;
+            });
+            store.watch(Path.of(file), scheduler, WATCH_PERIOD);
+          }
+          shared = store;
+        }
+      }
+    }
+    return store;
+  }
+
+  /**
+   * @return the prices currently in use
+   */
+  public PriceTable get() {
+    return current;
+  }
+
+  /**
+   * Publish new prices, as the next version
+   *
+   * @param prices the price of each ticket type
+   * @return the published table
+   * @throws IllegalArgumentException if a price is missing or negative
+   */
+  public synchronized PriceTable publish(Map<Type, Integer> prices) {
+    PriceTable table = PriceTable.of(current.getVersion() + 1, prices);
+    publish(table, "publish");
+    return table;
+  }
+
+  /**
+   * Load the prices from the file, if it has changed since it was last loaded
+   *
+   * @param file the prices file
+   * @return true if new prices were published
+   * @throws UncheckedIOException     if the file can't be read
+   * @throws IllegalArgumentException if the prices are invalid
+   */
+  public synchronized boolean reload(Path file) {
+    try {
+      // Check if it's changed
+      FileTime modified = Files.getLastModifiedTime(file);
+      if (file.equals(loadedFile) && modified.equals(loadedModified)) {
+        return false;
+      }
+
+      Properties prices = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        prices.load(in);
+      }
+
+      PriceTable table = PriceTable.parse(versionOf(prices), prices);
+      if (table.getVersion() == current.getVersion() && !table.toMap().equals(current.toMap())) {
+        throw new IllegalArgumentException("Prices in " + file + " changed without changing " + VERSION_KEY
+            + " (" + table.getVersion() + ")");
+      }
+
+      publish(table, file.toString());
+      loadedFile = file;
+      loadedModified = modified;
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read prices from " + file, e);
+    }
+  }
+
+  /**
+   * @param prices the prices read
+   * @return the version they give, or the next version if they don't give one
+   * @throws IllegalArgumentException if the version given isn't a positive number
+   */
+  private int versionOf(Properties prices) {
+    String version = prices.getProperty(VERSION_KEY);
+    if (version == null) {
+      return current.getVersion() + 1;
+    }
+
+    try {
+      int parsed = Integer.parseInt(version.trim());
+      if (parsed > 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException("Invalid " + VERSION_KEY + " (" + version + ")");
+  }
+
+  /**
+   * Make the table current, and log it so the version can be traced to the prices
+   */
+  private void publish(PriceTable table, String source) {
+    current = table;
+    LOG.log(System.Logger.Level.INFO, "Published prices version {0} from {1}: {2}",
+        table.getVersion(), source, table.toMap());
+  }
+
+  /**
+   * Load the prices from the file, then check it for changes periodically
+   *
+   * @param file      the prices file
+   * @param scheduler the scheduler to check on
+   * @param period    how often to check
+   * @return the scheduled check, cancel it to stop watching
+   * @throws UncheckedIOException     if the file can't be read initially
+   * @throws IllegalArgumentException if the initial prices are invalid
+   */
+  public ScheduledFuture<?> watch(Path file, ScheduledExecutorService scheduler, Duration period) {
+    reload(file);
+
+    long nanos = period.toNanos();
+    return scheduler.scheduleAtFixedRate(() -> {
+      try {
+        reload(file);
+      } catch (RuntimeException e) {
+        // Keep the current prices until the file is fixed
+      }
+    }, nanos, nanos, TimeUnit.NANOSECONDS);
+  }
+}
@@ -1,25 +1,40 @@
 package uk.gov.dwp.uc.pairtest.domain.cost;
 
-import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
-import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
-import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
 import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
 
 /**
- * Implementation of a cost calculator using the given ticket costs
+ * Implementation of a cost calculator using the current prices from a {@link PriceTableStore}
  */
 public class TicketCostCalculatorImpl implements TicketCostCalculator {
+
+  private final PriceTableStore prices;
+
+  /**
+   * Constructor
+   * Uses the shared prices
+   */
+  public TicketCostCalculatorImpl() {
+    this(PriceTableStore.getShared());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param prices where the prices come from
+   */
+  public TicketCostCalculatorImpl(PriceTableStore prices) {
+    this.prices = prices;
+  }
+
   @Override
-  public int calculateCost(TicketTypeRequest... ticketTypeRequests) {
-    // Get the counts of various tickets requested
-    int adult = TicketUtils.count(Type.ADULT, ticketTypeRequests);
-    int child = TicketUtils.count(Type.CHILD, ticketTypeRequests);
-    int infant = TicketUtils.count(Type.INFANT, ticketTypeRequests);
+  public int calculateCost(BasketSummary basket) {
+    return prices.get().calculateCost(basket);
+  }
 
-    // TODO we assumed the number of tickets is always valid (>=0)
-    // Calculate the cost and return
-    return adult * TicketTypeCost.TICKET_COST.getOrDefault(Type.ADULT, 0)
-        + child * TicketTypeCost.TICKET_COST.getOrDefault(Type.CHILD, 0)
-        + infant * TicketTypeCost.TICKET_COST.getOrDefault(Type.INFANT, 0);
+  @Override
+  public long quote(BasketSummary basket) {
+    // A single read of the current table, so the cost and version match
+    return prices.get().quote(basket);
   }
 }
@@ -0,0 +1,175 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
+import uk.gov.dwp.uc.pairtest.metrics.AdmissionLimiterMXBean;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for purchases, by token bucket
+ * <p>
+ * A purchase is admitted if there's a token in its account's bucket and in the global bucket. Account buckets are
+ * chosen by hashing the account id into a fixed number of buckets, so memory is bounded, at the cost of accounts
+ * occasionally sharing a bucket. Everything is lock-free, see {@link TokenBuckets}.
+ * <p>
+ * The limits can be changed at runtime, through the setters or JMX.
+ */
+public class AdmissionLimiter implements AdmissionLimiterMXBean {
+
+  /**
+   * Prefix of the system properties configuring the shared limiter
+   * (globalRate, globalBurst, accountRate and accountBurst, rates default to 0 for no limit)
+   */
+  public static final String PROPERTY_PREFIX = "cinema-tickets.admission.";
+
+  /**
+   * Number of account buckets
+   */
+  public static final int ACCOUNT_BUCKETS = 1 << 16;
+
+  // Shared by services that aren't given their own
+  private static volatile AdmissionLimiter shared;
+
+  private final TokenBuckets global;
+  private final TokenBuckets accounts;
+
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Constructor
+   *
+   * @param globalRate   the purchases admitted per second overall (0 for no limit)
+   * @param globalBurst  the most purchases admitted at once overall
+   * @param accountRate  the purchases admitted per second for an account (0 for no limit)
+   * @param accountBurst the most purchases admitted at once for an account
+   */
+  public AdmissionLimiter(long globalRate, int globalBurst, long accountRate, int accountBurst) {
+    this(new TokenBuckets(1, globalRate, globalBurst), new TokenBuckets(ACCOUNT_BUCKETS, accountRate, accountBurst));
+  }
+
+  AdmissionLimiter(TokenBuckets global, TokenBuckets accounts) {
+    this.global = global;
+    this.accounts = accounts;
+  }
+
+  /**
+   * The limiter shared by default, configured from system properties and registered with the platform MBean server
+   * on first use
+   *
+   * @return the shared limiter
+   */
+  public static AdmissionLimiter getShared() {
+    AdmissionLimiter limiter = shared;
+    if (limiter == null) {
+      synchronized (AdmissionLimiter.class) {
+        limiter = shared;
+        if (limiter == null) {
+          limiter = new AdmissionLimiter(
+              Long.getLong(PROPERTY_PREFIX + "globalRate", 0),
+              Integer.getInteger(PROPERTY_PREFIX + "globalBurst", 1),
+              Long.getLong(PROPERTY_PREFIX + "accountRate", 0),
+              Integer.getInteger(PROPERTY_PREFIX + "accountBurst", 1));
+          try {
+            limiter.registerMBean(ManagementFactory.getPlatformMBeanServer(), "default");
+          } catch (JMException e) {
+            // Limits still apply, they just can't be changed through JMX
+          }
+          shared = limiter;
+        }
+      }
+    }
+    return limiter;
+  }
+
+  /**
+   * Admit a purchase, if it's within the limits
+   *
+   * @param accountId the account id
+   * @return true if the purchase can go ahead
+   */
+  public boolean tryAdmit(long accountId) {
+    int bucket = (int) TicketUtils.hash(accountId) & (ACCOUNT_BUCKETS - 1);
+    if (!accounts.tryAcquire(bucket)) {
+      rejected.increment();
+      return false;
+    }
+
+    if (!global.tryAcquire(0)) {
+      // The account's token wasn't used after all
+      accounts.release(bucket);
+      rejected.increment();
+      return false;
+    }
+
+    admitted.increment();
+    return true;
+  }
+
+  /**
+   * Register this limiter's MXBean (type=AdmissionLimiter)
+   *
+   * @param server the MBean server
+   * @param name   distinguishes this limiter from others registered on the same server
+   * @throws JMException if the MXBean can't be registered
+   */
+  public void registerMBean(MBeanServer server, String name) throws JMException {
+    server.registerMBean(this,
+        new ObjectName(PurchaseMetrics.JMX_DOMAIN + ":type=AdmissionLimiter,name=" + ObjectName.quote(name)));
+  }
+
+  @Override
+  public long getGlobalRate() {
+    return global.getRate();
+  }
+
+  @Override
+  public void setGlobalRate(long rate) {
+    global.setRate(rate);
+  }
+
+  @Override
+  public int getGlobalBurst() {
+    return global.getBurst();
+  }
+
+  @Override
+  public void setGlobalBurst(int burst) {
+    global.setBurst(burst);
+  }
+
+  @Override
+  public long getAccountRate() {
+    return accounts.getRate();
+  }
+
+  @Override
+  public void setAccountRate(long rate) {
+    accounts.setRate(rate);
+  }
+
+  @Override
+  public int getAccountBurst() {
+    return accounts.getBurst();
+  }
+
+  @Override
+  public void setAccountBurst(int burst) {
+    accounts.setBurst(burst);
+  }
+
+  @Override
+  public long getAdmittedCount() {
+    return admitted.sum();
+  }
+
+  @Override
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+}
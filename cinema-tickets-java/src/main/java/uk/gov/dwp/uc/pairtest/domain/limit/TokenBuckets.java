@@ -0,0 +1,186 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * An array of token buckets sharing the same rate and burst
+ * <p>
+ * Each bucket is a single long, packing the time it was last refilled (in microseconds, modulo about 100 days) with
+ * the tokens it holds, and is updated with CAS, so there are no locks. Tokens are refilled lazily, when a bucket is
+ * used. The rate and burst can be changed at any time, a bucket holding more than the new burst is cut back when
+ * it's next used.
+ */
+public final class TokenBuckets {
+
+  // Layout of a bucket
+  private static final int TOKEN_BITS = 21;
+  private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+  private static final long TIME_MASK = (1L << (Long.SIZE - TOKEN_BITS)) - 1;
+
+  private static final long MICROS_PER_SECOND = 1_000_000;
+
+  /**
+   * The largest burst a bucket can hold
+   */
+  public static final int MAX_BURST = (int) TOKEN_MASK;
+
+  private final AtomicLongArray buckets;
+  private final LongSupplier clock;
+  private final long origin;
+
+  private final AtomicReference<Limit> limit;
+
+  /**
+   * Constructor
+   *
+   * @param size  the number of buckets
+   * @param rate  the tokens added to each bucket per second (0 for no limit)
+   * @param burst the most tokens a bucket can hold
+   */
+  public TokenBuckets(int size, long rate, int burst) {
+    this(size, rate, burst, System::nanoTime);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param size  the number of buckets
+   * @param rate  the tokens added to each bucket per second (0 for no limit)
+   * @param burst the most tokens a bucket can hold
+   * @param clock the time, in nanoseconds
+   */
+  TokenBuckets(int size, long rate, int burst, LongSupplier clock) {
+    this.buckets = new AtomicLongArray(size);
+    this.clock = clock;
+    this.origin = clock.getAsLong();
+    this.limit = new AtomicReference<>(new Limit(rate, burst));
+  }
+
+  /**
+   * Take a token from a bucket
+   *
+   * @param index the bucket
+   * @return true if there was a token to take
+   */
+  public boolean tryAcquire(int index) {
+    Limit current = limit.get();
+    if (current.rate == 0) {
+      return true;
+    }
+
+    long now = now();
+    while (true) {
+      long bucket = buckets.get(index);
+      long tokens;
+      long time;
+
+      if (bucket == 0) {
+        // Never used, so full
+        tokens = current.burst;
+        time = now;
+      } else {
+        tokens = bucket & TOKEN_MASK;
+        time = bucket >>> TOKEN_BITS;
+
+        // Add the tokens due since the last refill, carrying over any part token
+        long elapsed = (now - time) & TIME_MASK;
+        if (elapsed >= current.refillMicros) {
+          tokens = current.burst;
+          time = now;
+        } else {
+          long added = elapsed * current.rate / MICROS_PER_SECOND;
+          tokens = Math.min(current.burst, tokens + added);
+          time = (time + added * MICROS_PER_SECOND / current.rate) & TIME_MASK;
+        }
+      }
+
+      if (tokens == 0) {
+        return false;
+      }
+      if (buckets.compareAndSet(index, bucket, (time << TOKEN_BITS) | (tokens - 1))) {
+        return true;
+      }
+      // Otherwise we lost a race for the bucket, so try again
+    }
+  }
+
+  /**
+   * Give back a token taken from a bucket (if it isn't full)
+   *
+   * @param index the bucket
+   */
+  public void release(int index) {
+    Limit current = limit.get();
+    while (true) {
+      long bucket = buckets.get(index);
+      if (bucket == 0 || (bucket & TOKEN_MASK) >= current.burst) {
+        return;
+      }
+      if (buckets.compareAndSet(index, bucket, bucket + 1)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the tokens added to each bucket per second, 0 if there's no limit
+   */
+  public long getRate() {
+    return limit.get().rate;
+  }
+
+  /**
+   * @param rate the tokens added to each bucket per second (0 for no limit)
+   */
+  public void setRate(long rate) {
+    limit.updateAndGet(current -> new Limit(rate, current.burst));
+  }
+
+  /**
+   * @return the most tokens a bucket can hold
+   */
+  public int getBurst() {
+    return limit.get().burst;
+  }
+
+  /**
+   * @param burst the most tokens a bucket can hold
+   */
+  public void setBurst(int burst) {
+    limit.updateAndGet(current -> new Limit(current.rate, burst));
+  }
+
+  public int size() {
+    return buckets.length();
+  }
+
+  /**
+   * @return the time in microseconds, never 0 so a used bucket can't look unused
+   */
+  private long now() {
+    long micros = ((clock.getAsLong() - origin) / 1_000 + 1) & TIME_MASK;
+    return micros == 0 ? 1 : micros;
+  }
+
+  /**
+   * The rate and burst, replaced as a whole so they're always consistent
+   */
+  private static final class Limit {
+    private final long rate;
+    private final int burst;
+
+    // Time to refill an empty bucket
+    private final long refillMicros;
+
+    Limit(long rate, int burst) {
+      if (rate < 0 || rate > MICROS_PER_SECOND * MAX_BURST || burst < 1 || burst > MAX_BURST) {
+        throw new IllegalArgumentException("Invalid limit (" + rate + "/s, burst " + burst + ")");
+      }
+      this.rate = rate;
+      this.burst = burst;
+      this.refillMicros = rate == 0 ? 0 : (burst * MICROS_PER_SECOND + rate - 1) / rate;
+    }
+  }
+}
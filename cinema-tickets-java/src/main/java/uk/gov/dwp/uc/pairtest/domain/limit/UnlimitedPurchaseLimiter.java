@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
+
+/**
+ * Purchase limiter that allows everything
+ */
+public class UnlimitedPurchaseLimiter implements PurchaseLimiter {
+  @Override
+  public RejectionReason tryAcquire(long accountId, BasketSummary basket) {
+    return null;
+  }
+}
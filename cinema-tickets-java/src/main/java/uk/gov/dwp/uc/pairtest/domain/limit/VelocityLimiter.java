@@ -0,0 +1,334 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.VelocityLimiterMXBean;
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the tickets and purchases per account over a sliding window
+ * <p>
+ * The window is split into buckets, and each account has a ring of bucket counters, each packed into a long
+ * (the bucket number, purchases and tickets). The window total is the sum of the buckets still in the window,
+ * so it slides a bucket at a time.
+ * <p>
+ * Accounts are spread over stripes, each a small open-addressing table keyed by the primitive account id with its
+ * own lock, so accounts on different stripes never contend. The number of accounts tracked is bounded: when a stripe
+ * fills up, accounts with nothing in the window are evicted, and if none are idle the new account isn't limited
+ * (so a flood of accounts can't stop purchases altogether). Those purchases are counted, and shown over JMX, and a
+ * warning is logged each time a stripe starts letting accounts through this way.
+ * <p>
+ * A purchase that fails after it was allowed is released, taking it off the newest buckets in the window.
+ */
+public class VelocityLimiter implements PurchaseLimiter, VelocityLimiterMXBean {
+
+  private static final System.Logger LOG = System.getLogger(VelocityLimiter.class.getName());
+
+  /**
+   * Defaults, used by the no argument constructor
+   */
+  public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+  public static final int DEFAULT_BUCKETS = 12;
+  public static final int DEFAULT_MAX_TICKETS = 100;
+  public static final int DEFAULT_MAX_PURCHASES = 10;
+  public static final int DEFAULT_MAX_ACCOUNTS = 65_536;
+
+  // Stripes, chosen by the top bits of the account's hash
+  private static final int STRIPE_BITS = 6;
+  private static final int STRIPES = 1 << STRIPE_BITS;
+
+  // Layout of a bucket counter
+  private static final int BUCKET_SHIFT = 32;
+  private static final int PURCHASES_SHIFT = 16;
+  private static final long COUNT_MASK = 0xFFFFL;
+
+  private final long bucketNanos;
+  private final int buckets;
+  private final int maxTickets;
+  private final int maxPurchases;
+  private final LongSupplier clock;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  // Purchases allowed because there was no room to track the account
+  private final LongAdder untracked = new LongAdder();
+
+  /**
+   * Constructor
+   * Uses the defaults
+   */
+  public VelocityLimiter() {
+    this(DEFAULT_WINDOW, DEFAULT_BUCKETS, DEFAULT_MAX_TICKETS, DEFAULT_MAX_PURCHASES, DEFAULT_MAX_ACCOUNTS);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param window       the length of the window
+   * @param buckets      the number of buckets the window is split into
+   * @param maxTickets   the most tickets an account can buy in the window
+   * @param maxPurchases the most purchases an account can make in the window
+   * @param maxAccounts  roughly the most accounts tracked at once
+   */
+  public VelocityLimiter(Duration window, int buckets, int maxTickets, int maxPurchases, int maxAccounts) {
+    this(window, buckets, maxTickets, maxPurchases, maxAccounts, System::nanoTime);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param window       the length of the window
+   * @param buckets      the number of buckets the window is split into
+   * @param maxTickets   the most tickets an account can buy in the window
+   * @param maxPurchases the most purchases an account can make in the window
+   * @param maxAccounts  roughly the most accounts tracked at once
+   * @param clock        the time, in nanoseconds
+   */
+  VelocityLimiter(Duration window, int buckets, int maxTickets, int maxPurchases, int maxAccounts, LongSupplier clock) {
+    if (buckets < 1 || window.toNanos() < buckets) {
+      throw new IllegalArgumentException("Invalid window (" + window + " in " + buckets + " buckets)");
+    }
+    if (maxTickets < 1 || maxPurchases < 1 || maxAccounts < 1) {
+      throw new IllegalArgumentException("Limits must be at least one");
+    }
+
+    this.bucketNanos = window.toNanos() / buckets;
+    this.buckets = buckets;
+    this.maxTickets = maxTickets;
+    this.maxPurchases = maxPurchases;
+    this.clock = clock;
+
+    // Enough slots per stripe for its share of the accounts, within the load limit
+    int perStripe = (maxAccounts + STRIPES - 1) / STRIPES;
+    int capacity = Math.max(4, Integer.highestOneBit(perStripe * 4 / 3) << 1);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(capacity, perStripe);
+    }
+  }
+
+  @Override
+  public RejectionReason tryAcquire(long accountId, BasketSummary basket) {
+    // Invalid ids are left to the account validator
+    if (accountId <= 0) {
+      return null;
+    }
+
+    long hash = TicketUtils.hash(accountId);
+    int bucket = (int) (clock.getAsLong() / bucketNanos);
+    boolean allowed = stripes[(int) (hash >>> (Long.SIZE - STRIPE_BITS))].acquire(accountId, hash, basket.getTotal(), bucket);
+    return allowed ? null : RejectionReason.VELOCITY_LIMIT;
+  }
+
+  @Override
+  public void release(long accountId, BasketSummary basket) {
+    if (accountId <= 0) {
+      return;
+    }
+
+    long hash = TicketUtils.hash(accountId);
+    int bucket = (int) (clock.getAsLong() / bucketNanos);
+    stripes[(int) (hash >>> (Long.SIZE - STRIPE_BITS))].release(accountId, hash, basket.getTotal(), bucket);
+  }
+
+  /**
+   * Register this limiter's MXBean (type=VelocityLimiter)
+   *
+   * @param server the MBean server
+   * @param name   distinguishes this limiter from others registered on the same server
+   * @throws JMException if the MXBean can't be registered
+   */
+  public void registerMBean(MBeanServer server, String name) throws JMException {
+    server.registerMBean(this,
+        new ObjectName(PurchaseMetrics.JMX_DOMAIN + ":type=VelocityLimiter,name=" + ObjectName.quote(name)));
+  }
+
+  @Override
+  public int getTrackedAccounts() {
+    int total = 0;
+    for (Stripe stripe : stripes) {
+      total += stripe.size();
+    }
+    return total;
+  }
+
+  @Override
+  public long getUntrackedCount() {
+    return untracked.sum();
+  }
+
+  /**
+   * A table of accounts and their counters
+   */
+  private final class Stripe {
+    private final int maxSize;
+    private long[] keys;
+    private long[] counters;
+    private int size;
+
+    // Whether new accounts are going untracked, so it's only logged when it starts
+    private boolean full;
+
+    // The bucket idle accounts were last evicted in; accounts only go idle as the window slides (or on release), so
+    // rebuilding the table more than once a bucket while full would just churn the arrays
+    private int evictedIn = Integer.MIN_VALUE;
+
+    Stripe(int capacity, int maxSize) {
+      this.maxSize = maxSize;
+      this.keys = new long[capacity];
+      this.counters = new long[capacity * buckets];
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    /**
+     * @return true if the purchase is allowed (and so counted)
+     */
+    synchronized boolean acquire(long accountId, long hash, int tickets, int bucket) {
+      int slot = find(accountId, hash);
+      if (keys[slot] != accountId) {
+        // New account, make room if need be
+        if (size >= maxSize) {
+          if (bucket != evictedIn) {
+            evictedIn = bucket;
+            evictIdle(bucket);
+          }
+          if (size >= maxSize) {
+            untracked.increment();
+            if (!full) {
+              full = true;
+              LOG.log(System.Logger.Level.WARNING, "Velocity limits not applied to new accounts, "
+                  + "{0} accounts are already tracked with purchases in the window", size);
+            }
+            return true;
+          }
+          slot = find(accountId, hash);
+          full = false;
+        }
+        keys[slot] = accountId;
+        size++;
+      }
+
+      // Total the buckets still in the window
+      int base = slot * buckets;
+      long windowTickets = 0;
+      long windowPurchases = 0;
+      for (int i = 0; i < buckets; i++) {
+        long counter = counters[base + i];
+        if (isLive(counter, bucket)) {
+          windowTickets += counter & COUNT_MASK;
+          windowPurchases += (counter >>> PURCHASES_SHIFT) & COUNT_MASK;
+        }
+      }
+
+      if (windowPurchases + 1 > maxPurchases || windowTickets + tickets > maxTickets) {
+        return false;
+      }
+
+      // Count the purchase in the current bucket (starting it afresh if it's left over from an earlier window)
+      int index = base + Math.floorMod(bucket, buckets);
+      long counter = counters[index];
+      long purchases = 1;
+      long total = tickets;
+      if ((int) (counter >>> BUCKET_SHIFT) == bucket) {
+        purchases += (counter >>> PURCHASES_SHIFT) & COUNT_MASK;
+        total += counter & COUNT_MASK;
+      }
+      counters[index] = ((long) bucket << BUCKET_SHIFT)
+          | (Math.min(purchases, COUNT_MASK) << PURCHASES_SHIFT)
+          | Math.min(total, COUNT_MASK);
+      return true;
+    }
+
+    /**
+     * Take the purchase off the newest buckets in the window, as that's most likely where it was counted
+     */
+    synchronized void release(long accountId, long hash, int tickets, int bucket) {
+      int slot = find(accountId, hash);
+      if (keys[slot] != accountId) {
+        // Untracked, or evicted since
+        return;
+      }
+
+      int base = slot * buckets;
+      long purchase = 1;
+      long remaining = tickets;
+      for (int age = 0; age < buckets && (purchase > 0 || remaining > 0); age++) {
+        int index = base + Math.floorMod(bucket - age, buckets);
+        long counter = counters[index];
+        if ((int) (counter >>> BUCKET_SHIFT) != bucket - age) {
+          continue;
+        }
+
+        long purchases = (counter >>> PURCHASES_SHIFT) & COUNT_MASK;
+        long total = counter & COUNT_MASK;
+        long released = Math.min(purchases, purchase);
+        long taken = Math.min(total, remaining);
+        purchase -= released;
+        remaining -= taken;
+        counters[index] = ((long) (bucket - age) << BUCKET_SHIFT)
+            | ((purchases - released) << PURCHASES_SHIFT)
+            | (total - taken);
+      }
+    }
+
+    /**
+     * @return the slot holding the account, or the empty slot it would go in
+     */
+    private int find(long accountId, long hash) {
+      int mask = keys.length - 1;
+      int slot = (int) hash & mask;
+      while (keys[slot] != 0 && keys[slot] != accountId) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    /**
+     * Rebuild the table without the accounts that have nothing in the window
+     */
+    private void evictIdle(int bucket) {
+      long[] oldKeys = keys;
+      long[] oldCounters = counters;
+      keys = new long[oldKeys.length];
+      counters = new long[oldCounters.length];
+      size = 0;
+
+      for (int slot = 0; slot < oldKeys.length; slot++) {
+        if (oldKeys[slot] == 0 || isIdle(oldCounters, slot * buckets, bucket)) {
+          continue;
+        }
+        int newSlot = find(oldKeys[slot], TicketUtils.hash(oldKeys[slot]));
+        keys[newSlot] = oldKeys[slot];
+        System.arraycopy(oldCounters, slot * buckets, counters, newSlot * buckets, buckets);
+        size++;
+      }
+    }
+
+    private boolean isIdle(long[] counters, int base, int bucket) {
+      for (int i = 0; i < buckets; i++) {
+        if (isLive(counters[base + i], bucket) && (counters[base + i] & ~(-1L << BUCKET_SHIFT)) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return true if the counter is for a bucket still in the window
+     */
+    private boolean isLive(long counter, int bucket) {
+      int age = bucket - (int) (counter >>> BUCKET_SHIFT);
+      return age >= 0 && age < buckets;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Pricing rules compiled into a price array per screening
+ * <p>
+ * The demand range (0 - 100% sold) is split into bands at every boundary used by a rule, so within a band the same
+ * rules apply. Every screening then has the rules applied, in order, to the base prices once per band.
+ * Pricing a basket never looks at a rule.
+ * Immutable, compile again when the rules, prices or screenings change.
+ */
+public final class CompiledPricing {
+
+  private static final Type[] TYPES = Type.values();
+
+  private final int version;
+  private final int bandCount;
+  private final Map<Long, ScreeningPrices> screenings = new HashMap<>();
+
+  /**
+   * Constructor
+   * Compiles the rules
+   *
+   * @param version    the version of the pricing
+   * @param base       the prices before any rules are applied
+   * @param rules      the rules, applied in order
+   * @param screenings the screenings
+   */
+  public CompiledPricing(int version, PriceTable base, List<PricingRule> rules, Collection<Screening> screenings) {
+    this.version = version;
+
+    // Split the demand range into bands
+    TreeSet<Integer> starts = new TreeSet<>();
+    starts.add(0);
+    for (PricingRule rule : rules) {
+      starts.add(rule.getMinSold());
+      if (rule.getMaxSold() < 100) {
+        starts.add(rule.getMaxSold() + 1);
+      }
+    }
+    this.bandCount = starts.size();
+
+    byte[] bands = new byte[101];
+    int[] bandStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+    for (int band = 0; band < bandStarts.length; band++) {
+      int end = band + 1 < bandStarts.length ? bandStarts[band + 1] : 101;
+      for (int percent = bandStarts[band]; percent < end; percent++) {
+        bands[percent] = (byte) band;
+      }
+    }
+
+    // Price each screening in each band
+    for (Screening screening : screenings) {
+      int[] prices = new int[bandCount * TYPES.length];
+      for (int band = 0; band < bandCount; band++) {
+        for (Type type : TYPES) {
+          int price = base.getPrice(type);
+          for (PricingRule rule : rules) {
+            if (rule.appliesTo(screening, bandStarts[band])) {
+              price = rule.apply(type, price);
+            }
+          }
+          prices[band * TYPES.length + type.ordinal()] = price;
+        }
+      }
+
+      if (this.screenings.put(screening.getId(), new ScreeningPrices(this, bands, prices)) != null) {
+        throw new IllegalArgumentException("Duplicate screening (" + screening.getId() + ")");
+      }
+    }
+  }
+
+  /**
+   * @param screeningId the screening id
+   * @return the prices for the screening
+   * @throws InvalidPurchaseException if the screening is unknown
+   */
+  public ScreeningPrices forScreening(long screeningId) throws InvalidPurchaseException {
+    ScreeningPrices prices = screenings.get(screeningId);
+    if (prices == null) {
+      throw new InvalidPurchaseException(RejectionReason.UNKNOWN_SCREENING, screeningId);
+    }
+    return prices;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the number of demand bands the rules split the range into
+   */
+  public int getBandCount() {
+    return bandCount;
+  }
+}
@@ -0,0 +1,49 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publishes the current {@link CompiledPricing}
+ * <p>
+ * Rules are compiled when they're loaded, then swapped in through a single volatile reference,
+ * so loading new rules doesn't stop traffic. Each load gets the next version.
+ */
+public class PricingEngine {
+
+  private volatile CompiledPricing current;
+
+  /**
+   * Constructor
+   * Starts with the base prices for every screening
+   *
+   * @param base       the prices
+   * @param screenings the screenings
+   */
+  public PricingEngine(PriceTable base, Collection<Screening> screenings) {
+    this.current = new CompiledPricing(1, base, List.of(), screenings);
+  }
+
+  /**
+   * Compile and publish new rules
+   *
+   * @param base       the prices before any rules are applied
+   * @param rules      the rules, applied in order
+   * @param screenings the screenings
+   * @return the published pricing
+   */
+  public synchronized CompiledPricing load(PriceTable base, List<PricingRule> rules, Collection<Screening> screenings) {
+    CompiledPricing pricing = new CompiledPricing(current.getVersion() + 1, base, rules, screenings);
+    current = pricing;
+    return pricing;
+  }
+
+  /**
+   * @return the pricing currently in use
+   */
+  public CompiledPricing get() {
+    return current;
+  }
+}
@@ -0,0 +1,200 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A declarative pricing rule
+ * <p>
+ * A rule adjusts the price of some or all ticket types, for screenings on given days, starting within a time window,
+ * with any of the given tags, and while the percentage of seats sold is within a demand band.
+ * Anything not restricted matches everything, e.g.
+ * <pre>
+ *   PricingRule.percentOf(120).on(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY).between(LocalTime.of(17, 0), LocalTime.of(23, 0))
+ *   PricingRule.plus(5).tagged("imax").forTypes(Type.ADULT)
+ *   PricingRule.percentOf(150).whenSold(90, 100)
+ * </pre>
+ * Immutable, each restriction returns a new rule. Rules are only interpreted when they're compiled,
+ * see {@link CompiledPricing}.
+ */
+public final class PricingRule {
+
+  // How the price is adjusted
+  private enum Adjustment {
+    PERCENT_OF, PLUS, FIXED
+  }
+
+  private final Adjustment adjustment;
+  private final int amount;
+  private final Set<DayOfWeek> days;
+  private final LocalTime from;
+  private final LocalTime to;
+  private final Set<String> tags;
+  private final int minSold;
+  private final int maxSold;
+  private final Set<Type> types;
+
+  private PricingRule(Adjustment adjustment, int amount, Set<DayOfWeek> days, LocalTime from, LocalTime to,
+                      Set<String> tags, int minSold, int maxSold, Set<Type> types) {
+    this.adjustment = adjustment;
+    this.amount = amount;
+    this.days = days;
+    this.from = from;
+    this.to = to;
+    this.tags = tags;
+    this.minSold = minSold;
+    this.maxSold = maxSold;
+    this.types = types;
+  }
+
+  private static PricingRule of(Adjustment adjustment, int amount) {
+    return new PricingRule(adjustment, amount, Set.of(), null, null, Set.of(), 0, 100, Set.of());
+  }
+
+  /**
+   * @param percent the percentage of the price to charge
+   * @return a rule scaling the price (rounded to the nearest whole amount)
+   */
+  public static PricingRule percentOf(int percent) {
+    if (percent < 0) {
+      throw new IllegalArgumentException("Invalid percentage (" + percent + ")");
+    }
+    return of(Adjustment.PERCENT_OF, percent);
+  }
+
+  /**
+   * @param amount the amount to add (or take off, if negative)
+   * @return a rule adding to the price (never taking it below zero)
+   */
+  public static PricingRule plus(int amount) {
+    return of(Adjustment.PLUS, amount);
+  }
+
+  /**
+   * @param price the price
+   * @return a rule setting the price
+   */
+  public static PricingRule fixed(int price) {
+    if (price < 0) {
+      throw new IllegalArgumentException("Invalid price (" + price + ")");
+    }
+    return of(Adjustment.FIXED, price);
+  }
+
+  /**
+   * @param days the days the screening must start on
+   * @return the rule restricted to the days
+   */
+  public PricingRule on(DayOfWeek... days) {
+    return new PricingRule(adjustment, amount, Set.of(days), from, to, tags, minSold, maxSold, types);
+  }
+
+  /**
+   * @param from the earliest start time (inclusive)
+   * @param to   the latest start time (exclusive), before from for a window spanning midnight
+   * @return the rule restricted to screenings starting in the window
+   */
+  public PricingRule between(LocalTime from, LocalTime to) {
+    if (from.equals(to)) {
+      throw new IllegalArgumentException("Empty time window (" + from + ")");
+    }
+    return new PricingRule(adjustment, amount, days, from, to, tags, minSold, maxSold, types);
+  }
+
+  /**
+   * @param tags the tags, the screening must have at least one of them
+   * @return the rule restricted to the tagged screenings
+   */
+  public PricingRule tagged(String... tags) {
+    return new PricingRule(adjustment, amount, days, from, to, Set.of(tags), minSold, maxSold, types);
+  }
+
+  /**
+   * @param minPercent the lowest percentage of seats sold (inclusive)
+   * @param maxPercent the highest percentage of seats sold (inclusive)
+   * @return the rule restricted to the demand band
+   */
+  public PricingRule whenSold(int minPercent, int maxPercent) {
+    if (minPercent < 0 || maxPercent > 100 || minPercent > maxPercent) {
+      throw new IllegalArgumentException("Invalid demand band (" + minPercent + "-" + maxPercent + ")");
+    }
+    return new PricingRule(adjustment, amount, days, from, to, tags, minPercent, maxPercent, types);
+  }
+
+  /**
+   * @param types the ticket types
+   * @return the rule restricted to the ticket types
+   */
+  public PricingRule forTypes(Type... types) {
+    Set<Type> set = EnumSet.noneOf(Type.class);
+    set.addAll(Set.of(types));
+    return new PricingRule(adjustment, amount, days, from, to, tags, minSold, maxSold, set);
+  }
+
+  int getMinSold() {
+    return minSold;
+  }
+
+  int getMaxSold() {
+    return maxSold;
+  }
+
+  /**
+   * @param screening   the screening
+   * @param percentSold the percentage of seats sold
+   * @return true if the rule applies to the screening at that level of demand
+   */
+  boolean appliesTo(Screening screening, int percentSold) {
+    // Check the demand
+    if (percentSold < minSold || percentSold > maxSold) {
+      return false;
+    }
+
+    // Check the day
+    if (!days.isEmpty() && !days.contains(screening.getStart().getDayOfWeek())) {
+      return false;
+    }
+
+    // Check the time
+    if (from != null) {
+      LocalTime time = screening.getStart().toLocalTime();
+      boolean inWindow = from.isBefore(to)
+          ? !time.isBefore(from) && time.isBefore(to)
+          : !time.isBefore(from) || time.isBefore(to);
+      if (!inWindow) {
+        return false;
+      }
+    }
+
+    // Check the tags
+    if (!tags.isEmpty() && tags.stream().noneMatch(screening.getTags()::contains)) {
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * @param type  the ticket type
+   * @param price the price so far
+   * @return the price once the rule is applied
+   */
+  int apply(Type type, int price) {
+    if (!types.isEmpty() && !types.contains(type)) {
+      return price;
+    }
+
+    switch (adjustment) {
+      case PERCENT_OF:
+        return (price * amount + 50) / 100;
+      case PLUS:
+        return Math.max(0, price + amount);
+      default:
+        return amount;
+    }
+  }
+}
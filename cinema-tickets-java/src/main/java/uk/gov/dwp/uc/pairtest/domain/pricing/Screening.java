@@ -0,0 +1,41 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * A screening, as far as pricing is concerned
+ * <p>
+ * Immutable, the start time and tags (e.g. "imax", "premiere") decide which pricing rules apply
+ */
+public final class Screening {
+
+  private final long id;
+  private final LocalDateTime start;
+  private final Set<String> tags;
+
+  /**
+   * Constructor
+   *
+   * @param id    the screening id
+   * @param start when the screening starts
+   * @param tags  the screening's tags
+   */
+  public Screening(long id, LocalDateTime start, String... tags) {
+    this.id = id;
+    this.start = start;
+    this.tags = Set.of(tags);
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public LocalDateTime getStart() {
+    return start;
+  }
+
+  public Set<String> getTags() {
+    return tags;
+  }
+}
@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.seat.SeatMap;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Cost calculator using the compiled pricing rules for a screening
+ * <p>
+ * The calculator interface has no notion of a screening, so each instance is bound to one, along with where the
+ * current demand comes from. Pricing is the screening's prices for the current demand band, with no rules evaluated.
+ */
+public class ScreeningCostCalculator implements TicketCostCalculator {
+
+  private final PricingEngine engine;
+  private final long screeningId;
+  private final IntSupplier percentSold;
+
+  // The screening's prices from the current pricing, looked up again when new rules are loaded
+  private volatile ScreeningPrices prices;
+
+  /**
+   * Constructor
+   *
+   * @param engine      the pricing engine
+   * @param screeningId the screening tickets are priced for
+   * @param percentSold the percentage of seats currently sold
+   */
+  public ScreeningCostCalculator(PricingEngine engine, long screeningId, IntSupplier percentSold) {
+    this.engine = engine;
+    this.screeningId = screeningId;
+    this.percentSold = percentSold;
+  }
+
+  /**
+   * Constructor
+   * Demand is taken from the screening's seats
+   *
+   * @param engine      the pricing engine
+   * @param screeningId the screening tickets are priced for
+   * @param seats       the screening's seats
+   */
+  public ScreeningCostCalculator(PricingEngine engine, long screeningId, SeatMap seats) {
+    this(engine, screeningId, () -> (seats.getCapacity() - seats.getAvailable()) * 100 / seats.getCapacity());
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the screening is unknown
+   */
+  @Override
+  public int calculateCost(BasketSummary basket) throws InvalidPurchaseException {
+    return prices().calculateCost(basket, percentSold.getAsInt());
+  }
+
+  /**
+   * @return the cost and the version of the pricing rules
+   * @throws InvalidPurchaseException if the screening is unknown
+   */
+  @Override
+  public long quote(BasketSummary basket) throws InvalidPurchaseException {
+    return prices().quote(basket, percentSold.getAsInt());
+  }
+
+  /**
+   * @return the screening's prices from the current pricing
+   */
+  private ScreeningPrices prices() {
+    CompiledPricing pricing = engine.get();
+    ScreeningPrices cached = prices;
+    if (cached == null || cached.getPricing() != pricing) {
+      cached = pricing.forScreening(screeningId);
+      prices = cached;
+    }
+    return cached;
+  }
+}
@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+
+/**
+ * The compiled prices of a single screening
+ * <p>
+ * One price per ticket type per demand band, so pricing a basket is a band lookup and three array reads.
+ */
+public final class ScreeningPrices {
+
+  private static final int TYPES = Type.values().length;
+
+  private final CompiledPricing pricing;
+
+  // Band for each percentage sold, 0 - 100 (shared by all screenings)
+  private final byte[] bands;
+
+  // Prices, indexed by band * TYPES + type ordinal
+  private final int[] prices;
+
+  ScreeningPrices(CompiledPricing pricing, byte[] bands, int[] prices) {
+    this.pricing = pricing;
+    this.bands = bands;
+    this.prices = prices;
+  }
+
+  /**
+   * @param type        the ticket type
+   * @param percentSold the percentage of seats sold
+   * @return the price of the ticket type
+   */
+  public int getPrice(Type type, int percentSold) {
+    return prices[offset(percentSold) + type.ordinal()];
+  }
+
+  /**
+   * @param basket      the basket
+   * @param percentSold the percentage of seats sold
+   * @return the cost of the basket
+   */
+  public int calculateCost(BasketSummary basket, int percentSold) {
+    int offset = offset(percentSold);
+    return basket.getCount(Type.ADULT) * prices[offset + Type.ADULT.ordinal()]
+        + basket.getCount(Type.CHILD) * prices[offset + Type.CHILD.ordinal()]
+        + basket.getCount(Type.INFANT) * prices[offset + Type.INFANT.ordinal()];
+  }
+
+  /**
+   * @param basket      the basket
+   * @param percentSold the percentage of seats sold
+   * @return the cost of the basket, quoted with the version of the rules
+   */
+  public long quote(BasketSummary basket, int percentSold) {
+    return PriceTable.quote(calculateCost(basket, percentSold), pricing.getVersion());
+  }
+
+  /**
+   * @return the compiled pricing these prices are part of
+   */
+  public CompiledPricing getPricing() {
+    return pricing;
+  }
+
+  private int offset(int percentSold) {
+    // Out of range demand is treated as the nearest end of the range
+    int percent = Math.min(100, Math.max(0, percentSold));
+    return bands[percent] * TYPES;
+  }
+}
@@ -0,0 +1,242 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Allocates groups of adjacent seats in a single row, best available first
+ * <p>
+ * Best available means the row nearest the middle of the auditorium, then the seats nearest the middle of that row.
+ * <p>
+ * Each row keeps an index of its maximal free runs of seats, and a max tree over the rows holds the longest run
+ * in each row. Finding a row that can take a group is therefore O(log rows) however full the house is,
+ * and both are updated incrementally as seats are reserved and released.
+ * <p>
+ * Seat numbers are 0 based, numbered row by row (so seat = row * seatsPerRow + position in row).
+ * Each allocator covers one screening and its methods are synchronized.
+ */
+public class GroupSeatAllocator {
+
+  private final int rows;
+  private final int seatsPerRow;
+
+  // Free runs in each row, start -> length
+  private final List<TreeMap<Integer, Integer>> runs;
+
+  // Free run lengths in each row, length -> number of runs of that length
+  private final List<TreeMap<Integer, Integer>> runLengths;
+
+  // Max tree over the longest free run in each row (leaves start at index leaves)
+  private final int leaves;
+  private final int[] longest;
+
+  private int available;
+
+  /**
+   * Constructor
+   *
+   * @param rows        the number of rows
+   * @param seatsPerRow the number of seats in each row
+   */
+  public GroupSeatAllocator(int rows, int seatsPerRow) {
+    if (rows < 1 || seatsPerRow < 1) {
+      throw new IllegalArgumentException("There must be at least one row and one seat per row");
+    }
+
+    this.rows = rows;
+    this.seatsPerRow = seatsPerRow;
+    this.runs = new ArrayList<>(rows);
+    this.runLengths = new ArrayList<>(rows);
+    this.leaves = Integer.highestOneBit(rows) == rows ? rows : Integer.highestOneBit(rows) << 1;
+    this.longest = new int[leaves * 2];
+    this.available = rows * seatsPerRow;
+
+    // Every row starts as one free run
+    for (int row = 0; row < rows; row++) {
+      runs.add(new TreeMap<>());
+      runLengths.add(new TreeMap<>());
+      addRun(row, 0, seatsPerRow);
+      updateLongest(row);
+    }
+  }
+
+  /**
+   * Reserve the given number of adjacent seats, in the best row available
+   *
+   * @param seats the number of seats
+   * @return the seat numbers reserved, in order along the row
+   * @throws InvalidPurchaseException if no row has enough adjacent seats free (or the group is wider than a row)
+   */
+  public synchronized int[] reserve(int seats) throws InvalidPurchaseException {
+    if (seats < 1) {
+      throw new InvalidPurchaseException("Invalid number of adjacent seats (%d)", seats);
+    }
+
+    int row = seats > seatsPerRow ? -1 : bestRow(seats);
+    if (row < 0) {
+      throw new InvalidPurchaseException(RejectionReason.NO_ADJACENT_SEATS, seats);
+    }
+
+    // Find the run in the row that lets the group sit nearest the middle
+    double middle = (seatsPerRow - seats) / 2.0;
+    int bestRunStart = -1;
+    int bestStart = -1;
+    for (Map.Entry<Integer, Integer> run : runs.get(row).entrySet()) {
+      if (run.getValue() < seats) {
+        continue;
+      }
+
+      // Nearest start to the middle that keeps the group within the run
+      int start = (int) Math.round(Math.max(run.getKey(), Math.min(middle, run.getKey() + run.getValue() - seats)));
+      if (bestStart < 0 || Math.abs(start - middle) < Math.abs(bestStart - middle)) {
+        bestRunStart = run.getKey();
+        bestStart = start;
+      }
+    }
+
+    // Split the run around the group
+    int runLength = removeRun(row, bestRunStart);
+    addRun(row, bestRunStart, bestStart - bestRunStart);
+    addRun(row, bestStart + seats, bestRunStart + runLength - bestStart - seats);
+    updateLongest(row);
+    available -= seats;
+
+    int[] reserved = new int[seats];
+    for (int i = 0; i < seats; i++) {
+      reserved[i] = row * seatsPerRow + bestStart + i;
+    }
+    return reserved;
+  }
+
+  /**
+   * Release the given seats
+   * Seats that aren't reserved are ignored
+   *
+   * @param seats the seat numbers
+   */
+  public synchronized void release(int... seats) {
+    for (int seat : seats) {
+      if (seat < 0 || seat >= rows * seatsPerRow) {
+        throw new IllegalArgumentException("No such seat (" + seat + ")");
+      }
+
+      int row = seat / seatsPerRow;
+      int position = seat % seatsPerRow;
+
+      // Already free?
+      Map.Entry<Integer, Integer> before = runs.get(row).floorEntry(position);
+      if (before != null && before.getKey() + before.getValue() > position) {
+        continue;
+      }
+
+      // Merge with the runs either side
+      int start = position;
+      int end = position + 1;
+      if (before != null && before.getKey() + before.getValue() == position) {
+        start = before.getKey();
+        removeRun(row, start);
+      }
+      if (runs.get(row).containsKey(end)) {
+        end += removeRun(row, end);
+      }
+      addRun(row, start, end - start);
+      updateLongest(row);
+      available++;
+    }
+  }
+
+  /**
+   * @param row the row
+   * @return the longest run of adjacent free seats in the row
+   */
+  public synchronized int getLongestRun(int row) {
+    return longest[leaves + row];
+  }
+
+  /**
+   * @return the number of seats not reserved
+   */
+  public synchronized int getAvailable() {
+    return available;
+  }
+
+  /**
+   * @param seats the number of adjacent seats needed
+   * @return the row nearest the middle with enough adjacent seats free, or -1 if there isn't one
+   */
+  private int bestRow(int seats) {
+    int middle = (rows - 1) / 2;
+    int behind = firstRow(1, 0, leaves - 1, middle, seats);
+    int inFront = lastRow(1, 0, leaves - 1, middle, seats);
+
+    if (behind < 0) {
+      return inFront;
+    }
+    if (inFront < 0) {
+      return behind;
+    }
+    return behind - middle <= middle - inFront ? behind : inFront;
+  }
+
+  /**
+   * @return the first row at or after from with a run of at least seats, or -1
+   */
+  private int firstRow(int node, int low, int high, int from, int seats) {
+    if (high < from || longest[node] < seats) {
+      return -1;
+    }
+    if (low == high) {
+      return low;
+    }
+    int mid = (low + high) >>> 1;
+    int row = firstRow(node * 2, low, mid, from, seats);
+    return row >= 0 ? row : firstRow(node * 2 + 1, mid + 1, high, from, seats);
+  }
+
+  /**
+   * @return the last row at or before to with a run of at least seats, or -1
+   */
+  private int lastRow(int node, int low, int high, int to, int seats) {
+    if (low > to || longest[node] < seats) {
+      return -1;
+    }
+    if (low == high) {
+      return low;
+    }
+    int mid = (low + high) >>> 1;
+    int row = lastRow(node * 2 + 1, mid + 1, high, to, seats);
+    return row >= 0 ? row : lastRow(node * 2, low, mid, to, seats);
+  }
+
+  private void addRun(int row, int start, int length) {
+    if (length > 0) {
+      runs.get(row).put(start, length);
+      runLengths.get(row).merge(length, 1, Integer::sum);
+    }
+  }
+
+  /**
+   * @return the length of the run removed
+   */
+  private int removeRun(int row, int start) {
+    int length = runs.get(row).remove(start);
+    runLengths.get(row).computeIfPresent(length, (l, count) -> count == 1 ? null : count - 1);
+    return length;
+  }
+
+  /**
+   * Refresh the longest run for the row and push it up the tree
+   */
+  private void updateLongest(int row) {
+    int node = leaves + row;
+    longest[node] = runLengths.get(row).isEmpty() ? 0 : runLengths.get(row).lastKey();
+    for (node >>>= 1; node > 0; node >>>= 1) {
+      longest[node] = Math.max(longest[node * 2], longest[node * 2 + 1]);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Seat reservation service that keeps each purchase sat together
+ * <p>
+ * Backed by a {@link GroupSeatAllocator}, so is bound to a single screening.
+ * The seats reserved are recorded against the account, so they can be released again.
+ */
+public class GroupSeatReservationService implements SeatReservationService {
+
+  private final GroupSeatAllocator allocator;
+  private final SeatAllocations allocations = new SeatAllocations();
+
+  /**
+   * Constructor
+   *
+   * @param allocator the allocator for the screening
+   */
+  public GroupSeatReservationService(GroupSeatAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  /**
+   * Reserve adjacent seats for the purchase
+   *
+   * @param accountId            the account id
+   * @param totalSeatsToAllocate the number of seats
+   * @throws InvalidPurchaseException if there are not enough adjacent seats available
+   */
+  @Override
+  public void reserveSeat(long accountId, int totalSeatsToAllocate) throws InvalidPurchaseException {
+    allocations.record(accountId, allocator.reserve(totalSeatsToAllocate));
+  }
+
+  /**
+   * Release the account's latest reservation of the given number of seats
+   * Does nothing if there's no such reservation (so releasing again is harmless)
+   *
+   * @param accountId           the account id
+   * @param totalSeatsToRelease the number of seats
+   */
+  @Override
+  public void releaseSeat(long accountId, int totalSeatsToRelease) {
+    int[] seats = allocations.remove(accountId, totalSeatsToRelease);
+    if (seats != null) {
+      allocator.release(seats);
+    }
+  }
+
+  /**
+   * @param accountId the account id
+   * @return the seat numbers reserved for the account, newest reservation first
+   */
+  public int[][] getReservedSeats(long accountId) {
+    return allocations.get(accountId).clone();
+  }
+}
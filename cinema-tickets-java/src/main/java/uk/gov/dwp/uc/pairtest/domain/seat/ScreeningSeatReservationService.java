@@ -0,0 +1,63 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Seat reservation service backed by the local {@link SeatInventory}
+ * <p>
+ * The reservation service interface has no notion of a screening, so each instance is bound to one.
+ * The seats reserved are recorded against the account, so they can be released again.
+ */
+public class ScreeningSeatReservationService implements SeatReservationService {
+
+  private final SeatInventory inventory;
+  private final long screeningId;
+  private final SeatAllocations allocations = new SeatAllocations();
+
+  /**
+   * Constructor
+   *
+   * @param inventory   the seat inventory
+   * @param screeningId the screening seats are reserved for
+   */
+  public ScreeningSeatReservationService(SeatInventory inventory, long screeningId) {
+    this.inventory = inventory;
+    this.screeningId = screeningId;
+  }
+
+  /**
+   * Reserve seats for the screening
+   *
+   * @param accountId            the account id
+   * @param totalSeatsToAllocate the number of seats
+   * @throws InvalidPurchaseException if there are not enough seats available
+   */
+  @Override
+  public void reserveSeat(long accountId, int totalSeatsToAllocate) throws InvalidPurchaseException {
+    allocations.record(accountId, inventory.reserve(screeningId, totalSeatsToAllocate));
+  }
+
+  /**
+   * Release the account's latest reservation of the given number of seats
+   * Does nothing if there's no such reservation (so releasing again is harmless)
+   *
+   * @param accountId           the account id
+   * @param totalSeatsToRelease the number of seats
+   */
+  @Override
+  public void releaseSeat(long accountId, int totalSeatsToRelease) {
+    int[] seats = allocations.remove(accountId, totalSeatsToRelease);
+    if (seats != null) {
+      inventory.release(screeningId, seats);
+    }
+  }
+
+  /**
+   * @param accountId the account id
+   * @return the seat numbers reserved for the account, newest reservation first
+   */
+  public int[][] getReservedSeats(long accountId) {
+    return allocations.get(accountId).clone();
+  }
+}
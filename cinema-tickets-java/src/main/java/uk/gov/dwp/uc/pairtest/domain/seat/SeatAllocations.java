@@ -0,0 +1,67 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The seats reserved by each account, so a reservation can be found and released again
+ * <p>
+ * Each account's reservations are held newest first and replaced whole on each change, so readers never see one
+ * half updated.
+ */
+final class SeatAllocations {
+
+  private static final int[][] NONE = new int[0][];
+
+  private final Map<Long, int[][]> byAccount = new ConcurrentHashMap<>();
+
+  /**
+   * Record a reservation
+   *
+   * @param accountId the account id
+   * @param seats     the seat numbers reserved
+   */
+  void record(long accountId, int[] seats) {
+    byAccount.merge(accountId, new int[][]{seats}, (reservations, added) -> {
+      int[][] updated = new int[reservations.length + 1][];
+      updated[0] = added[0];
+      System.arraycopy(reservations, 0, updated, 1, reservations.length);
+      return updated;
+    });
+  }
+
+  /**
+   * Forget the account's latest reservation of the given number of seats
+   *
+   * @param accountId the account id
+   * @param seats     the number of seats reserved
+   * @return the seat numbers reserved, or null if the account has no such reservation
+   */
+  int[] remove(long accountId, int seats) {
+    int[][] removed = new int[1][];
+    byAccount.computeIfPresent(accountId, (id, reservations) -> {
+      for (int i = 0; i < reservations.length; i++) {
+        if (reservations[i].length == seats) {
+          removed[0] = reservations[i];
+          if (reservations.length == 1) {
+            return null;
+          }
+          int[][] updated = new int[reservations.length - 1][];
+          System.arraycopy(reservations, 0, updated, 0, i);
+          System.arraycopy(reservations, i + 1, updated, i, updated.length - i);
+          return updated;
+        }
+      }
+      return reservations;
+    });
+    return removed[0];
+  }
+
+  /**
+   * @param accountId the account id
+   * @return the account's reservations, newest first (shared, don't change)
+   */
+  int[][] get(long accountId) {
+    return byAccount.getOrDefault(accountId, NONE);
+  }
+}
@@ -0,0 +1,67 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory seat inventory
+ * <p>
+ * Holds a {@link SeatMap} per screening, so capacity is enforced and overbooking can't happen.
+ * Screenings are independent, so there is no lock shared between them.
+ */
+public class SeatInventory {
+
+  private final Map<Long, SeatMap> screenings = new ConcurrentHashMap<>();
+
+  /**
+   * Add a screening
+   *
+   * @param screeningId the screening id
+   * @param capacity    the number of seats in the auditorium
+   * @throws IllegalStateException if the screening already exists
+   */
+  public void addScreening(long screeningId, int capacity) {
+    if (screenings.putIfAbsent(screeningId, new SeatMap(capacity)) != null) {
+      throw new IllegalStateException("Screening already exists (" + screeningId + ")");
+    }
+  }
+
+  /**
+   * Reserve seats for a screening
+   *
+   * @param screeningId the screening id
+   * @param seats       the number of seats
+   * @return the seat numbers reserved
+   * @throws InvalidPurchaseException if the screening is unknown or there are not enough seats available
+   */
+  public int[] reserve(long screeningId, int seats) throws InvalidPurchaseException {
+    return getSeatMap(screeningId).reserve(seats);
+  }
+
+  /**
+   * Release seats for a screening
+   *
+   * @param screeningId the screening id
+   * @param seats       the seat numbers
+   * @throws InvalidPurchaseException if the screening is unknown
+   */
+  public void release(long screeningId, int... seats) throws InvalidPurchaseException {
+    getSeatMap(screeningId).release(seats);
+  }
+
+  /**
+   * @param screeningId the screening id
+   * @return the seats for the screening
+   * @throws InvalidPurchaseException if the screening is unknown
+   */
+  public SeatMap getSeatMap(long screeningId) throws InvalidPurchaseException {
+    SeatMap seatMap = screenings.get(screeningId);
+    if (seatMap == null) {
+      throw new InvalidPurchaseException(RejectionReason.UNKNOWN_SCREENING, screeningId);
+    }
+    return seatMap;
+  }
+}
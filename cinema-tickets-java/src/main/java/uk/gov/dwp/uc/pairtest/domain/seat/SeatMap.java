@@ -0,0 +1,156 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The seats of a single screening
+ * <p>
+ * One bit per seat (set when reserved) packed into longs, updated with CAS so no locks are needed.
+ * Seat numbers are 0 based.
+ */
+public final class SeatMap {
+
+  // Atomic access to the individual words of the bitmap
+  private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final long[] words;
+  private final int capacity;
+
+  // Seats not yet claimed by a reservation
+  // (claimed before the bits are set, so a reservation that gets this far is guaranteed to find its seats)
+  private final AtomicInteger available;
+
+  /**
+   * Constructor
+   *
+   * @param capacity the number of seats
+   */
+  public SeatMap(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least one seat");
+    }
+
+    this.capacity = capacity;
+    this.words = new long[(capacity + Long.SIZE - 1) / Long.SIZE];
+    this.available = new AtomicInteger(capacity);
+
+    // Mark the unused bits at the end of the last word as reserved so they're never handed out
+    int used = capacity % Long.SIZE;
+    if (used != 0) {
+      words[words.length - 1] = -1L << used;
+    }
+  }
+
+  /**
+   * Reserve the given number of seats
+   * Either all the seats are reserved or none are
+   *
+   * @param seats the number of seats
+   * @return the seat numbers reserved
+   * @throws InvalidPurchaseException if there are not enough seats available
+   */
+  public int[] reserve(int seats) throws InvalidPurchaseException {
+    if (seats < 0) {
+      throw new InvalidPurchaseException("Invalid number of seats (%d)", seats);
+    }
+
+    // Claim the capacity first
+    int free;
+    do {
+      free = available.get();
+      if (free < seats) {
+        throw new InvalidPurchaseException(RejectionReason.NOT_ENOUGH_SEATS, seats, free);
+      }
+    } while (!available.compareAndSet(free, free - seats));
+
+    // Then find the seats
+    // (starting at a random word so concurrent reservations don't all fight over the same one)
+    int[] reserved = new int[seats];
+    int found = 0;
+    int index = ThreadLocalRandom.current().nextInt(words.length);
+    while (found < seats) {
+      long word = (long) WORDS.getVolatile(words, index);
+      long claim = lowestBits(~word, seats - found);
+
+      if (claim == 0) {
+        // Full, move on
+        index = (index + 1) % words.length;
+      } else if (WORDS.compareAndSet(words, index, word, word | claim)) {
+        // Record the seats we got
+        for (long bits = claim; bits != 0; bits &= bits - 1) {
+          reserved[found++] = index * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        }
+      }
+      // Otherwise we lost a race for this word, so try it again
+    }
+
+    return reserved;
+  }
+
+  /**
+   * Release the given seats
+   * Seats that aren't reserved are ignored
+   *
+   * @param seats the seat numbers
+   */
+  public void release(int... seats) {
+    int released = 0;
+    for (int seat : seats) {
+      checkSeat(seat);
+      long bit = 1L << seat;
+      long previous = (long) WORDS.getAndBitwiseAnd(words, seat / Long.SIZE, ~bit);
+      if ((previous & bit) != 0) {
+        released++;
+      }
+    }
+    available.addAndGet(released);
+  }
+
+  /**
+   * @param seat the seat number
+   * @return true if the seat is reserved
+   */
+  public boolean isReserved(int seat) {
+    checkSeat(seat);
+    long word = (long) WORDS.getVolatile(words, seat / Long.SIZE);
+    return (word & (1L << seat)) != 0;
+  }
+
+  /**
+   * @return the number of seats not reserved
+   */
+  public int getAvailable() {
+    return available.get();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private void checkSeat(int seat) {
+    if (seat < 0 || seat >= capacity) {
+      throw new IllegalArgumentException("No such seat (" + seat + ")");
+    }
+  }
+
+  /**
+   * @param bits  the bits
+   * @param count the maximum number of bits wanted
+   * @return up to count of the lowest set bits of bits
+   */
+  private static long lowestBits(long bits, int count) {
+    long result = 0;
+    for (int i = 0; i < count && bits != 0; i++) {
+      long lowest = bits & -bits;
+      result |= lowest;
+      bits ^= lowest;
+    }
+    return result;
+  }
+}
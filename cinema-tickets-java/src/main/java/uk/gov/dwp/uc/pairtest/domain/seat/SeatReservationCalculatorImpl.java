@@ -1,8 +1,7 @@
 package uk.gov.dwp.uc.pairtest.domain.seat;
 
-import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
-import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
 import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
 
 /**
@@ -11,11 +10,11 @@ import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
 public class SeatReservationCalculatorImpl implements SeatReservationCalculator {
 
   @Override
-  public int calculateSeats(TicketTypeRequest... ticketTypeRequests) {
+  public int calculateSeats(BasketSummary basket) {
     // Get the counts of various tickets requested
     // (We ignore infants as they sit on adults laps)
-    int adult = TicketUtils.count(Type.ADULT, ticketTypeRequests);
-    int child = TicketUtils.count(Type.CHILD, ticketTypeRequests);
+    int adult = basket.getCount(Type.ADULT);
+    int child = basket.getCount(Type.CHILD);
 
     // TODO we assume the number of tickets is valid (>=0)
     // TODO we assume the number of adult tickets is sufficient for the infants
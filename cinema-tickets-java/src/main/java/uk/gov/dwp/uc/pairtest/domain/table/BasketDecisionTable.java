@@ -0,0 +1,183 @@
+package uk.gov.dwp.uc.pairtest.domain.table;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+
+import java.util.Map;
+
+/**
+ * Pre-computed decisions for every basket within the ticket limit
+ * <p>
+ * For each (adult, child, infant) count the table holds the validation verdict, the cost and the seats required,
+ * packed into a single long, so answering any of them is one array index.
+ * Immutable, build a new table when the prices or limit change.
+ */
+public final class BasketDecisionTable {
+
+  // Layout of an entry
+  private static final int SEATS_SHIFT = 32;
+  private static final int REASON_SHIFT = 48;
+  private static final long COST_MASK = 0xFFFF_FFFFL;
+  private static final long SEATS_MASK = 0xFFFFL;
+
+  private static final RejectionReason[] REASONS = RejectionReason.values();
+
+  private final int maxTickets;
+  private final int dimension;
+  private final int[] prices;
+  private final long[] entries;
+
+  // The published prices the table was built from, if any
+  private final PriceTable priceTable;
+
+  /**
+   * Constructor
+   * Builds the table
+   *
+   * @param maxTickets the maximum number of tickets in a basket
+   * @param prices     the price of each ticket type (missing types are free)
+   */
+  public BasketDecisionTable(int maxTickets, Map<Type, Integer> prices) {
+    this(maxTickets, prices, null);
+  }
+
+  /**
+   * Constructor
+   * Builds the table for a published version of the prices
+   *
+   * @param maxTickets the maximum number of tickets in a basket
+   * @param prices     the prices
+   */
+  public BasketDecisionTable(int maxTickets, PriceTable prices) {
+    this(maxTickets, prices.toMap(), prices);
+  }
+
+  private BasketDecisionTable(int maxTickets, Map<Type, Integer> prices, PriceTable priceTable) {
+    if (maxTickets < 0 || maxTickets > SEATS_MASK) {
+      throw new IllegalArgumentException("Invalid maximum number of tickets (" + maxTickets + ")");
+    }
+
+    this.maxTickets = maxTickets;
+    this.priceTable = priceTable;
+    this.dimension = maxTickets + 1;
+    this.prices = new int[Type.values().length];
+    for (Type type : Type.values()) {
+      this.prices[type.ordinal()] = prices.getOrDefault(type, 0);
+    }
+
+    this.entries = new long[dimension * dimension * dimension];
+    for (int adult = 0; adult <= maxTickets; adult++) {
+      for (int child = 0; adult + child <= maxTickets; child++) {
+        for (int infant = 0; adult + child + infant <= maxTickets; infant++) {
+          entries[index(adult, child, infant)] = decide(adult, child, infant);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param basket the basket
+   * @return the reason the basket is rejected, or null if it is valid
+   * (the checks on the requests themselves, rather than the counts, are not covered)
+   */
+  public RejectionReason getRejection(BasketSummary basket) {
+    if (!isInTable(basket)) {
+      return isNegative(basket) ? RejectionReason.EMPTY_REQUEST : RejectionReason.TOO_MANY_TICKETS;
+    }
+    int reason = (int) (entries[index(basket)] >>> REASON_SHIFT);
+    return reason == 0 ? null : REASONS[reason - 1];
+  }
+
+  /**
+   * @param basket the basket
+   * @return the cost of the basket
+   */
+  public int getCost(BasketSummary basket) {
+    if (!isInTable(basket)) {
+      // Outside the table, so work it out
+      return cost(basket.getCount(Type.ADULT), basket.getCount(Type.CHILD), basket.getCount(Type.INFANT));
+    }
+    return (int) (entries[index(basket)] & COST_MASK);
+  }
+
+  /**
+   * @param basket the basket
+   * @return the seats required for the basket
+   */
+  public int getSeats(BasketSummary basket) {
+    if (!isInTable(basket)) {
+      // Outside the table, so work it out
+      return basket.getCount(Type.ADULT) + basket.getCount(Type.CHILD);
+    }
+    return (int) ((entries[index(basket)] >>> SEATS_SHIFT) & SEATS_MASK);
+  }
+
+  public int getMaxTickets() {
+    return maxTickets;
+  }
+
+  /**
+   * @return the published prices the table was built from, or null if it was built from prices given directly
+   */
+  public PriceTable getPriceTable() {
+    return priceTable;
+  }
+
+  /**
+   * @param type the ticket type
+   * @return the price used for the ticket type
+   */
+  public int getPrice(Type type) {
+    return prices[type.ordinal()];
+  }
+
+  /**
+   * @return true if the basket has an entry, every count being from zero up to the limit in total
+   * (checked before indexing, as a negative count would otherwise index another basket's entry, and summed as a long,
+   * as counts whose int total overflows would otherwise pass)
+   */
+  private boolean isInTable(BasketSummary basket) {
+    int adult = basket.getCount(Type.ADULT);
+    int child = basket.getCount(Type.CHILD);
+    int infant = basket.getCount(Type.INFANT);
+    return (adult | child | infant) >= 0 && (long) adult + child + infant <= maxTickets;
+  }
+
+  private static boolean isNegative(BasketSummary basket) {
+    return (basket.getCount(Type.ADULT) | basket.getCount(Type.CHILD) | basket.getCount(Type.INFANT)) < 0;
+  }
+
+  private int index(BasketSummary basket) {
+    return index(basket.getCount(Type.ADULT), basket.getCount(Type.CHILD), basket.getCount(Type.INFANT));
+  }
+
+  private int index(int adult, int child, int infant) {
+    return (adult * dimension + child) * dimension + infant;
+  }
+
+  private int cost(int adult, int child, int infant) {
+    return adult * prices[Type.ADULT.ordinal()]
+        + child * prices[Type.CHILD.ordinal()]
+        + infant * prices[Type.INFANT.ordinal()];
+  }
+
+  /**
+   * Apply the business rules to the counts (mirrors TicketRequestsValidatorImpl and the calculators)
+   *
+   * @return the packed entry for the counts
+   */
+  private long decide(int adult, int child, int infant) {
+    RejectionReason reason = null;
+    if (adult == 0 && (child > 0 || infant > 0)) {
+      reason = RejectionReason.NO_ADULT;
+    } else if (infant > adult) {
+      reason = RejectionReason.TOO_MANY_INFANTS;
+    }
+
+    long code = reason == null ? 0 : reason.ordinal() + 1;
+    long seats = adult + child;
+    return (code << REASON_SHIFT) | (seats << SEATS_SHIFT) | (cost(adult, child, infant) & COST_MASK);
+  }
+}
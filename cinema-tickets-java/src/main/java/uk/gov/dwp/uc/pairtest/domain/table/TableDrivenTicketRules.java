@@ -0,0 +1,151 @@
+package uk.gov.dwp.uc.pairtest.domain.table;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTableStore;
+import uk.gov.dwp.uc.pairtest.domain.validator.TicketRequestsValidatorImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
+
+import java.util.Map;
+
+/**
+ * Validator and calculators driven by a {@link BasketDecisionTable}
+ * <p>
+ * Gives the same answers as the rule based implementations, but each is a single table lookup.
+ * The table is swapped atomically when the prices or limit change, so callers always see a complete table.
+ * <p>
+ * Built from a {@link PriceTableStore}, the table follows the published prices: the first lookup after a new
+ * version is published rebuilds it, and quotes carry the version the cost came from. Per screening prices aren't
+ * covered, those come from the {@code ScreeningCostCalculator} instead.
+ */
+public class TableDrivenTicketRules implements TicketRequestsValidator, TicketCostCalculator, SeatReservationCalculator {
+
+  // Where the prices come from (null if only ever given directly)
+  private final PriceTableStore store;
+
+  private volatile BasketDecisionTable table;
+
+  /**
+   * Constructor
+   * Uses the standard ticket limit and the shared published prices
+   */
+  public TableDrivenTicketRules() {
+    this(TicketRequestsValidatorImpl.MAX_TICKETS, PriceTableStore.getShared());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param maxTickets the maximum number of tickets in a basket
+   * @param store      where the prices are published
+   */
+  public TableDrivenTicketRules(int maxTickets, PriceTableStore store) {
+    this.store = store;
+    this.table = new BasketDecisionTable(maxTickets, store.get());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param maxTickets the maximum number of tickets in a basket
+   * @param prices     the price of each ticket type
+   */
+  public TableDrivenTicketRules(int maxTickets, Map<Type, Integer> prices) {
+    this.store = null;
+    this.table = new BasketDecisionTable(maxTickets, prices);
+  }
+
+  /**
+   * Rebuild the table for new prices and limit
+   * The new table is built before it replaces the old one, and its prices stay fixed until the next rebuild
+   * (rather than following the published prices)
+   *
+   * @param maxTickets the maximum number of tickets in a basket
+   * @param prices     the price of each ticket type
+   */
+  public void rebuild(int maxTickets, Map<Type, Integer> prices) {
+    table = new BasketDecisionTable(maxTickets, prices);
+  }
+
+  /**
+   * Rebuild the table for a new limit, with the published prices
+   *
+   * @param maxTickets the maximum number of tickets in a basket
+   * @throws IllegalStateException if there's no store of published prices
+   */
+  public void rebuild(int maxTickets) {
+    if (store == null) {
+      throw new IllegalStateException("No published prices to rebuild from");
+    }
+    table = new BasketDecisionTable(maxTickets, store.get());
+  }
+
+  /**
+   * @return the table currently in use, rebuilt first if the published prices have changed
+   */
+  public BasketDecisionTable getTable() {
+    BasketDecisionTable current = table;
+    PriceTable pricedAt = current.getPriceTable();
+    if (pricedAt != null) {
+      PriceTable published = store.get();
+      if (published != pricedAt) {
+        // (threads racing to rebuild each use the prices they read, and the next lookup corrects any stale write)
+        current = new BasketDecisionTable(current.getMaxTickets(), published);
+        table = current;
+      }
+    }
+    return current;
+  }
+
+  @Override
+  public void validate(BasketSummary basket) throws InvalidPurchaseException {
+    BasketDecisionTable current = getTable();
+    RejectionReason reason = check(basket, current);
+    if (reason != null) {
+      throw InvalidPurchaseException.forBasket(reason, basket, current.getMaxTickets());
+    }
+  }
+
+  @Override
+  public RejectionReason check(BasketSummary basket) {
+    return check(basket, getTable());
+  }
+
+  @Override
+  public int calculateCost(BasketSummary basket) {
+    return getTable().getCost(basket);
+  }
+
+  @Override
+  public long quote(BasketSummary basket) {
+    // A single read of the current table, so the cost and version match
+    BasketDecisionTable current = getTable();
+    PriceTable pricedAt = current.getPriceTable();
+    return PriceTable.quote(current.getCost(basket), pricedAt == null ? 0 : pricedAt.getVersion());
+  }
+
+  @Override
+  public int calculateSeats(BasketSummary basket) {
+    return getTable().getSeats(basket);
+  }
+
+  private RejectionReason check(BasketSummary basket, BasketDecisionTable current) {
+    // Check we have some requests
+    if (basket.getRequestCount() == 0) {
+      return RejectionReason.NO_REQUESTS;
+    }
+
+    // Check each request is for at least one ticket
+    if (basket.hasEmptyRequest()) {
+      return RejectionReason.EMPTY_REQUEST;
+    }
+
+    // Everything else is in the table
+    return current.getRejection(basket);
+  }
+}
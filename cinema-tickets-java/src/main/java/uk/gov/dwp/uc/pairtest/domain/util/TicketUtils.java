@@ -32,4 +32,22 @@ public class TicketUtils {
         .mapToInt(TicketTypeRequest::getNoOfTickets)
         .sum();
   }
+
+
+  /**
+   * Mix the bits of a long (the finaliser from MurmurHash3)
+   * Used to hash ids, as sequential ids would otherwise cluster
+   *
+   * @param value the value
+   * @return the hash
+   */
+  public static long hash(long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
 }
@@ -1,5 +1,6 @@
 package uk.gov.dwp.uc.pairtest.domain.validator;
 
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
 
@@ -7,9 +8,15 @@ public class AccountValidatorImpl implements AccountValidator {
 
   @Override
   public void validate(long accountId) throws InvalidPurchaseException {
-    // Anything with an id >0 is valid
-    if (accountId <= 0) {
-      throw new InvalidPurchaseException("Invalid account id (%d)", accountId);
+    RejectionReason reason = check(accountId);
+    if (reason != null) {
+      throw new InvalidPurchaseException(reason, accountId);
     }
   }
+
+  @Override
+  public RejectionReason check(long accountId) {
+    // Anything with an id >0 is valid
+    return accountId <= 0 ? RejectionReason.INVALID_ACCOUNT : null;
+  }
 }
@@ -0,0 +1,202 @@
+package uk.gov.dwp.uc.pairtest.domain.validator;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountBloomFilter;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.metrics.AccountFilterMXBean;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Account validator that puts a {@link AccountBloomFilter} in front of another
+ * <p>
+ * Accounts the filter has definitely never seen are rejected as unknown straight away, everything else is passed on
+ * to the other validator, which has the final say. The filter must therefore hold every account the other validator
+ * knows, so new accounts must be {@link #add added} (or the filter rebuilt) before they're used.
+ */
+public class BloomFilterAccountValidator implements AccountValidator, AccountFilterMXBean {
+
+  /**
+   * The false positive rate used by the no argument constructor, unless configured
+   */
+  public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+  private final AccountValidator validator;
+  private final double falsePositiveRate;
+
+  // Swapped when rebuilt
+  private volatile AccountBloomFilter filter;
+
+  // The filter being rebuilt, which accounts added meanwhile also go into, guarded by adding
+  private final Object adding = new Object();
+  private AccountBloomFilter rebuilding;
+
+  private final LongAdder checks = new LongAdder();
+  private final LongAdder filtered = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+
+  /**
+   * Constructor
+   * The filter is built from the registry configured by system properties (see {@link AccountRegistry#openConfigured}),
+   * with the {@code falsePositiveRate} property's rate, which also has the final say
+   */
+  public BloomFilterAccountValidator() {
+    this(AccountRegistry.openConfigured(), Double.parseDouble(System.getProperty(
+        AccountRegistry.PROPERTY_PREFIX + "falsePositiveRate", String.valueOf(DEFAULT_FALSE_POSITIVE_RATE))));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param validator         the validator with the final say
+   * @param filter            the filter, holding every account the validator knows
+   * @param falsePositiveRate the false positive rate to use when the filter is rebuilt
+   */
+  public BloomFilterAccountValidator(AccountValidator validator, AccountBloomFilter filter, double falsePositiveRate) {
+    this.validator = validator;
+    this.filter = filter;
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
+  /**
+   * Constructor
+   * The filter is built from the registry, which also has the final say
+   *
+   * @param registry          the registry of accounts
+   * @param falsePositiveRate the false positive rate of the filter
+   */
+  public BloomFilterAccountValidator(AccountRegistry registry, double falsePositiveRate) {
+    this(new RegisteredAccountValidator(registry), build(registry, falsePositiveRate), falsePositiveRate);
+  }
+
+  @Override
+  public void validate(long accountId) throws InvalidPurchaseException {
+    RejectionReason reason = check(accountId);
+    if (reason != null) {
+      throw new InvalidPurchaseException(reason, accountId);
+    }
+  }
+
+  @Override
+  public RejectionReason check(long accountId) {
+    // Invalid ids are left to the validator
+    if (accountId <= 0) {
+      return validator.check(accountId);
+    }
+
+    checks.increment();
+    if (!filter.mightContain(accountId)) {
+      filtered.increment();
+      return RejectionReason.UNKNOWN_ACCOUNT;
+    }
+
+    RejectionReason reason = validator.check(accountId);
+    if (reason == RejectionReason.UNKNOWN_ACCOUNT) {
+      falsePositives.increment();
+    }
+    return reason;
+  }
+
+  /**
+   * Add a new account to the filter
+   *
+   * @param accountId the account id
+   */
+  public void add(long accountId) {
+    synchronized (adding) {
+      filter.add(accountId);
+      if (rebuilding != null) {
+        rebuilding.add(accountId);
+      }
+    }
+  }
+
+  /**
+   * Rebuild the filter from a registry snapshot, sized for the accounts it holds
+   * The new filter is built before it replaces the old one, and accounts added meanwhile go into both, so only
+   * accounts added before the rebuild started need to be in the snapshot
+   *
+   * @param snapshot the registry file
+   * @throws IOException if the snapshot can't be read
+   */
+  public synchronized void rebuild(Path snapshot) throws IOException {
+    try (AccountRegistry registry = AccountRegistry.open(snapshot)) {
+      AccountBloomFilter rebuilt = AccountBloomFilter.forAccounts(registry.size(), falsePositiveRate);
+      synchronized (adding) {
+        rebuilding = rebuilt;
+      }
+
+      try {
+        registry.forEachAccount(rebuilt::add);
+        synchronized (adding) {
+          filter = rebuilt;
+        }
+      } finally {
+        synchronized (adding) {
+          rebuilding = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the filter currently in use
+   */
+  public AccountBloomFilter getFilter() {
+    return filter;
+  }
+
+  @Override
+  public long getCheckCount() {
+    return checks.sum();
+  }
+
+  @Override
+  public long getFilteredCount() {
+    return filtered.sum();
+  }
+
+  @Override
+  public long getFalsePositiveCount() {
+    return falsePositives.sum();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long total = checks.sum();
+    return total == 0 ? 0 : (double) (total - filtered.sum()) / total;
+  }
+
+  @Override
+  public double getFalsePositiveRate() {
+    long passed = falsePositives.sum();
+    long unknown = passed + filtered.sum();
+    return unknown == 0 ? 0 : (double) passed / unknown;
+  }
+
+  /**
+   * Register this filter's MXBean (type=AccountFilter)
+   *
+   * @param server the MBean server
+   * @param name   distinguishes this filter from others registered on the same server
+   * @throws JMException if the MXBean can't be registered
+   */
+  public void registerMBean(MBeanServer server, String name) throws JMException {
+    server.registerMBean(this,
+        new ObjectName(PurchaseMetrics.JMX_DOMAIN + ":type=AccountFilter,name=" + ObjectName.quote(name)));
+  }
+
+  private static AccountBloomFilter build(AccountRegistry registry, double falsePositiveRate) {
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(registry.size(), falsePositiveRate);
+    registry.forEachAccount(filter::add);
+    return filter;
+  }
+}
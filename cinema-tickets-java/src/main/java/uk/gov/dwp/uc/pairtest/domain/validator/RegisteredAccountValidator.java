@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.domain.validator;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
+
+/**
+ * Account validator that only accepts active accounts in an {@link AccountRegistry}
+ */
+public class RegisteredAccountValidator implements AccountValidator {
+
+  private final AccountRegistry registry;
+
+  /**
+   * Constructor
+   * Opens the registry configured by system properties, see {@link AccountRegistry#openConfigured}
+   */
+  public RegisteredAccountValidator() {
+    this(AccountRegistry.openConfigured());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param registry the registry of accounts
+   */
+  public RegisteredAccountValidator(AccountRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void validate(long accountId) throws InvalidPurchaseException {
+    RejectionReason reason = check(accountId);
+    if (reason != null) {
+      throw new InvalidPurchaseException(reason, accountId);
+    }
+  }
+
+  @Override
+  public RejectionReason check(long accountId) {
+    // Check the id is valid at all
+    if (accountId <= 0) {
+      return RejectionReason.INVALID_ACCOUNT;
+    }
+
+    // Then that it's registered and not blocked
+    AccountRegistry.Status status = registry.getStatus(accountId);
+    if (status == null) {
+      return RejectionReason.UNKNOWN_ACCOUNT;
+    }
+    return status == AccountRegistry.Status.BLOCKED ? RejectionReason.BLOCKED_ACCOUNT : null;
+  }
+}
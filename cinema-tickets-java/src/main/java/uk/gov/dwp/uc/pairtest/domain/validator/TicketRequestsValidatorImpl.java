@@ -1,8 +1,8 @@
 package uk.gov.dwp.uc.pairtest.domain.validator;
 
-import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
-import uk.gov.dwp.uc.pairtest.domain.util.TicketUtils;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
 
@@ -40,50 +40,56 @@ public class TicketRequestsValidatorImpl implements TicketRequestsValidator {
    * =====
    * Assume the array of requests must not be empty
    * Assume each request must be for at least one ticket
-   *
-   * TODO: Should a request that contains (say) two separate requests for the same type be considered invalid?
+   * Separate requests for the same type are valid, and are added together (see TicketBasket)
    */
 
   /**
    * The maximum number of tickets that can be bought in a single request
    */
-  private static final long MAX_TICKETS = 25;
+  public static final int MAX_TICKETS = 25;
+
+  @Override
+  public void validate(BasketSummary basket) throws InvalidPurchaseException {
+    RejectionReason reason = check(basket);
+    if (reason != null) {
+      throw InvalidPurchaseException.forBasket(reason, basket, MAX_TICKETS);
+    }
+  }
 
   @Override
-  public void validate(TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+  public RejectionReason check(BasketSummary basket) {
     // Check we have some requests
-    if (ticketTypeRequests == null || ticketTypeRequests.length == 0) {
-      throw new InvalidPurchaseException("No ticket requests");
+    if (basket.getRequestCount() == 0) {
+      return RejectionReason.NO_REQUESTS;
     }
 
     // Check each request is for at least one ticket
-    for (TicketTypeRequest ttr : ticketTypeRequests) {
-      if (ttr.getNoOfTickets() < 1) {
-        throw new InvalidPurchaseException("Ticket request was for zero tickets");
-      }
+    if (basket.hasEmptyRequest()) {
+      return RejectionReason.EMPTY_REQUEST;
     }
 
     // Get the counts of various tickets requested
-    int adult = TicketUtils.count(Type.ADULT, ticketTypeRequests);
-    int child = TicketUtils.count(Type.CHILD, ticketTypeRequests);
-    int infant = TicketUtils.count(Type.INFANT, ticketTypeRequests);
+    int adult = basket.getCount(Type.ADULT);
+    int child = basket.getCount(Type.CHILD);
+    int infant = basket.getCount(Type.INFANT);
 
     // Check the total count against the maximum allowed
     // (We've inferred the total is > 0 in the check that each request is for >0 tickets)
-    if (adult + child + infant > MAX_TICKETS) {
-      throw new InvalidPurchaseException("Tickets requested exceed maximum allowed (%d)", MAX_TICKETS);
+    if (basket.getTotal() > MAX_TICKETS) {
+      return RejectionReason.TOO_MANY_TICKETS;
     }
 
     // Check there are some adults if there are children
     if (adult == 0 && (child > 0 || infant > 0)) {
-      throw new InvalidPurchaseException("At least one adult ticket must me ordered when ordering child or infant tickets");
+      return RejectionReason.NO_ADULT;
     }
 
     // Check there are at least as many adults as infants
     if (infant > adult) {
-      throw new InvalidPurchaseException("Infant tickets requested (%d) exceeds adults (%d)", infant, adult);
+      return RejectionReason.TOO_MANY_INFANTS;
     }
 
     // Valid!
+    return null;
   }
 }
@@ -1,9 +1,26 @@
 package uk.gov.dwp.uc.pairtest.exception;
 
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
 /**
  * General exception
+ * <p>
+ * Rejections are routine rather than exceptional, so this is kept cheap to create:
+ * no stack trace is captured and the message is only formatted if it's asked for.
  */
 public class InvalidPurchaseException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final RejectionReason reason;
+  private final String format;
+  private final Object[] args;
+
+  // Formatted on first use
+  private String message;
+
   /**
    * Constructor
    * Generates an exception using a formatted string for the message
@@ -12,6 +29,58 @@ public class InvalidPurchaseException extends RuntimeException {
    * @param args   the arguments
    */
   public InvalidPurchaseException(String format, Object... args) {
-    super(String.format(format, args));
+    this(null, format, args);
+  }
+
+  /**
+   * Constructor
+   * Generates an exception for the given rejection, using its format for the message
+   *
+   * @param reason the reason for the rejection
+   * @param args   the arguments for the message
+   */
+  public InvalidPurchaseException(RejectionReason reason, Object... args) {
+    this(reason, reason.getFormat(), args);
+  }
+
+  private InvalidPurchaseException(RejectionReason reason, String format, Object... args) {
+    super(null, null, false, false);
+    this.reason = reason;
+    this.format = format;
+    this.args = args;
+  }
+
+  /**
+   * Generates an exception for a rejected basket, with the details the message for the reason needs
+   *
+   * @param reason     the reason for the rejection
+   * @param basket     the basket
+   * @param maxTickets the maximum number of tickets allowed
+   * @return the exception
+   */
+  public static InvalidPurchaseException forBasket(RejectionReason reason, BasketSummary basket, int maxTickets) {
+    switch (reason) {
+      case TOO_MANY_TICKETS:
+        return new InvalidPurchaseException(reason, maxTickets);
+      case TOO_MANY_INFANTS:
+        return new InvalidPurchaseException(reason, basket.getCount(Type.INFANT), basket.getCount(Type.ADULT));
+      default:
+        return new InvalidPurchaseException(reason);
+    }
+  }
+
+  @Override
+  public String getMessage() {
+    if (message == null) {
+      message = args == null || args.length == 0 ? format : String.format(format, args);
+    }
+    return message;
+  }
+
+  /**
+   * @return the reason for the rejection, or null if the exception wasn't raised for one
+   */
+  public RejectionReason getReason() {
+    return reason;
   }
 }
@@ -1,6 +1,5 @@
 package uk.gov.dwp.uc.pairtest.factory;
 
-import uk.gov.dwp.uc.pairtest.domain.validator.AccountValidatorImpl;
 import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
 
 /**
@@ -15,10 +14,9 @@ public class AccountValidatorFactory {
   /**
    * Factory
    *
-   * @return an account validator
+   * @return the configured account validator (shared)
    */
   public static AccountValidator getAccountValidator() {
-    // TODO some logic to read configuration and choose the provider to use
-    return new AccountValidatorImpl();
+    return ProviderRegistry.getInstance().get(AccountValidator.class);
   }
 }
@@ -0,0 +1,160 @@
+package uk.gov.dwp.uc.pairtest.factory;
+
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketCostCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.limit.UnlimitedPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.domain.seat.SeatReservationCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.validator.AccountValidatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.validator.TicketRequestsValidatorImpl;
+import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the providers used by the ticket service
+ * <p>
+ * Implementations are discovered with {@link ServiceLoader} and chosen by configuration, once, when the registry is
+ * created. Each implementation is created only once and shared (so providers must be thread-safe), and a class that
+ * implements several provider interfaces is shared between them.
+ * <p>
+ * Configuration is read, in increasing priority, from {@value #CONFIG_RESOURCE} on the classpath, the file named by
+ * the {@value #CONFIG_FILE_PROPERTY} system property, and system properties. Each provider is selected with
+ * {@value #PROPERTY_PREFIX} followed by the interface name, e.g.
+ * <pre>
+ *   provider.TicketCostCalculator=uk.gov.dwp.uc.pairtest.domain.table.TableDrivenTicketRules
+ * </pre>
+ */
+public final class ProviderRegistry {
+
+  /**
+   * Configuration resource looked for on the classpath
+   */
+  public static final String CONFIG_RESOURCE = "cinema-tickets.properties";
+
+  /**
+   * System property naming a configuration file
+   */
+  public static final String CONFIG_FILE_PROPERTY = "cinema-tickets.config";
+
+  /**
+   * Prefix of the properties that select a provider
+   */
+  public static final String PROPERTY_PREFIX = "provider.";
+
+  // Used when nothing is configured
+  private static final Map<Class<?>, Class<?>> DEFAULTS = Map.of(
+      AccountValidator.class, AccountValidatorImpl.class,
+      TicketRequestsValidator.class, TicketRequestsValidatorImpl.class,
+      TicketCostCalculator.class, TicketCostCalculatorImpl.class,
+      SeatReservationCalculator.class, SeatReservationCalculatorImpl.class,
+      PurchaseLimiter.class, UnlimitedPurchaseLimiter.class
+  );
+
+  // Provider interface -> chosen implementation
+  private final Map<Class<?>, Object> providers = new HashMap<>();
+
+  /**
+   * Constructor
+   * Resolves every provider up front, so misconfiguration is found at startup
+   *
+   * @param config the configuration
+   * @throws IllegalStateException if a configured provider can't be found
+   */
+  public ProviderRegistry(Properties config) {
+    // Implementation class -> instance, so an implementation of several interfaces is shared
+    Map<Class<?>, Object> instances = new HashMap<>();
+
+    for (Map.Entry<Class<?>, Class<?>> entry : DEFAULTS.entrySet()) {
+      Class<?> type = entry.getKey();
+      String name = config.getProperty(PROPERTY_PREFIX + type.getSimpleName(), entry.getValue().getName());
+      providers.put(type, resolve(type, name, instances));
+    }
+  }
+
+  /**
+   * @return the registry, configured from the standard locations on first use
+   */
+  public static ProviderRegistry getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * @param type the provider interface
+   * @param <T>  the provider interface
+   * @return the provider for the interface
+   * @throws IllegalArgumentException if the interface isn't a known provider
+   */
+  public <T> T get(Class<T> type) {
+    Object provider = providers.get(type);
+    if (provider == null) {
+      throw new IllegalArgumentException("Unknown provider type (" + type.getName() + ")");
+    }
+    return type.cast(provider);
+  }
+
+  /**
+   * Find the named implementation of the provider interface
+   */
+  private static Object resolve(Class<?> type, String name, Map<Class<?>, Object> instances) {
+    ServiceLoader.Provider<?> provider = ServiceLoader.load(type).stream()
+        .filter(p -> p.type().getName().equals(name))
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException(
+            "No provider " + name + " found for " + type.getSimpleName()));
+
+    return instances.computeIfAbsent(provider.type(), t -> provider.get());
+  }
+
+  /**
+   * Read the configuration from the standard locations
+   *
+   * @return the configuration
+   */
+  static Properties loadConfig() {
+    Properties config = new Properties();
+
+    // Classpath
+    try (InputStream in = ProviderRegistry.class.getClassLoader().getResourceAsStream(CONFIG_RESOURCE)) {
+      if (in != null) {
+        config.load(in);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read " + CONFIG_RESOURCE, e);
+    }
+
+    // Named file
+    String file = System.getProperty(CONFIG_FILE_PROPERTY);
+    if (file != null) {
+      try (InputStream in = Files.newInputStream(Path.of(file))) {
+        config.load(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to read " + file, e);
+      }
+    }
+
+    // System properties
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith(PROPERTY_PREFIX)) {
+        config.setProperty(name, System.getProperty(name));
+      }
+    }
+
+    return config;
+  }
+
+  // Lazily created on first use
+  private static final class Holder {
+    private static final ProviderRegistry INSTANCE = new ProviderRegistry(loadConfig());
+  }
+}
@@ -0,0 +1,22 @@
+package uk.gov.dwp.uc.pairtest.factory;
+
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
+
+/**
+ * Purchase limiter factory
+ */
+public class PurchaseLimiterFactory {
+
+  // Prevent instantiation
+  private PurchaseLimiterFactory() {
+  }
+
+  /**
+   * Factory
+   *
+   * @return the configured purchase limiter (shared)
+   */
+  public static PurchaseLimiter getPurchaseLimiter() {
+    return ProviderRegistry.getInstance().get(PurchaseLimiter.class);
+  }
+}
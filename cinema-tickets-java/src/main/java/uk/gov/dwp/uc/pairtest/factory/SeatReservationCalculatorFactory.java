@@ -1,6 +1,5 @@
 package uk.gov.dwp.uc.pairtest.factory;
 
-import uk.gov.dwp.uc.pairtest.domain.seat.SeatReservationCalculatorImpl;
 import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
 
 /**
@@ -15,10 +14,9 @@ public class SeatReservationCalculatorFactory {
   /**
    * Factory
    *
-   * @return a seat reservation calculator
+   * @return the configured seat reservation calculator (shared)
    */
   public static SeatReservationCalculator getSeatReservationCalculator() {
-    // TODO some logic to read configuration and choose the provider to use
-    return new SeatReservationCalculatorImpl();
+    return ProviderRegistry.getInstance().get(SeatReservationCalculator.class);
   }
 }
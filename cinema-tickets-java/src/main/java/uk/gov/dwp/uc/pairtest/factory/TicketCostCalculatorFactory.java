@@ -1,6 +1,5 @@
 package uk.gov.dwp.uc.pairtest.factory;
 
-import uk.gov.dwp.uc.pairtest.domain.cost.TicketCostCalculatorImpl;
 import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
 
 /**
@@ -15,10 +14,9 @@ public class TicketCostCalculatorFactory {
   /**
    * Factory
    *
-   * @return a ticket cost calculator
+   * @return the configured ticket cost calculator (shared)
    */
   public static TicketCostCalculator getTicketCostProvider() {
-    // TODO some logic to read configuration and choose the provider to use
-    return new TicketCostCalculatorImpl();
+    return ProviderRegistry.getInstance().get(TicketCostCalculator.class);
   }
 }
@@ -1,6 +1,5 @@
 package uk.gov.dwp.uc.pairtest.factory;
 
-import uk.gov.dwp.uc.pairtest.domain.validator.TicketRequestsValidatorImpl;
 import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
 
 /**
@@ -15,10 +14,9 @@ public class TicketRequestsValidatorFactory {
   /**
    * Factory
    *
-   * @return a ticket requests validator
+   * @return the configured ticket requests validator (shared)
    */
   public static TicketRequestsValidator getTicketRequestsValidator() {
-    // TODO some logic to read configuration and choose the provider to use
-    return new TicketRequestsValidatorImpl();
+    return ProviderRegistry.getInstance().get(TicketRequestsValidator.class);
   }
 }
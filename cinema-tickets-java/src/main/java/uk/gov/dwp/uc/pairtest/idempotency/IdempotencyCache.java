@@ -0,0 +1,246 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of each call by its idempotency key, so a repeated call gets the original outcome
+ * rather than being run again
+ * <p>
+ * A duplicate of a call still in flight waits for it and shares its outcome, so however many copies of a call
+ * arrive together it's only run once. Outcomes are remembered for the time to live, and the oldest are evicted
+ * first once the cache is full (an evicted call that is still in flight can then be run again by a duplicate).
+ * <p>
+ * Outcomes and failures are remembered only if the given predicates say so, otherwise the key is forgotten
+ * (after being shared with any duplicates already waiting) so a retry runs the call again.
+ * <p>
+ * Each call also gives a digest of its request, and reusing a key for a different request is refused rather than
+ * answered with the outcome of another call.
+ * <p>
+ * A hit is a map lookup and a clock read, without locking. The cache allocates nothing for it, but a key built per
+ * call (such as one scoped to an account) is still allocated by the caller.
+ *
+ * @param <V> the outcome of a call
+ */
+public final class IdempotencyCache<V> {
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Predicate<? super V> rememberOutcome;
+  private final Predicate<RuntimeException> rememberFailure;
+  private final Function<String, ? extends RuntimeException> keyReused;
+
+  private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+  // In the order they were added, which is also the order they expire in
+  private final Queue<Entry<V>> order = new ConcurrentLinkedQueue<>();
+
+  // Roughly how many forgotten keys are still in the order, swept out once there are too many
+  private final AtomicInteger dead = new AtomicInteger();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Constructor, refusing a reused key with an {@link IllegalStateException}
+   *
+   * @param maxSize         the most keys remembered
+   * @param ttl             how long each key is remembered for
+   * @param rememberOutcome which outcomes are remembered
+   * @param rememberFailure which failures are remembered
+   */
+  public IdempotencyCache(int maxSize, Duration ttl, Predicate<? super V> rememberOutcome,
+                          Predicate<RuntimeException> rememberFailure) {
+    this(maxSize, ttl, rememberOutcome, rememberFailure,
+        key -> new IllegalStateException("Idempotency key was used for a different request (" + key + ")"));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param maxSize         the most keys remembered
+   * @param ttl             how long each key is remembered for
+   * @param rememberOutcome which outcomes are remembered
+   * @param rememberFailure which failures are remembered
+   * @param keyReused       the exception thrown for a key reused with a different request
+   */
+  public IdempotencyCache(int maxSize, Duration ttl, Predicate<? super V> rememberOutcome,
+                          Predicate<RuntimeException> rememberFailure,
+                          Function<String, ? extends RuntimeException> keyReused) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Cache must hold at least one key (" + maxSize + ")");
+    }
+
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.rememberOutcome = rememberOutcome;
+    this.rememberFailure = rememberFailure;
+    this.keyReused = keyReused;
+  }
+
+  /**
+   * Run the call, unless it has already been run with the same key
+   *
+   * @param key    the idempotency key, unique to the call
+   * @param digest a digest of the request, the same each time the call is repeated
+   * @param call   the call
+   * @return the outcome of the call, or of the call first run with the key
+   * @throws RuntimeException as thrown by the call, or by the call first run with the key,
+   *                          or the key reused exception if the key was first used with a different digest
+   */
+  public V execute(String key, long digest, Supplier<V> call) {
+    long now = System.nanoTime();
+
+    // Seen before?
+    Entry<V> entry = entries.get(key);
+    if (entry != null && entry.isLive(now)) {
+      return hit(entry, digest);
+    }
+
+    // Claim the key, unless another caller gets there first
+    Entry<V> claimed = new Entry<>(key, digest, now + ttlNanos);
+    while (true) {
+      Entry<V> existing = entries.putIfAbsent(key, claimed);
+      if (existing == null) {
+        break;
+      }
+      if (existing.isLive(now)) {
+        return hit(existing, digest);
+      }
+      if (entries.replace(key, existing, claimed)) {
+        break;
+      }
+    }
+    misses.increment();
+    order.add(claimed);
+    evict(now);
+
+    // Run it
+    V outcome;
+    try {
+      outcome = call.get();
+    } catch (RuntimeException e) {
+      if (!rememberFailure.test(e)) {
+        forget(claimed);
+      }
+      claimed.future.completeExceptionally(e);
+      throw e;
+    } catch (Error e) {
+      forget(claimed);
+      claimed.future.completeExceptionally(e);
+      throw e;
+    }
+    if (!rememberOutcome.test(outcome)) {
+      forget(claimed);
+    }
+    claimed.future.complete(outcome);
+    return outcome;
+  }
+
+  /**
+   * @return the number of keys remembered
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the number of calls answered from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of calls run
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the outcome of the call first run with the key, if it was for the same request
+   */
+  private V hit(Entry<V> entry, long digest) {
+    if (entry.digest != digest) {
+      throw keyReused.apply(entry.key);
+    }
+    hits.increment();
+    return entry.await();
+  }
+
+  /**
+   * Forget the key, leaving its entry in the order to be dropped when it reaches the front or is swept out
+   */
+  private void forget(Entry<V> entry) {
+    if (entries.remove(entry.key, entry)) {
+      entry.dead = true;
+      dead.incrementAndGet();
+    }
+  }
+
+  /**
+   * Drop the forgotten and expired keys, then the oldest while there are too many,
+   * sweeping out forgotten keys from the rest of the order once there are more than the cache holds
+   */
+  private void evict(long now) {
+    Entry<V> oldest;
+    while ((oldest = order.peek()) != null
+        && (oldest.dead || !oldest.isLive(now) || entries.size() > maxSize)) {
+      if (order.remove(oldest)) {
+        entries.remove(oldest.key, oldest);
+      }
+    }
+
+    // Forgotten keys dropped from the front aren't counted off, so this only sweeps early
+    int forgotten = dead.get();
+    if (forgotten > maxSize && dead.compareAndSet(forgotten, 0)) {
+      order.removeIf(e -> e.dead);
+    }
+  }
+
+  private static final class Entry<V> {
+    final String key;
+    final long digest;
+    final long expires;
+    final CompletableFuture<V> future = new CompletableFuture<>();
+    volatile boolean dead;
+
+    Entry(String key, long digest, long expires) {
+      this.key = key;
+      this.digest = digest;
+      this.expires = expires;
+    }
+
+    boolean isLive(long now) {
+      return now - expires < 0;
+    }
+
+    /**
+     * @return the outcome, once the call has one
+     */
+    V await() {
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        // Rethrow what the call threw
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package uk.gov.dwp.uc.pairtest.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering a call to the payment service
+ */
+@Name("uk.gov.dwp.uc.pairtest.PaymentCall")
+@Label("Payment Call")
+@Category({"Cinema Tickets", "Third Party"})
+@Description("A call to the ticket payment service")
+public class PaymentCallEvent extends Event {
+
+  @Label("Account Id")
+  @Description("The account paying, or 0 for a batch")
+  long accountId;
+
+  @Label("Amount")
+  @Description("The amount paid (in total, for a batch)")
+  long amount;
+
+  @Label("Payments")
+  int payments;
+
+  @Label("Succeeded")
+  boolean succeeded;
+
+  /**
+   * Commit the event, if it's wanted
+   *
+   * @param accountId the account id (0 for a batch)
+   * @param amount    the amount
+   * @param payments  the number of payments made by the call
+   * @param succeeded true if the call returned normally
+   */
+  public void commit(long accountId, long amount, int payments, boolean succeeded) {
+    if (shouldCommit()) {
+      this.accountId = accountId;
+      this.amount = amount;
+      this.payments = payments;
+      this.succeeded = succeeded;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package uk.gov.dwp.uc.pairtest.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * JFR event covering a whole purchase
+ */
+@Name("uk.gov.dwp.uc.pairtest.Purchase")
+@Label("Purchase")
+@Category({"Cinema Tickets", "Purchase"})
+@Description("A ticket purchase, from validation through to seat reservation")
+public class PurchaseEvent extends Event {
+
+  /**
+   * Outcome of a purchase that went through
+   */
+  public static final String SUCCESS = "SUCCESS";
+
+  @Label("Account Id")
+  long accountId;
+
+  @Label("Adult Tickets")
+  int adultTickets;
+
+  @Label("Child Tickets")
+  int childTickets;
+
+  @Label("Infant Tickets")
+  int infantTickets;
+
+  @Label("Cost")
+  int cost;
+
+  @Label("Seats")
+  int seats;
+
+  @Label("Price Version")
+  @Description("The version of the prices the cost was calculated at")
+  int priceVersion;
+
+  @Label("Outcome")
+  @Description("SUCCESS, the rejection reason, or the type of the exception that ended the purchase")
+  String outcome;
+
+  /**
+   * Commit the event, if it's wanted
+   * (the details are only filled in when the event is being recorded)
+   *
+   * @param accountId          the account id
+   * @param ticketTypeRequests the ticket requests
+   * @param cost               the cost
+   * @param seats              the number of seats
+   * @param priceVersion       the version of the prices the cost was calculated at
+   * @param outcome            the outcome
+   */
+  public void commit(long accountId, TicketTypeRequest[] ticketTypeRequests, int cost, int seats, int priceVersion,
+                     String outcome) {
+    if (shouldCommit()) {
+      commit(accountId, BasketSummary.of(ticketTypeRequests), cost, seats, priceVersion, outcome);
+    }
+  }
+
+  /**
+   * Commit the event, if it's wanted
+   *
+   * @param accountId    the account id
+   * @param basket       the tickets
+   * @param cost         the cost
+   * @param seats        the number of seats
+   * @param priceVersion the version of the prices the cost was calculated at
+   * @param outcome      the outcome
+   */
+  public void commit(long accountId, BasketSummary basket, int cost, int seats, int priceVersion, String outcome) {
+    if (!shouldCommit()) {
+      return;
+    }
+
+    this.accountId = accountId;
+    this.adultTickets = basket.getCount(Type.ADULT);
+    this.childTickets = basket.getCount(Type.CHILD);
+    this.infantTickets = basket.getCount(Type.INFANT);
+    this.cost = cost;
+    this.seats = seats;
+    this.priceVersion = priceVersion;
+    this.outcome = outcome;
+    commit();
+  }
+
+  /**
+   * @param failure the exception that ended the purchase
+   * @return the outcome to record for the exception
+   */
+  public static String outcome(Throwable failure) {
+    if (failure instanceof InvalidPurchaseException && ((InvalidPurchaseException) failure).getReason() != null) {
+      return ((InvalidPurchaseException) failure).getReason().name();
+    }
+    return failure.getClass().getSimpleName();
+  }
+}
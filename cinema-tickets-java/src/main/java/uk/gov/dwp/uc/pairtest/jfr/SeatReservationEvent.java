@@ -0,0 +1,49 @@
+package uk.gov.dwp.uc.pairtest.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering a call to the seat reservation service
+ */
+@Name("uk.gov.dwp.uc.pairtest.SeatReservation")
+@Label("Seat Reservation")
+@Category({"Cinema Tickets", "Third Party"})
+@Description("A call to the seat reservation service")
+public class SeatReservationEvent extends Event {
+
+  @Label("Account Id")
+  @Description("The account reserving, or 0 for a batch")
+  long accountId;
+
+  @Label("Seats")
+  @Description("The seats reserved (in total, for a batch)")
+  long seats;
+
+  @Label("Reservations")
+  int reservations;
+
+  @Label("Succeeded")
+  boolean succeeded;
+
+  /**
+   * Commit the event, if it's wanted
+   *
+   * @param accountId    the account id (0 for a batch)
+   * @param seats        the number of seats
+   * @param reservations the number of reservations made by the call
+   * @param succeeded    true if the call returned normally
+   */
+  public void commit(long accountId, long seats, int reservations, boolean succeeded) {
+    if (shouldCommit()) {
+      this.accountId = accountId;
+      this.seats = seats;
+      this.reservations = reservations;
+      this.succeeded = succeeded;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * A purchase, as read back from the journal
+ */
+public final class JournalRecord {
+
+  private final long purchaseId;
+  private final long accountId;
+  private final int adultTickets;
+  private final int childTickets;
+  private final int infantTickets;
+  private final int cost;
+  private final int seats;
+  private final PurchaseStep step;
+  private final long timestamp;
+
+  /**
+   * Constructor
+   *
+   * @param purchaseId    the purchase id
+   * @param accountId     the account id
+   * @param adultTickets  the number of adult tickets
+   * @param childTickets  the number of child tickets
+   * @param infantTickets the number of infant tickets
+   * @param cost          the cost
+   * @param seats         the number of seats
+   * @param step          the last step reached
+   * @param timestamp     when the step was reached, in millis since the epoch
+   */
+  public JournalRecord(long purchaseId, long accountId, int adultTickets, int childTickets, int infantTickets,
+                       int cost, int seats, PurchaseStep step, long timestamp) {
+    this.purchaseId = purchaseId;
+    this.accountId = accountId;
+    this.adultTickets = adultTickets;
+    this.childTickets = childTickets;
+    this.infantTickets = infantTickets;
+    this.cost = cost;
+    this.seats = seats;
+    this.step = step;
+    this.timestamp = timestamp;
+  }
+
+  public long getPurchaseId() {
+    return purchaseId;
+  }
+
+  public long getAccountId() {
+    return accountId;
+  }
+
+  public int getAdultTickets() {
+    return adultTickets;
+  }
+
+  public int getChildTickets() {
+    return childTickets;
+  }
+
+  public int getInfantTickets() {
+    return infantTickets;
+  }
+
+  public int getCost() {
+    return cost;
+  }
+
+  public int getSeats() {
+    return seats;
+  }
+
+  public PurchaseStep getStep() {
+    return step;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @param step      the step reached
+   * @param timestamp when it was reached
+   * @return this purchase at the given step
+   */
+  JournalRecord withStep(PurchaseStep step, long timestamp) {
+    return new JournalRecord(purchaseId, accountId, adultTickets, childTickets, infantTickets, cost, seats, step,
+        timestamp);
+  }
+}
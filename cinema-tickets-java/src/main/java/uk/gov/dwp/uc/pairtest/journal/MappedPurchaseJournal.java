@@ -0,0 +1,436 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Purchase journal held in a memory-mapped file of fixed size binary records
+ * <p>
+ * Records are appended (a purchase's first record holds its details, the rest just the step reached) and made durable
+ * by group commit: a caller waiting for its record either forces the file itself, covering every record appended so
+ * far, or finds a caller that got there first already has. So however many purchases are in flight, each force is
+ * shared by all of them. The number of records made durable is kept in the header, written after the records are
+ * forced, so a record that was never durable is never read back.
+ * <p>
+ * The capacity is fixed when the file is created. When it fills up the journal is compacted: the purchases that aren't
+ * finished are written to a new file, which once forced is renamed over the old one. So a crash part way through
+ * leaves either the old file or the new one, each replaying to the same unfinished purchases.
+ */
+public final class MappedPurchaseJournal implements PurchaseJournal, Closeable {
+
+  // File layout, a header then the records
+  private static final int MAGIC = 0x504A4E4C; // "PJNL"
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int COUNT_OFFSET = 16;
+  private static final int HEADER_SIZE = 64;
+
+  // Record layout
+  private static final int PURCHASE_ID = 0;
+  private static final int ACCOUNT_ID = 8;
+  private static final int TIMESTAMP = 16;
+  private static final int COST = 24;
+  private static final int SEATS = 28;
+  private static final int ADULT = 32;
+  private static final int CHILD = 34;
+  private static final int INFANT = 36;
+  private static final int STEP = 38;
+  private static final int RECORD_SIZE = 40;
+
+  private static final PurchaseStep[] STEPS = PurchaseStep.values();
+
+  private final Path file;
+  private final int capacity;
+
+  // Replaced on compaction, holding this and the sync lock
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+
+  // Records in the file, guarded by this (volatile for the syncing thread)
+  private volatile int count;
+
+  // Records ever appended, and how many of them are durable
+  // (counted rather than taken from the file position, which goes back on compaction)
+  private volatile long appended;
+  private volatile long durable;
+
+  // Held by the caller forcing the file
+  private final Object syncLock = new Object();
+
+  private final AtomicLong nextPurchaseId;
+  private final LongAdder syncs = new LongAdder();
+
+  private MappedPurchaseJournal(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity, int count) {
+    this.file = file;
+    this.channel = channel;
+    this.buffer = buffer;
+    this.capacity = capacity;
+    this.count = count;
+
+    // Carry on from the highest purchase id in the file
+    long maxId = 0;
+    for (int i = 0; i < count; i++) {
+      maxId = Math.max(maxId, buffer.getLong(offset(i) + PURCHASE_ID));
+    }
+    this.nextPurchaseId = new AtomicLong(maxId + 1);
+  }
+
+  /**
+   * Create an empty journal
+   *
+   * @param file     the file, replaced if it exists
+   * @param capacity the number of records it holds
+   * @return the journal
+   * @throws IOException if the file can't be created
+   */
+  public static MappedPurchaseJournal create(Path file, int capacity) throws IOException {
+    if (capacity < 1 || capacity > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+      throw new IllegalArgumentException("Invalid capacity (" + capacity + ")");
+    }
+
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      MappedByteBuffer buffer = map(channel, capacity);
+      buffer.force();
+      return new MappedPurchaseJournal(file, channel, buffer, capacity, 0);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Open an existing journal
+   *
+   * @param file the file
+   * @return the journal
+   * @throws IOException if the file can't be read or isn't a journal
+   */
+  public static MappedPurchaseJournal open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      long length = channel.size();
+      if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+        throw new IOException("Not a purchase journal (" + file + ")");
+      }
+
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      long capacity = buffer.getLong(CAPACITY_OFFSET);
+      long count = buffer.getLong(COUNT_OFFSET);
+      if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION
+          || HEADER_SIZE + capacity * RECORD_SIZE != length || count < 0 || count > capacity) {
+        throw new IOException("Not a purchase journal (" + file + ")");
+      }
+
+      return new MappedPurchaseJournal(file, channel, buffer, (int) capacity, (int) count);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public long begin(long accountId, BasketSummary basket, int cost, int seats) {
+    long purchaseId = nextPurchaseId.getAndIncrement();
+    awaitDurable(append(purchaseId, accountId, basket.getCount(Type.ADULT), basket.getCount(Type.CHILD),
+        basket.getCount(Type.INFANT), cost, seats, PurchaseStep.BEGUN));
+    return purchaseId;
+  }
+
+  @Override
+  public void advance(long purchaseId, PurchaseStep step) {
+    awaitDurable(append(purchaseId, 0, 0, 0, 0, 0, 0, step));
+  }
+
+  /**
+   * As {@link #begin}, but waits once for all of them
+   */
+  @Override
+  public long[] beginAll(long[] accountIds, BasketSummary[] baskets, int[] costs, int[] seats) {
+    long[] purchaseIds = new long[accountIds.length];
+    long last = 0;
+    for (int i = 0; i < accountIds.length; i++) {
+      purchaseIds[i] = nextPurchaseId.getAndIncrement();
+      last = append(purchaseIds[i], accountIds[i], baskets[i].getCount(Type.ADULT), baskets[i].getCount(Type.CHILD),
+          baskets[i].getCount(Type.INFANT), costs[i], seats[i], PurchaseStep.BEGUN);
+    }
+    awaitDurable(last);
+    return purchaseIds;
+  }
+
+  /**
+   * As {@link #advance}, but waits once for all of them
+   */
+  @Override
+  public void advanceAll(long[] purchaseIds, PurchaseStep step) {
+    long last = 0;
+    for (long purchaseId : purchaseIds) {
+      last = append(purchaseId, 0, 0, 0, 0, 0, 0, step);
+    }
+    awaitDurable(last);
+  }
+
+  /**
+   * Read back the purchases that aren't finished
+   *
+   * @return the purchases, at the last step each reached, in the order they began
+   */
+  public synchronized List<JournalRecord> replay() {
+    Map<Long, JournalRecord> unfinished = new HashMap<>();
+    List<Long> order = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      int offset = offset(i);
+      long purchaseId = buffer.getLong(offset + PURCHASE_ID);
+      PurchaseStep step = STEPS[buffer.get(offset + STEP)];
+      long timestamp = buffer.getLong(offset + TIMESTAMP);
+
+      // The first record of a purchase has its details, the rest just move it on
+      JournalRecord record = unfinished.get(purchaseId);
+      if (record == null) {
+        record = read(offset);
+        order.add(purchaseId);
+      } else {
+        record = record.withStep(step, timestamp);
+      }
+
+      if (step.isFinished()) {
+        unfinished.remove(purchaseId);
+      } else {
+        unfinished.put(purchaseId, record);
+      }
+    }
+
+    List<JournalRecord> records = new ArrayList<>(unfinished.size());
+    for (Long purchaseId : order) {
+      JournalRecord record = unfinished.remove(purchaseId);
+      if (record != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * @return the number of records in the file
+   */
+  public int getRecordCount() {
+    return count;
+  }
+
+  /**
+   * @return the number of times the file has been forced to disk
+   */
+  public long getSyncCount() {
+    return syncs.sum();
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (syncLock) {
+      buffer.force();
+      channel.close();
+    }
+  }
+
+  /**
+   * Append a record
+   *
+   * @return the number of records appended, including this one, to wait on
+   * @throws IllegalStateException if the journal is full of unfinished purchases
+   */
+  private synchronized long append(long purchaseId, long accountId, int adult, int child, int infant, int cost,
+                                   int seats, PurchaseStep step) {
+    if (count == capacity) {
+      compact();
+      if (count == capacity) {
+        throw new IllegalStateException("Purchase journal is full (" + capacity + " records)");
+      }
+    }
+
+    write(buffer, offset(count), purchaseId, accountId, adult, child, infant, cost, seats, step, System.currentTimeMillis());
+    count++;
+    return ++appended;
+  }
+
+  /**
+   * Wait until the given number of records are durable, forcing the file if no other caller is
+   */
+  private void awaitDurable(long records) {
+    if (durable >= records) {
+      return;
+    }
+
+    synchronized (syncLock) {
+      // Forced while we waited?
+      if (durable >= records) {
+        return;
+      }
+
+      // Everything appended so far
+      // (appended is read before count, so every record it covers is in count)
+      long target = appended;
+      int inFile = count;
+      force(inFile);
+      durable = target;
+    }
+  }
+
+  /**
+   * Force the records, then the header recording them
+   * Must hold the sync lock
+   */
+  private void force(int records) {
+    if (records > 0) {
+      buffer.force(HEADER_SIZE, records * RECORD_SIZE);
+    }
+    buffer.putLong(COUNT_OFFSET, records);
+    buffer.force(0, HEADER_SIZE);
+    syncs.increment();
+  }
+
+  /**
+   * Write the unfinished purchases to a new file and rename it over this one
+   * Must hold this
+   * <p>
+   * The new file is forced before the rename, and the directory after it, so the file name always refers to a
+   * complete journal.
+   */
+  private void compact() {
+    synchronized (syncLock) {
+      List<JournalRecord> unfinished = replay();
+      if (unfinished.size() == count) {
+        // Nothing to drop
+        return;
+      }
+
+      Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+      FileChannel newChannel = null;
+      MappedByteBuffer newBuffer;
+      try {
+        newChannel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        newBuffer = map(newChannel, capacity);
+        for (int i = 0; i < unfinished.size(); i++) {
+          JournalRecord record = unfinished.get(i);
+          write(newBuffer, offset(i), record.getPurchaseId(), record.getAccountId(), record.getAdultTickets(),
+              record.getChildTickets(), record.getInfantTickets(), record.getCost(), record.getSeats(),
+              record.getStep(), record.getTimestamp());
+        }
+        newBuffer.putLong(COUNT_OFFSET, unfinished.size());
+        newBuffer.force();
+        Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        closeQuietly(newChannel, e);
+        throw new UncheckedIOException("Couldn't compact the purchase journal (" + file + ")", e);
+      }
+
+      // Everything appended so far is now covered
+      // (the finished purchases dropped need nothing more doing)
+      FileChannel oldChannel = channel;
+      channel = newChannel;
+      buffer = newBuffer;
+      count = unfinished.size();
+      durable = appended;
+      syncs.increment();
+
+      try {
+        syncDirectory();
+        oldChannel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Couldn't compact the purchase journal (" + file + ")", e);
+      }
+    }
+  }
+
+  /**
+   * Force the rename of the compacted file to disk
+   * (not every platform can open a directory, and those that can't don't need it)
+   */
+  private void syncDirectory() throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    FileChannel dir;
+    try {
+      dir = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (IOException e) {
+      return;
+    }
+    try (dir) {
+      dir.force(true);
+    }
+  }
+
+  private static void closeQuietly(FileChannel channel, IOException failure) {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        failure.addSuppressed(e);
+      }
+    }
+  }
+
+  /**
+   * Map a new file, writing the header of an empty journal
+   */
+  private static MappedByteBuffer map(FileChannel channel, int capacity) throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC_OFFSET, MAGIC);
+    buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+    buffer.putLong(CAPACITY_OFFSET, capacity);
+    buffer.putLong(COUNT_OFFSET, 0);
+    return buffer;
+  }
+
+  private static void write(MappedByteBuffer buffer, int offset, long purchaseId, long accountId, int adult, int child,
+                            int infant, int cost, int seats, PurchaseStep step, long timestamp) {
+    buffer.putLong(offset + PURCHASE_ID, purchaseId);
+    buffer.putLong(offset + ACCOUNT_ID, accountId);
+    buffer.putLong(offset + TIMESTAMP, timestamp);
+    buffer.putInt(offset + COST, cost);
+    buffer.putInt(offset + SEATS, seats);
+    buffer.putShort(offset + ADULT, (short) adult);
+    buffer.putShort(offset + CHILD, (short) child);
+    buffer.putShort(offset + INFANT, (short) infant);
+    buffer.put(offset + STEP, (byte) step.ordinal());
+  }
+
+  private JournalRecord read(int offset) {
+    return new JournalRecord(
+        buffer.getLong(offset + PURCHASE_ID),
+        buffer.getLong(offset + ACCOUNT_ID),
+        buffer.getShort(offset + ADULT),
+        buffer.getShort(offset + CHILD),
+        buffer.getShort(offset + INFANT),
+        buffer.getInt(offset + COST),
+        buffer.getInt(offset + SEATS),
+        STEPS[buffer.get(offset + STEP)],
+        buffer.getLong(offset + TIMESTAMP));
+  }
+
+  private static int offset(int record) {
+    return HEADER_SIZE + record * RECORD_SIZE;
+  }
+}
@@ -0,0 +1,76 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+
+/**
+ * Durable record of the steps each purchase has reached, so purchases left half done by a crash can be found
+ * and finished or undone on restart
+ * <p>
+ * Each method returns once its record is durable.
+ */
+public interface PurchaseJournal {
+
+  /**
+   * A journal that records nothing
+   */
+  PurchaseJournal NONE = new PurchaseJournal() {
+    @Override
+    public long begin(long accountId, BasketSummary basket, int cost, int seats) {
+      return 0;
+    }
+
+    @Override
+    public void advance(long purchaseId, PurchaseStep step) {
+      // Nothing recorded
+    }
+  };
+
+  /**
+   * Record a purchase as begun
+   *
+   * @param accountId the account id
+   * @param basket    the tickets
+   * @param cost      the cost
+   * @param seats     the number of seats
+   * @return the id of the purchase, for the later steps
+   */
+  long begin(long accountId, BasketSummary basket, int cost, int seats);
+
+  /**
+   * Record a purchase reaching a step
+   *
+   * @param purchaseId the purchase id, from {@link #begin}
+   * @param step       the step
+   */
+  void advance(long purchaseId, PurchaseStep step);
+
+  /**
+   * Record several purchases as begun, returning once all are durable
+   * The arrays are parallel, entry i of each describes one purchase.
+   *
+   * @param accountIds the account ids
+   * @param baskets    the tickets
+   * @param costs      the costs
+   * @param seats      the numbers of seats
+   * @return the ids of the purchases, in the same order
+   */
+  default long[] beginAll(long[] accountIds, BasketSummary[] baskets, int[] costs, int[] seats) {
+    long[] purchaseIds = new long[accountIds.length];
+    for (int i = 0; i < accountIds.length; i++) {
+      purchaseIds[i] = begin(accountIds[i], baskets[i], costs[i], seats[i]);
+    }
+    return purchaseIds;
+  }
+
+  /**
+   * Record several purchases reaching the same step, returning once all are durable
+   *
+   * @param purchaseIds the purchase ids, from {@link #begin}
+   * @param step        the step
+   */
+  default void advanceAll(long[] purchaseIds, PurchaseStep step) {
+    for (long purchaseId : purchaseIds) {
+      advance(purchaseId, step);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.saga.Compensation;
+import uk.gov.dwp.uc.pairtest.saga.Compensator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finishes or undoes the purchases a crash left half done, as found by replaying the journal
+ * <p>
+ * A purchase that was paid for has its seats reserved, so it completes as if there had been no crash, or is refunded
+ * if they can't be. One that was being refunded is refunded again, as the refund may never have gone through (so the
+ * payment gateway must treat refunding the same payment twice as a no-op). Refunds are run by the
+ * {@link Compensator} in the background, and the purchase stays compensating in the journal until one succeeds.
+ * <p>
+ * A purchase that began but wasn't recorded as paid may or may not have been charged, so nothing is done to it
+ * automatically. It's returned for reconciliation with the payment gateway, and stays unfinished in the journal until
+ * {@link #resolve resolved}.
+ */
+public class PurchaseRecovery {
+
+  private static final System.Logger LOG = System.getLogger(PurchaseRecovery.class.getName());
+
+  private final PurchaseJournal journal;
+  private final TicketPaymentService tps;
+  private final SeatReservationService srs;
+  private final Compensator compensator;
+
+  /**
+   * Constructor
+   *
+   * @param journal     the journal the outcomes are recorded in
+   * @param tps         the payment service
+   * @param srs         the reservation service
+   * @param compensator runs the refunds
+   */
+  public PurchaseRecovery(PurchaseJournal journal, TicketPaymentService tps, SeatReservationService srs,
+                          Compensator compensator) {
+    this.journal = journal;
+    this.tps = tps;
+    this.srs = srs;
+    this.compensator = compensator;
+  }
+
+  /**
+   * Finish or undo each purchase that can be
+   *
+   * @param unfinished the purchases, see {@link MappedPurchaseJournal#replay}
+   * @return the purchases that may or may not have been paid for, to be reconciled and then {@link #resolve resolved}
+   */
+  public List<JournalRecord> recover(List<JournalRecord> unfinished) {
+    List<JournalRecord> unknown = new ArrayList<>();
+    for (JournalRecord record : unfinished) {
+      switch (record.getStep()) {
+        case PAID:
+          complete(record);
+          break;
+        case COMPENSATING:
+          refund(record);
+          break;
+        default:
+          LOG.log(System.Logger.Level.WARNING, "Purchase " + record.getPurchaseId() + " for account "
+              + record.getAccountId() + " of " + record.getCost() + " may or may not have been paid, reconcile it");
+          unknown.add(record);
+          break;
+      }
+    }
+    return unknown;
+  }
+
+  /**
+   * Finish or undo a purchase returned by {@link #recover}, once it's known whether it was paid for
+   *
+   * @param record the purchase
+   * @param paid   true if the payment was taken
+   */
+  public void resolve(JournalRecord record, boolean paid) {
+    if (paid) {
+      journal.advance(record.getPurchaseId(), PurchaseStep.PAID);
+      complete(record);
+    } else {
+      journal.advance(record.getPurchaseId(), PurchaseStep.FAILED);
+    }
+  }
+
+  /**
+   * Reserve the seats for a paid purchase, refunding it if they can't be
+   */
+  private void complete(JournalRecord record) {
+    try {
+      srs.reserveSeat(record.getAccountId(), record.getSeats());
+      journal.advance(record.getPurchaseId(), PurchaseStep.COMPLETED);
+    } catch (RuntimeException e) {
+      journal.advance(record.getPurchaseId(), PurchaseStep.COMPENSATING);
+      refund(record);
+    }
+  }
+
+  private void refund(JournalRecord record) {
+    compensator.submit(List.of(Compensation.refund(tps, record.getAccountId(), record.getCost())),
+        () -> journal.advance(record.getPurchaseId(), PurchaseStep.COMPENSATED));
+  }
+}
@@ -0,0 +1,45 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * The steps a purchase goes through, as recorded in the journal
+ */
+public enum PurchaseStep {
+
+  /**
+   * Validated and priced, about to pay
+   */
+  BEGUN,
+
+  /**
+   * Paid, about to reserve the seats
+   */
+  PAID,
+
+  /**
+   * Paid and the seats reserved
+   */
+  COMPLETED,
+
+  /**
+   * Failed with nothing to undo
+   */
+  FAILED,
+
+  /**
+   * Failed and undone
+   */
+  COMPENSATED,
+
+  /**
+   * Failed after paying, and handed over to be undone
+   * (not finished until the refund has gone through, so a refund that never does is tried again on recovery)
+   */
+  COMPENSATING;
+
+  /**
+   * @return true if the purchase has nothing left to do
+   */
+  public boolean isFinished() {
+    return this == COMPLETED || this == FAILED || this == COMPENSATED;
+  }
+}
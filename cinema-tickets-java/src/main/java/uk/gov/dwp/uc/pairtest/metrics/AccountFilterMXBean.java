@@ -0,0 +1,32 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * JMX view of an account filter
+ */
+public interface AccountFilterMXBean {
+
+  /**
+   * @return the number of accounts checked
+   */
+  long getCheckCount();
+
+  /**
+   * @return the number of accounts the filter rejected without the full check
+   */
+  long getFilteredCount();
+
+  /**
+   * @return the number of accounts the filter passed that the full check found unknown
+   */
+  long getFalsePositiveCount();
+
+  /**
+   * @return the share of checks the filter passed on to the full check
+   */
+  double getHitRatio();
+
+  /**
+   * @return the share of unknown accounts the filter passed on to the full check
+   */
+  double getFalsePositiveRate();
+}
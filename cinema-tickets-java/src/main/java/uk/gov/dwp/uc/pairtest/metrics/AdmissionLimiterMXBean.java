@@ -0,0 +1,35 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * JMX view and control of the admission limits
+ * <p>
+ * Rates are purchases per second, 0 for no limit
+ */
+public interface AdmissionLimiterMXBean {
+
+  long getGlobalRate();
+
+  void setGlobalRate(long rate);
+
+  int getGlobalBurst();
+
+  void setGlobalBurst(int burst);
+
+  long getAccountRate();
+
+  void setAccountRate(long rate);
+
+  int getAccountBurst();
+
+  void setAccountBurst(int burst);
+
+  /**
+   * @return the number of purchases admitted
+   */
+  long getAdmittedCount();
+
+  /**
+   * @return the number of purchases turned away
+   */
+  long getRejectedCount();
+}
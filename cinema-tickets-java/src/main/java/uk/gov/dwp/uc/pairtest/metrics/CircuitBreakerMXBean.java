@@ -0,0 +1,37 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * JMX view of a circuit breaker
+ */
+public interface CircuitBreakerMXBean {
+
+  /**
+   * @return the state of the breaker, CLOSED, OPEN or HALF_OPEN
+   */
+  String getState();
+
+  /**
+   * @return the consecutive failures that open the breaker
+   */
+  int getFailureThreshold();
+
+  /**
+   * @return the number of times the breaker has opened
+   */
+  long getOpenedCount();
+
+  /**
+   * @return the number of times the breaker has let a trial call through
+   */
+  long getHalfOpenedCount();
+
+  /**
+   * @return the number of times the breaker has closed again after a successful trial call
+   */
+  long getClosedCount();
+
+  /**
+   * @return the number of calls failed fast while the breaker was open
+   */
+  long getRejectedCount();
+}
@@ -0,0 +1,27 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * JMX view of the compensations run for failed purchases
+ */
+public interface CompensatorMXBean {
+
+  /**
+   * @return the number of compensations waiting to run or be retried
+   */
+  int getPendingCount();
+
+  /**
+   * @return the number of compensations that succeeded
+   */
+  long getCompletedCount();
+
+  /**
+   * @return the number of attempts that failed and were retried
+   */
+  long getRetryCount();
+
+  /**
+   * @return the number of compensations given up on after the last attempt failed
+   */
+  long getFailedCount();
+}
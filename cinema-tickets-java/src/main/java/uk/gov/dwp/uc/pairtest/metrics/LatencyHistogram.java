@@ -0,0 +1,90 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram
+ * <p>
+ * Log-linear buckets in the style of HdrHistogram: each power of two is split into 8 sub-buckets,
+ * so any value is reported to within 12.5%, and the full range of a long fits in under 500 buckets.
+ * Recording is a couple of atomic increments, so it can be left on permanently.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The number of buckets needed to cover every positive long
+   */
+  static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a value
+   *
+   * @param value the value (negative values are recorded as zero)
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+
+    counts.getAndIncrement(bucket(value));
+    sum.add(value);
+
+    // Only contend on the max when it actually changes
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * @return a point in time copy of the histogram
+   */
+  public LatencySnapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new LatencySnapshot(copy, count, sum.sum(), max.get());
+  }
+
+  /**
+   * @param value the value
+   * @return the bucket the value belongs in
+   */
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @param bucket the bucket
+   * @return the highest value that belongs in the bucket
+   */
+  static long highestValue(int bucket) {
+    return bucket + 1 == BUCKETS ? Long.MAX_VALUE : lowestValue(bucket + 1) - 1;
+  }
+
+  private static long lowestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS - 1 + SUB_BUCKET_BITS;
+    long subBucket = bucket % SUB_BUCKETS;
+    return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+}
@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * Point in time copy of a {@link LatencyHistogram}
+ */
+public final class LatencySnapshot {
+
+  private final long[] counts;
+  private final long count;
+  private final long sum;
+  private final long max;
+
+  LatencySnapshot(long[] counts, long count, long sum, long max) {
+    this.counts = counts;
+    this.count = count;
+    this.sum = sum;
+    this.max = max;
+  }
+
+  /**
+   * @return the number of values recorded
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the mean of the values recorded, or 0 if there are none
+   */
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * @return the largest value recorded
+   */
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * @param percentile the percentile (0 to 100)
+   * @return the value at or below which the given percentage of values fall
+   * (to the precision of the buckets, and never more than the max), or 0 if there are none
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+
+    long wanted = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= wanted) {
+        return Math.min(LatencyHistogram.highestValue(i), max);
+      }
+    }
+    return max;
+  }
+}
@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+
+/**
+ * Point in time copy of the {@link PurchaseMetrics}
+ * <p>
+ * Counts are totals since the metrics were created
+ */
+public final class MetricsSnapshot {
+
+  private final long timestamp;
+  private final long successCount;
+  private final long[] rejectionCounts;
+  private final LatencySnapshot[] stages;
+
+  MetricsSnapshot(long timestamp, long successCount, long[] rejectionCounts, LatencySnapshot[] stages) {
+    this.timestamp = timestamp;
+    this.successCount = successCount;
+    this.rejectionCounts = rejectionCounts;
+    this.stages = stages;
+  }
+
+  /**
+   * @return when the snapshot was taken (milliseconds since the epoch)
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public long getSuccessCount() {
+    return successCount;
+  }
+
+  /**
+   * @return the number of rejections for any reason
+   */
+  public long getRejectionCount() {
+    long total = 0;
+    for (long count : rejectionCounts) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * @param reason the reason
+   * @return the number of rejections for the reason
+   */
+  public long getRejectionCount(RejectionReason reason) {
+    return rejectionCounts[reason.ordinal()];
+  }
+
+  /**
+   * @param stage the stage
+   * @return the latencies of the stage, in nanoseconds
+   */
+  public LatencySnapshot getStage(PurchaseStage stage) {
+    return stages[stage.ordinal()];
+  }
+}
@@ -0,0 +1,227 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Latency histograms for each purchase stage, plus success and rejection counters
+ * <p>
+ * Counters are striped ({@link LongAdder}) and histograms lock-free, so recording costs tens of nanoseconds
+ * and doesn't contend across cores. Exposed through {@link #snapshot()} and as JMX MXBeans.
+ */
+public class PurchaseMetrics {
+
+  /**
+   * The JMX domain the MXBeans are registered under
+   */
+  public static final String JMX_DOMAIN = "uk.gov.dwp.uc.pairtest";
+
+  private static final RejectionReason[] REASONS = RejectionReason.values();
+  private static final PurchaseStage[] STAGES = PurchaseStage.values();
+
+  // Shared by services that aren't given their own
+  private static volatile PurchaseMetrics shared;
+
+  private final LatencyHistogram[] stages = new LatencyHistogram[STAGES.length];
+  private final LongAdder successes = new LongAdder();
+  private final LongAdder[] rejections = new LongAdder[REASONS.length];
+
+  /**
+   * Constructor
+   */
+  public PurchaseMetrics() {
+    for (int i = 0; i < stages.length; i++) {
+      stages[i] = new LatencyHistogram();
+    }
+    for (int i = 0; i < rejections.length; i++) {
+      rejections[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * The metrics shared by default, registered with the platform MBean server on first use
+   *
+   * @return the shared metrics
+   */
+  public static PurchaseMetrics getShared() {
+    PurchaseMetrics metrics = shared;
+    if (metrics == null) {
+      synchronized (PurchaseMetrics.class) {
+        metrics = shared;
+        if (metrics == null) {
+          metrics = new PurchaseMetrics();
+          try {
+            metrics.registerMBeans(ManagementFactory.getPlatformMBeanServer(), "default");
+          } catch (JMException e) {
+            // Metrics are still recorded and available through snapshots
+          }
+          shared = metrics;
+        }
+      }
+    }
+    return metrics;
+  }
+
+  /**
+   * Record how long a stage took
+   *
+   * @param stage the stage
+   * @param nanos the time taken, in nanoseconds
+   */
+  public void record(PurchaseStage stage, long nanos) {
+    stages[stage.ordinal()].record(nanos);
+  }
+
+  /**
+   * Record a completed purchase
+   */
+  public void recordSuccess() {
+    successes.increment();
+  }
+
+  /**
+   * Record a rejected purchase
+   *
+   * @param reason the reason (ignored if null)
+   */
+  public void recordRejection(RejectionReason reason) {
+    if (reason != null) {
+      rejections[reason.ordinal()].increment();
+    }
+  }
+
+  /**
+   * @return a point in time copy of the metrics
+   */
+  public MetricsSnapshot snapshot() {
+    long[] rejectionCounts = new long[rejections.length];
+    for (int i = 0; i < rejections.length; i++) {
+      rejectionCounts[i] = rejections[i].sum();
+    }
+
+    LatencySnapshot[] stageSnapshots = new LatencySnapshot[stages.length];
+    for (int i = 0; i < stages.length; i++) {
+      stageSnapshots[i] = stages[i].snapshot();
+    }
+
+    return new MetricsSnapshot(System.currentTimeMillis(), successes.sum(), rejectionCounts, stageSnapshots);
+  }
+
+  /**
+   * Periodically pass a snapshot to the given consumer
+   *
+   * @param scheduler the scheduler to run on
+   * @param period    the time between snapshots
+   * @param consumer  the consumer
+   * @return the scheduled task, cancel it to stop
+   */
+  public ScheduledFuture<?> scheduleSnapshots(ScheduledExecutorService scheduler, Duration period,
+                                              Consumer<MetricsSnapshot> consumer) {
+    long nanos = period.toNanos();
+    return scheduler.scheduleAtFixedRate(() -> consumer.accept(snapshot()), nanos, nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Register the MXBeans for these metrics
+   * One for the counters (type=PurchaseMetrics) and one per stage (type=StageLatency)
+   *
+   * @param server the MBean server
+   * @param name   distinguishes these metrics from others registered on the same server
+   * @throws JMException if the MXBeans can't be registered
+   */
+  public void registerMBeans(MBeanServer server, String name) throws JMException {
+    server.registerMBean(new CountersView(),
+        new ObjectName(JMX_DOMAIN + ":type=PurchaseMetrics,name=" + ObjectName.quote(name)));
+
+    for (PurchaseStage stage : STAGES) {
+      server.registerMBean(new StageView(stages[stage.ordinal()]),
+          new ObjectName(JMX_DOMAIN + ":type=StageLatency,name=" + ObjectName.quote(name) + ",stage=" + stage.name()));
+    }
+  }
+
+  /**
+   * JMX view of the counters
+   */
+  private class CountersView implements PurchaseMetricsMXBean {
+    @Override
+    public long getSuccessCount() {
+      return successes.sum();
+    }
+
+    @Override
+    public long getRejectionCount() {
+      long total = 0;
+      for (LongAdder rejection : rejections) {
+        total += rejection.sum();
+      }
+      return total;
+    }
+
+    @Override
+    public Map<String, Long> getRejectionCounts() {
+      Map<String, Long> counts = new LinkedHashMap<>();
+      for (RejectionReason reason : REASONS) {
+        counts.put(reason.name(), rejections[reason.ordinal()].sum());
+      }
+      return counts;
+    }
+  }
+
+  /**
+   * JMX view of a stage
+   */
+  private static class StageView implements StageLatencyMXBean {
+    private final LatencyHistogram histogram;
+
+    StageView(LatencyHistogram histogram) {
+      this.histogram = histogram;
+    }
+
+    @Override
+    public long getCount() {
+      return histogram.snapshot().getCount();
+    }
+
+    @Override
+    public double getMeanNanos() {
+      return histogram.snapshot().getMean();
+    }
+
+    @Override
+    public long getMaxNanos() {
+      return histogram.snapshot().getMax();
+    }
+
+    @Override
+    public long getP50Nanos() {
+      return histogram.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+      return histogram.snapshot().getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+      return histogram.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+      return histogram.snapshot().getValueAtPercentile(99.9);
+    }
+  }
+}
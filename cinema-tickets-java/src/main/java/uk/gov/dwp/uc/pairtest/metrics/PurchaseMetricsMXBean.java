@@ -0,0 +1,18 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the purchase counters
+ */
+public interface PurchaseMetricsMXBean {
+
+  long getSuccessCount();
+
+  long getRejectionCount();
+
+  /**
+   * @return the number of rejections, keyed by reason
+   */
+  Map<String, Long> getRejectionCounts();
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * The stages of a purchase that are timed
+ */
+public enum PurchaseStage {
+  ACCOUNT_VALIDATION,
+  REQUEST_VALIDATION,
+  PRICING,
+  PAYMENT,
+  RESERVATION
+}
@@ -0,0 +1,21 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * JMX view of the latencies of one purchase stage, in nanoseconds
+ */
+public interface StageLatencyMXBean {
+
+  long getCount();
+
+  double getMeanNanos();
+
+  long getMaxNanos();
+
+  long getP50Nanos();
+
+  long getP90Nanos();
+
+  long getP99Nanos();
+
+  long getP999Nanos();
+}
@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * JMX view of a velocity limiter
+ */
+public interface VelocityLimiterMXBean {
+
+  /**
+   * @return the number of accounts currently tracked
+   */
+  int getTrackedAccounts();
+
+  /**
+   * @return the number of purchases allowed unlimited because there was no room to track the account
+   */
+  long getUntrackedCount();
+}
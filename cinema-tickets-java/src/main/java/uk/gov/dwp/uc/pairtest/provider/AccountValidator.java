@@ -1,5 +1,6 @@
 package uk.gov.dwp.uc.pairtest.provider;
 
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
 /**
@@ -17,4 +18,12 @@ public interface AccountValidator {
    * @throws InvalidPurchaseException if the account id is considered invalid
    */
   void validate(long accountId) throws InvalidPurchaseException;
+
+  /**
+   * Check the given account id without throwing
+   *
+   * @param accountId the account id
+   * @return the reason the account id is considered invalid, or null if it is valid
+   */
+  RejectionReason check(long accountId);
 }
@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest.provider;
+
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Purchase limiter
+ * <p>
+ * Limits purchases by an account, after the account and requests are validated.
+ * A purchase that's allowed counts towards the account's limits, unless it's released because it then failed.
+ */
+public interface PurchaseLimiter {
+
+  /**
+   * Check the purchase is allowed, and if so count it
+   * Simply returns if the purchase is allowed or throws an appropriate exception
+   *
+   * @param accountId the account id
+   * @param basket    the summary of the ticket requests
+   * @throws InvalidPurchaseException if the purchase is not allowed
+   */
+  default void acquire(long accountId, BasketSummary basket) throws InvalidPurchaseException {
+    RejectionReason reason = tryAcquire(accountId, basket);
+    if (reason != null) {
+      throw new InvalidPurchaseException(reason, accountId);
+    }
+  }
+
+  /**
+   * Check the purchase is allowed without throwing, and if so count it
+   *
+   * @param accountId the account id
+   * @param basket    the summary of the ticket requests
+   * @return the reason the purchase is not allowed, or null if it is
+   */
+  RejectionReason tryAcquire(long accountId, BasketSummary basket);
+
+  /**
+   * Stop counting a purchase that was allowed but then failed, so it doesn't count towards the limits
+   *
+   * @param accountId the account id
+   * @param basket    the summary of the ticket requests, as acquired
+   */
+  default void release(long accountId, BasketSummary basket) {
+    // Nothing counted by default
+  }
+}
@@ -1,5 +1,6 @@
 package uk.gov.dwp.uc.pairtest.provider;
 
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 
 /**
@@ -15,5 +16,15 @@ public interface SeatReservationCalculator {
    * @param ticketTypeRequests the ticket requests
    * @return the number of seats that should be reserved
    */
-  int calculateSeats(TicketTypeRequest... ticketTypeRequests);
+  default int calculateSeats(TicketTypeRequest... ticketTypeRequests) {
+    return calculateSeats(BasketSummary.of(ticketTypeRequests));
+  }
+
+  /**
+   * Calculate the number of seats that should be reserved for the given summary of ticket requests
+   *
+   * @param basket the summary of the ticket requests
+   * @return the number of seats that should be reserved
+   */
+  int calculateSeats(BasketSummary basket);
 }
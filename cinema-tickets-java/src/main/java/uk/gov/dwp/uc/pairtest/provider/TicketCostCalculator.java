@@ -1,6 +1,8 @@
 package uk.gov.dwp.uc.pairtest.provider;
 
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
 
 /**
  * Ticket cost calculator
@@ -15,5 +17,26 @@ public interface TicketCostCalculator {
    * @param ticketTypeRequests the ticket requests
    * @return the cost of the tickets
    */
-  int calculateCost(TicketTypeRequest... ticketTypeRequests);
+  default int calculateCost(TicketTypeRequest... ticketTypeRequests) {
+    return calculateCost(BasketSummary.of(ticketTypeRequests));
+  }
+
+  /**
+   * Calculates the cost of the tickets for the given summary of ticket requests
+   *
+   * @param basket the summary of the ticket requests
+   * @return the cost of the tickets
+   */
+  int calculateCost(BasketSummary basket);
+
+  /**
+   * Calculates the cost of the tickets, along with the version of the prices used
+   * (calculators without versioned prices quote version 0)
+   *
+   * @param basket the summary of the ticket requests
+   * @return the cost and price version, packed as described by {@link PriceTable#quote(int, int)}
+   */
+  default long quote(BasketSummary basket) {
+    return PriceTable.quote(calculateCost(basket), 0);
+  }
 }
@@ -1,5 +1,7 @@
 package uk.gov.dwp.uc.pairtest.provider;
 
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
@@ -17,5 +19,24 @@ public interface TicketRequestsValidator {
    * @param ticketTypeRequests the ticket requests
    * @throws InvalidPurchaseException if the requests are considered invalid
    */
-  void validate(TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException;
+  default void validate(TicketTypeRequest... ticketTypeRequests) throws InvalidPurchaseException {
+    validate(BasketSummary.of(ticketTypeRequests));
+  }
+
+  /**
+   * Validate the given summary of ticket requests
+   * Simply returns if the requests are valid or throws an appropriate exception
+   *
+   * @param basket the summary of the ticket requests
+   * @throws InvalidPurchaseException if the requests are considered invalid
+   */
+  void validate(BasketSummary basket) throws InvalidPurchaseException;
+
+  /**
+   * Check the given summary of ticket requests without throwing
+   *
+   * @param basket the summary of the ticket requests
+   * @return the reason the requests are considered invalid, or null if they are valid
+   */
+  RejectionReason check(BasketSummary basket);
 }
@@ -0,0 +1,208 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the calls in flight to a service, adapting the limit to how the service is coping
+ * <p>
+ * The limit follows AIMD (additive increase, multiplicative decrease) on the observed round trip time: it creeps up
+ * while calls succeed near the fastest time seen, and is cut back when calls fail or take more than
+ * {@value #TOLERANCE} times as long. The fastest time drifts up slowly, so a lasting change in the service's speed
+ * is eventually accepted.
+ * <p>
+ * Calls over the limit wait in a bounded queue for a bounded time. Once the queue is full, or the wait is up,
+ * calls are shed straight away with {@link RejectionReason#OVERLOADED}, so the calls that are let through stay fast
+ * instead of everything slowing down together.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /**
+   * How much slower than the fastest time a call can be before it counts as congestion
+   */
+  public static final double TOLERANCE = 2.0;
+
+  // How much the limit is cut on congestion
+  private static final double BACKOFF = 0.9;
+
+  // How fast the fastest time drifts up, per call
+  private static final double DRIFT = 0.0001;
+
+  private final String name;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int maxQueue;
+  private final long maxWaitNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+
+  // Guarded by lock
+  private double limit;
+  private int inFlight;
+  private int queued;
+  private double fastestNanos = Double.MAX_VALUE;
+  private long nextDecrease = System.nanoTime();
+
+  private final LongAdder shed = new LongAdder();
+
+  /**
+   * Constructor
+   *
+   * @param name         the name of the service, for messages
+   * @param initialLimit the limit to start with
+   * @param minLimit     the lowest the limit can go
+   * @param maxLimit     the highest the limit can go
+   * @param maxQueue     the most calls that can wait for a slot
+   * @param maxWait      the longest a call waits for a slot
+   */
+  public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                    Duration maxWait) {
+    if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit || maxQueue < 0) {
+      throw new IllegalArgumentException("Invalid limits (" + minLimit + " <= " + initialLimit + " <= " + maxLimit
+          + ", queue " + maxQueue + ")");
+    }
+
+    this.name = name;
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxQueue = maxQueue;
+    this.maxWaitNanos = maxWait.toNanos();
+  }
+
+  /**
+   * Make a call within the limit
+   *
+   * @param call the call
+   * @throws InvalidPurchaseException if the call is shed
+   */
+  public void run(Runnable call) throws InvalidPurchaseException {
+    acquire();
+    long start = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      call.run();
+      succeeded = true;
+    } finally {
+      release(System.nanoTime() - start, succeeded);
+    }
+  }
+
+  /**
+   * Take a slot, waiting for one if need be
+   * Every slot taken must be given back with {@link #release}
+   *
+   * @throws InvalidPurchaseException if the call is shed
+   */
+  public void acquire() throws InvalidPurchaseException {
+    lock.lock();
+    try {
+      // Straight in if there's room and nobody is waiting ahead
+      if (queued == 0 && inFlight < (int) limit) {
+        inFlight++;
+        return;
+      }
+
+      // Shed if the queue is full
+      if (queued >= maxQueue) {
+        throw shed();
+      }
+
+      // Wait
+      queued++;
+      try {
+        long nanos = maxWaitNanos;
+        while (inFlight >= (int) limit) {
+          if (nanos <= 0) {
+            throw shed();
+          }
+          nanos = available.awaitNanos(nanos);
+        }
+        inFlight++;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw shed();
+      } finally {
+        queued--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Give back a slot, and adjust the limit for how the call went
+   *
+   * @param rttNanos  how long the call took
+   * @param succeeded true if the call succeeded
+   */
+  public void release(long rttNanos, boolean succeeded) {
+    lock.lock();
+    try {
+      boolean wasBusy = inFlight >= limit / 2;
+      inFlight--;
+
+      // Track the fastest time, letting it drift up
+      fastestNanos = Math.min(rttNanos, fastestNanos * (1 + DRIFT));
+
+      long now = System.nanoTime();
+      if (!succeeded || rttNanos > fastestNanos * TOLERANCE) {
+        // Congested, cut back (at most once per round trip, as the calls in flight all saw the same congestion)
+        if (now - nextDecrease >= 0) {
+          limit = Math.max(minLimit, limit * BACKOFF);
+          nextDecrease = now + rttNanos;
+        }
+      } else if (wasBusy) {
+        // Coping while busy, so allow a little more
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+
+      available.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the current limit on calls in flight
+   */
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the calls in flight
+   */
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of calls shed
+   */
+  public long getShedCount() {
+    return shed.sum();
+  }
+
+  private InvalidPurchaseException shed() {
+    shed.increment();
+    return new InvalidPurchaseException(RejectionReason.OVERLOADED, name);
+  }
+}
@@ -0,0 +1,178 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the calls to one service on its own bounded pool of threads, each with a deadline
+ * <p>
+ * Giving each service its own pool means a service that hangs can only tie up its own threads, and the deadline
+ * means the caller is never blocked for longer than it allows. Calls are rejected with
+ * {@link RejectionReason#OVERLOADED} when the pool and its queue are full, and with
+ * {@link RejectionReason#TIMED_OUT} (after the call is interrupted) when the deadline passes.
+ * <p>
+ * A call that times out may still have taken effect in the service.
+ */
+public class Bulkhead implements AutoCloseable {
+
+  private final String name;
+  private final long timeoutNanos;
+  private final ThreadPoolExecutor pool;
+
+  // Places in the bulkhead, running or queued
+  // (given back as soon as a call ends, rather than when its thread is next free, so a call can follow straight on)
+  private final Semaphore places;
+
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+
+  /**
+   * Constructor
+   *
+   * @param name     the name of the service, for messages and thread names
+   * @param threads  the most calls that can be in flight
+   * @param maxQueue the most calls that can wait for a thread
+   * @param timeout  the deadline for each call, including any wait for a thread
+   */
+  public Bulkhead(String name, int threads, int maxQueue, Duration timeout) {
+    if (threads < 1 || maxQueue < 0) {
+      throw new IllegalArgumentException("Invalid bulkhead size (" + threads + " threads, queue " + maxQueue + ")");
+    }
+
+    this.name = name;
+    this.timeoutNanos = timeout.toNanos();
+
+    // The queue can briefly hold a thread's worth more than the places allow, as a place is given back just before
+    // its thread is free, and calls that time out are taken off it
+    this.places = new Semaphore(threads + maxQueue);
+    AtomicInteger count = new AtomicInteger();
+    this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(threads + maxQueue), task -> {
+      Thread thread = new Thread(task, name + " bulkhead " + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.pool.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Make a call in the bulkhead, waiting no longer than the deadline for it
+   *
+   * @param call the call
+   * @throws InvalidPurchaseException if the bulkhead is full or the call times out
+   */
+  public void run(Runnable call) throws InvalidPurchaseException {
+    if (!places.tryAcquire()) {
+      rejected.increment();
+      throw new InvalidPurchaseException(RejectionReason.OVERLOADED, name);
+    }
+
+    Place place = new Place();
+    FutureTask<Void> future = new FutureTask<>(() -> {
+      try {
+        call.run();
+      } finally {
+        place.release();
+      }
+    }, null) {
+      @Override
+      protected void done() {
+        // (for a call cancelled before it started, otherwise already given back)
+        place.release();
+      }
+    };
+    try {
+      pool.execute(future);
+    } catch (RejectedExecutionException e) {
+      // Closed, or the queue full of calls just given back
+      place.release();
+      rejected.increment();
+      throw new InvalidPurchaseException(RejectionReason.OVERLOADED, name);
+    }
+
+    try {
+      future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      cancel(future);
+      timedOut.increment();
+      throw new InvalidPurchaseException(RejectionReason.TIMED_OUT, name);
+    } catch (InterruptedException e) {
+      cancel(future);
+      Thread.currentThread().interrupt();
+      throw new InvalidPurchaseException(RejectionReason.TIMED_OUT, name);
+    } catch (ExecutionException e) {
+      // Pass on what the call threw
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(name + " call failed", cause);
+    }
+  }
+
+  /**
+   * Cancel a call, interrupting it if it's running, or taking it off the queue if it hasn't started
+   */
+  private void cancel(FutureTask<Void> future) {
+    future.cancel(true);
+    pool.remove(future);
+  }
+
+  /**
+   * @return the calls in flight
+   */
+  public int getActiveCount() {
+    return pool.getActiveCount();
+  }
+
+  /**
+   * @return the number of calls rejected because the bulkhead was full
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * @return the number of calls that timed out
+   */
+  public long getTimedOutCount() {
+    return timedOut.sum();
+  }
+
+  /**
+   * Stop the pool, interrupting any calls in flight
+   */
+  @Override
+  public void close() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * A place taken in the bulkhead, given back once however the call ends
+   */
+  private final class Place {
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        places.release();
+      }
+    }
+  }
+}
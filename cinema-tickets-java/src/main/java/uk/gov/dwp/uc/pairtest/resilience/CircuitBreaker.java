@@ -0,0 +1,240 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.metrics.CircuitBreakerMXBean;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fails calls to a service fast while it is unhealthy
+ * <p>
+ * The breaker opens after a run of consecutive failures, and calls are then rejected with
+ * {@link RejectionReason#UNAVAILABLE} without reaching the service. Once it has been open for the open duration
+ * a single trial call is let through (half open): if it succeeds the breaker closes, otherwise it opens again.
+ * Calls turned away as {@link RejectionReason#OVERLOADED} (e.g. by a full {@link Bulkhead}) never reached the
+ * service, so they say nothing about its health and count as neither.
+ * <p>
+ * The state and the time it was entered are packed into one long and changed with CAS, so no locks are needed and
+ * only one caller wins each transition.
+ */
+public class CircuitBreaker implements CircuitBreakerMXBean {
+
+  /**
+   * The states of the breaker
+   */
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private static final State[] STATES = State.values();
+
+  // Packed state, (nanos since origin << 2) | state
+  private static final int STATE_BITS = 2;
+  private static final long STATE_MASK = (1 << STATE_BITS) - 1;
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final long origin = System.nanoTime();
+
+  private final AtomicLong packed = new AtomicLong(pack(State.CLOSED, 0));
+  private final AtomicInteger failures = new AtomicInteger();
+
+  private final LongAdder opened = new LongAdder();
+  private final LongAdder halfOpened = new LongAdder();
+  private final LongAdder closed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Constructor
+   *
+   * @param name             the name of the service, for messages
+   * @param failureThreshold the consecutive failures that open the breaker
+   * @param openDuration     how long the breaker stays open before a trial call
+   */
+  public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("Failure threshold must be at least one (" + failureThreshold + ")");
+    }
+
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+  }
+
+  /**
+   * Make a call through the breaker, recording how it went
+   *
+   * @param call the call
+   * @throws InvalidPurchaseException if the breaker is open
+   */
+  public void run(Runnable call) throws InvalidPurchaseException {
+    acquirePermission();
+    try {
+      call.run();
+    } catch (InvalidPurchaseException e) {
+      if (e.getReason() != RejectionReason.OVERLOADED) {
+        onFailure();
+      }
+      throw e;
+    } catch (UnsupportedOperationException e) {
+      // The service answered, it just can't do this
+      onSuccess();
+      throw e;
+    } catch (RuntimeException | Error e) {
+      onFailure();
+      throw e;
+    }
+    onSuccess();
+  }
+
+  /**
+   * Check a call can go ahead
+   * Every call let through must be followed by {@link #onSuccess} or {@link #onFailure}
+   *
+   * @throws InvalidPurchaseException if the breaker is open
+   */
+  public void acquirePermission() throws InvalidPurchaseException {
+    while (true) {
+      long current = packed.get();
+      State state = stateOf(current);
+      if (state == State.CLOSED) {
+        return;
+      }
+
+      // Open (or half open with the trial call never reported back) for long enough to try again?
+      long now = now();
+      if (now - sinceOf(current) < openNanos) {
+        rejected.increment();
+        throw new InvalidPurchaseException(RejectionReason.UNAVAILABLE, name);
+      }
+
+      // Only the caller that makes the move gets the trial call
+      if (packed.compareAndSet(current, pack(State.HALF_OPEN, now))) {
+        halfOpened.increment();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Record a successful call
+   */
+  public void onSuccess() {
+    long current = packed.get();
+    switch (stateOf(current)) {
+      case CLOSED:
+        // (only written when there's something to clear, to keep the common case read only)
+        if (failures.get() != 0) {
+          failures.set(0);
+        }
+        break;
+      case HALF_OPEN:
+        if (packed.compareAndSet(current, pack(State.CLOSED, now()))) {
+          failures.set(0);
+          closed.increment();
+        }
+        break;
+      default:
+        // A call from before the breaker opened, ignore it
+        break;
+    }
+  }
+
+  /**
+   * Record a failed call
+   */
+  public void onFailure() {
+    long current = packed.get();
+    switch (stateOf(current)) {
+      case CLOSED:
+        if (failures.incrementAndGet() >= failureThreshold && packed.compareAndSet(current, pack(State.OPEN, now()))) {
+          opened.increment();
+        }
+        break;
+      case HALF_OPEN:
+        if (packed.compareAndSet(current, pack(State.OPEN, now()))) {
+          opened.increment();
+        }
+        break;
+      default:
+        // Already open
+        break;
+    }
+  }
+
+  /**
+   * @return the state of the breaker
+   */
+  public State state() {
+    return stateOf(packed.get());
+  }
+
+  @Override
+  public String getState() {
+    return state().name();
+  }
+
+  @Override
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  @Override
+  public long getOpenedCount() {
+    return opened.sum();
+  }
+
+  @Override
+  public long getHalfOpenedCount() {
+    return halfOpened.sum();
+  }
+
+  @Override
+  public long getClosedCount() {
+    return closed.sum();
+  }
+
+  @Override
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Register this breaker's MXBean (type=CircuitBreaker)
+   *
+   * @param server the MBean server
+   * @throws JMException if the MXBean can't be registered
+   */
+  public void registerMBean(MBeanServer server) throws JMException {
+    server.registerMBean(this,
+        new ObjectName(PurchaseMetrics.JMX_DOMAIN + ":type=CircuitBreaker,name=" + ObjectName.quote(name)));
+  }
+
+  /**
+   * @return nanos since the breaker was created (so never negative, and leaving room for the state)
+   */
+  private long now() {
+    return System.nanoTime() - origin;
+  }
+
+  private static long pack(State state, long since) {
+    return (since << STATE_BITS) | state.ordinal();
+  }
+
+  private static State stateOf(long packed) {
+    return STATES[(int) (packed & STATE_MASK)];
+  }
+
+  private static long sinceOf(long packed) {
+    return packed >>> STATE_BITS;
+  }
+}
@@ -0,0 +1,50 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Payment service decorator limiting the payments in flight, see {@link AdaptiveConcurrencyLimiter}
+ */
+public class ConcurrencyLimitedPaymentService implements TicketPaymentService {
+
+  private final TicketPaymentService delegate;
+  private final AdaptiveConcurrencyLimiter limiter;
+
+  /**
+   * Constructor
+   *
+   * @param delegate the payment service
+   * @param limiter  the limiter
+   */
+  public ConcurrencyLimitedPaymentService(TicketPaymentService delegate, AdaptiveConcurrencyLimiter limiter) {
+    this.delegate = delegate;
+    this.limiter = limiter;
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the payment is shed
+   */
+  @Override
+  public void makePayment(long accountId, int totalAmountToPay) throws InvalidPurchaseException {
+    limiter.run(() -> delegate.makePayment(accountId, totalAmountToPay));
+  }
+
+  /**
+   * The batch is a single call, so takes a single slot
+   *
+   * @throws InvalidPurchaseException if the batch is shed
+   */
+  @Override
+  public void makePayments(long[] accountIds, int[] totalAmountsToPay) throws InvalidPurchaseException {
+    limiter.run(() -> delegate.makePayments(accountIds, totalAmountsToPay));
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the refund is shed
+   */
+  @Override
+  public void refund(long accountId, int totalAmountToRefund) throws InvalidPurchaseException {
+    limiter.run(() -> delegate.refund(accountId, totalAmountToRefund));
+  }
+}
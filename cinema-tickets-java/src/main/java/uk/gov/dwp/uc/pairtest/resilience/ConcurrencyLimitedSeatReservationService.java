@@ -0,0 +1,50 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Seat reservation service decorator limiting the reservations in flight, see {@link AdaptiveConcurrencyLimiter}
+ */
+public class ConcurrencyLimitedSeatReservationService implements SeatReservationService {
+
+  private final SeatReservationService delegate;
+  private final AdaptiveConcurrencyLimiter limiter;
+
+  /**
+   * Constructor
+   *
+   * @param delegate the seat reservation service
+   * @param limiter  the limiter
+   */
+  public ConcurrencyLimitedSeatReservationService(SeatReservationService delegate, AdaptiveConcurrencyLimiter limiter) {
+    this.delegate = delegate;
+    this.limiter = limiter;
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the reservation is shed
+   */
+  @Override
+  public void reserveSeat(long accountId, int totalSeatsToAllocate) throws InvalidPurchaseException {
+    limiter.run(() -> delegate.reserveSeat(accountId, totalSeatsToAllocate));
+  }
+
+  /**
+   * The batch is a single call, so takes a single slot
+   *
+   * @throws InvalidPurchaseException if the batch is shed
+   */
+  @Override
+  public void reserveSeats(long[] accountIds, int[] totalSeatsToAllocate) throws InvalidPurchaseException {
+    limiter.run(() -> delegate.reserveSeats(accountIds, totalSeatsToAllocate));
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the release is shed
+   */
+  @Override
+  public void releaseSeat(long accountId, int totalSeatsToRelease) throws InvalidPurchaseException {
+    limiter.run(() -> delegate.releaseSeat(accountId, totalSeatsToRelease));
+  }
+}
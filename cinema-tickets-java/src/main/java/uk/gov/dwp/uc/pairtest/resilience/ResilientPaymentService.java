@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Payment service decorator that runs payments in their own {@link Bulkhead}, with a deadline,
+ * behind a {@link CircuitBreaker}
+ */
+public class ResilientPaymentService implements TicketPaymentService {
+
+  private final TicketPaymentService delegate;
+  private final Bulkhead bulkhead;
+  private final CircuitBreaker breaker;
+
+  /**
+   * Constructor
+   *
+   * @param delegate the payment service
+   * @param bulkhead the bulkhead for payments (not shared with other services)
+   * @param breaker  the circuit breaker for payments
+   */
+  public ResilientPaymentService(TicketPaymentService delegate, Bulkhead bulkhead, CircuitBreaker breaker) {
+    this.delegate = delegate;
+    this.bulkhead = bulkhead;
+    this.breaker = breaker;
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the breaker is open, or the bulkhead is full, or the payment times out
+   */
+  @Override
+  public void makePayment(long accountId, int totalAmountToPay) throws InvalidPurchaseException {
+    breaker.run(() -> bulkhead.run(() -> delegate.makePayment(accountId, totalAmountToPay)));
+  }
+
+  /**
+   * The batch is a single call, with a single deadline
+   *
+   * @throws InvalidPurchaseException if the breaker is open, or the bulkhead is full, or the batch times out
+   */
+  @Override
+  public void makePayments(long[] accountIds, int[] totalAmountsToPay) throws InvalidPurchaseException {
+    breaker.run(() -> bulkhead.run(() -> delegate.makePayments(accountIds, totalAmountsToPay)));
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the breaker is open, or the bulkhead is full, or the refund times out
+   */
+  @Override
+  public void refund(long accountId, int totalAmountToRefund) throws InvalidPurchaseException {
+    breaker.run(() -> bulkhead.run(() -> delegate.refund(accountId, totalAmountToRefund)));
+  }
+}
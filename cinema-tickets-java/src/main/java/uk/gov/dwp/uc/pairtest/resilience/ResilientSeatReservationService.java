@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Seat reservation service decorator that runs reservations in their own {@link Bulkhead}, with a deadline,
+ * behind a {@link CircuitBreaker}
+ */
+public class ResilientSeatReservationService implements SeatReservationService {
+
+  private final SeatReservationService delegate;
+  private final Bulkhead bulkhead;
+  private final CircuitBreaker breaker;
+
+  /**
+   * Constructor
+   *
+   * @param delegate the seat reservation service
+   * @param bulkhead the bulkhead for reservations (not shared with other services)
+   * @param breaker  the circuit breaker for reservations
+   */
+  public ResilientSeatReservationService(SeatReservationService delegate, Bulkhead bulkhead, CircuitBreaker breaker) {
+    this.delegate = delegate;
+    this.bulkhead = bulkhead;
+    this.breaker = breaker;
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the breaker is open, or the bulkhead is full, or the reservation times out
+   */
+  @Override
+  public void reserveSeat(long accountId, int totalSeatsToAllocate) throws InvalidPurchaseException {
+    breaker.run(() -> bulkhead.run(() -> delegate.reserveSeat(accountId, totalSeatsToAllocate)));
+  }
+
+  /**
+   * The batch is a single call, with a single deadline
+   *
+   * @throws InvalidPurchaseException if the breaker is open, or the bulkhead is full, or the batch times out
+   */
+  @Override
+  public void reserveSeats(long[] accountIds, int[] totalSeatsToAllocate) throws InvalidPurchaseException {
+    breaker.run(() -> bulkhead.run(() -> delegate.reserveSeats(accountIds, totalSeatsToAllocate)));
+  }
+
+  /**
+   * @throws InvalidPurchaseException if the breaker is open, or the bulkhead is full, or the release times out
+   */
+  @Override
+  public void releaseSeat(long accountId, int totalSeatsToRelease) throws InvalidPurchaseException {
+    breaker.run(() -> bulkhead.run(() -> delegate.releaseSeat(accountId, totalSeatsToRelease)));
+  }
+}
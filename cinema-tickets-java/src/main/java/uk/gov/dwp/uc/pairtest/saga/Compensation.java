@@ -0,0 +1,81 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * A compensation for one account, described well enough to be followed up by hand if it can't be run
+ */
+public final class Compensation implements Runnable {
+
+  private final String action;
+  private final long accountId;
+  private final int amount;
+  private final Runnable call;
+
+  /**
+   * Constructor
+   *
+   * @param action    what the compensation does, e.g. "refund"
+   * @param accountId the account id
+   * @param amount    the amount (of money or seats) involved
+   * @param call      runs the compensation
+   */
+  public Compensation(String action, long accountId, int amount, Runnable call) {
+    this.action = action;
+    this.accountId = accountId;
+    this.amount = amount;
+    this.call = call;
+  }
+
+  /**
+   * @param tps       the payment service
+   * @param accountId the account id
+   * @param paid      the amount paid
+   * @return the compensation refunding the payment
+   */
+  public static Compensation refund(TicketPaymentService tps, long accountId, int paid) {
+    return new Compensation("refund", accountId, paid, () -> tps.refund(accountId, paid));
+  }
+
+  /**
+   * @param srs       the reservation service
+   * @param accountId the account id
+   * @param seats     the number of seats reserved
+   * @return the compensation releasing the seats
+   */
+  public static Compensation release(SeatReservationService srs, long accountId, int seats) {
+    return new Compensation("release", accountId, seats, () -> srs.releaseSeat(accountId, seats));
+  }
+
+  @Override
+  public void run() {
+    call.run();
+  }
+
+  /**
+   * @return what the compensation does
+   */
+  public String getAction() {
+    return action;
+  }
+
+  /**
+   * @return the account id
+   */
+  public long getAccountId() {
+    return accountId;
+  }
+
+  /**
+   * @return the amount (of money or seats) involved
+   */
+  public int getAmount() {
+    return amount;
+  }
+
+  @Override
+  public String toString() {
+    return action + " of " + amount + " for account " + accountId;
+  }
+}
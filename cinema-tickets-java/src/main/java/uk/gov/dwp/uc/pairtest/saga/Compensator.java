@@ -0,0 +1,206 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import uk.gov.dwp.uc.pairtest.metrics.CompensatorMXBean;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs compensations in the background, retrying failures a bounded number of times
+ * <p>
+ * The compensations handed over together are run in order, each retried with exponential backoff until it succeeds
+ * or runs out of attempts. One that runs out of attempts is counted as failed and logged as an error, with what it
+ * was for (the account and amount, for a {@link Compensation}), so it can be followed up outside the service, and
+ * the rest still run. One the service doesn't support ({@link UnsupportedOperationException}) is given up on at
+ * once, as retrying won't help.
+ */
+public class Compensator implements CompensatorMXBean {
+
+  private static final System.Logger LOG = System.getLogger(Compensator.class.getName());
+
+  /**
+   * Prefix of the system properties configuring the shared compensator
+   * (threads, maxAttempts and backoffMillis, the delay before the first retry)
+   */
+  public static final String PROPERTY_PREFIX = "cinema-tickets.compensation.";
+
+  // Shared by services that aren't given their own
+  private static volatile Compensator shared;
+
+  private final ScheduledExecutorService scheduler;
+  private final int maxAttempts;
+  private final long backoffNanos;
+
+  private final AtomicInteger pending = new AtomicInteger();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  /**
+   * Constructor
+   *
+   * @param scheduler   runs the compensations and the retries
+   * @param maxAttempts the most times each compensation is tried
+   * @param backoff     the delay before the first retry, doubled for each one after
+   */
+  public Compensator(ScheduledExecutorService scheduler, int maxAttempts, Duration backoff) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("There must be at least one attempt (" + maxAttempts + ")");
+    }
+
+    this.scheduler = scheduler;
+    this.maxAttempts = maxAttempts;
+    this.backoffNanos = backoff.toNanos();
+  }
+
+  /**
+   * The compensator shared by default, configured from system properties and registered with the platform MBean
+   * server on first use
+   *
+   * @return the shared compensator
+   */
+  public static Compensator getShared() {
+    Compensator compensator = shared;
+    if (compensator == null) {
+      synchronized (Compensator.class) {
+        compensator = shared;
+        if (compensator == null) {
+          AtomicInteger count = new AtomicInteger();
+          ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+              Integer.getInteger(PROPERTY_PREFIX + "threads", 2), task -> {
+            Thread thread = new Thread(task, "compensation " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+          compensator = new Compensator(scheduler,
+              Integer.getInteger(PROPERTY_PREFIX + "maxAttempts", 5),
+              Duration.ofMillis(Long.getLong(PROPERTY_PREFIX + "backoffMillis", 200)));
+          try {
+            compensator.registerMBean(ManagementFactory.getPlatformMBeanServer(), "default");
+          } catch (JMException e) {
+            // Compensations still run, they just can't be watched through JMX
+          }
+          shared = compensator;
+        }
+      }
+    }
+    return compensator;
+  }
+
+  /**
+   * Run the compensations, in order, in the background
+   *
+   * @param compensations the compensations
+   */
+  public void submit(List<Runnable> compensations) {
+    submit(compensations, null);
+  }
+
+  /**
+   * Run the compensations, in order, in the background, then say so if every one of them succeeded
+   *
+   * @param compensations the compensations
+   * @param onCompensated run once they've all succeeded (straight away if there are none), or null
+   */
+  public void submit(List<Runnable> compensations, Runnable onCompensated) {
+    if (compensations.isEmpty()) {
+      if (onCompensated != null) {
+        onCompensated.run();
+      }
+      return;
+    }
+    pending.addAndGet(compensations.size());
+    schedule(compensations, 0, 1, 0, onCompensated);
+  }
+
+  @Override
+  public int getPendingCount() {
+    return pending.get();
+  }
+
+  @Override
+  public long getCompletedCount() {
+    return completed.sum();
+  }
+
+  @Override
+  public long getRetryCount() {
+    return retries.sum();
+  }
+
+  @Override
+  public long getFailedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * Register this compensator's MXBean (type=Compensator)
+   *
+   * @param server the MBean server
+   * @param name   distinguishes this compensator from others registered on the same server
+   * @throws JMException if the MXBean can't be registered
+   */
+  public void registerMBean(MBeanServer server, String name) throws JMException {
+    server.registerMBean(this,
+        new ObjectName(PurchaseMetrics.JMX_DOMAIN + ":type=Compensator,name=" + ObjectName.quote(name)));
+  }
+
+  /**
+   * Try the compensation at index, then carry on with the rest
+   * (onCompensated is dropped once one is given up on)
+   */
+  private void attempt(List<Runnable> compensations, int index, int attempt, Runnable onCompensated) {
+    try {
+      compensations.get(index).run();
+      completed.increment();
+    } catch (RuntimeException e) {
+      if (attempt < maxAttempts && !(e instanceof UnsupportedOperationException)) {
+        // Back off and try again
+        retries.increment();
+        schedule(compensations, index, attempt + 1, backoffNanos << Math.min(attempt - 1, 20), onCompensated);
+        return;
+      }
+      failed.increment();
+      LOG.log(System.Logger.Level.ERROR, "Gave up on " + compensations.get(index) + " after " + attempt
+          + " attempts, it must be followed up by hand", e);
+      onCompensated = null;
+    }
+
+    pending.decrementAndGet();
+    if (index + 1 < compensations.size()) {
+      attempt(compensations, index + 1, 1, onCompensated);
+    } else if (onCompensated != null) {
+      try {
+        onCompensated.run();
+      } catch (RuntimeException e) {
+        LOG.log(System.Logger.Level.WARNING, "Compensations succeeded but couldn't be recorded", e);
+      }
+    }
+  }
+
+  private void schedule(List<Runnable> compensations, int index, int attempt, long delayNanos,
+                        Runnable onCompensated) {
+    try {
+      scheduler.schedule(() -> attempt(compensations, index, attempt, onCompensated), delayNanos,
+          TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // Shut down, so the rest can't run
+      int abandoned = compensations.size() - index;
+      pending.addAndGet(-abandoned);
+      failed.add(abandoned);
+      LOG.log(System.Logger.Level.ERROR, "Compensations abandoned on shut down, they must be followed up by hand: "
+          + compensations.subList(index, compensations.size()));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The completed steps of one purchase, and how to undo them if the purchase fails
+ * <p>
+ * Each step records its compensation once it has completed. If the purchase is aborted, the compensations are
+ * handed to a {@link Compensator} to run in the background, most recent step first, so the caller can fail fast.
+ * A step that completes after the purchase was aborted (a call that carried on after timing out, say) is undone
+ * straight away.
+ */
+public final class PurchaseSaga {
+
+  private final Compensator compensator;
+
+  // Guarded by this
+  // (most recent first)
+  private final ArrayDeque<Runnable> compensations = new ArrayDeque<>(2);
+  private boolean aborted;
+
+  /**
+   * Constructor
+   *
+   * @param compensator runs the compensations if the purchase is aborted
+   */
+  public PurchaseSaga(Compensator compensator) {
+    this.compensator = compensator;
+  }
+
+  /**
+   * Record a completed step
+   *
+   * @param compensation undoes the step
+   */
+  public synchronized void completed(Runnable compensation) {
+    if (aborted) {
+      compensator.submit(List.of(compensation));
+    } else {
+      compensations.push(compensation);
+    }
+  }
+
+  /**
+   * Abort the purchase, undoing the steps completed so far (and any that complete later)
+   */
+  public void abort() {
+    abort(null);
+  }
+
+  /**
+   * Abort the purchase, undoing the steps completed so far (and any that complete later)
+   *
+   * @param onCompensated run once the steps completed so far have all been undone, or null
+   */
+  public synchronized void abort(Runnable onCompensated) {
+    aborted = true;
+    compensator.submit(new ArrayList<>(compensations), onCompensated);
+    compensations.clear();
+  }
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+
+/**
+ * A basket of tickets for an account, as sent to the server
+ */
+public final class BasketRequest {
+
+  private final long accountId;
+  private final TicketBasket basket;
+
+  /**
+   * Constructor
+   *
+   * @param accountId the account id
+   * @param basket    the tickets
+   */
+  public BasketRequest(long accountId, TicketBasket basket) {
+    this.accountId = accountId;
+    this.basket = basket;
+  }
+
+  public long getAccountId() {
+    return accountId;
+  }
+
+  public TicketBasket getBasket() {
+    return basket;
+  }
+}
@@ -0,0 +1,56 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A pool of direct buffers of one size
+ * <p>
+ * Direct buffers are slow to allocate and free, so they're kept for reuse rather than left to the garbage collector.
+ * The pool only grows to the size given, any buffers released beyond that are dropped.
+ */
+public class BufferPool {
+
+  private final int bufferSize;
+  private final ArrayBlockingQueue<ByteBuffer> pool;
+
+  /**
+   * Constructor
+   *
+   * @param bufferSize the size of each buffer
+   * @param maxPooled  the most buffers kept for reuse
+   */
+  public BufferPool(int bufferSize, int maxPooled) {
+    if (bufferSize < 1 || maxPooled < 1) {
+      throw new IllegalArgumentException("Invalid pool (" + maxPooled + " buffers of " + bufferSize + " bytes)");
+    }
+
+    this.bufferSize = bufferSize;
+    this.pool = new ArrayBlockingQueue<>(maxPooled);
+  }
+
+  /**
+   * @return a cleared buffer, from the pool if there's one free
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = pool.poll();
+    return buffer == null ? ByteBuffer.allocateDirect(bufferSize) : buffer;
+  }
+
+  /**
+   * Give back a buffer, which mustn't be used again
+   *
+   * @param buffer the buffer, from {@link #acquire}
+   */
+  public void release(ByteBuffer buffer) {
+    buffer.clear();
+    pool.offer(buffer);
+  }
+
+  /**
+   * @return the number of buffers free in the pool
+   */
+  public int getPooledCount() {
+    return pool.size();
+  }
+}
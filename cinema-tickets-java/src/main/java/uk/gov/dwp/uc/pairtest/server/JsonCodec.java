@@ -0,0 +1,309 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads and writes the JSON the server speaks, straight from and to bytes
+ * <p>
+ * Only the few fixed shapes the server uses are supported, so there are no strings or maps built along the way.
+ * Requests are a flat object of whole numbers, the account id and a count for each ticket type, for example
+ * {@code {"accountId":1,"adult":2,"child":1}} (missing counts are zero). Responses are either cached or written into
+ * the caller's buffer.
+ */
+public final class JsonCodec {
+
+  /**
+   * The most bytes a quote can take when written
+   */
+  public static final int MAX_QUOTE_LENGTH = 128;
+
+  private static final Type[] TYPES = Type.values();
+
+  // The keys of a request, the account id then the types in ordinal order
+  private static final int ACCOUNT_ID = 0;
+  private static final byte[][] KEYS = new byte[TYPES.length + 1][];
+
+  static {
+    KEYS[ACCOUNT_ID] = ascii("accountId");
+    for (Type type : TYPES) {
+      KEYS[type.ordinal() + 1] = ascii(type.name().toLowerCase(Locale.ROOT));
+    }
+  }
+
+  private static final byte[] SUCCESS = ascii("{\"result\":\"SUCCESS\"}");
+  private static final byte[] MALFORMED = ascii("{\"result\":\"MALFORMED\"}");
+  private static final byte[] ERROR = ascii("{\"result\":\"ERROR\"}");
+  private static final byte[] UNKNOWN_REJECTION = ascii("{\"result\":\"REJECTED\",\"retryable\":false}");
+
+  // By ordinal
+  private static final byte[][] REJECTIONS = new byte[RejectionReason.values().length][];
+
+  static {
+    for (RejectionReason reason : RejectionReason.values()) {
+      REJECTIONS[reason.ordinal()] =
+          ascii("{\"result\":\"" + reason.name() + "\",\"retryable\":" + reason.isRetryable() + "}");
+    }
+  }
+
+  private static final byte[] QUOTE_ACCOUNT_ID = ascii("{\"accountId\":");
+  private static final byte[] QUOTE_TOTAL_AMOUNT = ascii(",\"totalAmount\":");
+  private static final byte[] QUOTE_SEATS = ascii(",\"seats\":");
+  private static final byte[] QUOTE_PRICE_VERSION = ascii(",\"priceVersion\":");
+
+  private JsonCodec() {
+  }
+
+  /**
+   * Read a basket request
+   *
+   * @param json   the bytes holding the request
+   * @param length the number of bytes used
+   * @return the request
+   * @throws IllegalArgumentException if the request is malformed
+   */
+  public static BasketRequest decodeBasket(byte[] json, int length) {
+    Reader in = new Reader(json, length);
+
+    long accountId = 0;
+    int adult = 0;
+    int child = 0;
+    int infant = 0;
+
+    // Bit for each key seen
+    int seen = 0;
+
+    in.expect('{');
+    if (!in.skip('}')) {
+      do {
+        int key = in.key();
+        if ((seen & (1 << key)) != 0) {
+          throw in.error("repeated key");
+        }
+        seen |= 1 << key;
+
+        in.expect(':');
+        long value = in.number();
+        if (key == ACCOUNT_ID) {
+          accountId = value;
+        } else {
+          if (value < 0) {
+            throw in.error("negative ticket count");
+          }
+          int count = (int) Math.min(value, TicketBasket.MAX_COUNT);
+          switch (TYPES[key - 1]) {
+            case ADULT:
+              adult = count;
+              break;
+            case CHILD:
+              child = count;
+              break;
+            default:
+              infant = count;
+              break;
+          }
+        }
+      } while (in.skip(','));
+      in.expect('}');
+    }
+    if (!in.atEnd()) {
+      throw in.error("unexpected content after the basket");
+    }
+    if ((seen & (1 << ACCOUNT_ID)) == 0) {
+      throw new IllegalArgumentException("Invalid basket JSON: accountId is required");
+    }
+
+    return new BasketRequest(accountId, TicketBasket.of(adult, child, infant));
+  }
+
+  /**
+   * @param result the result of a purchase
+   * @return the result as JSON (shared, don't change)
+   */
+  public static byte[] encode(PurchaseResult result) {
+    return result.isSuccess() ? SUCCESS : encode(result.getReason());
+  }
+
+  /**
+   * @param reason the reason a purchase was rejected (may be null if not known)
+   * @return the rejection as JSON (shared, don't change)
+   */
+  public static byte[] encode(RejectionReason reason) {
+    return reason == null ? UNKNOWN_REJECTION : REJECTIONS[reason.ordinal()];
+  }
+
+  /**
+   * @return the response to a malformed request (shared, don't change)
+   */
+  public static byte[] malformed() {
+    return MALFORMED;
+  }
+
+  /**
+   * @return the response to a request that failed unexpectedly (shared, don't change)
+   */
+  public static byte[] error() {
+    return ERROR;
+  }
+
+  /**
+   * Write a quote
+   *
+   * @param quote the receipt the purchase would produce
+   * @param out   the buffer to write to, with room for at least {@value #MAX_QUOTE_LENGTH} bytes
+   * @return the number of bytes written
+   */
+  public static int encodeQuote(PurchaseReceipt quote, byte[] out) {
+    int pos = put(QUOTE_ACCOUNT_ID, out, 0);
+    pos = putLong(quote.getAccountId(), out, pos);
+    pos = put(QUOTE_TOTAL_AMOUNT, out, pos);
+    pos = putLong(quote.getTotalAmountPaid(), out, pos);
+    pos = put(QUOTE_SEATS, out, pos);
+    pos = putLong(quote.getSeatsReserved(), out, pos);
+    pos = put(QUOTE_PRICE_VERSION, out, pos);
+    pos = putLong(quote.getPriceVersion(), out, pos);
+    out[pos++] = '}';
+    return pos;
+  }
+
+  private static int put(byte[] bytes, byte[] out, int pos) {
+    System.arraycopy(bytes, 0, out, pos, bytes.length);
+    return pos + bytes.length;
+  }
+
+  private static int putLong(long value, byte[] out, int pos) {
+    if (value < 0) {
+      out[pos++] = '-';
+    } else {
+      // Work with the negative, which has room for Long.MIN_VALUE
+      value = -value;
+    }
+
+    // Count the digits, then fill them in from the right
+    int digits = 1;
+    for (long rest = value / 10; rest != 0; rest /= 10) {
+      digits++;
+    }
+    int end = pos + digits;
+    for (int i = end - 1; i >= pos; i--) {
+      out[i] = (byte) ('0' - value % 10);
+      value /= 10;
+    }
+    return end;
+  }
+
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Position in the bytes being read
+   */
+  private static final class Reader {
+
+    private final byte[] json;
+    private final int end;
+    private int pos;
+
+    Reader(byte[] json, int end) {
+      this.json = json;
+      this.end = end;
+    }
+
+    /**
+     * Skip the given character if it's next
+     *
+     * @return true if it was skipped
+     */
+    boolean skip(char c) {
+      skipWhitespace();
+      if (pos < end && json[pos] == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    void expect(char c) {
+      if (!skip(c)) {
+        throw error("expected '" + c + "'");
+      }
+    }
+
+    /**
+     * @return the index of the next key in {@link #KEYS}
+     */
+    int key() {
+      expect('"');
+      int start = pos;
+      while (pos < end && json[pos] != '"') {
+        pos++;
+      }
+      if (pos == end) {
+        throw error("unterminated key");
+      }
+
+      int length = pos - start;
+      pos++;
+      for (int key = 0; key < KEYS.length; key++) {
+        byte[] candidate = KEYS[key];
+        if (candidate.length == length
+            && Arrays.equals(json, start, pos - 1, candidate, 0, length)) {
+          return key;
+        }
+      }
+      throw error("unknown key");
+    }
+
+    /**
+     * @return the next whole number
+     */
+    long number() {
+      skipWhitespace();
+      boolean negative = pos < end && json[pos] == '-';
+      if (negative) {
+        pos++;
+      }
+
+      int start = pos;
+      long value = 0;
+      while (pos < end && json[pos] >= '0' && json[pos] <= '9') {
+        int digit = json[pos] - '0';
+        if (value > (Long.MAX_VALUE - digit) / 10) {
+          throw error("number too big");
+        }
+        value = value * 10 + digit;
+        pos++;
+      }
+      if (pos == start) {
+        throw error("expected a number");
+      }
+      if (pos < end && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E')) {
+        throw error("expected a whole number");
+      }
+      return negative ? -value : value;
+    }
+
+    boolean atEnd() {
+      skipWhitespace();
+      return pos == end;
+    }
+
+    IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("Invalid basket JSON at " + pos + ": " + message);
+    }
+
+    private void skipWhitespace() {
+      while (pos < end && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\n' || json[pos] == '\r')) {
+        pos++;
+      }
+    }
+  }
+}
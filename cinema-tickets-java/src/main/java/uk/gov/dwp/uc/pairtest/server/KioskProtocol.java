@@ -0,0 +1,161 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol the box office kiosks use to buy tickets
+ * <p>
+ * Each request is a frame of a length byte (the number of bytes that follow) then, big endian:
+ * <ul>
+ *   <li>a 16 bit sequence number, chosen by the kiosk and echoed in the response</li>
+ *   <li>the 64 bit account id</li>
+ *   <li>the 32 bit basket, packed as {@link TicketBasket#getPacked}</li>
+ * </ul>
+ * {@value #FRAME_LENGTH} bytes in all. Longer frames are accepted and the extra bytes ignored, so fields can be added.
+ * <p>
+ * Each response is the sequence number then a single outcome byte: {@link #SUCCESS}, the code of the
+ * {@link RejectionReason} (fixed for each reason in {@link #codeOf}, so never reused or renumbered), or one of the
+ * codes for a malformed request, an unknown rejection or an error. Responses come back in the order the requests
+ * were sent.
+ */
+public final class KioskProtocol {
+
+  /**
+   * The bytes in a request after the length byte
+   */
+  public static final int REQUEST_LENGTH = 2 + 8 + 4;
+
+  /**
+   * The bytes in a request frame
+   */
+  public static final int FRAME_LENGTH = 1 + REQUEST_LENGTH;
+
+  /**
+   * The bytes in a response
+   */
+  public static final int RESPONSE_LENGTH = 2 + 1;
+
+  /**
+   * The tickets were bought
+   */
+  public static final byte SUCCESS = 0;
+
+  /**
+   * The purchase was rejected for a reason not known to the protocol
+   */
+  public static final byte REJECTED = (byte) 0xFD;
+
+  /**
+   * The request couldn't be read (a basket with bits set outside the counts)
+   */
+  public static final byte MALFORMED = (byte) 0xFE;
+
+  /**
+   * The purchase failed unexpectedly
+   */
+  public static final byte ERROR = (byte) 0xFF;
+
+  // Bits of a packed basket used by the counts
+  private static final int BASKET_MASK = (1 << (3 * TicketBasket.COUNT_BITS)) - 1;
+
+  // Outcome codes by reason ordinal, and reasons by outcome code
+  private static final byte[] CODES = new byte[RejectionReason.values().length];
+  private static final RejectionReason[] REASONS = new RejectionReason[256];
+
+  static {
+    for (RejectionReason reason : RejectionReason.values()) {
+      byte code = codeOf(reason);
+      CODES[reason.ordinal()] = code;
+      if (code != REJECTED) {
+        REASONS[code & 0xFF] = reason;
+      }
+    }
+  }
+
+  private KioskProtocol() {
+  }
+
+  /**
+   * Write a request frame
+   *
+   * @param out       the buffer to write to
+   * @param sequence  the sequence number
+   * @param accountId the account id
+   * @param basket    the tickets
+   */
+  public static void putRequest(ByteBuffer out, short sequence, long accountId, TicketBasket basket) {
+    out.put((byte) REQUEST_LENGTH).putShort(sequence).putLong(accountId).putInt(basket.getPacked());
+  }
+
+  /**
+   * @param packed a packed basket, as sent
+   * @return true if only the bits used by the counts are set
+   */
+  public static boolean isValidBasket(int packed) {
+    return (packed & ~BASKET_MASK) == 0;
+  }
+
+  /**
+   * @param reason the reason a purchase was rejected (may be null if not known)
+   * @return the outcome code for the rejection
+   */
+  public static byte outcomeOf(RejectionReason reason) {
+    return reason == null ? REJECTED : CODES[reason.ordinal()];
+  }
+
+  /**
+   * @param outcome an outcome code
+   * @return the reason for a rejection, or null for any other outcome
+   */
+  public static RejectionReason reasonOf(byte outcome) {
+    return REASONS[outcome & 0xFF];
+  }
+
+  /**
+   * The code sent for each reason, which kiosks already in use depend on, so a code is never changed or reused
+   * (a reason without one is sent as {@link #REJECTED})
+   */
+  private static byte codeOf(RejectionReason reason) {
+    switch (reason) {
+      case RATE_LIMITED:
+        return 1;
+      case INVALID_ACCOUNT:
+        return 2;
+      case UNKNOWN_ACCOUNT:
+        return 3;
+      case BLOCKED_ACCOUNT:
+        return 4;
+      case NO_REQUESTS:
+        return 5;
+      case EMPTY_REQUEST:
+        return 6;
+      case TOO_MANY_TICKETS:
+        return 7;
+      case NO_ADULT:
+        return 8;
+      case TOO_MANY_INFANTS:
+        return 9;
+      case VELOCITY_LIMIT:
+        return 10;
+      case OVERLOADED:
+        return 11;
+      case UNAVAILABLE:
+        return 12;
+      case TIMED_OUT:
+        return 13;
+      case UNKNOWN_SCREENING:
+        return 14;
+      case NOT_ENOUGH_SEATS:
+        return 15;
+      case NO_ADJACENT_SEATS:
+        return 16;
+      case KEY_REUSED:
+        return 17;
+      default:
+        return REJECTED;
+    }
+  }
+}
@@ -0,0 +1,352 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Serves purchases to the box office kiosks over {@link KioskProtocol}
+ * <p>
+ * One selector thread accepts connections and moves bytes, without blocking. Once a connection has whole requests
+ * buffered it stops being read and is handed to the executor, which works through every request buffered (calling
+ * the service, which may block) and writes the responses, then hands the connection back. So requests pipelined on
+ * a connection are answered in order, and a slow purchase holds up only its own connection.
+ * <p>
+ * Each connection reads and writes through a pair of pooled direct buffers, and the requests are read from and the
+ * responses written to those in place, so the framing allocates nothing for each message. The purchase itself does
+ * allocate, in the service, as does handing the connection to the executor (a virtual thread each time, for the
+ * default one). The benchmark's {@code KioskServerBenchmark} reports the allocation for each message.
+ */
+public class KioskServer implements AutoCloseable {
+
+  /**
+   * The size of each connection's buffers
+   */
+  public static final int BUFFER_SIZE = 4096;
+
+  private final TicketService service;
+  private final Executor executor;
+  private final BufferPool buffers;
+
+  private final Selector selector;
+  private final ServerSocketChannel server;
+  private final InetSocketAddress address;
+  private final Thread loop;
+
+  // Created once, rather than for each select
+  private final Consumer<SelectionKey> handler = this::handle;
+
+  private volatile boolean closed;
+
+  /**
+   * Constructor, the server isn't started until {@link #start} is called
+   *
+   * @param service   the service to serve
+   * @param address   the address to listen on (port 0 for any free port)
+   * @param executor  works through the requests buffered on each connection
+   * @param maxPooled the most buffers kept for reuse (two for each connection)
+   * @throws IOException if the address can't be bound
+   */
+  public KioskServer(TicketService service, InetSocketAddress address, Executor executor, int maxPooled)
+      throws IOException {
+    this.service = service;
+    this.executor = executor;
+    this.buffers = new BufferPool(BUFFER_SIZE, maxPooled);
+
+    this.selector = Selector.open();
+    this.server = ServerSocketChannel.open();
+    try {
+      server.bind(address);
+      server.configureBlocking(false);
+      server.register(selector, SelectionKey.OP_ACCEPT);
+      this.address = (InetSocketAddress) server.getLocalAddress();
+    } catch (IOException e) {
+      closeChannels();
+      throw e;
+    }
+
+    this.loop = new Thread(this::run, "kiosk selector " + this.address.getPort());
+    this.loop.setDaemon(true);
+  }
+
+  /**
+   * Start accepting connections
+   */
+  public void start() {
+    loop.start();
+  }
+
+  /**
+   * @return the address the server is listening on
+   */
+  public InetSocketAddress getAddress() {
+    return address;
+  }
+
+  /**
+   * Stop the server and drop every connection, returning their buffers to the pool
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() instanceof Connection) {
+          ((Connection) key.attachment()).close();
+        }
+      }
+    } catch (ClosedSelectorException e) {
+      // Already closed
+    }
+    closeChannels();
+  }
+
+  private void closeChannels() {
+    try {
+      selector.close();
+      server.close();
+    } catch (IOException e) {
+      // Closing anyway
+    }
+  }
+
+  private void run() {
+    try {
+      while (!closed) {
+        selector.select(handler);
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      // Closed
+    }
+  }
+
+  /**
+   * Handle a key that's ready, on the selector thread
+   */
+  private void handle(SelectionKey key) {
+    if (key.channel() == server) {
+      accept();
+      return;
+    }
+
+    Connection connection = (Connection) key.attachment();
+    try {
+      if (key.isReadable()) {
+        connection.read();
+      } else if (key.isWritable()) {
+        connection.write();
+      }
+    } catch (IOException | CancelledKeyException e) {
+      connection.close();
+    }
+  }
+
+  private void accept() {
+    try {
+      SocketChannel channel = server.accept();
+      if (channel == null) {
+        return;
+      }
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+      Connection connection = new Connection(channel);
+      connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    } catch (IOException e) {
+      // Just that connection lost
+    }
+  }
+
+  /**
+   * A kiosk's connection
+   * <p>
+   * The buffers belong to the selector thread while the key has interest in reading or writing, and to the executor
+   * while it has none.
+   */
+  private final class Connection implements Runnable {
+
+    private final SocketChannel channel;
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final ByteBuffer in = buffers.acquire();
+    private final ByteBuffer out = buffers.acquire();
+    private SelectionKey key;
+
+    Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * Read what's arrived, on the selector thread, and hand over once there's a whole request
+     */
+    void read() throws IOException {
+      if (channel.read(in) < 0) {
+        close();
+      } else if (hasRequest()) {
+        dispatch();
+      }
+    }
+
+    /**
+     * Write more of the responses, on the selector thread, and go back to reading once they're all gone
+     */
+    void write() throws IOException {
+      if (flush()) {
+        if (hasRequest()) {
+          dispatch();
+        } else {
+          key.interestOps(SelectionKey.OP_READ);
+        }
+      }
+    }
+
+    /**
+     * Answer the requests buffered, on the executor
+     */
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          if (!answer()) {
+            // Broke the protocol, but send what was answered before it
+            flush();
+            close();
+            return;
+          }
+
+          if (!flush()) {
+            // The kiosk isn't keeping up, let the selector finish the writing
+            resume(SelectionKey.OP_WRITE);
+            return;
+          }
+
+          // Only left requests behind if there wasn't room for the responses
+          if (!hasRequest()) {
+            resume(SelectionKey.OP_READ);
+            return;
+          }
+        }
+      } catch (IOException | CancelledKeyException e) {
+        close();
+      }
+    }
+
+    /**
+     * Answer as many of the whole requests buffered as there's room for the responses
+     *
+     * @return false if a request was malformed beyond reading
+     */
+    private boolean answer() {
+      in.flip();
+      try {
+        while (in.remaining() > 0 && out.remaining() >= KioskProtocol.RESPONSE_LENGTH) {
+          int start = in.position();
+          int length = in.get(start) & 0xFF;
+          if (length < KioskProtocol.REQUEST_LENGTH) {
+            return false;
+          }
+          if (in.remaining() < 1 + length) {
+            break;
+          }
+
+          short sequence = in.getShort(start + 1);
+          long accountId = in.getLong(start + 3);
+          int packed = in.getInt(start + 11);
+          in.position(start + 1 + length);
+
+          out.putShort(sequence).put(purchase(accountId, packed));
+        }
+        return true;
+      } finally {
+        in.compact();
+      }
+    }
+
+    private byte purchase(long accountId, int packed) {
+      if (!KioskProtocol.isValidBasket(packed)) {
+        return KioskProtocol.MALFORMED;
+      }
+
+      try {
+        service.purchaseTickets(accountId, TicketBasket.fromPacked(packed));
+        return KioskProtocol.SUCCESS;
+      } catch (InvalidPurchaseException e) {
+        return KioskProtocol.outcomeOf(e.getReason());
+      } catch (RuntimeException e) {
+        return KioskProtocol.ERROR;
+      }
+    }
+
+    /**
+     * Write what the socket will take
+     *
+     * @return true if every response has been written
+     */
+    private boolean flush() throws IOException {
+      out.flip();
+      try {
+        channel.write(out);
+        return !out.hasRemaining();
+      } finally {
+        out.compact();
+      }
+    }
+
+    /**
+     * @return true if there's a whole request, or the start of a malformed one, buffered
+     */
+    private boolean hasRequest() {
+      if (in.position() == 0) {
+        return false;
+      }
+      int length = in.get(0) & 0xFF;
+      return length < KioskProtocol.REQUEST_LENGTH || in.position() >= 1 + length;
+    }
+
+    /**
+     * Stop reading and hand the connection to the executor
+     */
+    private void dispatch() {
+      key.interestOps(0);
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        close();
+      }
+    }
+
+    /**
+     * Hand the connection back to the selector
+     */
+    private void resume(int interestOps) {
+      key.interestOps(interestOps);
+      selector.wakeup();
+    }
+
+    void close() {
+      if (open.compareAndSet(true, false)) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // Closing anyway
+        }
+        buffers.release(in);
+        buffers.release(out);
+      }
+    }
+  }
+}
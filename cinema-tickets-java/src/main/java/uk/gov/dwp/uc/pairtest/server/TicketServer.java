@@ -0,0 +1,228 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import thirdparty.paymentgateway.TicketPaymentServiceImpl;
+import thirdparty.seatbooking.SeatReservationServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves purchases and quotes over HTTP, using the JDK's built in server with a virtual thread for each exchange
+ * <p>
+ * Both endpoints take a POST of a basket (see {@link JsonCodec}):
+ * <ul>
+ *   <li>{@code /purchase} buys the tickets, once only for a given {@code Idempotency-Key} header if there is one</li>
+ *   <li>{@code /quote} works out the cost and seats without buying anything</li>
+ * </ul>
+ * Rejections come back with the reason, as 429 or 503 (504 for a time out) if worth retrying, otherwise as 422.
+ * <p>
+ * Connections are kept alive, and pipelined requests on a connection are answered in turn: every exchange reads its
+ * request in full and closes, which leaves the connection ready for the next one.
+ */
+public class TicketServer implements AutoCloseable {
+
+  private static final System.Logger LOG = System.getLogger(TicketServer.class.getName());
+
+  /**
+   * Prefix of the system properties configuring the server run from {@link #main}
+   * (port and backlog, the most connections waiting to be accepted, and kioskPort to also serve the kiosks)
+   */
+  public static final String PROPERTY_PREFIX = "cinema-tickets.server.";
+
+  /**
+   * The largest request body accepted
+   */
+  public static final int MAX_REQUEST_LENGTH = 512;
+
+  private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  private final TicketService service;
+  private final ExecutorService executor;
+  private final HttpServer server;
+
+  /**
+   * Constructor, the server isn't started until {@link #start} is called
+   *
+   * @param service the service to serve
+   * @param address the address to listen on (port 0 for any free port)
+   * @param backlog the most connections waiting to be accepted (0 for the system default)
+   * @throws IOException if the address can't be bound
+   */
+  public TicketServer(TicketService service, InetSocketAddress address, int backlog) throws IOException {
+    this.service = service;
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server = HttpServer.create(address, backlog);
+    this.server.setExecutor(executor);
+    this.server.createContext("/purchase", this::purchase);
+    this.server.createContext("/quote", this::quote);
+  }
+
+  /**
+   * Run a server for the service with the stub payment and reservation services, until the process is stopped
+   * (and a kiosk server too if a kiosk port is configured)
+   *
+   * @param args not used
+   * @throws IOException if the server can't be started
+   */
+  public static void main(String[] args) throws IOException {
+    TicketService service = new TicketServiceImpl(new TicketPaymentServiceImpl(), new SeatReservationServiceImpl());
+    TicketServer server = new TicketServer(service,
+        new InetSocketAddress(Integer.getInteger(PROPERTY_PREFIX + "port", 8080)),
+        Integer.getInteger(PROPERTY_PREFIX + "backlog", 1024));
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close, "ticket server shutdown"));
+    server.start();
+    LOG.log(System.Logger.Level.INFO, "Serving tickets on {0}", server.getAddress());
+
+    Integer kioskPort = Integer.getInteger(PROPERTY_PREFIX + "kioskPort");
+    if (kioskPort != null) {
+      KioskServer kiosks = new KioskServer(service, new InetSocketAddress(kioskPort),
+          Executors.newVirtualThreadPerTaskExecutor(), 1024);
+      Runtime.getRuntime().addShutdownHook(new Thread(kiosks::close, "kiosk server shutdown"));
+      kiosks.start();
+      LOG.log(System.Logger.Level.INFO, "Serving kiosks on {0}", kiosks.getAddress());
+    }
+  }
+
+  /**
+   * Start accepting connections
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * @return the address the server is listening on
+   */
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * Stop the server, dropping any exchanges in progress
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void purchase(HttpExchange exchange) throws IOException {
+    try {
+      BasketRequest request = read(exchange, new byte[MAX_REQUEST_LENGTH + 1]);
+      if (request == null) {
+        return;
+      }
+
+      String idempotencyKey = exchange.getRequestHeaders().getFirst(IDEMPOTENCY_KEY);
+      if (idempotencyKey == null) {
+        service.purchaseTickets(request.getAccountId(), request.getBasket());
+        respond(exchange, 200, JsonCodec.encode(PurchaseResult.SUCCESS));
+        return;
+      }
+
+      PurchaseResult result =
+          service.tryPurchase(idempotencyKey, request.getAccountId(), request.getBasket().toRequests());
+      respond(exchange, result.isSuccess() ? 200 : statusOf(result.getReason()), JsonCodec.encode(result));
+    } catch (InvalidPurchaseException e) {
+      respond(exchange, statusOf(e.getReason()), JsonCodec.encode(e.getReason()));
+    } catch (RuntimeException e) {
+      respond(exchange, 500, JsonCodec.error());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void quote(HttpExchange exchange) throws IOException {
+    try {
+      byte[] buffer = new byte[MAX_REQUEST_LENGTH + 1];
+      BasketRequest request = read(exchange, buffer);
+      if (request == null) {
+        return;
+      }
+
+      // (the request has been read, so its buffer can take the response)
+      PurchaseReceipt quote = service.quote(request.getAccountId(), request.getBasket());
+      respond(exchange, 200, buffer, JsonCodec.encodeQuote(quote, buffer));
+    } catch (InvalidPurchaseException e) {
+      respond(exchange, statusOf(e.getReason()), JsonCodec.encode(e.getReason()));
+    } catch (RuntimeException e) {
+      respond(exchange, 500, JsonCodec.error());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Read the basket posted, responding straight away if it can't be read
+   *
+   * @param exchange the exchange
+   * @param buffer   the buffer to read into, one byte bigger than the largest request accepted
+   * @return the basket, or null if a response has already been sent
+   */
+  private static BasketRequest read(HttpExchange exchange, byte[] buffer) throws IOException {
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().set("Allow", "POST");
+      exchange.sendResponseHeaders(405, -1);
+      return null;
+    }
+
+    int length;
+    try (InputStream body = exchange.getRequestBody()) {
+      length = body.readNBytes(buffer, 0, buffer.length);
+    }
+    if (length > MAX_REQUEST_LENGTH) {
+      exchange.sendResponseHeaders(413, -1);
+      return null;
+    }
+
+    try {
+      return JsonCodec.decodeBasket(buffer, length);
+    } catch (IllegalArgumentException e) {
+      respond(exchange, 400, JsonCodec.malformed());
+      return null;
+    }
+  }
+
+  /**
+   * @param reason the reason a purchase was rejected (may be null)
+   * @return the HTTP status for the rejection
+   */
+  static int statusOf(RejectionReason reason) {
+    if (reason == null) {
+      return 422;
+    }
+    switch (reason) {
+      case RATE_LIMITED:
+      case VELOCITY_LIMIT:
+        return 429;
+      case TIMED_OUT:
+        return 504;
+      default:
+        return reason.isRetryable() ? 503 : 422;
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    respond(exchange, status, body, body.length);
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body, int length) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body, 0, length);
+    }
+  }
+}
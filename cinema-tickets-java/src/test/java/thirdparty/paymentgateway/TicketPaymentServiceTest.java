@@ -0,0 +1,23 @@
+package thirdparty.paymentgateway;
+
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TicketPaymentServiceTest {
+
+  /**
+   * Test the default batch payment falls back to a payment per entry
+   */
+  @Test
+  void makePayments_byDefault_makesEachPayment() {
+    TicketPaymentService service = mock(TicketPaymentService.class, CALLS_REAL_METHODS);
+
+    service.makePayments(new long[]{1L, 2L}, new int[]{25, 40});
+
+    verify(service).makePayment(1L, 25);
+    verify(service).makePayment(2L, 40);
+  }
+}
@@ -0,0 +1,23 @@
+package thirdparty.seatbooking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SeatReservationServiceTest {
+
+  /**
+   * Test the default batch reservation falls back to a reservation per entry
+   */
+  @Test
+  void reserveSeats_byDefault_reservesEach() {
+    SeatReservationService service = mock(SeatReservationService.class, CALLS_REAL_METHODS);
+
+    service.reserveSeats(new long[]{1L, 2L}, new int[]{3, 1});
+
+    verify(service).reserveSeat(1L, 3);
+    verify(service).reserveSeat(2L, 1);
+  }
+}
@@ -2,18 +2,56 @@ package uk.gov.dwp.uc.pairtest;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOrder;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
 import uk.gov.dwp.uc.pairtest.domain.cost.TicketTypeCost;
+import uk.gov.dwp.uc.pairtest.domain.limit.AdmissionLimiter;
+import uk.gov.dwp.uc.pairtest.domain.seat.GroupSeatAllocator;
+import uk.gov.dwp.uc.pairtest.domain.seat.GroupSeatReservationService;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.MappedPurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseStep;
+import uk.gov.dwp.uc.pairtest.metrics.MetricsSnapshot;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.saga.Compensator;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -87,6 +125,43 @@ class TicketServiceImplTest {
   }
 
 
+  /**
+   * Check a basket is paid for and reserved in the same way as the requests it holds
+   */
+  @Test
+  void purchaseTickets_withBasket_callsPaymentAndReservation() {
+    assertDoesNotThrow(() -> ticketService.purchaseTickets(1L, TicketBasket.of(2, 1, 1)));
+
+    int expectedCost = 2 * TicketTypeCost.TICKET_COST.get(Type.ADULT)
+        + 1 * TicketTypeCost.TICKET_COST.get(Type.CHILD);
+
+    verify(paymentService).makePayment(1L, expectedCost);
+    verify(seatService).reserveSeat(1L, 3);
+
+    // And is validated the same way
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class,
+        () -> ticketService.purchaseTickets(1L, TicketBasket.of(0, 1, 0)));
+    assertEquals(RejectionReason.NO_ADULT, ex.getReason());
+  }
+
+
+  /**
+   * Check a quote prices the basket without buying anything
+   */
+  @Test
+  void quote_withValidBasket_pricesWithoutPurchasing() {
+    PurchaseReceipt quote = ticketService.quote(1L, TicketBasket.of(2, 1, 1));
+
+    assertEquals(2 * TicketTypeCost.TICKET_COST.get(Type.ADULT) + TicketTypeCost.TICKET_COST.get(Type.CHILD),
+        quote.getTotalAmountPaid());
+    assertEquals(3, quote.getSeatsReserved());
+    assertEquals(RejectionReason.NO_ADULT,
+        assertThrows(InvalidPurchaseException.class, () -> ticketService.quote(1L, TicketBasket.of(0, 1, 0)))
+            .getReason());
+    verifyNoInteractions(paymentService, seatService);
+  }
+
+
   /**
    * Check invalid ticket requests are rejected
    */
@@ -102,4 +177,553 @@ class TicketServiceImplTest {
 
     verifyNoInteractions(paymentService, seatService);
   }
+
+
+  /**
+   * Check a batch takes the payment and reserves the seats for each order
+   */
+  @Test
+  void purchaseTicketsBatch_withValidOrders_paysAndReservesEach() {
+    PurchaseOrder order1 = new PurchaseOrder(1L, new TicketTypeRequest(Type.ADULT, 2));
+    PurchaseOrder order2 = new PurchaseOrder(2L,
+        new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.CHILD, 1));
+
+    List<PurchaseOutcome> outcomes = ticketService.purchaseTicketsBatch(List.of(order1, order2));
+
+    int adult = TicketTypeCost.TICKET_COST.get(Type.ADULT);
+    int child = TicketTypeCost.TICKET_COST.get(Type.CHILD);
+
+    assertEquals(2, outcomes.size());
+    assertTrue(outcomes.get(0).isSuccess());
+    assertEquals(2 * adult, outcomes.get(0).getTotalAmountPaid());
+    assertEquals(2, outcomes.get(0).getSeatsReserved());
+    assertEquals(PriceTable.DEFAULT.getVersion(), outcomes.get(0).getPriceVersion());
+    assertTrue(outcomes.get(1).isSuccess());
+    assertEquals(adult + child, outcomes.get(1).getTotalAmountPaid());
+
+    verify(paymentService).makePayment(1L, 2 * adult);
+    verify(paymentService).makePayment(2L, adult + child);
+    verify(seatService).reserveSeat(1L, 2);
+    verify(seatService).reserveSeat(2L, 2);
+  }
+
+
+  /**
+   * Check the orders paid for before a payment fails part way through a batch are refunded, and nothing reserved
+   */
+  @Test
+  void purchaseTicketsBatch_withPaymentFailingPartWay_refundsOrdersPaid() {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+          .metrics(new PurchaseMetrics())
+          .admission(new AdmissionLimiter(0, 1, 0, 1))
+          .compensator(new Compensator(scheduler, 3, Duration.ofMillis(10)))
+          .build();
+      int adult = TicketTypeCost.TICKET_COST.get(Type.ADULT);
+      doThrow(new IllegalStateException("Payments down")).when(paymentService).makePayment(3L, adult);
+      List<PurchaseOrder> orders = List.of(new PurchaseOrder(1L, new TicketTypeRequest(Type.ADULT, 1)),
+          new PurchaseOrder(2L, new TicketTypeRequest(Type.ADULT, 1)),
+          new PurchaseOrder(3L, new TicketTypeRequest(Type.ADULT, 1)),
+          new PurchaseOrder(4L, new TicketTypeRequest(Type.ADULT, 1)));
+
+      assertThrows(IllegalStateException.class, () -> service.purchaseTicketsBatch(orders));
+
+      verify(paymentService, timeout(5000)).refund(1L, adult);
+      verify(paymentService, timeout(5000)).refund(2L, adult);
+      verify(paymentService, never()).refund(3L, adult);
+      verify(paymentService, never()).makePayment(4L, adult);
+      verifyNoInteractions(seatService);
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Check invalid orders fail individually without affecting the rest of the batch
+   */
+  @Test
+  void purchaseTicketsBatch_withInvalidOrders_failsThoseOrdersOnly() {
+    PurchaseOrder badAccount = new PurchaseOrder(0L, new TicketTypeRequest(Type.ADULT, 1));
+    PurchaseOrder good = new PurchaseOrder(3L, new TicketTypeRequest(Type.ADULT, 1));
+    PurchaseOrder noAdult = new PurchaseOrder(4L, new TicketTypeRequest(Type.CHILD, 1));
+
+    List<PurchaseOutcome> outcomes = ticketService.purchaseTicketsBatch(List.of(badAccount, good, noAdult));
+
+    assertFalse(outcomes.get(0).isSuccess());
+    assertEquals("Invalid account id (0)", outcomes.get(0).getFailure().getMessage());
+    assertTrue(outcomes.get(1).isSuccess());
+    assertFalse(outcomes.get(2).isSuccess());
+
+    int adult = TicketTypeCost.TICKET_COST.get(Type.ADULT);
+    verify(paymentService).makePayment(3L, adult);
+    verify(seatService).reserveSeat(3L, 1);
+  }
+
+
+  /**
+   * Check a batch with no valid orders never calls the services
+   */
+  @Test
+  void purchaseTicketsBatch_withNoValidOrders_callsNothing() {
+    PurchaseOrder order = new PurchaseOrder(-1L, new TicketTypeRequest(Type.ADULT, 1));
+
+    List<PurchaseOutcome> outcomes = ticketService.purchaseTicketsBatch(List.of(order));
+
+    assertFalse(outcomes.get(0).isSuccess());
+    verifyNoInteractions(paymentService, seatService);
+  }
+
+
+  /**
+   * Check the asynchronous path pays, reserves and completes with a receipt
+   */
+  @Test
+  void purchaseTicketsAsync_withValidRequests_completesWithReceipt() throws Exception {
+    TicketTypeRequest req1 = new TicketTypeRequest(Type.ADULT, 2);
+    TicketTypeRequest req2 = new TicketTypeRequest(Type.INFANT, 1);
+
+    PurchaseReceipt receipt = ticketService.purchaseTicketsAsync(1L, req1, req2).get();
+
+    int expectedCost = 2 * TicketTypeCost.TICKET_COST.get(Type.ADULT);
+    assertEquals(1L, receipt.getAccountId());
+    assertEquals(expectedCost, receipt.getTotalAmountPaid());
+    assertEquals(2, receipt.getSeatsReserved());
+    assertEquals(PriceTable.DEFAULT.getVersion(), receipt.getPriceVersion());
+
+    verify(paymentService).makePayment(1L, expectedCost);
+    verify(seatService).reserveSeat(1L, 2);
+  }
+
+
+  /**
+   * Check the asynchronous path rejects invalid requests on the calling thread
+   */
+  @Test
+  void purchaseTicketsAsync_withInvalidRequests_throwsImmediately() {
+    TicketTypeRequest req = new TicketTypeRequest(Type.CHILD, 1);
+
+    assertThrows(
+        InvalidPurchaseException.class,
+        () -> ticketService.purchaseTicketsAsync(1L, req)
+    );
+
+    verifyNoInteractions(paymentService, seatService);
+  }
+
+
+  /**
+   * Check a slow payment times out and the seats are not reserved
+   */
+  @Test
+  void purchaseTicketsAsync_withSlowPayment_timesOut() {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+          .executor(executor)
+          .paymentTimeout(Duration.ofMillis(50))
+          .reservationTimeout(Duration.ofSeconds(1))
+          .build();
+
+      doAnswer(invocation -> {
+        Thread.sleep(1000);
+        return null;
+      }).when(paymentService).makePayment(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+
+      CompletableFuture<PurchaseReceipt> future =
+          service.purchaseTicketsAsync(1L, new TicketTypeRequest(Type.ADULT, 1));
+
+      ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(TimeoutException.class, ex.getCause());
+
+      verify(seatService, never()).reserveSeat(1L, 1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Check the non-throwing path pays and reserves for a valid request
+   */
+  @Test
+  void tryPurchase_withValidRequests_succeeds() {
+    TicketTypeRequest req = new TicketTypeRequest(Type.ADULT, 2);
+
+    PurchaseResult result = ticketService.tryPurchase(1L, req);
+
+    assertSame(PurchaseResult.SUCCESS, result);
+    verify(paymentService).makePayment(1L, 2 * TicketTypeCost.TICKET_COST.get(Type.ADULT));
+    verify(seatService).reserveSeat(1L, 2);
+  }
+
+
+  /**
+   * Check the non-throwing path reports an invalid account
+   */
+  @Test
+  void tryPurchase_withInvalidAccount_returnsReason() {
+    PurchaseResult result = ticketService.tryPurchase(0L, new TicketTypeRequest(Type.ADULT, 1));
+
+    assertFalse(result.isSuccess());
+    assertEquals(RejectionReason.INVALID_ACCOUNT, result.getReason());
+    verifyNoInteractions(paymentService, seatService);
+  }
+
+
+  /**
+   * Check the non-throwing path reports invalid requests with a shared result
+   */
+  @Test
+  void tryPurchase_withInvalidRequests_returnsSharedResult() {
+    PurchaseResult result = ticketService.tryPurchase(1L, new TicketTypeRequest(Type.INFANT, 1));
+
+    assertSame(PurchaseResult.rejected(RejectionReason.NO_ADULT), result);
+    verifyNoInteractions(paymentService, seatService);
+  }
+
+
+  /**
+   * Check rejections from the services that carry a reason are returned, not thrown,
+   * while unexpected failures still propagate
+   */
+  @Test
+  void tryPurchase_whenServiceRejects_returnsReason() {
+    doThrow(new InvalidPurchaseException(RejectionReason.OVERLOADED, "Payment service"))
+        .when(paymentService).makePayment(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+    doThrow(new InvalidPurchaseException(RejectionReason.NOT_ENOUGH_SEATS, 1, 0))
+        .when(seatService).reserveSeat(2L, 1);
+    doThrow(new IllegalStateException("Broken"))
+        .when(paymentService).makePayment(3L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+
+    assertSame(PurchaseResult.rejected(RejectionReason.OVERLOADED),
+        ticketService.tryPurchase(1L, new TicketTypeRequest(Type.ADULT, 1)));
+    assertSame(PurchaseResult.rejected(RejectionReason.NOT_ENOUGH_SEATS),
+        ticketService.tryPurchase(2L, new TicketTypeRequest(Type.ADULT, 1)));
+    assertThrows(IllegalStateException.class, () -> ticketService.tryPurchase(3L, new TicketTypeRequest(Type.ADULT, 1)));
+  }
+
+
+  /**
+   * Check a group wider than any row is returned as a rejection when seated together
+   */
+  @Test
+  void tryPurchase_withGroupWiderThanRow_returnsNoAdjacentSeats() {
+    TicketServiceImpl service = new TicketServiceImpl(paymentService,
+        new GroupSeatReservationService(new GroupSeatAllocator(2, 4)));
+
+    assertSame(PurchaseResult.rejected(RejectionReason.NO_ADJACENT_SEATS),
+        service.tryPurchase(1L, new TicketTypeRequest(Type.ADULT, 5)));
+  }
+
+
+  /**
+   * Check rejections from the throwing path carry their reason
+   */
+  @Test
+  void purchaseTickets_withInvalidRequests_exceptionCarriesReason() {
+    InvalidPurchaseException ex = assertThrows(
+        InvalidPurchaseException.class,
+        () -> ticketService.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 26))
+    );
+
+    assertEquals(RejectionReason.TOO_MANY_TICKETS, ex.getReason());
+  }
+
+
+  /**
+   * Check stage latencies and outcomes are recorded
+   */
+  @Test
+  void purchaseTickets_recordsMetrics() {
+    PurchaseMetrics metrics = new PurchaseMetrics();
+    TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+        .executor(Runnable::run)
+        .paymentTimeout(Duration.ofSeconds(1))
+        .reservationTimeout(Duration.ofSeconds(1))
+        .metrics(metrics)
+        .build();
+
+    service.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1));
+    service.tryPurchase(1L, new TicketTypeRequest(Type.CHILD, 1));
+    assertThrows(InvalidPurchaseException.class, () -> service.purchaseTickets(0L, new TicketTypeRequest(Type.ADULT, 1)));
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertEquals(1, snapshot.getSuccessCount());
+    assertEquals(1, snapshot.getRejectionCount(RejectionReason.NO_ADULT));
+    assertEquals(1, snapshot.getRejectionCount(RejectionReason.INVALID_ACCOUNT));
+    assertEquals(1, snapshot.getStage(PurchaseStage.PAYMENT).getCount());
+    assertEquals(1, snapshot.getStage(PurchaseStage.RESERVATION).getCount());
+    assertEquals(2, snapshot.getStage(PurchaseStage.REQUEST_VALIDATION).getCount());
+  }
+
+
+  /**
+   * Check purchases over the admission limits are turned away before anything else
+   */
+  @Test
+  void purchaseTickets_overAdmissionLimit_rejectedBeforeValidation() {
+    PurchaseMetrics metrics = new PurchaseMetrics();
+    AdmissionLimiter admission = new AdmissionLimiter(0, 1, 1, 1);
+    TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+        .executor(Runnable::run)
+        .paymentTimeout(Duration.ofSeconds(1))
+        .reservationTimeout(Duration.ofSeconds(1))
+        .metrics(metrics)
+        .admission(admission)
+        .build();
+
+    service.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1));
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class,
+        () -> service.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1)));
+    assertEquals(RejectionReason.RATE_LIMITED, ex.getReason());
+    assertSame(PurchaseResult.rejected(RejectionReason.RATE_LIMITED),
+        service.tryPurchase(1L, new TicketTypeRequest(Type.ADULT, 1)));
+
+    // Other accounts are still admitted
+    assertTrue(service.tryPurchase(2L, new TicketTypeRequest(Type.ADULT, 1)).isSuccess());
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertEquals(2, snapshot.getRejectionCount(RejectionReason.RATE_LIMITED));
+    assertEquals(2, snapshot.getStage(PurchaseStage.ACCOUNT_VALIDATION).getCount());
+    assertEquals(2, admission.getRejectedCount());
+  }
+
+
+  /**
+   * Check a failed reservation fails the purchase straight away and the payment is refunded in the background
+   */
+  @Test
+  void purchaseTickets_withFailedReservation_refundsPayment() {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+          .executor(Runnable::run)
+          .paymentTimeout(Duration.ofSeconds(1))
+          .reservationTimeout(Duration.ofSeconds(1))
+          .metrics(new PurchaseMetrics())
+          .admission(new AdmissionLimiter(0, 1, 0, 1))
+          .compensator(new Compensator(scheduler, 3, Duration.ofMillis(10)))
+          .build();
+      doThrow(new IllegalStateException("Booking down")).when(seatService).reserveSeat(1L, 2);
+
+      assertThrows(IllegalStateException.class,
+          () -> service.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 2)));
+      assertThrows(IllegalStateException.class,
+          () -> service.tryPurchase(1L, new TicketTypeRequest(Type.ADULT, 2)));
+
+      verify(paymentService, timeout(5000).times(2)).refund(1L, 2 * TicketTypeCost.TICKET_COST.get(Type.ADULT));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Check a reservation that completes after timing out is released, and the payment refunded
+   */
+  @Test
+  void purchaseTicketsAsync_withSlowReservation_releasesAndRefunds() {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+          .executor(executor)
+          .paymentTimeout(Duration.ofSeconds(1))
+          .reservationTimeout(Duration.ofMillis(50))
+          .metrics(new PurchaseMetrics())
+          .admission(new AdmissionLimiter(0, 1, 0, 1))
+          .compensator(new Compensator(scheduler, 3, Duration.ofMillis(10)))
+          .build();
+      doAnswer(invocation -> {
+        Thread.sleep(200);
+        return null;
+      }).when(seatService).reserveSeat(1L, 1);
+
+      CompletableFuture<PurchaseReceipt> future =
+          service.purchaseTicketsAsync(1L, new TicketTypeRequest(Type.ADULT, 1));
+
+      ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(TimeoutException.class, ex.getCause());
+      verify(paymentService, timeout(5000)).refund(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+      verify(seatService, timeout(5000)).releaseSeat(1L, 1);
+    } finally {
+      scheduler.shutdownNow();
+      executor.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Check each purchase's steps are journalled, leaving only the failed-over ones unfinished
+   */
+  @Test
+  void purchaseTickets_withJournal_recordsSteps(@TempDir Path dir) throws Exception {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(dir.resolve("purchases.journal"), 100)) {
+      TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+          .executor(Runnable::run)
+          .paymentTimeout(Duration.ofSeconds(1))
+          .reservationTimeout(Duration.ofSeconds(1))
+          .metrics(new PurchaseMetrics())
+          .admission(new AdmissionLimiter(0, 1, 0, 1))
+          .compensator(new Compensator(scheduler, 1, Duration.ofMillis(10)))
+          .journal(journal)
+          .build();
+      doThrow(new IllegalStateException("Booking down")).when(seatService).reserveSeat(2L, 1);
+
+      // Hold up the compensations until the journal's been checked
+      CountDownLatch hold = new CountDownLatch(1);
+      scheduler.execute(() -> {
+        try {
+          hold.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+
+      service.purchaseTickets(1L, new TicketTypeRequest(Type.ADULT, 1));
+      assertThrows(IllegalStateException.class,
+          () -> service.purchaseTickets(2L, new TicketTypeRequest(Type.ADULT, 1)));
+
+      // One completed, and one compensating until its refund goes through
+      assertEquals(PurchaseStep.COMPENSATING, journal.replay().get(0).getStep());
+      hold.countDown();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!journal.replay().isEmpty()) {
+        assertTrue(System.nanoTime() < deadline, "Refund not recorded");
+        Thread.sleep(1);
+      }
+      verify(paymentService).refund(2L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+      assertEquals(7, journal.getRecordCount());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Check a batch is journalled, its orders compensating until undone if a reservation fails
+   */
+  @Test
+  void purchaseTicketsBatch_withJournal_recordsSteps(@TempDir Path dir) throws Exception {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(dir.resolve("purchases.journal"), 100)) {
+      TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+          .executor(Runnable::run)
+          .paymentTimeout(Duration.ofSeconds(1))
+          .reservationTimeout(Duration.ofSeconds(1))
+          .metrics(new PurchaseMetrics())
+          .admission(new AdmissionLimiter(0, 1, 0, 1))
+          .compensator(new Compensator(scheduler, 1, Duration.ofMillis(10)))
+          .journal(journal)
+          .build();
+      List<PurchaseOrder> orders = List.of(new PurchaseOrder(1L, new TicketTypeRequest(Type.ADULT, 1)),
+          new PurchaseOrder(2L, new TicketTypeRequest(Type.ADULT, 1)));
+
+      service.purchaseTicketsBatch(orders);
+      assertTrue(journal.replay().isEmpty());
+      assertEquals(6, journal.getRecordCount());
+
+      doThrow(new IllegalStateException("Booking down")).when(seatService).reserveSeat(2L, 1);
+      assertThrows(IllegalStateException.class, () -> service.purchaseTicketsBatch(orders));
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!journal.replay().isEmpty()) {
+        assertTrue(System.nanoTime() < deadline, "Refunds not recorded");
+        Thread.sleep(1);
+      }
+      verify(paymentService).refund(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+      verify(paymentService).refund(2L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+      verify(seatService).releaseSeat(1L, 1);
+      verify(seatService, never()).releaseSeat(2L, 1);
+      assertEquals(6 + 8, journal.getRecordCount());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Check a repeated purchase with the same idempotency key pays and reserves once, for each account
+   */
+  @Test
+  void purchaseTickets_withRepeatedKey_purchasesOnce() {
+    TicketTypeRequest req = new TicketTypeRequest(Type.ADULT, 1);
+
+    ticketService.purchaseTickets("key-1", 1L, req);
+    ticketService.purchaseTickets("key-1", 1L, req);
+    assertSame(PurchaseResult.SUCCESS, ticketService.tryPurchase("key-1", 1L, req));
+    ticketService.purchaseTickets("key-2", 1L, req);
+    ticketService.purchaseTickets("key-1", 2L, req);
+
+    verify(paymentService, times(2)).makePayment(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+    verify(seatService, times(2)).reserveSeat(1L, 1);
+    verify(paymentService).makePayment(2L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+  }
+
+
+  /**
+   * Check a key reused for a different basket is rejected rather than answered with the first outcome
+   */
+  @Test
+  void purchaseTickets_withKeyReusedForOtherBasket_rejects() {
+    ticketService.purchaseTickets("key-1", 1L, new TicketTypeRequest(Type.ADULT, 1));
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class,
+        () -> ticketService.purchaseTickets("key-1", 1L, new TicketTypeRequest(Type.ADULT, 2)));
+    assertEquals(RejectionReason.KEY_REUSED, ex.getReason());
+    assertEquals(RejectionReason.KEY_REUSED,
+        ticketService.tryPurchase("key-1", 1L, new TicketTypeRequest(Type.ADULT, 2)).getReason());
+
+    verify(paymentService).makePayment(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT));
+  }
+
+
+  /**
+   * Check a retry with the same basket, with the requests in a different order, gets the first outcome
+   */
+  @Test
+  void purchaseTickets_withKeyRetriedWithRequestsReordered_purchasesOnce() {
+    TicketTypeRequest adult = new TicketTypeRequest(Type.ADULT, 1);
+    TicketTypeRequest child = new TicketTypeRequest(Type.CHILD, 1);
+
+    ticketService.purchaseTickets("key-1", 1L, adult, child);
+    ticketService.purchaseTickets("key-1", 1L, child, adult);
+    assertSame(PurchaseResult.SUCCESS, ticketService.tryPurchase("key-1", 1L, child, adult));
+
+    verify(paymentService).makePayment(1L, TicketTypeCost.TICKET_COST.get(Type.ADULT)
+        + TicketTypeCost.TICKET_COST.get(Type.CHILD));
+    verify(seatService).reserveSeat(1L, 2);
+  }
+
+
+  /**
+   * Check a rejection is remembered for its key, but one worth retrying is not
+   */
+  @Test
+  void tryPurchase_withRepeatedKey_remembersFinalRejections() {
+    AdmissionLimiter admission = new AdmissionLimiter(0, 1, 1, 1);
+    TicketServiceImpl service = TicketServiceImpl.builder(paymentService, seatService)
+        .executor(Runnable::run)
+        .paymentTimeout(Duration.ofSeconds(1))
+        .reservationTimeout(Duration.ofSeconds(1))
+        .metrics(new PurchaseMetrics())
+        .admission(admission)
+        .build();
+
+    // Rejected, and still rejected when repeated
+    assertEquals(RejectionReason.NO_ADULT,
+        service.tryPurchase("key-1", 1L, new TicketTypeRequest(Type.CHILD, 1)).getReason());
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class,
+        () -> service.purchaseTickets("key-1", 1L, new TicketTypeRequest(Type.CHILD, 1)));
+    assertEquals(RejectionReason.NO_ADULT, ex.getReason());
+
+    // Rate limited, then let through once the limit allows
+    assertEquals(RejectionReason.RATE_LIMITED,
+        service.tryPurchase("key-2", 1L, new TicketTypeRequest(Type.ADULT, 1)).getReason());
+    admission.setAccountRate(0);
+    assertSame(PurchaseResult.SUCCESS, service.tryPurchase("key-2", 1L, new TicketTypeRequest(Type.ADULT, 1)));
+  }
 }
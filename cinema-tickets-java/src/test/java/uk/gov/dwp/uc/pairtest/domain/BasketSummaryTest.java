@@ -0,0 +1,71 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BasketSummaryTest {
+
+  /**
+   * Test a summary of null requests is empty
+   */
+  @Test
+  void of_withNullRequests_isEmpty() {
+    BasketSummary basket = BasketSummary.of((TicketTypeRequest[]) null);
+
+    assertEquals(0, basket.getRequestCount());
+    assertEquals(0, basket.getTotal());
+    assertFalse(basket.hasEmptyRequest());
+  }
+
+
+  /**
+   * Test a summary of no requests is empty
+   */
+  @Test
+  void of_withNoRequests_isEmpty() {
+    BasketSummary basket = BasketSummary.of();
+
+    assertEquals(0, basket.getRequestCount());
+    assertEquals(0, basket.getTotal());
+    assertEquals(0, basket.getCount(Type.ADULT));
+  }
+
+
+  /**
+   * Test counts are summed per type over multiple requests
+   */
+  @Test
+  void of_withMixedRequests_sumsPerType() {
+    BasketSummary basket = BasketSummary.of(
+        new TicketTypeRequest(Type.ADULT, 2),
+        new TicketTypeRequest(Type.CHILD, 3),
+        new TicketTypeRequest(Type.ADULT, 1),
+        new TicketTypeRequest(Type.INFANT, 2)
+    );
+
+    assertEquals(3, basket.getCount(Type.ADULT));
+    assertEquals(3, basket.getCount(Type.CHILD));
+    assertEquals(2, basket.getCount(Type.INFANT));
+    assertEquals(8, basket.getTotal());
+    assertEquals(4, basket.getRequestCount());
+    assertFalse(basket.hasEmptyRequest());
+  }
+
+
+  /**
+   * Test a request for zero tickets is flagged
+   */
+  @Test
+  void of_withZeroTicketRequest_flagsEmptyRequest() {
+    BasketSummary basket = BasketSummary.of(
+        new TicketTypeRequest(Type.ADULT, 2),
+        new TicketTypeRequest(Type.CHILD, 0)
+    );
+
+    assertTrue(basket.hasEmptyRequest());
+  }
+}
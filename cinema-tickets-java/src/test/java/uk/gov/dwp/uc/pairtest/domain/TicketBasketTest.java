@@ -0,0 +1,139 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TicketBasketTest {
+
+  /**
+   * Test the counts are packed and unpacked per type
+   */
+  @Test
+  void of_withCounts_packsEachType() {
+    TicketBasket basket = TicketBasket.of(3, 2, 1);
+
+    assertEquals(3, basket.getCount(Type.ADULT));
+    assertEquals(2, basket.getCount(Type.CHILD));
+    assertEquals(1, basket.getCount(Type.INFANT));
+    assertEquals(6, basket.getTotal());
+    assertEquals(TicketBasket.pack(3, 2, 1), basket.getPacked());
+    assertEquals(basket, TicketBasket.fromPacked(basket.getPacked()));
+  }
+
+
+  /**
+   * Test baskets within the ticket limit are shared, and bigger ones are not
+   */
+  @Test
+  void of_withSmallCounts_isShared() {
+    assertSame(TicketBasket.of(25, 25, 25), TicketBasket.of(25, 25, 25));
+    assertNotSame(TicketBasket.of(26, 0, 0), TicketBasket.of(26, 0, 0));
+    assertEquals(TicketBasket.of(26, 0, 0), TicketBasket.of(26, 0, 0));
+  }
+
+
+  /**
+   * Test counts too big to pack are held at the maximum
+   */
+  @Test
+  void of_withHugeCount_saturates() {
+    TicketBasket basket = TicketBasket.of(Integer.MAX_VALUE, 0, 1);
+
+    assertEquals(TicketBasket.MAX_COUNT, basket.getCount(Type.ADULT));
+    assertEquals(0, basket.getCount(Type.CHILD));
+    assertEquals(1, basket.getCount(Type.INFANT));
+  }
+
+
+  /**
+   * Test negative counts are refused
+   */
+  @Test
+  void of_withNegativeCount_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> TicketBasket.of(1, -1, 0));
+  }
+
+
+  /**
+   * Test requests for the same type are added together
+   */
+  @Test
+  void of_withDuplicateRequests_addsThemTogether() {
+    TicketBasket basket = TicketBasket.of(
+        new TicketTypeRequest(Type.ADULT, 2),
+        new TicketTypeRequest(Type.CHILD, 1),
+        new TicketTypeRequest(Type.ADULT, 3)
+    );
+
+    assertSame(TicketBasket.of(5, 1, 0), basket);
+  }
+
+
+  /**
+   * Test requests adding up past the packed maximum saturate rather than overflow
+   */
+  @Test
+  void of_withRequestsOverflowing_saturates() {
+    TicketBasket basket = TicketBasket.of(
+        new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE),
+        new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE)
+    );
+
+    assertEquals(TicketBasket.MAX_COUNT, basket.getCount(Type.ADULT));
+  }
+
+
+  /**
+   * Test no requests, or an empty request, are rejected
+   */
+  @Test
+  void of_withInvalidRequests_throwsException() {
+    assertEquals(RejectionReason.NO_REQUESTS,
+        assertThrows(InvalidPurchaseException.class, () -> TicketBasket.of()).getReason());
+    assertEquals(RejectionReason.NO_REQUESTS,
+        assertThrows(InvalidPurchaseException.class, () -> TicketBasket.of((TicketTypeRequest[]) null)).getReason());
+    assertEquals(RejectionReason.EMPTY_REQUEST, assertThrows(InvalidPurchaseException.class,
+        () -> TicketBasket.of(new TicketTypeRequest(Type.ADULT, 0))).getReason());
+  }
+
+
+  /**
+   * Test a basket turns back into one request for each type in it
+   */
+  @Test
+  void toRequests_hasOneRequestPerType() {
+    TicketTypeRequest[] requests = TicketBasket.of(2, 0, 1).toRequests();
+
+    assertEquals(2, requests.length);
+    assertEquals(Type.ADULT, requests[0].getTicketType());
+    assertEquals(2, requests[0].getNoOfTickets());
+    assertEquals(Type.INFANT, requests[1].getTicketType());
+    assertEquals(1, requests[1].getNoOfTickets());
+    assertSame(TicketBasket.of(2, 0, 1), TicketBasket.of(requests));
+  }
+
+
+  /**
+   * Test the summary matches the basket and is only built once
+   */
+  @Test
+  void getSummary_matchesBasket() {
+    TicketBasket basket = TicketBasket.of(2, 0, 1);
+    BasketSummary summary = basket.getSummary();
+
+    assertEquals(2, summary.getCount(Type.ADULT));
+    assertEquals(0, summary.getCount(Type.CHILD));
+    assertEquals(1, summary.getCount(Type.INFANT));
+    assertEquals(3, summary.getTotal());
+    assertEquals(2, summary.getRequestCount());
+    assertFalse(summary.hasEmptyRequest());
+    assertSame(summary, basket.getSummary());
+  }
+}
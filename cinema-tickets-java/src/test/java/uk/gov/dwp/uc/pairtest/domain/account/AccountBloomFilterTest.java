@@ -0,0 +1,82 @@
+package uk.gov.dwp.uc.pairtest.domain.account;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountBloomFilterTest {
+
+  /**
+   * Test added accounts are always found
+   */
+  @Test
+  void mightContain_withAddedAccounts_returnsTrue() {
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(10_000, 0.01);
+    for (long id = 1; id <= 10_000; id++) {
+      filter.add(id * 7919);
+    }
+
+    for (long id = 1; id <= 10_000; id++) {
+      assertTrue(filter.mightContain(id * 7919), "Account " + id * 7919);
+    }
+  }
+
+
+  /**
+   * Test the false positive rate is roughly as configured
+   */
+  @Test
+  void mightContain_withUnknownAccounts_mostlyReturnsFalse() {
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(10_000, 0.01);
+    for (long id = 1; id <= 10_000; id++) {
+      filter.add(id);
+    }
+
+    int falsePositives = 0;
+    for (long id = 1_000_001; id <= 1_100_000; id++) {
+      if (filter.mightContain(id)) {
+        falsePositives++;
+      }
+    }
+
+    // 1% of 100,000, with plenty of room
+    assertTrue(falsePositives < 2_000, "False positives " + falsePositives);
+  }
+
+
+  /**
+   * Test an empty filter contains nothing
+   */
+  @Test
+  void mightContain_withEmptyFilter_returnsFalse() {
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(100, 0.01);
+
+    assertFalse(filter.mightContain(1));
+  }
+
+
+  /**
+   * Test the filter is sized by the standard formulae
+   */
+  @Test
+  void forAccounts_withRate_sizesFilter() {
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(1_000_000, 0.01);
+
+    // ~9.6 bits and 7 hashes per account
+    assertEquals(9_585_059, filter.getBits());
+    assertEquals(7, filter.getHashes());
+  }
+
+
+  /**
+   * Test invalid rates are rejected
+   */
+  @Test
+  void forAccounts_withInvalidRate_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> AccountBloomFilter.forAccounts(100, 0));
+    assertThrows(IllegalArgumentException.class, () -> AccountBloomFilter.forAccounts(100, 1));
+  }
+}
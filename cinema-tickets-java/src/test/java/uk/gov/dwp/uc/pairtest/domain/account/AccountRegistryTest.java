@@ -0,0 +1,224 @@
+package uk.gov.dwp.uc.pairtest.domain.account;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry.Status;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountRegistryTest {
+
+  @TempDir
+  Path dir;
+
+  /**
+   * Test accounts can be added, updated and removed
+   */
+  @Test
+  void put_withAccounts_areFound() throws IOException {
+    try (AccountRegistry registry = AccountRegistry.create(dir.resolve("accounts"), 100)) {
+      registry.put(1, Status.ACTIVE);
+      registry.put(2, Status.BLOCKED);
+
+      assertEquals(Status.ACTIVE, registry.getStatus(1));
+      assertEquals(Status.BLOCKED, registry.getStatus(2));
+      assertNull(registry.getStatus(3));
+      assertNull(registry.getStatus(0));
+      assertEquals(2, registry.size());
+
+      // Change status
+      registry.put(1, Status.BLOCKED);
+      assertEquals(Status.BLOCKED, registry.getStatus(1));
+      assertEquals(2, registry.size());
+
+      // Remove
+      assertTrue(registry.remove(2));
+      assertFalse(registry.remove(2));
+      assertNull(registry.getStatus(2));
+      assertEquals(1, registry.size());
+    }
+  }
+
+
+  /**
+   * Test many accounts, so there are plenty of collisions, removals and reuse of removed slots
+   */
+  @Test
+  void put_withManyAccounts_allFound() throws IOException {
+    int accounts = 10_000;
+    try (AccountRegistry registry = AccountRegistry.create(dir.resolve("accounts"), accounts)) {
+      for (long id = 1; id <= accounts; id++) {
+        registry.put(id, id % 10 == 0 ? Status.BLOCKED : Status.ACTIVE);
+      }
+
+      // Remove the odd ones, and add them back blocked
+      for (long id = 1; id <= accounts; id += 2) {
+        assertTrue(registry.remove(id));
+      }
+      for (long id = 1; id <= accounts; id += 2) {
+        assertNull(registry.getStatus(id));
+        registry.put(id, Status.BLOCKED);
+      }
+
+      assertEquals(accounts, registry.size());
+      for (long id = 1; id <= accounts; id++) {
+        Status expected = id % 2 == 1 || id % 10 == 0 ? Status.BLOCKED : Status.ACTIVE;
+        assertEquals(expected, registry.getStatus(id), "Account " + id);
+      }
+      assertNull(registry.getStatus(accounts + 1));
+    }
+  }
+
+
+  /**
+   * Test the file is the snapshot, reopening it gives the same accounts
+   */
+  @Test
+  void open_withExistingFile_hasAccounts() throws IOException {
+    Path file = dir.resolve("accounts");
+    try (AccountRegistry registry = AccountRegistry.create(file, 100)) {
+      registry.put(7, Status.ACTIVE);
+      registry.put(8, Status.BLOCKED);
+      registry.put(9, Status.ACTIVE);
+      registry.remove(9);
+    }
+
+    try (AccountRegistry registry = AccountRegistry.open(file)) {
+      assertEquals(2, registry.size());
+      assertEquals(Status.ACTIVE, registry.getStatus(7));
+      assertEquals(Status.BLOCKED, registry.getStatus(8));
+      assertNull(registry.getStatus(9));
+    }
+  }
+
+
+  /**
+   * Test the counts are taken from the slots, not a header that may not have been written
+   */
+  @Test
+  void open_withStaleHeader_recountsAccounts() throws IOException {
+    Path file = dir.resolve("accounts");
+    try (AccountRegistry registry = AccountRegistry.create(file, 100)) {
+      registry.put(7, Status.ACTIVE);
+      registry.put(8, Status.BLOCKED);
+      registry.put(9, Status.ACTIVE);
+      registry.remove(9);
+    }
+
+    // Zero the size and used counts
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(16), 16);
+    }
+
+    try (AccountRegistry registry = AccountRegistry.open(file)) {
+      assertEquals(2, registry.size());
+      assertTrue(registry.remove(7));
+      assertEquals(1, registry.size());
+    }
+  }
+
+
+  /**
+   * Test adding and removing far more accounts than there are slots, which only works if removed slots are reclaimed
+   */
+  @Test
+  void put_withChurn_reclaimsRemovedSlots() throws IOException {
+    try (AccountRegistry registry = AccountRegistry.create(dir.resolve("accounts"), 100)) {
+      int limit = registry.getCapacity() * AccountRegistry.MAX_LOAD_PERCENT / 100;
+      for (long id = 1; id < limit; id++) {
+        registry.put(id, Status.ACTIVE);
+      }
+
+      // Keep one slot's worth of room, cycling new accounts through it
+      for (long id = limit; id < limit + 10 * registry.getCapacity(); id++) {
+        registry.put(id, Status.BLOCKED);
+        assertTrue(registry.remove(id));
+      }
+
+      assertEquals(limit - 1, registry.size());
+      for (long id = 1; id < limit; id++) {
+        assertEquals(Status.ACTIVE, registry.getStatus(id), "Account " + id);
+      }
+      assertNull(registry.getStatus(limit));
+    }
+  }
+
+
+  /**
+   * Test compacting keeps every account findable
+   */
+  @Test
+  void compact_withRemovedAccounts_keepsTheRest() throws IOException {
+    int accounts = 1_000;
+    try (AccountRegistry registry = AccountRegistry.create(dir.resolve("accounts"), accounts)) {
+      for (long id = 1; id <= accounts; id++) {
+        registry.put(id * 7919, Status.ACTIVE);
+      }
+      for (long id = 1; id <= accounts; id += 3) {
+        registry.remove(id * 7919);
+      }
+
+      registry.compact();
+
+      for (long id = 1; id <= accounts; id++) {
+        assertEquals(id % 3 == 1 ? null : Status.ACTIVE, registry.getStatus(id * 7919), "Account " + id);
+      }
+      assertEquals(accounts - 334, registry.size());
+    }
+  }
+
+
+  /**
+   * Test a file that isn't a registry is rejected
+   */
+  @Test
+  void open_withOtherFile_throwsException() throws IOException {
+    Path file = dir.resolve("other");
+    Files.write(file, new byte[128]);
+
+    assertThrows(IOException.class, () -> AccountRegistry.open(file));
+  }
+
+
+  /**
+   * Test the registry refuses accounts beyond its capacity
+   */
+  @Test
+  void put_whenFull_throwsException() throws IOException {
+    try (AccountRegistry registry = AccountRegistry.create(dir.resolve("accounts"), 10)) {
+      int limit = registry.getCapacity() * AccountRegistry.MAX_LOAD_PERCENT / 100;
+      for (long id = 1; id <= limit; id++) {
+        registry.put(id, Status.ACTIVE);
+      }
+
+      assertThrows(IllegalStateException.class, () -> registry.put(limit + 1, Status.ACTIVE));
+
+      // Updating an existing account is fine
+      registry.put(1, Status.BLOCKED);
+      assertEquals(Status.BLOCKED, registry.getStatus(1));
+    }
+  }
+
+
+  /**
+   * Test account ids must be positive
+   */
+  @Test
+  void put_withInvalidAccountId_throwsException() throws IOException {
+    try (AccountRegistry registry = AccountRegistry.create(dir.resolve("accounts"), 10)) {
+      assertThrows(IllegalArgumentException.class, () -> registry.put(0, Status.ACTIVE));
+      assertThrows(IllegalArgumentException.class, () -> registry.put(-1, Status.ACTIVE));
+    }
+  }
+}
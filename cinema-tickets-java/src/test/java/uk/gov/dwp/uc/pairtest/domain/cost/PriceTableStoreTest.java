@@ -0,0 +1,164 @@
+package uk.gov.dwp.uc.pairtest.domain.cost;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceTableStoreTest {
+
+  @TempDir
+  Path dir;
+
+  /**
+   * Test publishing new prices bumps the version
+   */
+  @Test
+  void publish_withPrices_isNextVersion() {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+
+    PriceTable published = store.publish(Map.of(Type.ADULT, 30, Type.CHILD, 20, Type.INFANT, 0));
+
+    assertSame(published, store.get());
+    assertEquals(PriceTable.DEFAULT.getVersion() + 1, published.getVersion());
+    assertEquals(30, store.get().getPrice(Type.ADULT));
+  }
+
+
+  /**
+   * Test the file is only loaded again once it's modified
+   */
+  @Test
+  void reload_withFile_loadsOnlyWhenModified() throws Exception {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    Path file = write("ADULT=30\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:00:00Z"));
+
+    assertTrue(store.reload(file));
+    assertEquals(2, store.get().getVersion());
+    assertEquals(30, store.get().getPrice(Type.ADULT));
+
+    // Unchanged
+    assertFalse(store.reload(file));
+    assertEquals(2, store.get().getVersion());
+
+    // Modified
+    write("ADULT=35\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:01:00Z"));
+    assertTrue(store.reload(file));
+    assertEquals(3, store.get().getVersion());
+    assertEquals(35, store.get().getPrice(Type.ADULT));
+  }
+
+
+  /**
+   * Test a version given in the file is the version published
+   */
+  @Test
+  void reload_withVersionInFile_usesIt() throws Exception {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    Path file = write("VERSION=42\nADULT=30\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:00:00Z"));
+
+    assertTrue(store.reload(file));
+    assertEquals(42, store.get().getVersion());
+
+    // Touched but the same, so the same version is fine
+    write("VERSION=42\nADULT=30\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:01:00Z"));
+    assertTrue(store.reload(file));
+    assertEquals(42, store.get().getVersion());
+  }
+
+
+  /**
+   * Test prices changed under the same version, or an invalid version, are refused
+   */
+  @Test
+  void reload_withBadVersion_keepsCurrentPrices() throws Exception {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    Path file = write("VERSION=42\nADULT=30\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:00:00Z"));
+    store.reload(file);
+    PriceTable loaded = store.get();
+
+    write("VERSION=42\nADULT=35\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:01:00Z"));
+    assertThrows(IllegalArgumentException.class, () -> store.reload(file));
+    assertSame(loaded, store.get());
+
+    write("VERSION=0\nADULT=35\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:02:00Z"));
+    assertThrows(IllegalArgumentException.class, () -> store.reload(file));
+    assertSame(loaded, store.get());
+  }
+
+
+  /**
+   * Test invalid prices leave the current ones in place
+   */
+  @Test
+  void reload_withInvalidFile_keepsCurrentPrices() throws Exception {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    Path file = write("ADULT=30\n", Instant.parse("2024-01-01T00:00:00Z"));
+
+    assertThrows(IllegalArgumentException.class, () -> store.reload(file));
+    assertSame(PriceTable.DEFAULT, store.get());
+  }
+
+
+  /**
+   * Test a missing file is reported
+   */
+  @Test
+  void reload_withMissingFile_throwsException() {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+
+    assertThrows(UncheckedIOException.class, () -> store.reload(dir.resolve("missing.properties")));
+    assertSame(PriceTable.DEFAULT, store.get());
+  }
+
+
+  /**
+   * Test a watched file is picked up when it changes
+   */
+  @Test
+  void watch_withModifiedFile_publishesNewPrices() throws Exception {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    Path file = write("ADULT=30\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:00:00Z"));
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      ScheduledFuture<?> watch = store.watch(file, scheduler, Duration.ofMillis(10));
+      assertEquals(30, store.get().getPrice(Type.ADULT));
+
+      write("ADULT=40\nCHILD=20\nINFANT=0\n", Instant.parse("2024-01-01T00:01:00Z"));
+      long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (store.get().getPrice(Type.ADULT) != 40 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+
+      assertEquals(40, store.get().getPrice(Type.ADULT));
+      assertEquals(3, store.get().getVersion());
+      watch.cancel(false);
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private Path write(String prices, Instant modified) throws Exception {
+    Path file = dir.resolve("prices.properties");
+    Files.writeString(file, prices);
+    Files.setLastModifiedTime(file, FileTime.from(modified));
+    return file;
+  }
+}
@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.domain.cost;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceTableTest {
+
+  /**
+   * Test the default table has the standard prices
+   */
+  @Test
+  void default_hasStandardPrices() {
+    for (Type type : Type.values()) {
+      assertEquals(TicketTypeCost.TICKET_COST.get(type), PriceTable.DEFAULT.getPrice(type));
+    }
+    assertEquals(TicketTypeCost.TICKET_COST, PriceTable.DEFAULT.toMap());
+  }
+
+
+  /**
+   * Test a basket is priced at the table's prices
+   */
+  @Test
+  void calculateCost_withBasket_usesPrices() {
+    PriceTable table = PriceTable.of(3, Map.of(Type.ADULT, 30, Type.CHILD, 20, Type.INFANT, 1));
+    BasketSummary basket = BasketSummary.of(
+        new TicketTypeRequest(Type.ADULT, 2),
+        new TicketTypeRequest(Type.CHILD, 1),
+        new TicketTypeRequest(Type.INFANT, 1));
+
+    assertEquals(81, table.calculateCost(basket));
+  }
+
+
+  /**
+   * Test a quote carries the cost and version
+   */
+  @Test
+  void quote_withBasket_packsCostAndVersion() {
+    PriceTable table = PriceTable.of(7, Map.of(Type.ADULT, 30, Type.CHILD, 20, Type.INFANT, 0));
+
+    long quote = table.quote(BasketSummary.of(new TicketTypeRequest(Type.ADULT, 3)));
+
+    assertEquals(90, PriceTable.costOf(quote));
+    assertEquals(7, PriceTable.versionOf(quote));
+  }
+
+
+  /**
+   * Test every type must have a price
+   */
+  @Test
+  void of_withMissingPrice_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> PriceTable.of(1, Map.of(Type.ADULT, 30, Type.CHILD, 20)));
+  }
+
+
+  /**
+   * Test prices can't be negative
+   */
+  @Test
+  void of_withNegativePrice_throwsException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> PriceTable.of(1, Map.of(Type.ADULT, 30, Type.CHILD, -1, Type.INFANT, 0)));
+  }
+
+
+  /**
+   * Test prices are read from properties
+   */
+  @Test
+  void parse_withProperties_readsPrices() {
+    Properties prices = new Properties();
+    prices.setProperty("ADULT", "30");
+    prices.setProperty("CHILD", " 20 ");
+    prices.setProperty("INFANT", "0");
+
+    PriceTable table = PriceTable.parse(2, prices);
+
+    assertEquals(2, table.getVersion());
+    assertEquals(30, table.getPrice(Type.ADULT));
+    assertEquals(20, table.getPrice(Type.CHILD));
+  }
+
+
+  /**
+   * Test a price that isn't a number is rejected
+   */
+  @Test
+  void parse_withInvalidPrice_throwsException() {
+    Properties prices = new Properties();
+    prices.setProperty("ADULT", "thirty");
+    prices.setProperty("CHILD", "20");
+    prices.setProperty("INFANT", "0");
+
+    assertThrows(IllegalArgumentException.class, () -> PriceTable.parse(2, prices));
+  }
+}
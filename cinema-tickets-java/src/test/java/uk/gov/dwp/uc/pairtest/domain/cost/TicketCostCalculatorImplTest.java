@@ -1,10 +1,13 @@
 package uk.gov.dwp.uc.pairtest.domain.cost;
 
 import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
 import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class TicketCostCalculatorImplTest {
@@ -61,4 +64,22 @@ class TicketCostCalculatorImplTest {
     int cost = calculator.calculateCost();
     assertEquals(0, cost);
   }
+
+
+  /**
+   * New prices are used as soon as they're published, and quoted with their version
+   */
+  @Test
+  void quote_AfterNewPricesPublished() {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    TicketCostCalculator calculator = new TicketCostCalculatorImpl(store);
+    BasketSummary basket = BasketSummary.of(new TicketTypeRequest(Type.ADULT, 2));
+
+    store.publish(Map.of(Type.ADULT, 30, Type.CHILD, 20, Type.INFANT, 0));
+
+    long quote = calculator.quote(basket);
+    assertEquals(60, PriceTable.costOf(quote));
+    assertEquals(PriceTable.DEFAULT.getVersion() + 1, PriceTable.versionOf(quote));
+    assertEquals(60, calculator.calculateCost(basket));
+  }
 }
@@ -0,0 +1,85 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionLimiterTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+  /**
+   * Test each account has its own limit
+   */
+  @Test
+  void tryAdmit_overAccountLimit_returnsFalse() {
+    AdmissionLimiter limiter = new AdmissionLimiter(0, 1, 1, 2);
+
+    assertTrue(limiter.tryAdmit(1));
+    assertTrue(limiter.tryAdmit(1));
+    assertFalse(limiter.tryAdmit(1));
+    assertTrue(limiter.tryAdmit(2));
+
+    assertEquals(3, limiter.getAdmittedCount());
+    assertEquals(1, limiter.getRejectedCount());
+  }
+
+
+  /**
+   * Test the global limit covers every account, and doesn't use up the account's tokens when it rejects
+   */
+  @Test
+  void tryAdmit_overGlobalLimit_returnsFalse() {
+    TokenBuckets global = new TokenBuckets(1, 1, 2, now::get);
+    TokenBuckets accounts = new TokenBuckets(AdmissionLimiter.ACCOUNT_BUCKETS, 1, 1, now::get);
+    AdmissionLimiter limiter = new AdmissionLimiter(global, accounts);
+
+    assertTrue(limiter.tryAdmit(1));
+    assertTrue(limiter.tryAdmit(2));
+    assertFalse(limiter.tryAdmit(3));
+
+    // Once the global limit allows it, account 3 still has its token
+    now.addAndGet(1_000_000_000L);
+    assertTrue(limiter.tryAdmit(3));
+  }
+
+
+  /**
+   * Test no limits admits everything
+   */
+  @Test
+  void tryAdmit_withNoLimits_admitsEverything() {
+    AdmissionLimiter limiter = new AdmissionLimiter(0, 1, 0, 1);
+
+    for (int i = 0; i < 1_000; i++) {
+      assertTrue(limiter.tryAdmit(1));
+    }
+  }
+
+
+  /**
+   * Test the limits can be changed through JMX
+   */
+  @Test
+  void registerMBean_setThroughJmx_changesLimits() throws Exception {
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    AdmissionLimiter limiter = new AdmissionLimiter(0, 1, 0, 1);
+    limiter.registerMBean(server, "test");
+    ObjectName name = new ObjectName("uk.gov.dwp.uc.pairtest:type=AdmissionLimiter,name=" + ObjectName.quote("test"));
+
+    server.setAttribute(name, new Attribute("AccountRate", 1L));
+    assertEquals(1L, limiter.getAccountRate());
+
+    assertTrue(limiter.tryAdmit(1));
+    assertFalse(limiter.tryAdmit(1));
+    assertEquals(1L, server.getAttribute(name, "RejectedCount"));
+  }
+}
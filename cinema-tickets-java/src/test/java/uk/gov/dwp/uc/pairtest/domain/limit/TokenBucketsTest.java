@@ -0,0 +1,146 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketsTest {
+
+  private static final long MILLIS = 1_000_000;
+
+  private final AtomicLong now = new AtomicLong(5_000 * MILLIS);
+
+  /**
+   * Test a bucket starts full and empties
+   */
+  @Test
+  void tryAcquire_beyondBurst_returnsFalse() {
+    TokenBuckets buckets = new TokenBuckets(2, 10, 3, now::get);
+
+    assertTrue(buckets.tryAcquire(0));
+    assertTrue(buckets.tryAcquire(0));
+    assertTrue(buckets.tryAcquire(0));
+    assertFalse(buckets.tryAcquire(0));
+
+    // Buckets are independent
+    assertTrue(buckets.tryAcquire(1));
+  }
+
+
+  /**
+   * Test tokens are added at the rate, with part tokens carried over
+   */
+  @Test
+  void tryAcquire_overTime_refillsAtRate() {
+    TokenBuckets buckets = new TokenBuckets(1, 10, 1, now::get);
+    assertTrue(buckets.tryAcquire(0));
+    assertFalse(buckets.tryAcquire(0));
+
+    // 10 per second is one every 100ms
+    now.addAndGet(60 * MILLIS);
+    assertFalse(buckets.tryAcquire(0));
+    now.addAndGet(40 * MILLIS);
+    assertTrue(buckets.tryAcquire(0));
+    assertFalse(buckets.tryAcquire(0));
+  }
+
+
+  /**
+   * Test a bucket never holds more than the burst
+   */
+  @Test
+  void tryAcquire_afterLongIdle_limitedToBurst() {
+    TokenBuckets buckets = new TokenBuckets(1, 10, 2, now::get);
+    buckets.tryAcquire(0);
+
+    now.addAndGet(60_000 * MILLIS);
+    assertTrue(buckets.tryAcquire(0));
+    assertTrue(buckets.tryAcquire(0));
+    assertFalse(buckets.tryAcquire(0));
+  }
+
+
+  /**
+   * Test a released token can be used again
+   */
+  @Test
+  void release_afterAcquire_returnsToken() {
+    TokenBuckets buckets = new TokenBuckets(1, 10, 1, now::get);
+    assertTrue(buckets.tryAcquire(0));
+
+    buckets.release(0);
+    assertTrue(buckets.tryAcquire(0));
+  }
+
+
+  /**
+   * Test the limits can be changed while in use
+   */
+  @Test
+  void setRate_whileInUse_appliesNewLimit() {
+    TokenBuckets buckets = new TokenBuckets(1, 10, 5, now::get);
+    assertTrue(buckets.tryAcquire(0));
+
+    buckets.setBurst(1);
+    assertTrue(buckets.tryAcquire(0));
+    assertFalse(buckets.tryAcquire(0));
+
+    buckets.setRate(0);
+    assertTrue(buckets.tryAcquire(0));
+    assertEquals(0, buckets.getRate());
+  }
+
+
+  /**
+   * Test invalid limits are rejected
+   */
+  @Test
+  void setLimit_withInvalidValues_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> new TokenBuckets(1, -1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new TokenBuckets(1, 1, 0));
+    assertThrows(IllegalArgumentException.class, () -> new TokenBuckets(1, 1, TokenBuckets.MAX_BURST + 1));
+  }
+
+
+  /**
+   * Test concurrent callers never get more than the burst between them
+   */
+  @Test
+  void tryAcquire_concurrently_neverExceedsBurst() throws Exception {
+    TokenBuckets buckets = new TokenBuckets(1, 1, 1_000, now::get);
+    AtomicInteger acquired = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            if (buckets.tryAcquire(0)) {
+              acquired.incrementAndGet();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1_000, acquired.get());
+  }
+}
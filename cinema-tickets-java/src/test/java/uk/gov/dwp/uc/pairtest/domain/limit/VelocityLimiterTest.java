@@ -0,0 +1,192 @@
+package uk.gov.dwp.uc.pairtest.domain.limit;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VelocityLimiterTest {
+
+  private static final Duration WINDOW = Duration.ofSeconds(60);
+  private static final long BUCKET_NANOS = Duration.ofSeconds(10).toNanos();
+
+  private static final BasketSummary ONE = basket(1);
+  private static final BasketSummary TEN = basket(10);
+
+  private final AtomicLong now = new AtomicLong(1_000 * BUCKET_NANOS);
+
+  /**
+   * Test the number of purchases in the window is limited
+   */
+  @Test
+  void tryAcquire_withTooManyPurchases_returnsVelocityLimit() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 100, 3, 100, now::get);
+
+    for (int i = 0; i < 3; i++) {
+      assertNull(limiter.tryAcquire(1, ONE));
+    }
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1, ONE));
+
+    // Other accounts are unaffected
+    assertNull(limiter.tryAcquire(2, ONE));
+  }
+
+
+  /**
+   * Test the number of tickets in the window is limited
+   */
+  @Test
+  void tryAcquire_withTooManyTickets_returnsVelocityLimit() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 25, 100, 100, now::get);
+
+    assertNull(limiter.tryAcquire(1, TEN));
+    assertNull(limiter.tryAcquire(1, TEN));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1, TEN));
+
+    // A smaller purchase still fits
+    assertNull(limiter.tryAcquire(1, ONE));
+  }
+
+
+  /**
+   * Test the window slides, a bucket at a time
+   */
+  @Test
+  void tryAcquire_asWindowSlides_allowsMore() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 100, 2, 100, now::get);
+
+    assertNull(limiter.tryAcquire(1, ONE));
+    now.addAndGet(3 * BUCKET_NANOS);
+    assertNull(limiter.tryAcquire(1, ONE));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1, ONE));
+
+    // The first purchase leaves the window
+    now.addAndGet(3 * BUCKET_NANOS);
+    assertNull(limiter.tryAcquire(1, ONE));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1, ONE));
+
+    // And then the rest
+    now.addAndGet(6 * BUCKET_NANOS);
+    assertNull(limiter.tryAcquire(1, ONE));
+    assertNull(limiter.tryAcquire(1, ONE));
+  }
+
+
+  /**
+   * Test idle accounts are evicted to make room
+   */
+  @Test
+  void tryAcquire_withManyAccounts_evictsIdleAccounts() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 100, 1, 64, now::get);
+
+    for (long id = 1; id <= 1_000; id++) {
+      limiter.tryAcquire(id, ONE);
+    }
+    int tracked = limiter.getTrackedAccounts();
+    assertEquals(1_000 - tracked, limiter.getUntrackedCount());
+
+    // Once the window has passed they're all idle, so a new account is tracked again
+    now.addAndGet(WINDOW.toNanos());
+    assertNull(limiter.tryAcquire(1_001, ONE));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1_001, ONE));
+    assertEquals(1_000 - tracked, limiter.getUntrackedCount());
+  }
+
+
+  /**
+   * Test a full table is only rebuilt once a bucket, so accounts going idle within it wait for the next one
+   */
+  @Test
+  void tryAcquire_whenFull_evictsOnceABucket() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 100, 1, 64, now::get);
+    for (long id = 1; id <= 1_000; id++) {
+      limiter.tryAcquire(id, ONE);
+    }
+    for (long id = 1; id <= 1_000; id++) {
+      limiter.release(id, ONE);
+    }
+    long untracked = limiter.getUntrackedCount();
+
+    assertNull(limiter.tryAcquire(1_001, ONE));
+    assertEquals(untracked + 1, limiter.getUntrackedCount());
+
+    now.addAndGet(BUCKET_NANOS);
+    assertNull(limiter.tryAcquire(1_001, ONE));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1_001, ONE));
+    assertEquals(untracked + 1, limiter.getUntrackedCount());
+  }
+
+
+  /**
+   * Test the throwing version
+   */
+  @Test
+  void acquire_overLimit_throwsInvalidPurchaseException() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 100, 1, 100, now::get);
+    limiter.acquire(7, ONE);
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> limiter.acquire(7, ONE));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, ex.getReason());
+    assertEquals("Purchase limit reached for account (7), try again later", ex.getMessage());
+  }
+
+
+  /**
+   * Test a released purchase no longer counts towards the limits
+   */
+  @Test
+  void release_afterFailedPurchase_allowsAnother() {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 20, 2, 100, now::get);
+
+    assertNull(limiter.tryAcquire(1, TEN));
+    now.addAndGet(BUCKET_NANOS);
+    assertNull(limiter.tryAcquire(1, TEN));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1, ONE));
+
+    // Released from the newest bucket, then any older ones
+    limiter.release(1, TEN);
+    assertNull(limiter.tryAcquire(1, TEN));
+    assertEquals(RejectionReason.VELOCITY_LIMIT, limiter.tryAcquire(1, ONE));
+
+    // Releasing an account that isn't tracked does nothing
+    limiter.release(2, TEN);
+    assertNull(limiter.tryAcquire(2, TEN));
+  }
+
+
+  /**
+   * Test the accounts let through untracked are shown over JMX
+   */
+  @Test
+  void registerMBean_withUntrackedAccounts_showsCount() throws Exception {
+    VelocityLimiter limiter = new VelocityLimiter(WINDOW, 6, 100, 1, 64, now::get);
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    limiter.registerMBean(server, "test");
+    ObjectName name = new ObjectName("uk.gov.dwp.uc.pairtest:type=VelocityLimiter,name=" + ObjectName.quote("test"));
+
+    for (long id = 1; id <= 1_000; id++) {
+      limiter.tryAcquire(id, ONE);
+    }
+
+    assertEquals(limiter.getUntrackedCount(), server.getAttribute(name, "UntrackedCount"));
+    assertTrue(limiter.getUntrackedCount() > 0);
+    assertEquals(limiter.getTrackedAccounts(), server.getAttribute(name, "TrackedAccounts"));
+  }
+
+  private static BasketSummary basket(int adults) {
+    return BasketSummary.of(new TicketTypeRequest(Type.ADULT, adults));
+  }
+}
@@ -0,0 +1,104 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompiledPricingTest {
+
+  private static final Screening MATINEE = new Screening(1, LocalDateTime.of(2024, 6, 5, 14, 0));
+  private static final Screening SATURDAY_IMAX = new Screening(2, LocalDateTime.of(2024, 6, 8, 20, 0), "imax");
+
+  private static final List<PricingRule> RULES = List.of(
+      // Off-peak discount
+      PricingRule.percentOf(80).on(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY)
+          .between(LocalTime.of(10, 0), LocalTime.of(17, 0)),
+      // Weekend evenings
+      PricingRule.plus(5).on(DayOfWeek.SATURDAY).between(LocalTime.of(17, 0), LocalTime.of(23, 0))
+          .forTypes(Type.ADULT, Type.CHILD),
+      // Premium format
+      PricingRule.plus(3).tagged("imax").forTypes(Type.ADULT),
+      // Nearly sold out
+      PricingRule.percentOf(150).whenSold(90, 100).forTypes(Type.ADULT)
+  );
+
+  /**
+   * Test rules are applied in order to each screening
+   */
+  @Test
+  void forScreening_withRules_appliesMatchingRules() {
+    CompiledPricing pricing = new CompiledPricing(1, PriceTable.DEFAULT, RULES, List.of(MATINEE, SATURDAY_IMAX));
+
+    ScreeningPrices matinee = pricing.forScreening(1);
+    assertEquals(20, matinee.getPrice(Type.ADULT, 0));
+    assertEquals(12, matinee.getPrice(Type.CHILD, 0));
+    assertEquals(0, matinee.getPrice(Type.INFANT, 0));
+
+    ScreeningPrices imax = pricing.forScreening(2);
+    assertEquals(33, imax.getPrice(Type.ADULT, 0));
+    assertEquals(20, imax.getPrice(Type.CHILD, 0));
+  }
+
+
+  /**
+   * Test the demand bands switch at the rule boundaries
+   */
+  @Test
+  void forScreening_withDemand_usesDemandBand() {
+    CompiledPricing pricing = new CompiledPricing(1, PriceTable.DEFAULT, RULES, List.of(MATINEE, SATURDAY_IMAX));
+    ScreeningPrices imax = pricing.forScreening(2);
+
+    assertEquals(2, pricing.getBandCount());
+    assertEquals(33, imax.getPrice(Type.ADULT, 89));
+    assertEquals(50, imax.getPrice(Type.ADULT, 90));
+    assertEquals(50, imax.getPrice(Type.ADULT, 100));
+    assertEquals(20, imax.getPrice(Type.CHILD, 95));
+  }
+
+
+  /**
+   * Test a basket is priced, and quoted with the version
+   */
+  @Test
+  void quote_withBasket_usesScreeningPrices() {
+    CompiledPricing pricing = new CompiledPricing(4, PriceTable.DEFAULT, RULES, List.of(MATINEE, SATURDAY_IMAX));
+    BasketSummary basket = BasketSummary.of(new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1));
+
+    long quote = pricing.forScreening(1).quote(basket, 10);
+
+    assertEquals(2 * 20 + 12, PriceTable.costOf(quote));
+    assertEquals(4, PriceTable.versionOf(quote));
+  }
+
+
+  /**
+   * Test an unknown screening is rejected
+   */
+  @Test
+  void forScreening_withUnknownScreening_throwsException() {
+    CompiledPricing pricing = new CompiledPricing(1, PriceTable.DEFAULT, RULES, List.of(MATINEE));
+
+    assertThrows(InvalidPurchaseException.class, () -> pricing.forScreening(99));
+  }
+
+
+  /**
+   * Test screenings must be unique
+   */
+  @Test
+  void constructor_withDuplicateScreening_throwsException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new CompiledPricing(1, PriceTable.DEFAULT, RULES, List.of(MATINEE, MATINEE)));
+  }
+}
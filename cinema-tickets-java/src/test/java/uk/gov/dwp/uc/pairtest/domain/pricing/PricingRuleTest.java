@@ -0,0 +1,113 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PricingRuleTest {
+
+  // A Friday evening
+  private static final LocalDateTime FRIDAY_EVENING = LocalDateTime.of(2024, 6, 7, 19, 30);
+
+  /**
+   * Test an unrestricted rule applies to everything
+   */
+  @Test
+  void appliesTo_withNoRestrictions_matches() {
+    PricingRule rule = PricingRule.plus(1);
+
+    assertTrue(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 0));
+    assertTrue(rule.appliesTo(new Screening(1, FRIDAY_EVENING.plusDays(1), "imax"), 100));
+  }
+
+
+  /**
+   * Test the day restriction
+   */
+  @Test
+  void appliesTo_withDays_matchesOnlyThoseDays() {
+    PricingRule rule = PricingRule.plus(1).on(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY);
+
+    assertTrue(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 0));
+    assertFalse(rule.appliesTo(new Screening(1, FRIDAY_EVENING.minusDays(1)), 0));
+  }
+
+
+  /**
+   * Test the time window, including one spanning midnight
+   */
+  @Test
+  void appliesTo_withTimeWindow_matchesStartsInWindow() {
+    PricingRule evening = PricingRule.plus(1).between(LocalTime.of(17, 0), LocalTime.of(22, 0));
+    PricingRule late = PricingRule.plus(1).between(LocalTime.of(22, 0), LocalTime.of(2, 0));
+
+    assertTrue(evening.appliesTo(new Screening(1, FRIDAY_EVENING), 0));
+    assertFalse(evening.appliesTo(new Screening(1, FRIDAY_EVENING.withHour(22).withMinute(0)), 0));
+    assertTrue(late.appliesTo(new Screening(1, FRIDAY_EVENING.withHour(23)), 0));
+    assertTrue(late.appliesTo(new Screening(1, FRIDAY_EVENING.withHour(1)), 0));
+    assertFalse(late.appliesTo(new Screening(1, FRIDAY_EVENING), 0));
+  }
+
+
+  /**
+   * Test the tag restriction
+   */
+  @Test
+  void appliesTo_withTags_matchesAnyTag() {
+    PricingRule rule = PricingRule.plus(1).tagged("imax", "3d");
+
+    assertTrue(rule.appliesTo(new Screening(1, FRIDAY_EVENING, "3d"), 0));
+    assertFalse(rule.appliesTo(new Screening(1, FRIDAY_EVENING, "subtitled"), 0));
+    assertFalse(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 0));
+  }
+
+
+  /**
+   * Test the demand band is inclusive
+   */
+  @Test
+  void appliesTo_withDemandBand_matchesWithinBand() {
+    PricingRule rule = PricingRule.plus(1).whenSold(50, 80);
+
+    assertFalse(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 49));
+    assertTrue(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 50));
+    assertTrue(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 80));
+    assertFalse(rule.appliesTo(new Screening(1, FRIDAY_EVENING), 81));
+  }
+
+
+  /**
+   * Test each kind of adjustment, and the type restriction
+   */
+  @Test
+  void apply_withAdjustments_changesPrice() {
+    assertEquals(30, PricingRule.percentOf(120).apply(Type.ADULT, 25));
+    assertEquals(8, PricingRule.percentOf(50).apply(Type.CHILD, 15));
+    assertEquals(20, PricingRule.plus(-5).apply(Type.ADULT, 25));
+    assertEquals(0, PricingRule.plus(-30).apply(Type.ADULT, 25));
+    assertEquals(10, PricingRule.fixed(10).apply(Type.ADULT, 25));
+    assertEquals(15, PricingRule.fixed(10).forTypes(Type.ADULT).apply(Type.CHILD, 15));
+  }
+
+
+  /**
+   * Test invalid rules are rejected
+   */
+  @Test
+  void create_withInvalidValues_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> PricingRule.percentOf(-1));
+    assertThrows(IllegalArgumentException.class, () -> PricingRule.fixed(-1));
+    assertThrows(IllegalArgumentException.class, () -> PricingRule.plus(1).whenSold(80, 50));
+    assertThrows(IllegalArgumentException.class, () -> PricingRule.plus(1).whenSold(0, 101));
+    assertThrows(IllegalArgumentException.class,
+        () -> PricingRule.plus(1).between(LocalTime.NOON, LocalTime.NOON));
+  }
+}
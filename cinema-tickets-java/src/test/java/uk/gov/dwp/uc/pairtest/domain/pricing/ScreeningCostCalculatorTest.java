@@ -0,0 +1,75 @@
+package uk.gov.dwp.uc.pairtest.domain.pricing;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.domain.seat.SeatMap;
+import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScreeningCostCalculatorTest {
+
+  private static final List<Screening> SCREENINGS = List.of(new Screening(1, LocalDateTime.of(2024, 6, 8, 20, 0)));
+
+  private static final BasketSummary TWO_ADULTS = BasketSummary.of(new TicketTypeRequest(Type.ADULT, 2));
+
+  /**
+   * Test the price follows the demand
+   */
+  @Test
+  void calculateCost_asDemandChanges_usesCurrentBand() {
+    PricingEngine engine = new PricingEngine(PriceTable.DEFAULT, SCREENINGS);
+    engine.load(PriceTable.DEFAULT, List.of(PricingRule.plus(10).whenSold(50, 100)), SCREENINGS);
+    AtomicInteger sold = new AtomicInteger(10);
+    TicketCostCalculator calculator = new ScreeningCostCalculator(engine, 1, sold::get);
+
+    assertEquals(50, calculator.calculateCost(TWO_ADULTS));
+
+    sold.set(60);
+    assertEquals(70, calculator.calculateCost(TWO_ADULTS));
+  }
+
+
+  /**
+   * Test new rules are picked up, and quoted with their version
+   */
+  @Test
+  void quote_afterRulesLoaded_usesNewRules() {
+    PricingEngine engine = new PricingEngine(PriceTable.DEFAULT, SCREENINGS);
+    TicketCostCalculator calculator = new ScreeningCostCalculator(engine, 1, () -> 0);
+
+    long before = calculator.quote(TWO_ADULTS);
+    engine.load(PriceTable.DEFAULT, List.of(PricingRule.fixed(20).forTypes(Type.ADULT)), SCREENINGS);
+    long after = calculator.quote(TWO_ADULTS);
+
+    assertEquals(50, PriceTable.costOf(before));
+    assertEquals(1, PriceTable.versionOf(before));
+    assertEquals(40, PriceTable.costOf(after));
+    assertEquals(2, PriceTable.versionOf(after));
+  }
+
+
+  /**
+   * Test demand can come from the screening's seats
+   */
+  @Test
+  void calculateCost_withSeatMap_usesSeatsSold() {
+    PricingEngine engine = new PricingEngine(PriceTable.DEFAULT, SCREENINGS);
+    engine.load(PriceTable.DEFAULT, List.of(PricingRule.percentOf(200).whenSold(75, 100)), SCREENINGS);
+    SeatMap seats = new SeatMap(4);
+    TicketCostCalculator calculator = new ScreeningCostCalculator(engine, 1, seats);
+
+    seats.reserve(2);
+    assertEquals(50, calculator.calculateCost(TWO_ADULTS));
+
+    seats.reserve(1);
+    assertEquals(100, calculator.calculateCost(TWO_ADULTS));
+  }
+}
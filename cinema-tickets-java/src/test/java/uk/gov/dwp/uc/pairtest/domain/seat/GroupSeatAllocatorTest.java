@@ -0,0 +1,120 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GroupSeatAllocatorTest {
+
+  /**
+   * Test the first group gets the middle of the middle row
+   */
+  @Test
+  void reserve_inEmptyHouse_takesMiddleOfMiddleRow() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(5, 10);
+
+    int[] seats = allocator.reserve(4);
+
+    // Row 2, positions 3 to 6
+    assertArrayEquals(new int[]{23, 24, 25, 26}, seats);
+    assertEquals(46, allocator.getAvailable());
+    assertEquals(3, allocator.getLongestRun(2));
+  }
+
+
+  /**
+   * Test a group that no longer fits in the middle row moves to the nearest row that can take it
+   */
+  @Test
+  void reserve_whenMiddleRowTooFragmented_usesNearestRow() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(5, 10);
+    allocator.reserve(4);
+
+    // Row 2 now has runs of 3 either side, so a group of 4 has to go to row 3 (behind) or row 1 (in front)
+    int[] seats = allocator.reserve(4);
+
+    int row = seats[0] / 10;
+    assertEquals(1, Math.abs(row - 2));
+    for (int i = 1; i < seats.length; i++) {
+      assertEquals(seats[i - 1] + 1, seats[i]);
+    }
+  }
+
+
+  /**
+   * Test a group that won't fit anywhere is rejected
+   */
+  @Test
+  void reserve_withNoRunLongEnough_throwsException() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(1, 5);
+    allocator.reserve(1);
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> allocator.reserve(3));
+    assertEquals("No 3 adjacent seats available", ex.getMessage());
+  }
+
+
+  /**
+   * Test a group bigger than a row is rejected
+   */
+  @Test
+  void reserve_withGroupBiggerThanRow_throwsException() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(2, 5);
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> allocator.reserve(6));
+    assertEquals(RejectionReason.NO_ADJACENT_SEATS, ex.getReason());
+  }
+
+
+  /**
+   * Test releasing seats merges the free runs back together
+   */
+  @Test
+  void release_mergesRunsEitherSide() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(1, 10);
+    int[] seats = allocator.reserve(4);
+    assertEquals(3, allocator.getLongestRun(0));
+
+    allocator.release(seats);
+    // Releasing twice is ignored
+    allocator.release(seats[0]);
+
+    assertEquals(10, allocator.getLongestRun(0));
+    assertEquals(10, allocator.getAvailable());
+    assertEquals(10, allocator.reserve(10).length);
+  }
+
+
+  /**
+   * Test the house can be filled exactly
+   */
+  @Test
+  void reserve_untilSoldOut_fillsEverySeat() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(7, 9);
+
+    for (int i = 0; i < 21; i++) {
+      allocator.reserve(3);
+    }
+
+    assertEquals(0, allocator.getAvailable());
+    assertThrows(InvalidPurchaseException.class, () -> allocator.reserve(1));
+  }
+
+
+  /**
+   * Test the reservation service reserves adjacent seats
+   */
+  @Test
+  void groupSeatReservationService_reservesAdjacentSeats() {
+    GroupSeatAllocator allocator = new GroupSeatAllocator(1, 10);
+    GroupSeatReservationService service = new GroupSeatReservationService(allocator);
+
+    service.reserveSeat(42L, 4);
+
+    assertEquals(6, allocator.getAvailable());
+    assertEquals(3, allocator.getLongestRun(0));
+  }
+}
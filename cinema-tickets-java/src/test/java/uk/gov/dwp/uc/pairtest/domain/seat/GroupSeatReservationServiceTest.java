@@ -0,0 +1,45 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GroupSeatReservationServiceTest {
+
+  private final GroupSeatAllocator allocator = new GroupSeatAllocator(3, 6);
+  private final GroupSeatReservationService service = new GroupSeatReservationService(allocator);
+
+  /**
+   * Test the group's seats are recorded against the account
+   */
+  @Test
+  void reserveSeat_recordsSeatsAgainstAccount() {
+    service.reserveSeat(7L, 4);
+
+    int[][] reserved = service.getReservedSeats(7L);
+    assertEquals(1, reserved.length);
+    assertEquals(4, reserved[0].length);
+    assertEquals(14, allocator.getAvailable());
+  }
+
+
+  /**
+   * Test releasing gives the group's seats back, so the row is whole again
+   */
+  @Test
+  void releaseSeat_releasesGroupsSeats() {
+    service.reserveSeat(7L, 4);
+    service.reserveSeat(7L, 2);
+
+    service.releaseSeat(7L, 4);
+
+    assertEquals(16, allocator.getAvailable());
+    assertEquals(1, service.getReservedSeats(7L).length);
+    assertEquals(2, service.getReservedSeats(7L)[0].length);
+
+    service.releaseSeat(7L, 2);
+    service.releaseSeat(7L, 2);
+    assertEquals(18, allocator.getAvailable());
+    assertEquals(6, allocator.getLongestRun(1));
+  }
+}
@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScreeningSeatReservationServiceTest {
+
+  private final SeatInventory inventory = new SeatInventory();
+  private ScreeningSeatReservationService service;
+
+  @BeforeEach
+  void setUp() {
+    inventory.addScreening(1L, 10);
+    service = new ScreeningSeatReservationService(inventory, 1L);
+  }
+
+  /**
+   * Test the seats reserved are recorded against the account
+   */
+  @Test
+  void reserveSeat_recordsSeatsAgainstAccount() {
+    service.reserveSeat(7L, 3);
+    service.reserveSeat(7L, 2);
+
+    int[][] reserved = service.getReservedSeats(7L);
+    assertEquals(2, reserved.length);
+    assertEquals(2, reserved[0].length);
+    assertEquals(3, reserved[1].length);
+    assertEquals(0, service.getReservedSeats(8L).length);
+  }
+
+
+  /**
+   * Test releasing gives the account's seats back to the inventory
+   */
+  @Test
+  void releaseSeat_releasesAccountsSeats() {
+    service.reserveSeat(7L, 3);
+    service.reserveSeat(8L, 2);
+    int[] seats = service.getReservedSeats(7L)[0];
+
+    service.releaseSeat(7L, 3);
+
+    assertEquals(8, inventory.getSeatMap(1L).getAvailable());
+    for (int seat : seats) {
+      assertFalse(inventory.getSeatMap(1L).isReserved(seat));
+    }
+    for (int seat : service.getReservedSeats(8L)[0]) {
+      assertTrue(inventory.getSeatMap(1L).isReserved(seat));
+    }
+    assertEquals(0, service.getReservedSeats(7L).length);
+  }
+
+
+  /**
+   * Test releasing again, or seats never reserved, does nothing
+   */
+  @Test
+  void releaseSeat_withNoReservation_doesNothing() {
+    service.reserveSeat(7L, 3);
+
+    service.releaseSeat(7L, 3);
+    service.releaseSeat(7L, 3);
+    service.releaseSeat(8L, 1);
+
+    assertEquals(10, inventory.getSeatMap(1L).getAvailable());
+  }
+}
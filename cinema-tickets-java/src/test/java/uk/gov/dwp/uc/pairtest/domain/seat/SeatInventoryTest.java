@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeatInventoryTest {
+
+  private final SeatInventory inventory = new SeatInventory();
+
+  /**
+   * Test screenings are kept separate
+   */
+  @Test
+  void reserve_withTwoScreenings_keepsThemSeparate() {
+    inventory.addScreening(1L, 10);
+    inventory.addScreening(2L, 20);
+
+    inventory.reserve(1L, 4);
+
+    assertEquals(6, inventory.getSeatMap(1L).getAvailable());
+    assertEquals(20, inventory.getSeatMap(2L).getAvailable());
+  }
+
+
+  /**
+   * Test reservations for an unknown screening fail
+   */
+  @Test
+  void reserve_withUnknownScreening_throwsException() {
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> inventory.reserve(9L, 1));
+    assertEquals("Unknown screening (9)", ex.getMessage());
+  }
+
+
+  /**
+   * Test a screening can't be added twice
+   */
+  @Test
+  void addScreening_withExistingScreening_throwsException() {
+    inventory.addScreening(1L, 10);
+    assertThrows(IllegalStateException.class, () -> inventory.addScreening(1L, 10));
+  }
+
+
+  /**
+   * Test the reservation service reserves against its screening
+   */
+  @Test
+  void screeningSeatReservationService_reservesAgainstScreening() {
+    inventory.addScreening(1L, 3);
+    ScreeningSeatReservationService service = new ScreeningSeatReservationService(inventory, 1L);
+
+    service.reserveSeat(42L, 2);
+
+    assertEquals(1, inventory.getSeatMap(1L).getAvailable());
+    assertThrows(InvalidPurchaseException.class, () -> service.reserveSeat(42L, 2));
+  }
+}
@@ -0,0 +1,125 @@
+package uk.gov.dwp.uc.pairtest.domain.seat;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatMapTest {
+
+  /**
+   * Test reserved seats are distinct, in range and marked as reserved
+   */
+  @Test
+  void reserve_withSeatsAvailable_returnsDistinctSeats() {
+    SeatMap seatMap = new SeatMap(100);
+
+    int[] seats = seatMap.reserve(70);
+
+    Set<Integer> distinct = new HashSet<>();
+    for (int seat : seats) {
+      assertTrue(seat >= 0 && seat < 100);
+      assertTrue(seatMap.isReserved(seat));
+      distinct.add(seat);
+    }
+    assertEquals(70, distinct.size());
+    assertEquals(30, seatMap.getAvailable());
+  }
+
+
+  /**
+   * Test a reservation larger than the free seats fails and reserves nothing
+   */
+  @Test
+  void reserve_withTooFewSeats_throwsAndReservesNothing() {
+    SeatMap seatMap = new SeatMap(10);
+    seatMap.reserve(8);
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> seatMap.reserve(3));
+
+    assertEquals("Not enough seats available (3 requested, 2 free)", ex.getMessage());
+    assertEquals(2, seatMap.getAvailable());
+  }
+
+
+  /**
+   * Test the whole house can be sold, including the last partial word
+   */
+  @Test
+  void reserve_withWholeHouse_reservesEverySeat() {
+    SeatMap seatMap = new SeatMap(130);
+
+    int[] seats = seatMap.reserve(130);
+
+    assertEquals(130, seats.length);
+    assertEquals(0, seatMap.getAvailable());
+    assertThrows(InvalidPurchaseException.class, () -> seatMap.reserve(1));
+  }
+
+
+  /**
+   * Test released seats become available again
+   */
+  @Test
+  void release_withReservedSeats_makesThemAvailable() {
+    SeatMap seatMap = new SeatMap(10);
+    int[] seats = seatMap.reserve(10);
+
+    seatMap.release(seats[0], seats[1]);
+    // Releasing twice is ignored
+    seatMap.release(seats[0]);
+
+    assertFalse(seatMap.isReserved(seats[0]));
+    assertEquals(2, seatMap.getAvailable());
+    assertEquals(2, seatMap.reserve(2).length);
+  }
+
+
+  /**
+   * Test concurrent reservations never overbook
+   */
+  @Test
+  void reserve_concurrently_neverOverbooks() throws Exception {
+    SeatMap seatMap = new SeatMap(500);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<int[]>> futures = new ArrayList<>();
+      for (int i = 0; i < 400; i++) {
+        futures.add(executor.submit(() -> {
+          try {
+            return seatMap.reserve(3);
+          } catch (InvalidPurchaseException e) {
+            return new int[0];
+          }
+        }));
+      }
+
+      Set<Integer> distinct = new HashSet<>();
+      int total = 0;
+      for (Future<int[]> future : futures) {
+        for (int seat : future.get()) {
+          distinct.add(seat);
+          total++;
+        }
+      }
+
+      // 166 reservations of 3 fit in 500 seats
+      assertEquals(498, total);
+      assertEquals(498, distinct.size());
+      assertEquals(2, seatMap.getAvailable());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package uk.gov.dwp.uc.pairtest.domain.table;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketCostCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketTypeCost;
+import uk.gov.dwp.uc.pairtest.domain.seat.SeatReservationCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.validator.TicketRequestsValidatorImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BasketDecisionTableTest {
+
+  private final BasketDecisionTable table =
+      new BasketDecisionTable(TicketRequestsValidatorImpl.MAX_TICKETS, TicketTypeCost.TICKET_COST);
+
+  /**
+   * Test every basket up to one over the limit gets the same answers as the rule based implementations
+   */
+  @Test
+  void everyBasket_matchesRuleBasedImplementations() {
+    TicketRequestsValidatorImpl validator = new TicketRequestsValidatorImpl();
+    TicketCostCalculatorImpl costCalculator = new TicketCostCalculatorImpl();
+    SeatReservationCalculatorImpl seatCalculator = new SeatReservationCalculatorImpl();
+
+    int limit = TicketRequestsValidatorImpl.MAX_TICKETS + 1;
+    for (int adult = 0; adult <= limit; adult++) {
+      for (int child = 0; adult + child <= limit; child++) {
+        for (int infant = 0; adult + child + infant <= limit; infant++) {
+          if (adult + child + infant == 0) {
+            continue;
+          }
+
+          BasketSummary basket = basket(adult, child, infant);
+
+          String expected = null;
+          try {
+            validator.validate(basket);
+          } catch (InvalidPurchaseException e) {
+            expected = e.getMessage();
+          }
+          RejectionReason reason = table.getRejection(basket);
+          assertEquals(expected == null, reason == null, expected);
+
+          assertEquals(costCalculator.calculateCost(basket), table.getCost(basket));
+          assertEquals(seatCalculator.calculateSeats(basket), table.getSeats(basket));
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Test the reasons recorded for rejected baskets
+   */
+  @Test
+  void getRejection_returnsReason() {
+    assertNull(table.getRejection(basket(2, 1, 1)));
+    assertEquals(RejectionReason.NO_ADULT, table.getRejection(basket(0, 2, 0)));
+    assertEquals(RejectionReason.TOO_MANY_INFANTS, table.getRejection(basket(1, 0, 2)));
+    assertEquals(RejectionReason.TOO_MANY_TICKETS, table.getRejection(basket(20, 6, 0)));
+  }
+
+
+  /**
+   * Test a negative count is rejected, and never indexes another basket's entry
+   */
+  @Test
+  void withNegativeCount_isOutsideTable() {
+    // Would index the entry for (2, 0, 0) if packed without checking
+    BasketSummary negative = BasketSummary.of(
+        new TicketTypeRequest(Type.ADULT, 1),
+        new TicketTypeRequest(Type.CHILD, TicketRequestsValidatorImpl.MAX_TICKETS + 1),
+        new TicketTypeRequest(Type.CHILD, -(TicketRequestsValidatorImpl.MAX_TICKETS + 1) - 1));
+
+    assertEquals(RejectionReason.EMPTY_REQUEST, table.getRejection(negative));
+    assertEquals(TicketTypeCost.TICKET_COST.get(Type.ADULT) - TicketTypeCost.TICKET_COST.get(Type.CHILD),
+        table.getCost(negative));
+    assertEquals(0, table.getSeats(negative));
+  }
+
+
+  /**
+   * Test counts whose total overflows an int are rejected, and never index the table
+   */
+  @Test
+  void withOverflowingCounts_isOutsideTable() {
+    BasketSummary overflowing = BasketSummary.of(
+        new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE),
+        new TicketTypeRequest(Type.CHILD, Integer.MAX_VALUE));
+
+    assertEquals(RejectionReason.TOO_MANY_TICKETS, table.getRejection(overflowing));
+    assertDoesNotThrow(() -> table.getCost(overflowing));
+    assertDoesNotThrow(() -> table.getSeats(overflowing));
+  }
+
+
+  /**
+   * Test the table uses the prices it was built with
+   */
+  @Test
+  void getCost_usesGivenPrices() {
+    BasketDecisionTable custom = new BasketDecisionTable(10, Map.of(Type.ADULT, 7, Type.CHILD, 3));
+
+    assertEquals(2 * 7 + 3 * 3, custom.getCost(basket(2, 3, 1)));
+    assertEquals(7, custom.getPrice(Type.ADULT));
+    assertEquals(0, custom.getPrice(Type.INFANT));
+  }
+
+  /**
+   * Build a basket with a request for each type that has tickets
+   */
+  private static BasketSummary basket(int adult, int child, int infant) {
+    List<TicketTypeRequest> requests = new ArrayList<>();
+    if (adult > 0) {
+      requests.add(new TicketTypeRequest(Type.ADULT, adult));
+    }
+    if (child > 0) {
+      requests.add(new TicketTypeRequest(Type.CHILD, child));
+    }
+    if (infant > 0) {
+      requests.add(new TicketTypeRequest(Type.INFANT, infant));
+    }
+    return BasketSummary.of(requests.toArray(new TicketTypeRequest[0]));
+  }
+}
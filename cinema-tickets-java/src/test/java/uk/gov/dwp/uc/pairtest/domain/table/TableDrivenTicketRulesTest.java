@@ -0,0 +1,122 @@
+package uk.gov.dwp.uc.pairtest.domain.table;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTableStore;
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketTypeCost;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TableDrivenTicketRulesTest {
+
+  private final TableDrivenTicketRules rules = new TableDrivenTicketRules();
+
+  /**
+   * Test no ticket requests fails
+   */
+  @Test
+  void validate_withEmptyRequests_throwsException() {
+    InvalidPurchaseException ex =
+        assertThrows(InvalidPurchaseException.class, () -> rules.validate(new TicketTypeRequest[0]));
+
+    assertEquals("No ticket requests", ex.getMessage());
+  }
+
+
+  /**
+   * Test a request for zero tickets fails
+   */
+  @Test
+  void validate_withZeroTicketRequest_throwsException() {
+    TicketTypeRequest req = new TicketTypeRequest(Type.ADULT, 0);
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> rules.validate(req));
+
+    assertEquals("Ticket request was for zero tickets", ex.getMessage());
+  }
+
+
+  /**
+   * Test the messages for rejections held in the table
+   */
+  @Test
+  void validate_withRejectedBaskets_throwsWithMessages() {
+    InvalidPurchaseException tooMany = assertThrows(InvalidPurchaseException.class,
+        () -> rules.validate(new TicketTypeRequest(Type.ADULT, 26)));
+    assertEquals("Tickets requested exceed maximum allowed (25)", tooMany.getMessage());
+
+    InvalidPurchaseException infants = assertThrows(InvalidPurchaseException.class,
+        () -> rules.validate(new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.INFANT, 2)));
+    assertEquals("Infant tickets requested (2) exceeds adults (1)", infants.getMessage());
+
+    InvalidPurchaseException noAdult = assertThrows(InvalidPurchaseException.class,
+        () -> rules.validate(new TicketTypeRequest(Type.CHILD, 1)));
+    assertEquals("At least one adult ticket must me ordered when ordering child or infant tickets", noAdult.getMessage());
+  }
+
+
+  /**
+   * Test cost and seats for a valid basket
+   */
+  @Test
+  void calculate_withValidBasket_returnsCostAndSeats() {
+    TicketTypeRequest[] requests = {
+        new TicketTypeRequest(Type.ADULT, 2),
+        new TicketTypeRequest(Type.CHILD, 3),
+        new TicketTypeRequest(Type.INFANT, 1)
+    };
+
+    assertDoesNotThrow(() -> rules.validate(requests));
+    assertEquals(2 * TicketTypeCost.TICKET_COST.get(Type.ADULT) + 3 * TicketTypeCost.TICKET_COST.get(Type.CHILD),
+        rules.calculateCost(requests));
+    assertEquals(5, rules.calculateSeats(requests));
+  }
+
+
+  /**
+   * Test published prices are picked up, and quoted with their version
+   */
+  @Test
+  void calculate_afterPricesPublished_usesNewPrices() {
+    PriceTableStore store = new PriceTableStore(PriceTable.DEFAULT);
+    TableDrivenTicketRules published = new TableDrivenTicketRules(10, store);
+    TicketTypeRequest[] requests = {new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1)};
+
+    assertEquals(PriceTable.DEFAULT.calculateCost(BasketSummary.of(requests)), published.calculateCost(requests));
+
+    PriceTable table = store.publish(Map.of(Type.ADULT, 30, Type.CHILD, 12, Type.INFANT, 0));
+    long quote = published.quote(BasketSummary.of(requests));
+
+    assertEquals(2 * 30 + 12, PriceTable.costOf(quote));
+    assertEquals(table.getVersion(), PriceTable.versionOf(quote));
+    assertEquals(2 * 30 + 12, published.calculateCost(requests));
+
+    // A new limit keeps following the prices
+    published.rebuild(2);
+    assertThrows(InvalidPurchaseException.class, () -> published.validate(requests));
+    assertEquals(30, published.calculateCost(new TicketTypeRequest(Type.ADULT, 1)));
+  }
+
+
+  /**
+   * Test a rebuild picks up new prices and limits
+   */
+  @Test
+  void rebuild_withNewPricesAndLimit_usesThem() {
+    rules.rebuild(5, Map.of(Type.ADULT, 10, Type.CHILD, 4, Type.INFANT, 0));
+
+    assertEquals(10 + 2 * 4, rules.calculateCost(new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.CHILD, 2)));
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class,
+        () -> rules.validate(new TicketTypeRequest(Type.ADULT, 6)));
+    assertEquals("Tickets requested exceed maximum allowed (5)", ex.getMessage());
+  }
+}
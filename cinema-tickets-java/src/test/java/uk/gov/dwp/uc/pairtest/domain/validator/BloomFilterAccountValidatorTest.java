@@ -0,0 +1,161 @@
+package uk.gov.dwp.uc.pairtest.domain.validator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountBloomFilter;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry.Status;
+import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BloomFilterAccountValidatorTest {
+
+  @TempDir
+  Path dir;
+
+  private Path file;
+  private AccountRegistry registry;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = dir.resolve("accounts");
+    registry = AccountRegistry.create(file, 100);
+    registry.put(1, Status.ACTIVE);
+    registry.put(2, Status.BLOCKED);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    registry.close();
+  }
+
+  /**
+   * Test known accounts are passed on to the full check
+   */
+  @Test
+  void check_withKnownAccounts_usesRegistry() {
+    BloomFilterAccountValidator validator = new BloomFilterAccountValidator(registry, 0.01);
+
+    assertNull(validator.check(1));
+    assertEquals(RejectionReason.BLOCKED_ACCOUNT, validator.check(2));
+    assertEquals(1.0, validator.getHitRatio());
+  }
+
+
+  /**
+   * Test unknown accounts are rejected by the filter alone
+   */
+  @Test
+  void check_withUnknownAccount_skipsFullCheck() {
+    AccountValidator full = mock(AccountValidator.class);
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(10, 0.01);
+    filter.add(1);
+    BloomFilterAccountValidator validator = new BloomFilterAccountValidator(full, filter, 0.01);
+
+    assertEquals(RejectionReason.UNKNOWN_ACCOUNT, validator.check(3));
+
+    verify(full, never()).check(3);
+    assertEquals(1, validator.getCheckCount());
+    assertEquals(1, validator.getFilteredCount());
+    assertEquals(0.0, validator.getHitRatio());
+  }
+
+
+  /**
+   * Test accounts the filter passes but the full check doesn't know are counted
+   */
+  @Test
+  void check_withFalsePositive_isCounted() {
+    AccountValidator full = mock(AccountValidator.class);
+    when(full.check(5)).thenReturn(RejectionReason.UNKNOWN_ACCOUNT);
+    AccountBloomFilter filter = AccountBloomFilter.forAccounts(10, 0.01);
+    filter.add(5);
+    BloomFilterAccountValidator validator = new BloomFilterAccountValidator(full, filter, 0.01);
+
+    assertEquals(RejectionReason.UNKNOWN_ACCOUNT, validator.check(5));
+    assertEquals(1, validator.getFalsePositiveCount());
+    assertEquals(1.0, validator.getFalsePositiveRate());
+  }
+
+
+  /**
+   * Test invalid ids are left to the full check
+   */
+  @Test
+  void check_withInvalidId_returnsInvalidAccount() {
+    BloomFilterAccountValidator validator = new BloomFilterAccountValidator(registry, 0.01);
+
+    assertEquals(RejectionReason.INVALID_ACCOUNT, validator.check(0));
+    assertEquals(0, validator.getCheckCount());
+  }
+
+
+  /**
+   * Test new accounts are found once added, or once the filter is rebuilt
+   */
+  @Test
+  void check_withNewAccounts_foundAfterAddOrRebuild() throws IOException {
+    BloomFilterAccountValidator validator = new BloomFilterAccountValidator(registry, 0.01);
+    registry.put(3, Status.ACTIVE);
+    registry.put(4, Status.ACTIVE);
+
+    validator.add(3);
+    assertNull(validator.check(3));
+
+    registry.force();
+    validator.rebuild(file);
+    assertNull(validator.check(4));
+  }
+
+
+  /**
+   * Test accounts added while the filter is being rebuilt aren't lost when it's replaced
+   * (each is registered before it's added, so any added before a rebuild starts are in its snapshot)
+   */
+  @Test
+  void rebuild_withConcurrentAdds_keepsThem() throws Exception {
+    Path accounts = dir.resolve("many");
+    try (AccountRegistry many = AccountRegistry.create(accounts, 100_000)) {
+      BloomFilterAccountValidator validator = new BloomFilterAccountValidator(many, 0.01);
+
+      AtomicBoolean stop = new AtomicBoolean();
+      AtomicLong added = new AtomicLong();
+      Thread adder = new Thread(() -> {
+        for (long id = 1; id <= 50_000 && !stop.get(); id++) {
+          many.put(id, Status.ACTIVE);
+          validator.add(id);
+          added.set(id);
+        }
+      });
+      adder.start();
+      try {
+        for (int i = 0; i < 50; i++) {
+          validator.rebuild(accounts);
+        }
+      } finally {
+        stop.set(true);
+        adder.join();
+      }
+
+      AccountBloomFilter filter = validator.getFilter();
+      for (long id = 1; id <= added.get(); id++) {
+        assertTrue(filter.mightContain(id), "Account " + id);
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package uk.gov.dwp.uc.pairtest.domain.validator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry.Status;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RegisteredAccountValidatorTest {
+
+  @TempDir
+  Path dir;
+
+  private AccountRegistry registry;
+  private RegisteredAccountValidator validator;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    registry = AccountRegistry.create(dir.resolve("accounts"), 100);
+    registry.put(1, Status.ACTIVE);
+    registry.put(2, Status.BLOCKED);
+    validator = new RegisteredAccountValidator(registry);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    registry.close();
+  }
+
+  /**
+   * Test active accounts are ok
+   */
+  @Test
+  void validate_WithActiveAccount_DoesNotThrow() {
+    assertDoesNotThrow(() -> validator.validate(1));
+    assertNull(validator.check(1));
+  }
+
+
+  /**
+   * Test unknown accounts are not
+   */
+  @Test
+  void validate_WithUnknownAccount_ThrowsInvalidPurchaseException() {
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> validator.validate(3));
+    assertEquals(RejectionReason.UNKNOWN_ACCOUNT, ex.getReason());
+    assertEquals("Unknown account id (3)", ex.getMessage());
+  }
+
+
+  /**
+   * Test blocked accounts are not
+   */
+  @Test
+  void validate_WithBlockedAccount_ThrowsInvalidPurchaseException() {
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> validator.validate(2));
+    assertEquals(RejectionReason.BLOCKED_ACCOUNT, ex.getReason());
+  }
+
+
+  /**
+   * Test invalid ids are still reported as invalid
+   */
+  @Test
+  void check_WithZero_ReturnsInvalidAccount() {
+    assertEquals(RejectionReason.INVALID_ACCOUNT, validator.check(0));
+  }
+
+
+  /**
+   * Test changes to the registry are seen straight away
+   */
+  @Test
+  void check_AfterRegistryUpdated_UsesNewStatus() {
+    registry.put(3, Status.ACTIVE);
+    registry.put(1, Status.BLOCKED);
+
+    assertNull(validator.check(3));
+    assertEquals(RejectionReason.BLOCKED_ACCOUNT, validator.check(1));
+  }
+}
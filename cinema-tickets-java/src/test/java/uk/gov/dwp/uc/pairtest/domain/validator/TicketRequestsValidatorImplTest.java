@@ -1,11 +1,14 @@
 package uk.gov.dwp.uc.pairtest.domain.validator;
 
 import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TicketRequestsValidatorImplTest {
@@ -176,4 +179,28 @@ class TicketRequestsValidatorImplTest {
 
     assertDoesNotThrow(() -> validator.validate(req1, req2, req3));
   }
+
+
+  /**
+   * Test check reports the reason rather than throwing
+   */
+  @Test
+  void check_withInvalidRequests_returnsReason() {
+    TicketTypeRequest req1 = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 1);
+    TicketTypeRequest req2 = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 2);
+
+    assertEquals(RejectionReason.TOO_MANY_INFANTS, validator.check(BasketSummary.of(req1, req2)));
+    assertEquals(RejectionReason.NO_REQUESTS, validator.check(BasketSummary.of()));
+  }
+
+
+  /**
+   * Test check returns null for valid requests
+   */
+  @Test
+  void check_withValidRequests_returnsNull() {
+    TicketTypeRequest req = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 2);
+
+    assertNull(validator.check(BasketSummary.of(req)));
+  }
 }
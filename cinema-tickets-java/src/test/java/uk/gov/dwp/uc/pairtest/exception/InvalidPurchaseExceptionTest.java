@@ -1,9 +1,11 @@
 package uk.gov.dwp.uc.pairtest.exception;
 
 import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class InvalidPurchaseExceptionTest {
@@ -50,4 +52,35 @@ class InvalidPurchaseExceptionTest {
       throw new InvalidPurchaseException("Failure %s", "case");
     });
   }
+
+
+  /**
+   * Test an exception for a rejection reason carries the reason and formats its message
+   */
+  @Test
+  void constructor_withReason_usesReasonFormat() {
+    InvalidPurchaseException ex = new InvalidPurchaseException(RejectionReason.TOO_MANY_INFANTS, 3, 1);
+
+    assertEquals(RejectionReason.TOO_MANY_INFANTS, ex.getReason());
+    assertEquals("Infant tickets requested (3) exceeds adults (1)", ex.getMessage());
+  }
+
+
+  /**
+   * Test a plain message has no reason
+   */
+  @Test
+  void constructor_withSimpleMessage_hasNoReason() {
+    assertNull(new InvalidPurchaseException("error").getReason());
+  }
+
+
+  /**
+   * Test no stack trace is captured
+   */
+  @Test
+  void exception_hasNoStackTrace() {
+    InvalidPurchaseException ex = new InvalidPurchaseException("error");
+    assertEquals(0, ex.getStackTrace().length);
+  }
 }
@@ -0,0 +1,131 @@
+package uk.gov.dwp.uc.pairtest.factory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.account.AccountRegistry;
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketCostCalculatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.limit.VelocityLimiter;
+import uk.gov.dwp.uc.pairtest.domain.table.TableDrivenTicketRules;
+import uk.gov.dwp.uc.pairtest.domain.validator.AccountValidatorImpl;
+import uk.gov.dwp.uc.pairtest.domain.validator.RegisteredAccountValidator;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.provider.AccountValidator;
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.provider.SeatReservationCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
+import uk.gov.dwp.uc.pairtest.provider.TicketRequestsValidator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProviderRegistryTest {
+
+  /**
+   * Test the standard implementations are used when nothing is configured
+   */
+  @Test
+  void get_withNoConfig_returnsDefaults() {
+    ProviderRegistry registry = new ProviderRegistry(new Properties());
+
+    assertInstanceOf(AccountValidatorImpl.class, registry.get(AccountValidator.class));
+    assertInstanceOf(TicketCostCalculatorImpl.class, registry.get(TicketCostCalculator.class));
+  }
+
+
+  /**
+   * Test providers are created once and shared
+   */
+  @Test
+  void get_calledTwice_returnsSameInstance() {
+    ProviderRegistry registry = new ProviderRegistry(new Properties());
+
+    assertSame(registry.get(TicketCostCalculator.class), registry.get(TicketCostCalculator.class));
+  }
+
+
+  /**
+   * Test a configured implementation of several interfaces is shared between them
+   */
+  @Test
+  void get_withImplementationOfSeveralInterfaces_sharesInstance() {
+    Properties config = new Properties();
+    config.setProperty("provider.TicketRequestsValidator", TableDrivenTicketRules.class.getName());
+    config.setProperty("provider.TicketCostCalculator", TableDrivenTicketRules.class.getName());
+    config.setProperty("provider.SeatReservationCalculator", TableDrivenTicketRules.class.getName());
+
+    ProviderRegistry registry = new ProviderRegistry(config);
+
+    TicketRequestsValidator validator = registry.get(TicketRequestsValidator.class);
+    assertInstanceOf(TableDrivenTicketRules.class, validator);
+    assertSame(validator, registry.get(TicketCostCalculator.class));
+    assertSame(validator, registry.get(SeatReservationCalculator.class));
+  }
+
+
+  /**
+   * Test an alternative implementation can be configured
+   */
+  @Test
+  void get_withConfiguredImplementation_returnsIt() {
+    Properties config = new Properties();
+    config.setProperty("provider.PurchaseLimiter", VelocityLimiter.class.getName());
+
+    ProviderRegistry registry = new ProviderRegistry(config);
+
+    assertInstanceOf(VelocityLimiter.class, registry.get(PurchaseLimiter.class));
+  }
+
+
+  /**
+   * Test the registry backed account validator can be configured, opening the registry named by its system property
+   */
+  @Test
+  void get_withRegisteredAccountValidator_opensConfiguredRegistry(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("accounts");
+    try (AccountRegistry accounts = AccountRegistry.create(file, 100)) {
+      accounts.put(1L, AccountRegistry.Status.ACTIVE);
+    }
+    Properties config = new Properties();
+    config.setProperty("provider.AccountValidator", RegisteredAccountValidator.class.getName());
+
+    System.setProperty(AccountRegistry.PROPERTY_PREFIX + "file", file.toString());
+    try {
+      AccountValidator validator = new ProviderRegistry(config).get(AccountValidator.class);
+
+      assertInstanceOf(RegisteredAccountValidator.class, validator);
+      assertDoesNotThrow(() -> validator.validate(1L));
+      assertThrows(InvalidPurchaseException.class, () -> validator.validate(2L));
+    } finally {
+      System.clearProperty(AccountRegistry.PROPERTY_PREFIX + "file");
+    }
+  }
+
+
+  /**
+   * Test an unknown implementation is reported when the registry is created
+   */
+  @Test
+  void constructor_withUnknownImplementation_throwsException() {
+    Properties config = new Properties();
+    config.setProperty("provider.AccountValidator", "no.such.Validator");
+
+    assertThrows(IllegalStateException.class, () -> new ProviderRegistry(config));
+  }
+
+
+  /**
+   * Test asking for something that isn't a provider fails
+   */
+  @Test
+  void get_withUnknownType_throwsException() {
+    ProviderRegistry registry = new ProviderRegistry(new Properties());
+
+    assertThrows(IllegalArgumentException.class, () -> registry.get(Runnable.class));
+  }
+}
@@ -0,0 +1,19 @@
+package uk.gov.dwp.uc.pairtest.factory;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.limit.UnlimitedPurchaseLimiter;
+import uk.gov.dwp.uc.pairtest.provider.PurchaseLimiter;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class PurchaseLimiterFactoryTest {
+
+  /**
+   * Check the correct implementation is returned
+   */
+  @Test
+  void getPurchaseLimiter_ReturnsUnlimitedPurchaseLimiter() {
+    PurchaseLimiter limiter = PurchaseLimiterFactory.getPurchaseLimiter();
+    assertInstanceOf(UnlimitedPurchaseLimiter.class, limiter);
+  }
+}
@@ -5,6 +5,7 @@ import uk.gov.dwp.uc.pairtest.domain.cost.TicketCostCalculatorImpl;
 import uk.gov.dwp.uc.pairtest.provider.TicketCostCalculator;
 
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class TicketCostCalculatorFactoryTest {
 
@@ -16,4 +17,13 @@ class TicketCostCalculatorFactoryTest {
     TicketCostCalculator calculator = TicketCostCalculatorFactory.getTicketCostProvider();
     assertInstanceOf(TicketCostCalculatorImpl.class, calculator);
   }
+
+
+  /**
+   * Check the same instance is shared
+   */
+  @Test
+  void getTicketCostProvider_ReturnsSharedInstance() {
+    assertSame(TicketCostCalculatorFactory.getTicketCostProvider(), TicketCostCalculatorFactory.getTicketCostProvider());
+  }
 }
@@ -0,0 +1,160 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyCacheTest {
+
+  /**
+   * Test a repeated key gets the original outcome without running the call again
+   */
+  @Test
+  void execute_repeatedKey_returnsOriginalOutcome() {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(10, Duration.ofMinutes(1), v -> true, e -> false);
+    AtomicInteger calls = new AtomicInteger();
+
+    assertEquals(1, cache.execute("key", 0, calls::incrementAndGet));
+    assertEquals(1, cache.execute("key", 0, calls::incrementAndGet));
+    assertEquals(2, cache.execute("other", 0, calls::incrementAndGet));
+
+    assertEquals(2, calls.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+
+  /**
+   * Test a key reused for a different request is refused, without running the call
+   */
+  @Test
+  void execute_reusedKeyWithOtherDigest_throws() {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(10, Duration.ofMinutes(1), v -> true, e -> false,
+        IllegalArgumentException::new);
+    AtomicInteger calls = new AtomicInteger();
+
+    assertEquals(1, cache.execute("key", 1, calls::incrementAndGet));
+    IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+        () -> cache.execute("key", 2, calls::incrementAndGet));
+    assertEquals("key", ex.getMessage());
+    assertEquals(1, cache.execute("key", 1, calls::incrementAndGet));
+    assertEquals(1, calls.get());
+  }
+
+
+  /**
+   * Test concurrent duplicates wait for the one call in flight
+   */
+  @Test
+  void execute_concurrentDuplicates_runsOnce() throws Exception {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(10, Duration.ofMinutes(1), v -> true, e -> false);
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch inFlight = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> outcomes = new ArrayList<>();
+      outcomes.add(executor.submit(() -> cache.execute("key", 0, () -> {
+        inFlight.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return calls.incrementAndGet();
+      })));
+      assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+      for (int i = 0; i < 7; i++) {
+        outcomes.add(executor.submit(() -> cache.execute("key", 0, calls::incrementAndGet)));
+      }
+      release.countDown();
+
+      for (Future<Integer> outcome : outcomes) {
+        assertEquals(1, outcome.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, calls.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Test a remembered failure is thrown again for a repeat
+   */
+  @Test
+  void execute_rememberedFailure_rethrows() {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(10, Duration.ofMinutes(1), v -> true,
+        e -> e instanceof IllegalArgumentException);
+    IllegalArgumentException failure = new IllegalArgumentException("Rejected");
+
+    assertSame(failure, assertThrows(IllegalArgumentException.class, () -> cache.execute("key", 0, () -> {
+      throw failure;
+    })));
+    assertSame(failure, assertThrows(IllegalArgumentException.class, () -> cache.execute("key", 0, () -> 1)));
+  }
+
+
+  /**
+   * Test failures and outcomes that aren't remembered let a repeat run the call again
+   */
+  @Test
+  void execute_forgottenOutcome_runsAgain() {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(10, Duration.ofMinutes(1), v -> v > 1, e -> false);
+
+    assertThrows(IllegalStateException.class, () -> cache.execute("key", 0, () -> {
+      throw new IllegalStateException("Gateway down");
+    }));
+    assertEquals(1, cache.execute("key", 0, () -> 1));
+    assertEquals(2, cache.execute("key", 0, () -> 2));
+    assertEquals(2, cache.execute("key", 0, () -> 3));
+  }
+
+
+  /**
+   * Test keys are forgotten after the time to live
+   */
+  @Test
+  void execute_afterTtl_runsAgain() throws Exception {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(10, Duration.ofMillis(20), v -> true, e -> false);
+
+    assertEquals(1, cache.execute("key", 0, () -> 1));
+    Thread.sleep(50);
+
+    assertEquals(2, cache.execute("key", 0, () -> 2));
+    assertEquals(1, cache.size());
+  }
+
+
+  /**
+   * Test the oldest keys are evicted once the cache is full
+   */
+  @Test
+  void execute_whenFull_evictsOldest() {
+    IdempotencyCache<Integer> cache = new IdempotencyCache<>(3, Duration.ofMinutes(1), v -> true, e -> false);
+
+    for (int i = 0; i < 5; i++) {
+      int value = i;
+      cache.execute("key" + i, 0, () -> value);
+    }
+
+    assertEquals(3, cache.size());
+    assertEquals(-1, cache.execute("key0", 0, () -> -1));
+    assertEquals(4, cache.execute("key4", 0, () -> -1));
+  }
+}
@@ -0,0 +1,80 @@
+package uk.gov.dwp.uc.pairtest.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.domain.cost.PriceTable;
+import uk.gov.dwp.uc.pairtest.domain.cost.TicketTypeCost;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PurchaseEventTest {
+
+  @TempDir
+  Path dir;
+
+  /**
+   * Test a purchase emits purchase, payment and reservation events
+   */
+  @Test
+  void purchaseTickets_whileRecording_emitsEvents() throws Exception {
+    TicketServiceImpl service = new TicketServiceImpl(mock(TicketPaymentService.class), mock(SeatReservationService.class));
+
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(PurchaseEvent.class);
+      recording.enable(PaymentCallEvent.class);
+      recording.enable(SeatReservationEvent.class);
+      recording.start();
+
+      service.purchaseTickets(7L, new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.INFANT, 1));
+      assertThrows(InvalidPurchaseException.class, () -> service.purchaseTickets(8L, new TicketTypeRequest(Type.CHILD, 1)));
+
+      recording.stop();
+      Path file = dir.resolve("purchase.jfr");
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    }
+
+    List<RecordedEvent> purchases = named(events, "uk.gov.dwp.uc.pairtest.Purchase");
+    assertEquals(2, purchases.size());
+
+    RecordedEvent success = purchases.stream().filter(e -> e.getLong("accountId") == 7L).findFirst().orElseThrow();
+    assertEquals("SUCCESS", success.getString("outcome"));
+    assertEquals(2, success.getInt("adultTickets"));
+    assertEquals(1, success.getInt("infantTickets"));
+    assertEquals(2 * TicketTypeCost.TICKET_COST.get(Type.ADULT), success.getInt("cost"));
+    assertEquals(PriceTable.DEFAULT.getVersion(), success.getInt("priceVersion"));
+    assertEquals(2, success.getInt("seats"));
+
+    RecordedEvent rejected = purchases.stream().filter(e -> e.getLong("accountId") == 8L).findFirst().orElseThrow();
+    assertEquals("NO_ADULT", rejected.getString("outcome"));
+
+    List<RecordedEvent> payments = named(events, "uk.gov.dwp.uc.pairtest.PaymentCall");
+    assertEquals(1, payments.size());
+    assertTrue(payments.get(0).getBoolean("succeeded"));
+
+    assertEquals(1, named(events, "uk.gov.dwp.uc.pairtest.SeatReservation").size());
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals(name))
+        .collect(Collectors.toList());
+  }
+}
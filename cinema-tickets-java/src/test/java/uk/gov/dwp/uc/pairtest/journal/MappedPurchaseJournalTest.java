@@ -0,0 +1,212 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dwp.uc.pairtest.domain.BasketSummary;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedPurchaseJournalTest {
+
+  private static final BasketSummary BASKET = BasketSummary.of(
+      new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1), new TicketTypeRequest(Type.INFANT, 1));
+
+  @TempDir
+  Path dir;
+
+  /**
+   * Test the unfinished purchases are read back after reopening, at the last step reached
+   */
+  @Test
+  void replay_afterReopen_returnsUnfinishedPurchases() throws IOException {
+    Path file = dir.resolve("purchases.journal");
+    long begun;
+    long paid;
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(file, 100)) {
+      begun = journal.begin(1L, BASKET, 65, 3);
+      paid = journal.begin(2L, BASKET, 65, 3);
+      journal.advance(paid, PurchaseStep.PAID);
+      long completed = journal.begin(3L, BASKET, 65, 3);
+      journal.advance(completed, PurchaseStep.PAID);
+      journal.advance(completed, PurchaseStep.COMPLETED);
+      long failed = journal.begin(4L, BASKET, 65, 3);
+      journal.advance(failed, PurchaseStep.FAILED);
+    }
+
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.open(file)) {
+      List<JournalRecord> unfinished = journal.replay();
+
+      assertEquals(2, unfinished.size());
+      JournalRecord first = unfinished.get(0);
+      assertEquals(begun, first.getPurchaseId());
+      assertEquals(1L, first.getAccountId());
+      assertEquals(PurchaseStep.BEGUN, first.getStep());
+      assertEquals(2, first.getAdultTickets());
+      assertEquals(1, first.getChildTickets());
+      assertEquals(1, first.getInfantTickets());
+      assertEquals(65, first.getCost());
+      assertEquals(3, first.getSeats());
+      assertTrue(first.getTimestamp() > 0);
+
+      assertEquals(paid, unfinished.get(1).getPurchaseId());
+      assertEquals(2L, unfinished.get(1).getAccountId());
+      assertEquals(PurchaseStep.PAID, unfinished.get(1).getStep());
+
+      // New purchases carry on from the ids already used
+      assertTrue(journal.begin(5L, BASKET, 65, 3) > 4);
+    }
+  }
+
+
+  /**
+   * Test a batch of purchases is journalled with one sync for each step, and a compensating one stays unfinished
+   */
+  @Test
+  void beginAll_withBatch_syncsOnce() throws IOException {
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(dir.resolve("purchases.journal"), 100)) {
+      long before = journal.getSyncCount();
+      long[] purchaseIds = journal.beginAll(new long[]{1L, 2L, 3L}, new BasketSummary[]{BASKET, BASKET, BASKET},
+          new int[]{65, 65, 65}, new int[]{3, 3, 3});
+      journal.advanceAll(purchaseIds, PurchaseStep.PAID);
+
+      assertEquals(2, journal.getSyncCount() - before);
+      assertEquals(3, journal.replay().size());
+
+      journal.advanceAll(purchaseIds, PurchaseStep.COMPENSATING);
+      journal.advance(purchaseIds[0], PurchaseStep.COMPENSATED);
+
+      List<JournalRecord> unfinished = journal.replay();
+      assertEquals(2, unfinished.size());
+      assertEquals(purchaseIds[1], unfinished.get(0).getPurchaseId());
+      assertEquals(PurchaseStep.COMPENSATING, unfinished.get(0).getStep());
+    }
+  }
+
+
+  /**
+   * Test a full journal is compacted down to the unfinished purchases
+   */
+  @Test
+  void begin_whenFull_compacts() throws IOException {
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(dir.resolve("purchases.journal"), 8)) {
+      long unfinished = journal.begin(1L, BASKET, 65, 3);
+      journal.advance(unfinished, PurchaseStep.PAID);
+
+      for (int i = 0; i < 10; i++) {
+        long purchaseId = journal.begin(2L, BASKET, 65, 3);
+        journal.advance(purchaseId, PurchaseStep.COMPLETED);
+      }
+
+      List<JournalRecord> records = journal.replay();
+      assertEquals(1, records.size());
+      assertEquals(unfinished, records.get(0).getPurchaseId());
+      assertEquals(1L, records.get(0).getAccountId());
+      assertEquals(PurchaseStep.PAID, records.get(0).getStep());
+      assertTrue(journal.getRecordCount() < 8);
+    }
+  }
+
+
+  /**
+   * Test a compacted journal is renamed into place, so reopening it replays the unfinished purchases
+   */
+  @Test
+  void open_afterCompaction_returnsUnfinishedPurchases() throws IOException {
+    Path file = dir.resolve("purchases.journal");
+    long unfinished;
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(file, 8)) {
+      unfinished = journal.begin(1L, BASKET, 65, 3);
+      for (int i = 0; i < 10; i++) {
+        long purchaseId = journal.begin(2L, BASKET, 65, 3);
+        journal.advance(purchaseId, PurchaseStep.COMPLETED);
+      }
+      journal.advance(unfinished, PurchaseStep.PAID);
+    }
+
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.open(file)) {
+      List<JournalRecord> records = journal.replay();
+      assertEquals(1, records.size());
+      assertEquals(unfinished, records.get(0).getPurchaseId());
+      assertEquals(PurchaseStep.PAID, records.get(0).getStep());
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(List.of(file), files.collect(Collectors.toList()));
+    }
+  }
+
+
+  /**
+   * Test a journal full of unfinished purchases can't take more
+   */
+  @Test
+  void begin_whenFullOfUnfinished_throws() throws IOException {
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(dir.resolve("purchases.journal"), 2)) {
+      journal.begin(1L, BASKET, 65, 3);
+      journal.begin(2L, BASKET, 65, 3);
+
+      assertThrows(IllegalStateException.class, () -> journal.begin(3L, BASKET, 65, 3));
+    }
+  }
+
+
+  /**
+   * Test concurrent purchases share the forces to disk
+   */
+  @Test
+  void begin_concurrently_sharesSyncs() throws Exception {
+    int threads = 8;
+    int purchases = 200;
+    try (MappedPurchaseJournal journal = MappedPurchaseJournal.create(dir.resolve("purchases.journal"), 10_000)) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      CountDownLatch start = new CountDownLatch(1);
+      try {
+        for (int t = 0; t < threads; t++) {
+          executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < purchases; i++) {
+              long purchaseId = journal.begin(1L, BASKET, 65, 3);
+              journal.advance(purchaseId, PurchaseStep.COMPLETED);
+            }
+            return null;
+          });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+      } finally {
+        executor.shutdownNow();
+      }
+
+      assertEquals(threads * purchases * 2, journal.getRecordCount());
+      assertTrue(journal.getSyncCount() <= threads * purchases * 2);
+      assertTrue(journal.replay().isEmpty());
+    }
+  }
+
+
+  /**
+   * Test a file that isn't a journal is refused
+   */
+  @Test
+  void open_notAJournal_throws() throws IOException {
+    Path file = dir.resolve("other");
+    Files.write(file, new byte[128]);
+
+    assertThrows(IOException.class, () -> MappedPurchaseJournal.open(file));
+  }
+}
@@ -0,0 +1,114 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.saga.Compensator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PurchaseRecoveryTest {
+
+  private final PurchaseJournal journal = mock(PurchaseJournal.class);
+  private final TicketPaymentService tps = mock(TicketPaymentService.class);
+  private final SeatReservationService srs = mock(SeatReservationService.class);
+  private final Compensator compensator = mock(Compensator.class);
+  private final PurchaseRecovery recovery = new PurchaseRecovery(journal, tps, srs, compensator);
+
+  {
+    // Run compensations straight away
+    doAnswer(invocation -> {
+      List<Runnable> compensations = invocation.getArgument(0);
+      compensations.forEach(Runnable::run);
+      Runnable onCompensated = invocation.getArgument(1);
+      onCompensated.run();
+      return null;
+    }).when(compensator).submit(anyList(), any(Runnable.class));
+  }
+
+  /**
+   * Test a paid purchase has its seats reserved
+   */
+  @Test
+  void recover_paid_completes() {
+    List<JournalRecord> unknown = recovery.recover(List.of(record(7, PurchaseStep.PAID)));
+
+    assertTrue(unknown.isEmpty());
+    verify(srs).reserveSeat(1L, 3);
+    verify(journal).advance(7, PurchaseStep.COMPLETED);
+    verify(tps, never()).refund(1L, 65);
+  }
+
+
+  /**
+   * Test a paid purchase whose seats can't be reserved is refunded, and only recorded as compensated once it has been
+   */
+  @Test
+  void recover_paidReservationFails_refunds() {
+    doThrow(new IllegalStateException("Booking down")).when(srs).reserveSeat(1L, 3);
+
+    List<JournalRecord> unknown = recovery.recover(List.of(record(7, PurchaseStep.PAID)));
+
+    assertTrue(unknown.isEmpty());
+    verify(journal).advance(7, PurchaseStep.COMPENSATING);
+    verify(tps).refund(1L, 65);
+    verify(journal).advance(7, PurchaseStep.COMPENSATED);
+  }
+
+
+  /**
+   * Test a purchase whose refund never went through is refunded again
+   */
+  @Test
+  void recover_compensating_refundsAgain() {
+    recovery.recover(List.of(record(7, PurchaseStep.COMPENSATING)));
+
+    verify(tps).refund(1L, 65);
+    verify(journal).advance(7, PurchaseStep.COMPENSATED);
+    verify(srs, never()).reserveSeat(1L, 3);
+  }
+
+
+  /**
+   * Test a purchase not known to be paid is neither refunded nor completed, but returned for reconciliation
+   */
+  @Test
+  void recover_begun_returnsForReconciliation() {
+    JournalRecord begun = record(7, PurchaseStep.BEGUN);
+
+    List<JournalRecord> unknown = recovery.recover(List.of(begun, record(8, PurchaseStep.PAID)));
+
+    assertEquals(List.of(begun), unknown);
+    verify(tps, never()).refund(1L, 65);
+    verify(journal, never()).advance(7, PurchaseStep.COMPENSATED);
+  }
+
+
+  /**
+   * Test a reconciled purchase is completed if it was paid for, and failed if not
+   */
+  @Test
+  void resolve_afterReconciliation_finishesPurchase() {
+    recovery.resolve(record(7, PurchaseStep.BEGUN), true);
+    recovery.resolve(record(8, PurchaseStep.BEGUN), false);
+
+    verify(journal).advance(7, PurchaseStep.PAID);
+    verify(srs).reserveSeat(1L, 3);
+    verify(journal).advance(7, PurchaseStep.COMPLETED);
+    verify(journal).advance(8, PurchaseStep.FAILED);
+  }
+
+  private static JournalRecord record(long purchaseId, PurchaseStep step) {
+    return new JournalRecord(purchaseId, 1L, 2, 1, 1, 65, 3, step, System.currentTimeMillis());
+  }
+}
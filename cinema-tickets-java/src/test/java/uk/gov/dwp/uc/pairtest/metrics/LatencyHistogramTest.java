@@ -0,0 +1,62 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+  /**
+   * Test every bucket's range follows on from the previous one and values land in the right bucket
+   */
+  @Test
+  void buckets_coverValuesContiguously() {
+    long expectedLowest = 0;
+    for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+      long highest = LatencyHistogram.highestValue(bucket);
+      assertEquals(bucket, LatencyHistogram.bucket(expectedLowest));
+      assertEquals(bucket, LatencyHistogram.bucket(highest));
+      expectedLowest = highest + 1;
+    }
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1));
+  }
+
+
+  /**
+   * Test an empty histogram reports zeros
+   */
+  @Test
+  void snapshot_withNoValues_isZero() {
+    LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMean());
+    assertEquals(0, snapshot.getValueAtPercentile(99));
+  }
+
+
+  /**
+   * Test percentiles are reported to within the bucket precision
+   */
+  @Test
+  void snapshot_withValues_reportsPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    LatencySnapshot snapshot = histogram.snapshot();
+
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(1_000_000, snapshot.getMax());
+    assertEquals(500_500, snapshot.getMean(), 0.001);
+    assertWithin(500_000, snapshot.getValueAtPercentile(50));
+    assertWithin(990_000, snapshot.getValueAtPercentile(99));
+    assertEquals(1_000_000, snapshot.getValueAtPercentile(100));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual >= expected && actual <= expected * 1.125, "expected ~" + expected + " but was " + actual);
+  }
+}
@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PurchaseMetricsTest {
+
+  private final PurchaseMetrics metrics = new PurchaseMetrics();
+
+  /**
+   * Test the counters and stage latencies appear in a snapshot
+   */
+  @Test
+  void snapshot_reflectsRecordedValues() {
+    metrics.recordSuccess();
+    metrics.recordSuccess();
+    metrics.recordRejection(RejectionReason.NO_ADULT);
+    metrics.recordRejection(null);
+    metrics.record(PurchaseStage.PAYMENT, 5_000);
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+
+    assertEquals(2, snapshot.getSuccessCount());
+    assertEquals(1, snapshot.getRejectionCount());
+    assertEquals(1, snapshot.getRejectionCount(RejectionReason.NO_ADULT));
+    assertEquals(1, snapshot.getStage(PurchaseStage.PAYMENT).getCount());
+    assertEquals(0, snapshot.getStage(PurchaseStage.RESERVATION).getCount());
+  }
+
+
+  /**
+   * Test the MXBeans are registered and report the metrics
+   */
+  @Test
+  void registerMBeans_exposesMetrics() throws Exception {
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    metrics.registerMBeans(server, "test");
+
+    metrics.recordSuccess();
+    metrics.record(PurchaseStage.PRICING, 100);
+
+    ObjectName counters = new ObjectName("uk.gov.dwp.uc.pairtest:type=PurchaseMetrics,name=\"test\"");
+    ObjectName pricing = new ObjectName("uk.gov.dwp.uc.pairtest:type=StageLatency,name=\"test\",stage=PRICING");
+
+    assertEquals(1L, server.getAttribute(counters, "SuccessCount"));
+    assertEquals(1L, server.getAttribute(pricing, "Count"));
+    assertEquals(100L, server.getAttribute(pricing, "MaxNanos"));
+  }
+
+
+  /**
+   * Test snapshots are delivered periodically
+   */
+  @Test
+  void scheduleSnapshots_deliversSnapshots() throws Exception {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      CountDownLatch delivered = new CountDownLatch(2);
+      metrics.scheduleSnapshots(scheduler, Duration.ofMillis(10), snapshot -> delivered.countDown());
+
+      assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long MILLIS = 1_000_000;
+
+  /**
+   * Test calls over the limit are shed once the queue is full
+   */
+  @Test
+  void acquire_withFullQueue_sheds() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 2, 1, 10, 0, Duration.ZERO);
+    limiter.acquire();
+    limiter.acquire();
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, limiter::acquire);
+    assertEquals(RejectionReason.OVERLOADED, ex.getReason());
+    assertEquals("Payment service is overloaded, try again later", ex.getMessage());
+    assertEquals(1, limiter.getShedCount());
+    assertEquals(2, limiter.getInFlight());
+  }
+
+
+  /**
+   * Test a queued call goes ahead when a slot is given back
+   */
+  @Test
+  void acquire_withQueue_waitsForSlot() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 1, 1, 10, 1, Duration.ofSeconds(5));
+    limiter.acquire();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> waiting = executor.submit(limiter::acquire);
+      Thread.sleep(50);
+
+      limiter.release(MILLIS, true);
+      waiting.get(5, TimeUnit.SECONDS);
+      assertEquals(1, limiter.getInFlight());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Test a queued call is shed when its wait is up
+   */
+  @Test
+  void acquire_waitingTooLong_sheds() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 1, 1, 10, 1, Duration.ofMillis(20));
+    limiter.acquire();
+
+    assertThrows(InvalidPurchaseException.class, limiter::acquire);
+    assertEquals(1, limiter.getShedCount());
+  }
+
+
+  /**
+   * Test the limit grows while calls are fast and the limit is in use
+   */
+  @Test
+  void release_withFastCalls_increasesLimit() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 2, 1, 10, 0, Duration.ZERO);
+
+    // Keep the limit in use
+    for (int i = 0; i < 100; i++) {
+      int slots = limiter.getLimit();
+      for (int slot = 0; slot < slots; slot++) {
+        limiter.acquire();
+      }
+      for (int slot = 0; slot < slots; slot++) {
+        limiter.release(MILLIS, true);
+      }
+    }
+
+    assertEquals(10, limiter.getLimit());
+  }
+
+
+  /**
+   * Test the limit is cut when calls slow down or fail
+   */
+  @Test
+  void release_withSlowOrFailedCalls_decreasesLimit() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 10, 2, 10, 0, Duration.ZERO);
+    limiter.acquire();
+    limiter.release(MILLIS, true);
+
+    for (int i = 0; i < 20; i++) {
+      limiter.acquire();
+      limiter.release(10 * MILLIS, i % 2 == 0);
+      Thread.sleep(11);
+    }
+
+    assertEquals(2, limiter.getLimit());
+  }
+
+
+  /**
+   * Test a call through the limiter gives its slot back whatever happens
+   */
+  @Test
+  void run_withFailingCall_releasesSlot() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 1, 1, 10, 0, Duration.ZERO);
+
+    assertThrows(IllegalStateException.class, () -> limiter.run(() -> {
+      throw new IllegalStateException("Gateway down");
+    }));
+
+    assertEquals(0, limiter.getInFlight());
+    assertDoesNotThrow(() -> limiter.run(() -> { }));
+  }
+
+
+  /**
+   * Test the calls in flight never exceed the limit, under load
+   */
+  @Test
+  void run_underLoad_keepsWithinLimit() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 4, 4, 4, 2, Duration.ofMillis(5));
+    int[] maxSeen = new int[1];
+    CountDownLatch done = new CountDownLatch(16);
+
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      for (int t = 0; t < 16; t++) {
+        executor.submit(() -> {
+          for (int i = 0; i < 20; i++) {
+            try {
+              limiter.run(() -> {
+                synchronized (maxSeen) {
+                  maxSeen[0] = Math.max(maxSeen[0], limiter.getInFlight());
+                }
+                try {
+                  Thread.sleep(1);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              });
+            } catch (InvalidPurchaseException e) {
+              // Shed
+            }
+          }
+          done.countDown();
+        });
+      }
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertTrue(maxSeen[0] <= 4, "Max in flight " + maxSeen[0]);
+    assertTrue(limiter.getShedCount() > 0);
+  }
+}
@@ -0,0 +1,133 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+
+  /**
+   * Test a call that finishes in time is run
+   */
+  @Test
+  void run_inTime_runsCall() {
+    try (Bulkhead bulkhead = new Bulkhead("Payment service", 1, 0, Duration.ofSeconds(5))) {
+      AtomicBoolean ran = new AtomicBoolean();
+
+      bulkhead.run(() -> ran.set(true));
+
+      assertTrue(ran.get());
+    }
+  }
+
+
+  /**
+   * Test what the call throws is passed on
+   */
+  @Test
+  void run_failingCall_rethrows() {
+    try (Bulkhead bulkhead = new Bulkhead("Payment service", 1, 0, Duration.ofSeconds(5))) {
+      assertThrows(IllegalStateException.class, () -> bulkhead.run(() -> {
+        throw new IllegalStateException("Gateway down");
+      }));
+    }
+  }
+
+
+  /**
+   * Test a hung call is abandoned at the deadline, and interrupted
+   */
+  @Test
+  void run_hungCall_timesOut() throws Exception {
+    try (Bulkhead bulkhead = new Bulkhead("Payment service", 1, 0, Duration.ofMillis(50))) {
+      CountDownLatch interrupted = new CountDownLatch(1);
+
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> bulkhead.run(() -> {
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+      }));
+
+      assertEquals(RejectionReason.TIMED_OUT, ex.getReason());
+      assertEquals("Payment service did not respond in time", ex.getMessage());
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      assertEquals(1, bulkhead.getTimedOutCount());
+    }
+  }
+
+
+  /**
+   * Test calls are rejected once every thread is busy and the queue is full
+   */
+  @Test
+  void run_whenFull_rejects() throws Exception {
+    ExecutorService callers = Executors.newSingleThreadExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    try (Bulkhead bulkhead = new Bulkhead("Seat reservation service", 1, 0, Duration.ofSeconds(5))) {
+      CountDownLatch started = new CountDownLatch(1);
+      callers.submit(() -> bulkhead.run(() -> {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> bulkhead.run(() -> { }));
+      assertEquals(RejectionReason.OVERLOADED, ex.getReason());
+      assertEquals(1, bulkhead.getRejectedCount());
+    } finally {
+      release.countDown();
+      callers.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Test calls that time out waiting for a thread are taken off the queue, so it doesn't fill with them
+   */
+  @Test
+  void run_queuedCallsTimingOut_leaveQueue() throws Exception {
+    ExecutorService callers = Executors.newSingleThreadExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    try (Bulkhead bulkhead = new Bulkhead("Seat reservation service", 1, 1, Duration.ofMillis(20))) {
+      // Tie up the thread with a call that ignores being interrupted
+      CountDownLatch started = new CountDownLatch(1);
+      callers.submit(() -> bulkhead.run(() -> {
+        started.countDown();
+        while (release.getCount() > 0) {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            // Ignored, like a call stuck in the service
+          }
+        }
+      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      for (int i = 0; i < 5; i++) {
+        InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> bulkhead.run(() -> { }));
+        assertEquals(RejectionReason.TIMED_OUT, ex.getReason());
+      }
+      assertEquals(0, bulkhead.getRejectedCount());
+    } finally {
+      release.countDown();
+      callers.shutdownNow();
+    }
+  }
+}
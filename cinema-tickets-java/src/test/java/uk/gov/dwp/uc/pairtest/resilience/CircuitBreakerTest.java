@@ -0,0 +1,223 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+  private static final Runnable FAILING = () -> {
+    throw new IllegalStateException("Service down");
+  };
+
+  /**
+   * Test the breaker opens after the threshold of consecutive failures, and then fails fast
+   */
+  @Test
+  void run_afterConsecutiveFailures_opens() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 3, Duration.ofMinutes(1));
+    AtomicInteger calls = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(IllegalStateException.class, () -> breaker.run(() -> {
+        calls.incrementAndGet();
+        FAILING.run();
+      }));
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+    InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> breaker.run(calls::incrementAndGet));
+    assertEquals(RejectionReason.UNAVAILABLE, ex.getReason());
+    assertEquals("Payment service is unavailable, try again later", ex.getMessage());
+    assertEquals(3, calls.get());
+    assertEquals(1, breaker.getOpenedCount());
+    assertEquals(1, breaker.getRejectedCount());
+  }
+
+
+  /**
+   * Test calls turned away as overloaded, before reaching the service, don't open the breaker
+   */
+  @Test
+  void run_withOverloadedRejections_staysClosed() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 2, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 5; i++) {
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> breaker.run(() -> {
+        throw new InvalidPurchaseException(RejectionReason.OVERLOADED, "Payment service");
+      }));
+      assertEquals(RejectionReason.OVERLOADED, ex.getReason());
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+    // Other rejections still count
+    for (int i = 0; i < 2; i++) {
+      assertThrows(InvalidPurchaseException.class, () -> breaker.run(() -> {
+        throw new InvalidPurchaseException(RejectionReason.TIMED_OUT, "Payment service");
+      }));
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+  }
+
+
+  /**
+   * Test calls the service doesn't support, such as a refund, don't open the breaker
+   */
+  @Test
+  void run_withUnsupportedCalls_staysClosed() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 2, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(UnsupportedOperationException.class, () -> breaker.run(() -> {
+        throw new UnsupportedOperationException("Refunds not supported");
+      }));
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+  }
+
+
+  /**
+   * Test a success resets the run of failures
+   */
+  @Test
+  void run_withSuccessBetweenFailures_staysClosed() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 2, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(IllegalStateException.class, () -> breaker.run(FAILING));
+      breaker.run(() -> { });
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertEquals(0, breaker.getOpenedCount());
+  }
+
+
+  /**
+   * Test a successful trial call after the open duration closes the breaker
+   */
+  @Test
+  void run_successfulTrial_closes() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 1, Duration.ZERO);
+    assertThrows(IllegalStateException.class, () -> breaker.run(FAILING));
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+    breaker.run(() -> { });
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    assertEquals(1, breaker.getHalfOpenedCount());
+    assertEquals(1, breaker.getClosedCount());
+  }
+
+
+  /**
+   * Test a failed trial call opens the breaker again
+   */
+  @Test
+  void run_failedTrial_reopens() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 1, Duration.ZERO);
+    assertThrows(IllegalStateException.class, () -> breaker.run(FAILING));
+
+    assertThrows(IllegalStateException.class, () -> breaker.run(FAILING));
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertEquals(2, breaker.getOpenedCount());
+    assertEquals(0, breaker.getClosedCount());
+  }
+
+
+  /**
+   * Test only one trial call is let through while half open
+   */
+  @Test
+  void acquirePermission_whileTrialInFlight_rejects() {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 1, Duration.ofMillis(50));
+    breaker.acquirePermission();
+    breaker.onFailure();
+
+    // Wait out the open duration, then take the trial
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (true) {
+      try {
+        breaker.acquirePermission();
+        break;
+      } catch (InvalidPurchaseException e) {
+        assertTrue(System.nanoTime() < deadline);
+        Thread.onSpinWait();
+      }
+    }
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+    assertThrows(InvalidPurchaseException.class, breaker::acquirePermission);
+  }
+
+
+  /**
+   * Test racing callers let just one trial call through
+   */
+  @Test
+  void acquirePermission_racingForTrial_letsOneThrough() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 1, Duration.ofMillis(200));
+    breaker.onFailure();
+    Thread.sleep(250);
+
+    AtomicInteger allowed = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      for (int t = 0; t < 8; t++) {
+        executor.submit(() -> {
+          start.await();
+          try {
+            breaker.acquirePermission();
+            allowed.incrementAndGet();
+          } catch (InvalidPurchaseException e) {
+            // Rejected
+          }
+          return null;
+        });
+      }
+      start.countDown();
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, allowed.get());
+    assertEquals(1, breaker.getHalfOpenedCount());
+    assertEquals(7, breaker.getRejectedCount());
+  }
+
+
+  /**
+   * Test the MXBean is registered and reports the state
+   */
+  @Test
+  void registerMBean_registers() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 1, Duration.ofMinutes(1));
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    breaker.registerMBean(server);
+    breaker.onFailure();
+
+    ObjectName name = new ObjectName(PurchaseMetrics.JMX_DOMAIN + ":type=CircuitBreaker,name="
+        + ObjectName.quote("Payment service"));
+    assertEquals("OPEN", server.getAttribute(name, "State"));
+    assertEquals(1L, server.getAttribute(name, "OpenedCount"));
+  }
+}
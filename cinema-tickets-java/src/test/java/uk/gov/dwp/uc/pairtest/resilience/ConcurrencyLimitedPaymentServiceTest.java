@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ConcurrencyLimitedPaymentServiceTest {
+
+  /**
+   * Test payments are passed through, and batches take a single slot
+   */
+  @Test
+  void makePayment_withinLimit_callsService() {
+    TicketPaymentService delegate = mock(TicketPaymentService.class);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 1, 1, 1, 0, Duration.ZERO);
+    TicketPaymentService service = new ConcurrencyLimitedPaymentService(delegate, limiter);
+
+    service.makePayment(1L, 25);
+    service.makePayments(new long[]{1L, 2L}, new int[]{25, 15});
+
+    verify(delegate).makePayment(1L, 25);
+    verify(delegate).makePayments(new long[]{1L, 2L}, new int[]{25, 15});
+    assertEquals(0, limiter.getInFlight());
+  }
+
+
+  /**
+   * Test payments over the limit are shed without calling the service
+   */
+  @Test
+  void makePayment_overLimit_isShed() {
+    TicketPaymentService delegate = mock(TicketPaymentService.class);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Payment service", 1, 1, 1, 0, Duration.ZERO);
+    TicketPaymentService service = new ConcurrencyLimitedPaymentService(delegate, limiter);
+    limiter.acquire();
+
+    assertThrows(InvalidPurchaseException.class, () -> service.makePayment(1L, 25));
+    verifyNoInteractions(delegate);
+  }
+}
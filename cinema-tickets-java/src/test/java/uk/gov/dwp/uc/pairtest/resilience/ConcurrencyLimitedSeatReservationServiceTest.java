@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ConcurrencyLimitedSeatReservationServiceTest {
+
+  /**
+   * Test reservations are passed through, and batches take a single slot
+   */
+  @Test
+  void reserveSeat_withinLimit_callsService() {
+    SeatReservationService delegate = mock(SeatReservationService.class);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Seat reservation service", 1, 1, 1, 0, Duration.ZERO);
+    SeatReservationService service = new ConcurrencyLimitedSeatReservationService(delegate, limiter);
+
+    service.reserveSeat(1L, 2);
+    service.reserveSeats(new long[]{1L, 2L}, new int[]{25, 15});
+
+    verify(delegate).reserveSeat(1L, 2);
+    verify(delegate).reserveSeats(new long[]{1L, 2L}, new int[]{25, 15});
+    assertEquals(0, limiter.getInFlight());
+  }
+
+
+  /**
+   * Test reservations over the limit are shed without calling the service
+   */
+  @Test
+  void reserveSeat_overLimit_isShed() {
+    SeatReservationService delegate = mock(SeatReservationService.class);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Seat reservation service", 1, 1, 1, 0, Duration.ZERO);
+    SeatReservationService service = new ConcurrencyLimitedSeatReservationService(delegate, limiter);
+    limiter.acquire();
+
+    assertThrows(InvalidPurchaseException.class, () -> service.reserveSeat(1L, 2));
+    verifyNoInteractions(delegate);
+  }
+}
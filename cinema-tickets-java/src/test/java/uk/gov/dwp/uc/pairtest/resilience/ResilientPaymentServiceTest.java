@@ -0,0 +1,84 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ResilientPaymentServiceTest {
+
+  /**
+   * Test payments are passed through
+   */
+  @Test
+  void makePayment_healthyService_callsService() {
+    TicketPaymentService delegate = mock(TicketPaymentService.class);
+    try (Bulkhead bulkhead = new Bulkhead("Payment service", 1, 0, Duration.ofSeconds(5))) {
+      TicketPaymentService service = new ResilientPaymentService(delegate, bulkhead,
+          new CircuitBreaker("Payment service", 1, Duration.ofMinutes(1)));
+
+      service.makePayment(1L, 25);
+      service.makePayments(new long[]{1L, 2L}, new int[]{25, 15});
+
+      verify(delegate).makePayment(1L, 25);
+      verify(delegate).makePayments(new long[]{1L, 2L}, new int[]{25, 15});
+    }
+  }
+
+
+  /**
+   * Test payments fail fast, without calling the service, once it has failed enough
+   */
+  @Test
+  void makePayment_failingService_failsFast() {
+    TicketPaymentService delegate = mock(TicketPaymentService.class);
+    doThrow(new IllegalStateException("Gateway down")).when(delegate).makePayment(1L, 25);
+    try (Bulkhead bulkhead = new Bulkhead("Payment service", 1, 0, Duration.ofSeconds(5))) {
+      TicketPaymentService service = new ResilientPaymentService(delegate, bulkhead,
+          new CircuitBreaker("Payment service", 2, Duration.ofMinutes(1)));
+
+      assertThrows(IllegalStateException.class, () -> service.makePayment(1L, 25));
+      assertThrows(IllegalStateException.class, () -> service.makePayment(1L, 25));
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> service.makePayment(1L, 25));
+
+      assertEquals(RejectionReason.UNAVAILABLE, ex.getReason());
+      verify(delegate, times(2)).makePayment(1L, 25);
+    }
+  }
+
+
+  /**
+   * Test timeouts count as failures
+   */
+  @Test
+  void makePayment_hungService_timesOutAndOpens() {
+    TicketPaymentService delegate = mock(TicketPaymentService.class);
+    doAnswer(invocation -> {
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }).when(delegate).makePayment(1L, 25);
+    CircuitBreaker breaker = new CircuitBreaker("Payment service", 1, Duration.ofMinutes(1));
+    try (Bulkhead bulkhead = new Bulkhead("Payment service", 1, 0, Duration.ofMillis(20))) {
+      TicketPaymentService service = new ResilientPaymentService(delegate, bulkhead, breaker);
+
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> service.makePayment(1L, 25));
+
+      assertEquals(RejectionReason.TIMED_OUT, ex.getReason());
+      assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Test;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ResilientSeatReservationServiceTest {
+
+  /**
+   * Test reservations are passed through
+   */
+  @Test
+  void reserveSeat_healthyService_callsService() {
+    SeatReservationService delegate = mock(SeatReservationService.class);
+    try (Bulkhead bulkhead = new Bulkhead("Seat reservation service", 1, 0, Duration.ofSeconds(5))) {
+      SeatReservationService service = new ResilientSeatReservationService(delegate, bulkhead,
+          new CircuitBreaker("Seat reservation service", 1, Duration.ofMinutes(1)));
+
+      service.reserveSeat(1L, 2);
+      service.reserveSeats(new long[]{1L, 2L}, new int[]{25, 15});
+
+      verify(delegate).reserveSeat(1L, 2);
+      verify(delegate).reserveSeats(new long[]{1L, 2L}, new int[]{25, 15});
+    }
+  }
+
+
+  /**
+   * Test reservations fail fast, without calling the service, once it has failed enough
+   */
+  @Test
+  void reserveSeat_failingService_failsFast() {
+    SeatReservationService delegate = mock(SeatReservationService.class);
+    doThrow(new IllegalStateException("Booking down")).when(delegate).reserveSeat(1L, 2);
+    try (Bulkhead bulkhead = new Bulkhead("Seat reservation service", 1, 0, Duration.ofSeconds(5))) {
+      SeatReservationService service = new ResilientSeatReservationService(delegate, bulkhead,
+          new CircuitBreaker("Seat reservation service", 2, Duration.ofMinutes(1)));
+
+      assertThrows(IllegalStateException.class, () -> service.reserveSeat(1L, 2));
+      assertThrows(IllegalStateException.class, () -> service.reserveSeat(1L, 2));
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> service.reserveSeat(1L, 2));
+
+      assertEquals(RejectionReason.UNAVAILABLE, ex.getReason());
+      verify(delegate, times(2)).reserveSeat(1L, 2);
+    }
+  }
+
+
+  /**
+   * Test timeouts count as failures
+   */
+  @Test
+  void reserveSeat_hungService_timesOutAndOpens() {
+    SeatReservationService delegate = mock(SeatReservationService.class);
+    doAnswer(invocation -> {
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    }).when(delegate).reserveSeat(1L, 2);
+    CircuitBreaker breaker = new CircuitBreaker("Seat reservation service", 1, Duration.ofMinutes(1));
+    try (Bulkhead bulkhead = new Bulkhead("Seat reservation service", 1, 0, Duration.ofMillis(20))) {
+      SeatReservationService service = new ResilientSeatReservationService(delegate, bulkhead, breaker);
+
+      InvalidPurchaseException ex = assertThrows(InvalidPurchaseException.class, () -> service.reserveSeat(1L, 2));
+
+      assertEquals(RejectionReason.TIMED_OUT, ex.getReason());
+      assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CompensatorTest {
+
+  private ScheduledExecutorService scheduler;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+
+  /**
+   * Test compensations run in order, in the background
+   */
+  @Test
+  void submit_runsInOrder() throws Exception {
+    Compensator compensator = new Compensator(scheduler, 3, Duration.ofMillis(1));
+    List<String> ran = new CopyOnWriteArrayList<>();
+
+    compensator.submit(List.of(() -> ran.add("release"), () -> ran.add("refund")));
+
+    awaitDone(compensator);
+    assertEquals(List.of("release", "refund"), ran);
+    assertEquals(2, compensator.getCompletedCount());
+  }
+
+
+  /**
+   * Test a failing compensation is retried until it succeeds
+   */
+  @Test
+  void submit_withTransientFailure_retries() throws Exception {
+    Compensator compensator = new Compensator(scheduler, 3, Duration.ofMillis(1));
+    AtomicInteger attempts = new AtomicInteger();
+
+    compensator.submit(List.of(() -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new IllegalStateException("Gateway down");
+      }
+    }));
+
+    awaitDone(compensator);
+    assertEquals(3, attempts.get());
+    assertEquals(2, compensator.getRetryCount());
+    assertEquals(0, compensator.getFailedCount());
+  }
+
+
+  /**
+   * Test a compensation is given up on after the last attempt, and the rest still run
+   */
+  @Test
+  void submit_withPersistentFailure_givesUpAndCarriesOn() throws Exception {
+    Compensator compensator = new Compensator(scheduler, 2, Duration.ofMillis(1));
+    AtomicInteger attempts = new AtomicInteger();
+
+    compensator.submit(List.of(() -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("Gateway down");
+    }, () -> { }));
+
+    awaitDone(compensator);
+    assertEquals(2, attempts.get());
+    assertEquals(1, compensator.getFailedCount());
+    assertEquals(1, compensator.getCompletedCount());
+  }
+
+
+  /**
+   * Test a compensation the service doesn't support is given up on without retrying
+   */
+  @Test
+  void submit_withUnsupportedCompensation_givesUpAtOnce() throws Exception {
+    Compensator compensator = new Compensator(scheduler, 3, Duration.ofMillis(1));
+    TicketPaymentService payments = (accountId, amount) -> { };
+
+    compensator.submit(List.of(Compensation.refund(payments, 7, 25)));
+
+    awaitDone(compensator);
+    assertEquals(0, compensator.getRetryCount());
+    assertEquals(1, compensator.getFailedCount());
+  }
+
+
+  /**
+   * Test the callback runs once every compensation has succeeded, but not if one is given up on
+   */
+  @Test
+  void submit_withCallback_runsOnlyIfAllSucceed() throws Exception {
+    Compensator compensator = new Compensator(scheduler, 2, Duration.ofMillis(1));
+    AtomicInteger compensated = new AtomicInteger();
+
+    compensator.submit(List.of(() -> { }, () -> { }), compensated::incrementAndGet);
+    compensator.submit(List.of(() -> {
+      throw new IllegalStateException("Gateway down");
+    }, () -> { }), compensated::incrementAndGet);
+    compensator.submit(List.of(), compensated::incrementAndGet);
+
+    awaitDone(compensator);
+    assertEquals(2, compensated.get());
+  }
+
+
+  /**
+   * Test compensations that can't be scheduled are counted as failed
+   */
+  @Test
+  void submit_afterShutdown_countsFailed() {
+    Compensator compensator = new Compensator(scheduler, 2, Duration.ofMillis(1));
+    scheduler.shutdown();
+
+    compensator.submit(List.of(() -> { }, () -> { }));
+
+    assertEquals(2, compensator.getFailedCount());
+    assertEquals(0, compensator.getPendingCount());
+  }
+
+  /**
+   * Test a compensation describes what it's for, which is what's logged if it's given up on
+   */
+  @Test
+  void compensation_describesAccountAndAmount() {
+    Compensation refund = Compensation.refund(mock(TicketPaymentService.class), 7, 25);
+
+    assertEquals("refund", refund.getAction());
+    assertEquals(7, refund.getAccountId());
+    assertEquals(25, refund.getAmount());
+    assertEquals("refund of 25 for account 7", refund.toString());
+  }
+
+  private static void awaitDone(Compensator compensator) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (compensator.getPendingCount() > 0) {
+      assertTrue(System.nanoTime() < deadline, "Compensations still pending");
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PurchaseSagaTest {
+
+  private Compensator compensator;
+  private PurchaseSaga saga;
+
+  @BeforeEach
+  void setUp() {
+    compensator = mock(Compensator.class);
+    saga = new PurchaseSaga(compensator);
+  }
+
+
+  /**
+   * Test nothing is undone unless the purchase is aborted
+   */
+  @Test
+  void completed_withoutAbort_compensatesNothing() {
+    saga.completed(() -> { });
+
+    verify(compensator, never()).submit(anyList());
+  }
+
+
+  /**
+   * Test aborting undoes the completed steps, most recent first
+   */
+  @Test
+  void abort_compensatesInReverseOrder() {
+    Runnable refund = () -> { };
+    Runnable release = () -> { };
+    saga.completed(refund);
+    saga.completed(release);
+
+    saga.abort();
+
+    verify(compensator).submit(List.of(release, refund), null);
+  }
+
+
+  /**
+   * Test the compensator is told what to do once the steps are undone
+   */
+  @Test
+  void abort_withCallback_passesItOn() {
+    Runnable refund = () -> { };
+    Runnable onCompensated = () -> { };
+    saga.completed(refund);
+
+    saga.abort(onCompensated);
+
+    verify(compensator).submit(List.of(refund), onCompensated);
+  }
+
+
+  /**
+   * Test a step completing after the abort is undone straight away
+   */
+  @Test
+  void completed_afterAbort_compensatesStraightAway() {
+    Runnable release = () -> { };
+    saga.abort();
+
+    saga.completed(release);
+
+    verify(compensator).submit(List.of(release));
+  }
+}
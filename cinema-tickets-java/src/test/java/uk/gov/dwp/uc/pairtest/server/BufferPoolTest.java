@@ -0,0 +1,63 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+  /**
+   * Test buffers are direct, of the size given, and handed out cleared
+   */
+  @Test
+  void acquire_returnsClearedDirectBuffer() {
+    BufferPool pool = new BufferPool(64, 2);
+
+    ByteBuffer buffer = pool.acquire();
+    assertTrue(buffer.isDirect());
+    assertEquals(64, buffer.capacity());
+
+    buffer.putLong(1).flip();
+    pool.release(buffer);
+    ByteBuffer again = pool.acquire();
+
+    assertSame(buffer, again);
+    assertEquals(0, again.position());
+    assertEquals(64, again.limit());
+  }
+
+
+  /**
+   * Test the pool keeps no more than its size
+   */
+  @Test
+  void release_whenFull_dropsBuffer() {
+    BufferPool pool = new BufferPool(16, 1);
+    ByteBuffer first = pool.acquire();
+    ByteBuffer second = pool.acquire();
+    assertNotSame(first, second);
+
+    pool.release(first);
+    pool.release(second);
+
+    assertEquals(1, pool.getPooledCount());
+    assertSame(first, pool.acquire());
+    assertEquals(0, pool.getPooledCount());
+  }
+
+
+  /**
+   * Test invalid sizes are refused
+   */
+  @Test
+  void constructor_withInvalidSize_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> new BufferPool(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new BufferPool(16, 0));
+  }
+}
@@ -0,0 +1,110 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonCodecTest {
+
+  /**
+   * Test a basket is read, with missing counts as zero
+   */
+  @Test
+  void decodeBasket_withValidJson_readsBasket() {
+    BasketRequest request = decode(" {\"accountId\": 42, \"infant\":1,\n\"adult\" : 2} ");
+
+    assertEquals(42, request.getAccountId());
+    assertSame(TicketBasket.of(2, 0, 1), request.getBasket());
+  }
+
+
+  /**
+   * Test a basket with only an account id is empty
+   */
+  @Test
+  void decodeBasket_withNoCounts_isEmpty() {
+    assertSame(TicketBasket.of(0, 0, 0), decode("{\"accountId\":-1}").getBasket());
+    assertEquals(-1, decode("{\"accountId\":-1}").getAccountId());
+  }
+
+
+  /**
+   * Test huge counts are held at the maximum rather than overflowing
+   */
+  @Test
+  void decodeBasket_withHugeCount_saturates() {
+    assertEquals(TicketBasket.of(TicketBasket.MAX_COUNT, 0, 0),
+        decode("{\"accountId\":1,\"adult\":9223372036854775807}").getBasket());
+  }
+
+
+  /**
+   * Test malformed baskets are refused
+   */
+  @Test
+  void decodeBasket_withMalformedJson_throwsException() {
+    String[] malformed = {
+        "",
+        "{}",
+        "{\"adult\":1}",
+        "{\"accountId\":1",
+        "{\"accountId\":1,}",
+        "{\"accountId\":1}x",
+        "{\"accountId\":1,\"accountId\":2}",
+        "{\"accountId\":1,\"senior\":2}",
+        "{\"accountId\":\"1\"}",
+        "{\"accountId\":1.5}",
+        "{\"accountId\":1e3}",
+        "{\"accountId\":92233720368547758070}",
+        "{\"accountId\":1,\"child\":-1}",
+        "{\"accountId:1}"
+    };
+    for (String json : malformed) {
+      assertThrows(IllegalArgumentException.class, () -> decode(json), json);
+    }
+  }
+
+
+  /**
+   * Test results are written with the reason and whether it's worth retrying
+   */
+  @Test
+  void encode_withResults_writesReason() {
+    assertEquals("{\"result\":\"SUCCESS\"}", text(JsonCodec.encode(PurchaseResult.SUCCESS)));
+    assertEquals("{\"result\":\"NO_ADULT\",\"retryable\":false}",
+        text(JsonCodec.encode(PurchaseResult.rejected(RejectionReason.NO_ADULT))));
+    assertEquals("{\"result\":\"OVERLOADED\",\"retryable\":true}", text(JsonCodec.encode(RejectionReason.OVERLOADED)));
+    assertEquals("{\"result\":\"REJECTED\",\"retryable\":false}", text(JsonCodec.encode((RejectionReason) null)));
+  }
+
+
+  /**
+   * Test a quote is written into the buffer given
+   */
+  @Test
+  void encodeQuote_writesAllFields() {
+    byte[] out = new byte[JsonCodec.MAX_QUOTE_LENGTH];
+
+    int length = JsonCodec.encodeQuote(new PurchaseReceipt(Long.MAX_VALUE, 0, 1234, -7), out);
+
+    assertEquals("{\"accountId\":9223372036854775807,\"totalAmount\":0,\"seats\":1234,\"priceVersion\":-7}",
+        new String(out, 0, length, StandardCharsets.US_ASCII));
+  }
+
+  private static BasketRequest decode(String json) {
+    byte[] bytes = json.getBytes(StandardCharsets.US_ASCII);
+    return JsonCodec.decodeBasket(bytes, bytes.length);
+  }
+
+  private static String text(byte[] bytes) {
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+}
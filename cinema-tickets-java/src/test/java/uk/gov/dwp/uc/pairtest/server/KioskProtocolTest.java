@@ -0,0 +1,81 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KioskProtocolTest {
+
+  /**
+   * Test a request frame is the length byte then the fields, big endian
+   */
+  @Test
+  void putRequest_writesFrame() {
+    ByteBuffer out = ByteBuffer.allocate(32);
+
+    KioskProtocol.putRequest(out, (short) 7, 42L, TicketBasket.of(2, 1, 0));
+
+    assertEquals(KioskProtocol.FRAME_LENGTH, out.position());
+    assertTrue(KioskProtocol.FRAME_LENGTH < 16);
+    assertEquals(KioskProtocol.REQUEST_LENGTH, out.get(0));
+    assertEquals(7, out.getShort(1));
+    assertEquals(42L, out.getLong(3));
+    assertEquals(TicketBasket.of(2, 1, 0).getPacked(), out.getInt(11));
+  }
+
+
+  /**
+   * Test every rejection reason has its own outcome code, and reads back
+   */
+  @Test
+  void outcomeOf_withEachReason_readsBack() {
+    for (RejectionReason reason : RejectionReason.values()) {
+      byte outcome = KioskProtocol.outcomeOf(reason);
+
+      assertEquals(reason, KioskProtocol.reasonOf(outcome));
+    }
+    assertEquals(KioskProtocol.REJECTED, KioskProtocol.outcomeOf(null));
+  }
+
+
+  /**
+   * Test the codes kiosks already depend on don't move
+   */
+  @Test
+  void outcomeOf_withReasons_keepsTheirCodes() {
+    assertEquals(1, KioskProtocol.outcomeOf(RejectionReason.RATE_LIMITED));
+    assertEquals(8, KioskProtocol.outcomeOf(RejectionReason.NO_ADULT));
+    assertEquals(16, KioskProtocol.outcomeOf(RejectionReason.NO_ADJACENT_SEATS));
+    assertEquals(17, KioskProtocol.outcomeOf(RejectionReason.KEY_REUSED));
+  }
+
+
+  /**
+   * Test the other outcomes aren't rejection reasons
+   */
+  @Test
+  void reasonOf_withOtherOutcomes_isNull() {
+    assertNull(KioskProtocol.reasonOf(KioskProtocol.SUCCESS));
+    assertNull(KioskProtocol.reasonOf(KioskProtocol.REJECTED));
+    assertNull(KioskProtocol.reasonOf(KioskProtocol.MALFORMED));
+    assertNull(KioskProtocol.reasonOf(KioskProtocol.ERROR));
+  }
+
+
+  /**
+   * Test only baskets using just the count bits are valid
+   */
+  @Test
+  void isValidBasket_withBitsOutsideCounts_isFalse() {
+    assertTrue(KioskProtocol.isValidBasket(TicketBasket.of(1023, 1023, 1023).getPacked()));
+    assertFalse(KioskProtocol.isValidBasket(1 << 30));
+    assertFalse(KioskProtocol.isValidBasket(-1));
+  }
+}
@@ -0,0 +1,191 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class KioskServerTest {
+
+  private TicketService service;
+  private ExecutorService executor;
+  private KioskServer server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    service = mock(TicketService.class);
+    executor = Executors.newFixedThreadPool(2);
+    server = new KioskServer(service, new InetSocketAddress("localhost", 0), executor, 8);
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Test a request is purchased and answered with its sequence number
+   */
+  @Test
+  void purchase_withValidRequest_answersSuccess() throws IOException {
+    try (SocketChannel channel = connect()) {
+      ByteBuffer request = ByteBuffer.allocate(KioskProtocol.FRAME_LENGTH);
+      KioskProtocol.putRequest(request, (short) 99, 1L, TicketBasket.of(2, 1, 0));
+      send(channel, request);
+
+      ByteBuffer response = receive(channel, 1);
+
+      assertEquals(99, response.getShort());
+      assertEquals(KioskProtocol.SUCCESS, response.get());
+    }
+    verify(service).purchaseTickets(1L, TicketBasket.of(2, 1, 0));
+  }
+
+
+  /**
+   * Test many pipelined requests are each answered, in order, with rejections given their reason
+   */
+  @Test
+  void purchase_withPipelinedRequests_answersEachInOrder() throws IOException {
+    doThrow(new InvalidPurchaseException(RejectionReason.NO_ADULT))
+        .when(service).purchaseTickets(2L, TicketBasket.of(0, 1, 0));
+
+    // More than fit in one buffer, so the server has to work through them in rounds
+    int count = 1000;
+    ByteBuffer requests = ByteBuffer.allocate(count * KioskProtocol.FRAME_LENGTH);
+    for (int i = 0; i < count; i++) {
+      boolean rejected = i % 10 == 0;
+      KioskProtocol.putRequest(requests, (short) i, rejected ? 2L : 1L,
+          rejected ? TicketBasket.of(0, 1, 0) : TicketBasket.of(1, 0, 0));
+    }
+
+    try (SocketChannel channel = connect()) {
+      send(channel, requests);
+      ByteBuffer responses = receive(channel, count);
+
+      for (int i = 0; i < count; i++) {
+        assertEquals((short) i, responses.getShort());
+        assertEquals(i % 10 == 0 ? KioskProtocol.outcomeOf(RejectionReason.NO_ADULT) : KioskProtocol.SUCCESS,
+            responses.get());
+      }
+    }
+    verify(service, times(count - count / 10)).purchaseTickets(1L, TicketBasket.of(1, 0, 0));
+  }
+
+
+  /**
+   * Test a basket with bits set outside the counts is answered as malformed, without reaching the service
+   */
+  @Test
+  void purchase_withInvalidBasket_answersMalformed() throws IOException {
+    try (SocketChannel channel = connect()) {
+      ByteBuffer request = ByteBuffer.allocate(KioskProtocol.FRAME_LENGTH);
+      request.put((byte) KioskProtocol.REQUEST_LENGTH).putShort((short) 5).putLong(1L).putInt(-1);
+      send(channel, request);
+
+      ByteBuffer response = receive(channel, 1);
+
+      assertEquals(5, response.getShort());
+      assertEquals(KioskProtocol.MALFORMED, response.get());
+    }
+    verifyNoInteractions(service);
+  }
+
+
+  /**
+   * Test extra bytes on the end of a request are skipped
+   */
+  @Test
+  void purchase_withLongerFrame_ignoresExtraBytes() throws IOException {
+    try (SocketChannel channel = connect()) {
+      ByteBuffer request = ByteBuffer.allocate(64);
+      request.put((byte) (KioskProtocol.REQUEST_LENGTH + 3)).putShort((short) 1).putLong(1L)
+          .putInt(TicketBasket.of(1, 0, 0).getPacked()).put(new byte[3]);
+      KioskProtocol.putRequest(request, (short) 2, 1L, TicketBasket.of(1, 0, 0));
+      send(channel, request);
+
+      ByteBuffer responses = receive(channel, 2);
+
+      assertEquals(1, responses.getShort());
+      assertEquals(KioskProtocol.SUCCESS, responses.get());
+      assertEquals(2, responses.getShort());
+      assertEquals(KioskProtocol.SUCCESS, responses.get());
+    }
+  }
+
+
+  /**
+   * Test a frame too short to hold a request closes the connection
+   */
+  @Test
+  void purchase_withShortFrame_closesConnection() throws IOException {
+    try (SocketChannel channel = connect()) {
+      send(channel, ByteBuffer.allocate(4).put((byte) 3).put(new byte[3]));
+
+      assertEquals(-1, channel.read(ByteBuffer.allocate(8)));
+    }
+    verify(service, times(0)).purchaseTickets(anyLong(), any(TicketBasket.class));
+  }
+
+
+  /**
+   * Test the requests before a malformed frame are still answered before the connection is closed
+   */
+  @Test
+  void purchase_withShortFrameAfterRequest_answersRequestThenCloses() throws IOException {
+    try (SocketChannel channel = connect()) {
+      ByteBuffer request = ByteBuffer.allocate(KioskProtocol.FRAME_LENGTH + 4);
+      KioskProtocol.putRequest(request, (short) 7, 1L, TicketBasket.of(1, 0, 0));
+      request.put((byte) 3).put(new byte[3]);
+      send(channel, request);
+
+      ByteBuffer response = receive(channel, 1);
+
+      assertEquals(7, response.getShort());
+      assertEquals(KioskProtocol.SUCCESS, response.get());
+      assertEquals(-1, channel.read(ByteBuffer.allocate(8)));
+    }
+  }
+
+  private SocketChannel connect() throws IOException {
+    return SocketChannel.open(server.getAddress());
+  }
+
+  private static void send(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static ByteBuffer receive(SocketChannel channel, int responses) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(responses * KioskProtocol.RESPONSE_LENGTH);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Connection closed");
+      }
+    }
+    return buffer.flip();
+  }
+}
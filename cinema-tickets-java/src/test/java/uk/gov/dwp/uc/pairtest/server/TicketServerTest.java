@@ -0,0 +1,192 @@
+package uk.gov.dwp.uc.pairtest.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseReceipt;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.RejectionReason;
+import uk.gov.dwp.uc.pairtest.domain.TicketBasket;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TicketServerTest {
+
+  private TicketService service;
+  private TicketServer server;
+  private HttpClient client;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    service = mock(TicketService.class);
+    server = new TicketServer(service, new InetSocketAddress("localhost", 0), 0);
+    server.start();
+    client = HttpClient.newHttpClient();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  /**
+   * Test a basket posted is purchased
+   */
+  @Test
+  void purchase_withValidBasket_purchasesTickets() throws Exception {
+    HttpResponse<String> response = post("/purchase", "{\"accountId\":1,\"adult\":2,\"child\":1}");
+
+    assertEquals(200, response.statusCode());
+    assertEquals("{\"result\":\"SUCCESS\"}", response.body());
+    verify(service).purchaseTickets(1L, TicketBasket.of(2, 1, 0));
+  }
+
+
+  /**
+   * Test rejections come back with the reason and a status that says whether to retry
+   */
+  @Test
+  void purchase_whenRejected_returnsReason() throws Exception {
+    doThrow(new InvalidPurchaseException(RejectionReason.NO_ADULT))
+        .when(service).purchaseTickets(1L, TicketBasket.of(0, 1, 0));
+    doThrow(new InvalidPurchaseException(RejectionReason.RATE_LIMITED))
+        .when(service).purchaseTickets(2L, TicketBasket.of(1, 0, 0));
+
+    HttpResponse<String> response = post("/purchase", "{\"accountId\":1,\"child\":1}");
+    assertEquals(422, response.statusCode());
+    assertEquals("{\"result\":\"NO_ADULT\",\"retryable\":false}", response.body());
+
+    response = post("/purchase", "{\"accountId\":2,\"adult\":1}");
+    assertEquals(429, response.statusCode());
+    assertEquals("{\"result\":\"RATE_LIMITED\",\"retryable\":true}", response.body());
+  }
+
+
+  /**
+   * Test a purchase with an idempotency key goes through the idempotent purchase
+   */
+  @Test
+  void purchase_withIdempotencyKey_usesKey() throws Exception {
+    when(service.tryPurchase(eq("key-1"), eq(1L), any(TicketTypeRequest[].class)))
+        .thenReturn(PurchaseResult.rejected(RejectionReason.OVERLOADED));
+
+    HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/purchase"))
+            .header("Idempotency-Key", "key-1")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"accountId\":1,\"adult\":3}"))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(503, response.statusCode());
+    verify(service).tryPurchase(eq("key-1"), eq(1L), any(TicketTypeRequest[].class));
+  }
+
+
+  /**
+   * Test a quote comes back with the cost and seats
+   */
+  @Test
+  void quote_withValidBasket_returnsQuote() throws Exception {
+    when(service.quote(7L, TicketBasket.of(2, 0, 1))).thenReturn(new PurchaseReceipt(7L, 50, 2, 3));
+
+    HttpResponse<String> response = post("/quote", "{\"accountId\":7,\"adult\":2,\"infant\":1}");
+
+    assertEquals(200, response.statusCode());
+    assertEquals("{\"accountId\":7,\"totalAmount\":50,\"seats\":2,\"priceVersion\":3}", response.body());
+  }
+
+
+  /**
+   * Test bad requests are refused without reaching the service
+   */
+  @Test
+  void purchase_withBadRequest_isRefused() throws Exception {
+    assertEquals(400, post("/purchase", "{\"adult\":1}").statusCode());
+    assertEquals(413, post("/purchase", "{\"accountId\":1" + " ".repeat(TicketServer.MAX_REQUEST_LENGTH) + "}")
+        .statusCode());
+
+    HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/purchase")).GET().build(),
+        HttpResponse.BodyHandlers.ofString());
+    assertEquals(405, response.statusCode());
+    assertEquals("POST", response.headers().firstValue("Allow").orElse(null));
+
+    verifyNoInteractions(service);
+  }
+
+
+  /**
+   * Test pipelined requests on one connection are all answered, in order
+   */
+  @Test
+  void purchase_withPipelinedRequests_answersEach() throws Exception {
+    doThrow(new InvalidPurchaseException(RejectionReason.TOO_MANY_TICKETS, 25))
+        .when(service).purchaseTickets(2L, TicketBasket.of(30, 0, 0));
+
+    StringBuilder requests = new StringBuilder();
+    for (String body : new String[]{"{\"accountId\":1,\"adult\":1}", "{\"accountId\":2,\"adult\":30}",
+        "{\"accountId\":3,\"adult\":1}"}) {
+      requests.append("POST /purchase HTTP/1.1\r\nHost: localhost\r\nContent-Length: ").append(body.length())
+          .append("\r\n\r\n").append(body);
+    }
+
+    try (Socket socket = new Socket("localhost", server.getAddress().getPort())) {
+      OutputStream out = socket.getOutputStream();
+      out.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      assertTrue(readResponse(in).startsWith("HTTP/1.1 200"));
+      assertTrue(readResponse(in).startsWith("HTTP/1.1 422"));
+      assertTrue(readResponse(in).startsWith("HTTP/1.1 200"));
+    }
+
+    verify(service, times(1)).purchaseTickets(1L, TicketBasket.of(1, 0, 0));
+    verify(service, times(1)).purchaseTickets(3L, TicketBasket.of(1, 0, 0));
+  }
+
+  private HttpResponse<String> post(String path, String body) throws Exception {
+    return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+  }
+
+  /**
+   * Read one response, returning its status line
+   */
+  private static String readResponse(BufferedReader in) throws Exception {
+    String status = in.readLine();
+    int length = 0;
+    for (String header = in.readLine(); !header.isEmpty(); header = in.readLine()) {
+      if (header.toLowerCase().startsWith("content-length:")) {
+        length = Integer.parseInt(header.substring("content-length:".length()).trim());
+      }
+    }
+    in.skip(length);
+    return status;
+  }
+}